@@ -0,0 +1,459 @@
+/*
+ * Copyright 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.arch.core.executor;
+
+import androidx.annotation.IntDef;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.RestrictTo;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A {@link DefaultTaskExecutor} whose disk IO pool can be sized, bounds and prioritizes its queue
+ * and measures how long tasks wait before they start.
+ * <p>
+ * Install it with {@link ArchTaskExecutor#setDelegate(TaskExecutor)} to see whether the pool
+ * shared by Room, {@code ComputableLiveData} and paging is saturated:
+ * <pre>
+ * InstrumentedTaskExecutor executor = new InstrumentedTaskExecutor.Builder()
+ *         .setThreadCount(6)
+ *         .setQueueCapacity(256)
+ *         .build();
+ * ArchTaskExecutor.getInstance().setDelegate(executor);
+ * ...
+ * InstrumentedTaskExecutor.Stats stats = executor.getStats();
+ * </pre>
+ * Queued tasks run in order of {@link Priority}, and in submission order within a priority.
+ * Once the queue holds {@link Builder#setQueueCapacity(int) its capacity}, further tasks are
+ * rejected with a {@link RejectedExecutionException}.
+ *
+ * @hide
+ */
+@RestrictTo(RestrictTo.Scope.LIBRARY_GROUP_PREFIX)
+public class InstrumentedTaskExecutor extends DefaultTaskExecutor {
+    /** Priority of tasks which a user is waiting for, such as a query backing a visible UI. */
+    public static final int PRIORITY_HIGH = 0;
+    /** Priority of tasks submitted through {@link #executeOnDiskIO(Runnable)}. */
+    public static final int PRIORITY_NORMAL = 1;
+    /** Priority of background maintenance, such as pruning or prefetching. */
+    public static final int PRIORITY_LOW = 2;
+
+    /** @hide */
+    @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP_PREFIX)
+    @IntDef({PRIORITY_HIGH, PRIORITY_NORMAL, PRIORITY_LOW})
+    @Retention(RetentionPolicy.SOURCE)
+    public @interface Priority {
+    }
+
+    /**
+     * Receives the queueing delay of every task run by an {@link InstrumentedTaskExecutor}.
+     */
+    public interface TaskListener {
+        /**
+         * Called on the worker thread right before a task runs.
+         *
+         * @param priority  The priority the task was submitted with.
+         * @param waitNanos The time between the submission of the task and its start.
+         */
+        void onTaskStarted(@Priority int priority, long waitNanos);
+    }
+
+    private final ThreadPoolExecutor mDiskIO;
+    @Nullable
+    private final TaskListener mListener;
+    private final AtomicLong mSequence = new AtomicLong();
+
+    private final AtomicLong mStartedCount = new AtomicLong();
+    private final AtomicLong mRejectedCount = new AtomicLong();
+    private final AtomicLong mTotalWaitNanos = new AtomicLong();
+    private final AtomicLong mMaxWaitNanos = new AtomicLong();
+    private final AtomicInteger mMaxQueueSize = new AtomicInteger();
+
+    @SuppressWarnings("WeakerAccess") /* synthetic access */
+    InstrumentedTaskExecutor(@NonNull Builder builder) {
+        mListener = builder.mListener;
+        mDiskIO = new ThreadPoolExecutor(builder.mThreadCount, builder.mThreadCount,
+                builder.mKeepAliveMillis, TimeUnit.MILLISECONDS,
+                new BoundedPriorityQueue(builder.mQueueCapacity),
+                new NamedThreadFactory(builder.mUseVirtualThreads),
+                new RejectedExecutionHandler() {
+                    @Override
+                    public void rejectedExecution(Runnable r, ThreadPoolExecutor executor) {
+                        mRejectedCount.incrementAndGet();
+                        throw new RejectedExecutionException("Disk IO queue is full: "
+                                + executor.getQueue().size() + " tasks are waiting");
+                    }
+                });
+        mDiskIO.allowCoreThreadTimeOut(builder.mKeepAliveMillis > 0);
+    }
+
+    @Override
+    public void executeOnDiskIO(@NonNull Runnable runnable) {
+        executeOnDiskIO(runnable, PRIORITY_NORMAL);
+    }
+
+    /**
+     * Executes the given task in the disk IO thread pool, ahead of queued tasks of a lower
+     * priority.
+     *
+     * @param runnable The runnable to run in the disk IO thread pool.
+     * @param priority The priority of the task.
+     * @throws RejectedExecutionException if the queue is full or the executor has been shut down.
+     */
+    public void executeOnDiskIO(@NonNull Runnable runnable, @Priority int priority) {
+        if (priority < PRIORITY_HIGH || priority > PRIORITY_LOW) {
+            throw new IllegalArgumentException("Unknown priority " + priority);
+        }
+        mDiskIO.execute(new Task(runnable, priority, mSequence.getAndIncrement()));
+        final int queueSize = mDiskIO.getQueue().size();
+        int max = mMaxQueueSize.get();
+        while (queueSize > max && !mMaxQueueSize.compareAndSet(max, queueSize)) {
+            max = mMaxQueueSize.get();
+        }
+    }
+
+    /**
+     * Returns a snapshot of the disk IO pool's counters.
+     */
+    @NonNull
+    public Stats getStats() {
+        return new Stats(mDiskIO.getPoolSize(), mDiskIO.getActiveCount(),
+                mDiskIO.getQueue().size(), mMaxQueueSize.get(), mStartedCount.get(),
+                mDiskIO.getCompletedTaskCount(), mRejectedCount.get(), mTotalWaitNanos.get(),
+                mMaxWaitNanos.get());
+    }
+
+    /**
+     * Resets the peak queue size, rejection and wait time counters.
+     */
+    public void resetStats() {
+        mMaxQueueSize.set(0);
+        mStartedCount.set(0);
+        mRejectedCount.set(0);
+        mTotalWaitNanos.set(0);
+        mMaxWaitNanos.set(0);
+    }
+
+    /**
+     * Stops accepting tasks and lets the queued ones run to completion.
+     */
+    public void shutdown() {
+        mDiskIO.shutdown();
+    }
+
+    /**
+     * Blocks until all queued tasks have completed after a {@link #shutdown()}, or the timeout
+     * elapses.
+     *
+     * @return {@code true} if all tasks completed, {@code false} if the timeout elapsed first
+     */
+    public boolean awaitTermination(long timeout, @NonNull TimeUnit unit)
+            throws InterruptedException {
+        return mDiskIO.awaitTermination(timeout, unit);
+    }
+
+    @SuppressWarnings("WeakerAccess") /* synthetic access */
+    void onTaskStarted(Task task) {
+        final long wait = System.nanoTime() - task.mEnqueueTimeNanos;
+        mStartedCount.incrementAndGet();
+        mTotalWaitNanos.addAndGet(wait);
+        long max = mMaxWaitNanos.get();
+        while (wait > max && !mMaxWaitNanos.compareAndSet(max, wait)) {
+            max = mMaxWaitNanos.get();
+        }
+        if (mListener != null) {
+            mListener.onTaskStarted(task.mPriority, wait);
+        }
+    }
+
+    /**
+     * Counters of an {@link InstrumentedTaskExecutor}'s disk IO pool, as returned by
+     * {@link #getStats()}.
+     */
+    public static final class Stats {
+        private final int mPoolSize;
+        private final int mActiveCount;
+        private final int mQueueSize;
+        private final int mMaxQueueSize;
+        private final long mStartedTaskCount;
+        private final long mCompletedTaskCount;
+        private final long mRejectedTaskCount;
+        private final long mTotalWaitNanos;
+        private final long mMaxWaitNanos;
+
+        @SuppressWarnings("WeakerAccess") /* synthetic access */
+        Stats(int poolSize, int activeCount, int queueSize, int maxQueueSize,
+                long startedTaskCount, long completedTaskCount, long rejectedTaskCount,
+                long totalWaitNanos, long maxWaitNanos) {
+            mPoolSize = poolSize;
+            mActiveCount = activeCount;
+            mQueueSize = queueSize;
+            mMaxQueueSize = maxQueueSize;
+            mStartedTaskCount = startedTaskCount;
+            mCompletedTaskCount = completedTaskCount;
+            mRejectedTaskCount = rejectedTaskCount;
+            mTotalWaitNanos = totalWaitNanos;
+            mMaxWaitNanos = maxWaitNanos;
+        }
+
+        /** Returns the number of threads currently in the pool. */
+        public int getPoolSize() {
+            return mPoolSize;
+        }
+
+        /** Returns the approximate number of threads which are running a task. */
+        public int getActiveCount() {
+            return mActiveCount;
+        }
+
+        /** Returns the number of tasks waiting for a thread. */
+        public int getQueueSize() {
+            return mQueueSize;
+        }
+
+        /** Returns the largest number of tasks seen waiting for a thread. */
+        public int getMaxQueueSize() {
+            return mMaxQueueSize;
+        }
+
+        /** Returns the number of tasks which have started running. */
+        public long getStartedTaskCount() {
+            return mStartedTaskCount;
+        }
+
+        /** Returns the approximate number of tasks which have finished running. */
+        public long getCompletedTaskCount() {
+            return mCompletedTaskCount;
+        }
+
+        /** Returns the number of tasks rejected because the queue was full. */
+        public long getRejectedTaskCount() {
+            return mRejectedTaskCount;
+        }
+
+        /** Returns the mean time between the submission of a task and its start. */
+        public long getAverageWaitNanos() {
+            return mStartedTaskCount == 0 ? 0 : mTotalWaitNanos / mStartedTaskCount;
+        }
+
+        /** Returns the longest time between the submission of a task and its start. */
+        public long getMaxWaitNanos() {
+            return mMaxWaitNanos;
+        }
+
+        @NonNull
+        @Override
+        public String toString() {
+            return "Stats{poolSize=" + mPoolSize
+                    + ", active=" + mActiveCount
+                    + ", queued=" + mQueueSize
+                    + ", maxQueued=" + mMaxQueueSize
+                    + ", started=" + mStartedTaskCount
+                    + ", completed=" + mCompletedTaskCount
+                    + ", rejected=" + mRejectedTaskCount
+                    + ", avgWaitNanos=" + getAverageWaitNanos()
+                    + ", maxWaitNanos=" + mMaxWaitNanos
+                    + "}";
+        }
+    }
+
+    /**
+     * Builder for {@link InstrumentedTaskExecutor}.
+     */
+    public static final class Builder {
+        @SuppressWarnings("WeakerAccess") /* synthetic access */
+        int mThreadCount = 4;
+        @SuppressWarnings("WeakerAccess") /* synthetic access */
+        int mQueueCapacity = Integer.MAX_VALUE;
+        @SuppressWarnings("WeakerAccess") /* synthetic access */
+        long mKeepAliveMillis;
+        @SuppressWarnings("WeakerAccess") /* synthetic access */
+        boolean mUseVirtualThreads;
+        @Nullable
+        @SuppressWarnings("WeakerAccess") /* synthetic access */
+        TaskListener mListener;
+
+        /**
+         * Sets the number of threads of the disk IO pool. The default, 4, is the size of the
+         * {@link DefaultTaskExecutor}'s pool.
+         */
+        @NonNull
+        public Builder setThreadCount(int threadCount) {
+            if (threadCount <= 0) {
+                throw new IllegalArgumentException("threadCount must be positive");
+            }
+            mThreadCount = threadCount;
+            return this;
+        }
+
+        /**
+         * Sets how many tasks may wait for a thread before new ones are rejected. The queue is
+         * unbounded by default.
+         */
+        @NonNull
+        public Builder setQueueCapacity(int queueCapacity) {
+            if (queueCapacity <= 0) {
+                throw new IllegalArgumentException("queueCapacity must be positive");
+            }
+            mQueueCapacity = queueCapacity;
+            return this;
+        }
+
+        /**
+         * Sets how long an idle thread is kept before it terminates. By default, threads are
+         * kept forever like those of the {@link DefaultTaskExecutor}.
+         */
+        @NonNull
+        public Builder setKeepAlive(long keepAlive, @NonNull TimeUnit unit) {
+            if (keepAlive < 0) {
+                throw new IllegalArgumentException("keepAlive cannot be negative");
+            }
+            mKeepAliveMillis = unit.toMillis(keepAlive);
+            return this;
+        }
+
+        /**
+         * Creates the threads of the disk IO pool as virtual threads when the runtime provides
+         * them, which is the case on JVMs from version 21. Elsewhere, including on Android,
+         * platform threads are used.
+         * <p>
+         * The pool keeps {@link #setThreadCount(int) its thread count} either way, so this does
+         * not let more tasks run or block at once. It only makes the threads cheaper to create,
+         * for tests running on a JVM.
+         */
+        @NonNull
+        public Builder setUseVirtualThreads(boolean useVirtualThreads) {
+            mUseVirtualThreads = useVirtualThreads;
+            return this;
+        }
+
+        /**
+         * Sets a listener which receives the queueing delay of every task.
+         */
+        @NonNull
+        public Builder setTaskListener(@Nullable TaskListener listener) {
+            mListener = listener;
+            return this;
+        }
+
+        /**
+         * Creates the {@link InstrumentedTaskExecutor}.
+         */
+        @NonNull
+        public InstrumentedTaskExecutor build() {
+            return new InstrumentedTaskExecutor(this);
+        }
+    }
+
+    private final class Task implements Runnable, Comparable<Task> {
+        @NonNull
+        private final Runnable mRunnable;
+        @SuppressWarnings("WeakerAccess") /* synthetic access */
+        final int mPriority;
+        private final long mSequence;
+        @SuppressWarnings("WeakerAccess") /* synthetic access */
+        final long mEnqueueTimeNanos = System.nanoTime();
+
+        Task(@NonNull Runnable runnable, int priority, long sequence) {
+            mRunnable = runnable;
+            mPriority = priority;
+            mSequence = sequence;
+        }
+
+        @Override
+        public void run() {
+            onTaskStarted(this);
+            mRunnable.run();
+        }
+
+        @Override
+        public int compareTo(Task other) {
+            if (mPriority != other.mPriority) {
+                return mPriority < other.mPriority ? -1 : 1;
+            }
+            return mSequence < other.mSequence ? -1 : (mSequence == other.mSequence ? 0 : 1);
+        }
+    }
+
+    /**
+     * A priority queue which refuses offers past its capacity, so that the pool rejects tasks
+     * instead of queueing them without bound.
+     */
+    private static final class BoundedPriorityQueue extends PriorityBlockingQueue<Runnable> {
+        private static final long serialVersionUID = 1L;
+
+        private final int mCapacity;
+
+        BoundedPriorityQueue(int capacity) {
+            mCapacity = capacity;
+        }
+
+        // Only the pool offers tasks and draining only makes room, so checking the size under
+        // our own lock keeps the bound exact.
+        @Override
+        public synchronized boolean offer(Runnable runnable) {
+            return size() < mCapacity && super.offer(runnable);
+        }
+
+        @Override
+        public int remainingCapacity() {
+            return mCapacity - size();
+        }
+    }
+
+    private static final class NamedThreadFactory implements ThreadFactory {
+        private static final String THREAD_NAME_STEM = "arch_disk_io_%d";
+
+        private final AtomicInteger mThreadId = new AtomicInteger(0);
+        @Nullable
+        private final ThreadFactory mVirtualThreadFactory;
+
+        NamedThreadFactory(boolean useVirtualThreads) {
+            mVirtualThreadFactory = useVirtualThreads ? createVirtualThreadFactory() : null;
+        }
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread t = mVirtualThreadFactory != null
+                    ? mVirtualThreadFactory.newThread(r) : new Thread(r);
+            t.setName(String.format(THREAD_NAME_STEM, mThreadId.getAndIncrement()));
+            return t;
+        }
+
+        // Thread.ofVirtual().factory(), looked up reflectively as it only exists on newer JVMs.
+        @Nullable
+        private static ThreadFactory createVirtualThreadFactory() {
+            try {
+                Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+                return (ThreadFactory) Class.forName("java.lang.Thread$Builder")
+                        .getMethod("factory").invoke(builder);
+            } catch (Exception e) {
+                return null;
+            }
+        }
+    }
+}
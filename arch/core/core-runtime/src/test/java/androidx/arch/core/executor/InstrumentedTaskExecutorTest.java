@@ -0,0 +1,169 @@
+/*
+ * Copyright 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.arch.core.executor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+@RunWith(JUnit4.class)
+public class InstrumentedTaskExecutorTest {
+    private InstrumentedTaskExecutor mExecutor;
+
+    @After
+    public void shutdown() throws InterruptedException {
+        if (mExecutor != null) {
+            mExecutor.shutdown();
+            assertTrue(mExecutor.awaitTermination(5, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    public void queuedTasksRunByPriority() throws InterruptedException {
+        mExecutor = new InstrumentedTaskExecutor.Builder().setThreadCount(1).build();
+        final CountDownLatch release = block(mExecutor);
+        final List<String> order = new ArrayList<>();
+        mExecutor.executeOnDiskIO(record(order, "low"), InstrumentedTaskExecutor.PRIORITY_LOW);
+        mExecutor.executeOnDiskIO(record(order, "normal1"));
+        mExecutor.executeOnDiskIO(record(order, "high"), InstrumentedTaskExecutor.PRIORITY_HIGH);
+        mExecutor.executeOnDiskIO(record(order, "normal2"));
+        release.countDown();
+        mExecutor.shutdown();
+        assertTrue(mExecutor.awaitTermination(5, TimeUnit.SECONDS));
+        assertEquals(Arrays.asList("high", "normal1", "normal2", "low"), order);
+    }
+
+    @Test
+    public void fullQueueRejects() throws InterruptedException {
+        mExecutor = new InstrumentedTaskExecutor.Builder()
+                .setThreadCount(1)
+                .setQueueCapacity(2)
+                .build();
+        final CountDownLatch release = block(mExecutor);
+        mExecutor.executeOnDiskIO(noop());
+        mExecutor.executeOnDiskIO(noop());
+        try {
+            mExecutor.executeOnDiskIO(noop());
+            fail("Expected the queue to be full");
+        } catch (RejectedExecutionException expected) {
+        }
+        InstrumentedTaskExecutor.Stats stats = mExecutor.getStats();
+        assertEquals(2, stats.getQueueSize());
+        assertEquals(2, stats.getMaxQueueSize());
+        assertEquals(1, stats.getRejectedTaskCount());
+        release.countDown();
+    }
+
+    @Test
+    public void waitTimesAreMeasured() throws InterruptedException {
+        final AtomicLong reportedWait = new AtomicLong();
+        mExecutor = new InstrumentedTaskExecutor.Builder()
+                .setThreadCount(1)
+                .setTaskListener(new InstrumentedTaskExecutor.TaskListener() {
+                    @Override
+                    public void onTaskStarted(int priority, long waitNanos) {
+                        reportedWait.set(Math.max(reportedWait.get(), waitNanos));
+                    }
+                })
+                .build();
+        final CountDownLatch release = block(mExecutor);
+        mExecutor.executeOnDiskIO(noop());
+        Thread.sleep(50);
+        release.countDown();
+        mExecutor.shutdown();
+        assertTrue(mExecutor.awaitTermination(5, TimeUnit.SECONDS));
+
+        InstrumentedTaskExecutor.Stats stats = mExecutor.getStats();
+        assertEquals(2, stats.getStartedTaskCount());
+        assertEquals(2, stats.getCompletedTaskCount());
+        assertTrue(stats.getMaxWaitNanos() >= TimeUnit.MILLISECONDS.toNanos(50));
+        assertEquals(stats.getMaxWaitNanos(), reportedWait.get());
+
+        mExecutor.resetStats();
+        assertEquals(0, mExecutor.getStats().getMaxWaitNanos());
+    }
+
+    @Test
+    public void virtualThreadsRunTasks() throws InterruptedException {
+        mExecutor = new InstrumentedTaskExecutor.Builder().setUseVirtualThreads(true).build();
+        final CountDownLatch ran = new CountDownLatch(1);
+        mExecutor.executeOnDiskIO(new Runnable() {
+            @Override
+            public void run() {
+                assertTrue(Thread.currentThread().getName().startsWith("arch_disk_io_"));
+                ran.countDown();
+            }
+        });
+        assertTrue(ran.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void unknownPriority() {
+        mExecutor = new InstrumentedTaskExecutor.Builder().build();
+        mExecutor.executeOnDiskIO(noop(), 3);
+    }
+
+    /** Occupies the single thread of the executor until the returned latch is released. */
+    private static CountDownLatch block(InstrumentedTaskExecutor executor)
+            throws InterruptedException {
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        executor.executeOnDiskIO(new Runnable() {
+            @Override
+            public void run() {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        return release;
+    }
+
+    private static Runnable record(final List<String> order, final String name) {
+        return new Runnable() {
+            @Override
+            public void run() {
+                order.add(name);
+            }
+        };
+    }
+
+    private static Runnable noop() {
+        return new Runnable() {
+            @Override
+            public void run() {
+            }
+        };
+    }
+}
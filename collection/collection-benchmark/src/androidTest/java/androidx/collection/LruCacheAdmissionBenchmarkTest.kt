@@ -0,0 +1,88 @@
+/*
+ * Copyright 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.collection
+
+import androidx.benchmark.junit4.BenchmarkRule
+import androidx.benchmark.junit4.measureRepeated
+import org.junit.Assert.assertTrue
+import org.junit.Assume.assumeTrue
+import org.junit.Rule
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.junit.runners.Parameterized
+import org.junit.runners.Parameterized.Parameters
+import kotlin.random.Random
+
+/**
+ * Replays an access trace of a skewed working set interrupted by one-off scans, comparing plain
+ * LRU against frequency admission. Frequency admission is also checked to keep more of the
+ * working set through the scans than plain LRU does.
+ */
+@RunWith(Parameterized::class)
+class LruCacheAdmissionBenchmarkTest(private val admissionPolicy: Int) {
+    private val trace = IntArray(20_000).also { trace ->
+        val random = Random(0)
+        var scanKey = 1_000_000
+        for (i in trace.indices) {
+            trace[i] = if ((i / 1_000) % 4 == 3) {
+                scanKey++
+            } else {
+                val u = random.nextDouble()
+                (u * u * 1_000).toInt()
+            }
+        }
+    }
+
+    @get:Rule
+    val benchmark = BenchmarkRule()
+
+    @Test
+    fun replayTrace() {
+        benchmark.measureRepeated {
+            replay(admissionPolicy)
+        }
+    }
+
+    @Test
+    fun frequencyAdmissionHitsMoreThanLru() {
+        assumeTrue(admissionPolicy == LruCache.ADMISSION_FREQUENCY)
+        val frequencyHits = replay(LruCache.ADMISSION_FREQUENCY).hitCount()
+        val lruHits = replay(LruCache.ADMISSION_ALWAYS).hitCount()
+        assertTrue(
+            "frequency admission hit $frequencyHits times, LRU $lruHits times",
+            frequencyHits > lruHits
+        )
+    }
+
+    private fun replay(admissionPolicy: Int): LruCache<Int, Int> {
+        val cache = LruCache<Int, Int>(200, admissionPolicy)
+        for (key in trace) {
+            if (cache.get(key) == null) {
+                cache.put(key, key)
+            }
+        }
+        return cache
+    }
+
+    companion object {
+        @JvmStatic
+        @Parameters(name = "admissionPolicy={0}")
+        fun parameters() = buildParameters(
+            listOf(LruCache.ADMISSION_ALWAYS, LruCache.ADMISSION_FREQUENCY)
+        )
+    }
+}
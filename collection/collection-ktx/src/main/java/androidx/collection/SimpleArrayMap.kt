@@ -0,0 +1,29 @@
+/*
+ * Copyright 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.collection
+
+/**
+ * Performs the given [action] for each key/value entry, by index and without allocating.
+ *
+ * Note that for a receiver typed as [ArrayMap], `Map.forEach` is chosen instead where the
+ * platform provides it; call this on a [SimpleArrayMap] reference to avoid allocating.
+ */
+public inline fun <K, V> SimpleArrayMap<K, V>.forEach(action: (key: K, value: V) -> Unit) {
+    for (index in 0 until size()) {
+        action(keyAt(index), valueAt(index))
+    }
+}
@@ -0,0 +1,38 @@
+/*
+ * Copyright 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.collection
+
+import com.google.common.truth.Truth.assertThat
+import org.junit.Assert.fail
+import org.junit.Test
+
+class SimpleArrayMapTest {
+    @Test fun forEach() {
+        val map = SimpleArrayMap<String, Int>()
+        map.forEach { _, _ -> fail() }
+
+        map.put("one", 1)
+        map.put("two", 2)
+        map.put("six", 6)
+
+        val entries = mutableMapOf<String, Int>()
+        map.forEach { key, value ->
+            entries[key] = value
+        }
+        assertThat(entries).containsExactly("one", 1, "two", 2, "six", 6)
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.collection;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares {@link ArrayMap}, and through it {@link SimpleArrayMap}, with {@link HashMap}.  Both
+ * are used through the {@link Map} interface and only one is loaded per fork, so the calls stay
+ * monomorphic.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ArrayMapBenchmark {
+    @Param({"ArrayMap", "HashMap"})
+    public String implementation;
+
+    @Param({"10", "100", "1000", "10000"})
+    public int size;
+
+    @Param({BenchmarkKeys.SEQUENTIAL, BenchmarkKeys.RANDOM})
+    public String distribution;
+
+    @Param({"1.0", "0.5"})
+    public double hitRatio;
+
+    private Map<Integer, String> mMap;
+    private Integer[] mProbes;
+    private Integer mAbsentKey;
+    private int mNext;
+
+    @Setup
+    public void setUp() {
+        final int[] keys = BenchmarkKeys.keys(distribution, size);
+        mMap = "ArrayMap".equals(implementation)
+                ? new ArrayMap<Integer, String>() : new HashMap<Integer, String>();
+        for (int key : keys) {
+            mMap.put(key, "value" + key);
+        }
+        mProbes = BenchmarkKeys.boxed(BenchmarkKeys.probes(keys, hitRatio));
+        mAbsentKey = BenchmarkKeys.absentKey(keys);
+    }
+
+    @Benchmark
+    public String get() {
+        final Integer key = mProbes[mNext];
+        mNext = (mNext + 1) & (BenchmarkKeys.PROBE_COUNT - 1);
+        return mMap.get(key);
+    }
+
+    @Benchmark
+    public String putThenRemove() {
+        mMap.put(mAbsentKey, "absent");
+        return mMap.remove(mAbsentKey);
+    }
+
+    @Benchmark
+    public void iterateEntries(Blackhole blackhole) {
+        for (Map.Entry<Integer, String> entry : mMap.entrySet()) {
+            blackhole.consume(entry.getKey());
+            blackhole.consume(entry.getValue());
+        }
+    }
+}
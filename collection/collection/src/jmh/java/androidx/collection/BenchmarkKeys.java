@@ -0,0 +1,111 @@
+/*
+ * Copyright 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.collection;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Generates the keys the benchmarks insert and look up.  Every set is derived from a fixed seed
+ * so that runs are comparable with each other.
+ */
+final class BenchmarkKeys {
+    /** Keys 0, 1, 2... as produced by ids and positions. */
+    static final String SEQUENTIAL = "sequential";
+    /** Distinct keys spread uniformly over the whole int range, as produced by hash codes. */
+    static final String RANDOM = "random";
+
+    /** The number of lookups to cycle through; a power of two so wrapping is a mask. */
+    static final int PROBE_COUNT = 1024;
+
+    private static final long SEED = 0x5DEECE66DL;
+
+    /** Returns {@code size} distinct keys of the given distribution, in insertion order. */
+    static int[] keys(String distribution, int size) {
+        final int[] keys = new int[size];
+        if (SEQUENTIAL.equals(distribution)) {
+            for (int i = 0; i < size; i++) {
+                keys[i] = i;
+            }
+            return keys;
+        }
+        if (!RANDOM.equals(distribution)) {
+            throw new IllegalArgumentException("Unknown distribution " + distribution);
+        }
+        final Random random = new Random(SEED);
+        final Set<Integer> seen = new HashSet<>();
+        for (int i = 0; i < size; i++) {
+            int key;
+            do {
+                key = random.nextInt();
+            } while (!seen.add(key));
+            keys[i] = key;
+        }
+        return keys;
+    }
+
+    /**
+     * Returns {@link #PROBE_COUNT} lookups of which roughly {@code hitRatio} are members of
+     * {@code keys} and the rest are not.
+     */
+    static int[] probes(int[] keys, double hitRatio) {
+        final Set<Integer> present = new HashSet<>();
+        for (int key : keys) {
+            present.add(key);
+        }
+        final Random random = new Random(SEED + 1);
+        final int[] probes = new int[PROBE_COUNT];
+        for (int i = 0; i < PROBE_COUNT; i++) {
+            if (keys.length > 0 && random.nextDouble() < hitRatio) {
+                probes[i] = keys[random.nextInt(keys.length)];
+            } else {
+                int key;
+                do {
+                    key = random.nextInt();
+                } while (present.contains(key));
+                probes[i] = key;
+            }
+        }
+        return probes;
+    }
+
+    /** Returns a key which is not a member of {@code keys}. */
+    static int absentKey(int[] keys) {
+        final Set<Integer> present = new HashSet<>();
+        for (int key : keys) {
+            present.add(key);
+        }
+        int candidate = -1;
+        while (present.contains(candidate)) {
+            candidate--;
+        }
+        return candidate;
+    }
+
+    /** Boxes {@code keys} ahead of time so that boxing is not measured. */
+    static Integer[] boxed(int[] keys) {
+        final Integer[] boxed = new Integer[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            boxed[i] = keys[i];
+        }
+        return boxed;
+    }
+
+    private BenchmarkKeys() {
+    }
+}
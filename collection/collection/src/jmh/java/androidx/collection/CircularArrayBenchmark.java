@@ -0,0 +1,89 @@
+/*
+ * Copyright 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.collection;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares {@link CircularArray} with {@link ArrayDeque} used as a FIFO queue holding
+ * {@code size} elements.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CircularArrayBenchmark {
+    @Param({"10", "100", "1000", "10000"})
+    public int size;
+
+    private final Object mElement = new Object();
+    private CircularArray<Object> mCircularArray;
+    private ArrayDeque<Object> mArrayDeque;
+
+    @Setup
+    public void setUp() {
+        mCircularArray = new CircularArray<>();
+        mArrayDeque = new ArrayDeque<>();
+        for (int i = 0; i < size; i++) {
+            mCircularArray.addLast(new Object());
+            mArrayDeque.addLast(new Object());
+        }
+    }
+
+    @Benchmark
+    public Object circularArrayAddLastPopFirst() {
+        mCircularArray.addLast(mElement);
+        return mCircularArray.popFirst();
+    }
+
+    @Benchmark
+    public Object arrayDequeAddLastPollFirst() {
+        mArrayDeque.addLast(mElement);
+        return mArrayDeque.pollFirst();
+    }
+
+    @Benchmark
+    public void circularArrayIterate(Blackhole blackhole) {
+        final CircularArray<Object> array = mCircularArray;
+        for (int i = 0, n = array.size(); i < n; i++) {
+            blackhole.consume(array.get(i));
+        }
+    }
+
+    @Benchmark
+    public void arrayDequeIterate(Blackhole blackhole) {
+        for (Object element : mArrayDeque) {
+            blackhole.consume(element);
+        }
+    }
+}
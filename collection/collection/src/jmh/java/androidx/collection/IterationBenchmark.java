@@ -0,0 +1,116 @@
+/*
+ * Copyright 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.collection;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the ways of traversing an {@link ArrayMap} and an {@link ArraySet}.  Run with the GC
+ * profiler, as the {@code jmh} task does, the indexed and cursor traversals should report a
+ * normalized allocation rate of zero bytes per operation, while the collection views allocate an
+ * iterator, and for maps an entry, on every traversal.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class IterationBenchmark {
+    @Param({"10", "100", "1000"})
+    public int size;
+
+    private ArrayMap<Integer, String> mMap;
+    private ArraySet<Integer> mSet;
+    private final SimpleArrayMap.Cursor<Integer, String> mMapCursor =
+            new SimpleArrayMap.Cursor<>();
+    private final ArraySet.Cursor<Integer> mSetCursor = new ArraySet.Cursor<>();
+
+    @Setup
+    public void setUp() {
+        final int[] keys = BenchmarkKeys.keys(BenchmarkKeys.RANDOM, size);
+        mMap = new ArrayMap<>();
+        mSet = new ArraySet<>();
+        for (int key : keys) {
+            mMap.put(key, "value" + key);
+            mSet.add(key);
+        }
+    }
+
+    @Benchmark
+    public void mapEntrySet(Blackhole blackhole) {
+        for (Map.Entry<Integer, String> entry : mMap.entrySet()) {
+            blackhole.consume(entry.getKey());
+            blackhole.consume(entry.getValue());
+        }
+    }
+
+    @Benchmark
+    public void mapIndexed(Blackhole blackhole) {
+        final ArrayMap<Integer, String> map = mMap;
+        for (int i = 0, n = map.size(); i < n; i++) {
+            blackhole.consume(map.keyAt(i));
+            blackhole.consume(map.valueAt(i));
+        }
+    }
+
+    @Benchmark
+    public void mapCursor(Blackhole blackhole) {
+        final SimpleArrayMap.Cursor<Integer, String> cursor = mMapCursor.reset(mMap);
+        while (cursor.moveToNext()) {
+            blackhole.consume(cursor.getKey());
+            blackhole.consume(cursor.getValue());
+        }
+    }
+
+    @Benchmark
+    public void setIterator(Blackhole blackhole) {
+        for (Integer value : mSet) {
+            blackhole.consume(value);
+        }
+    }
+
+    @Benchmark
+    public void setIndexed(Blackhole blackhole) {
+        final ArraySet<Integer> set = mSet;
+        for (int i = 0, n = set.size(); i < n; i++) {
+            blackhole.consume(set.valueAt(i));
+        }
+    }
+
+    @Benchmark
+    public void setCursor(Blackhole blackhole) {
+        final ArraySet.Cursor<Integer> cursor = mSetCursor.reset(mSet);
+        while (cursor.moveToNext()) {
+            blackhole.consume(cursor.getValue());
+        }
+    }
+}
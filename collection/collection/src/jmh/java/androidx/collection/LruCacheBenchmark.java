@@ -0,0 +1,137 @@
+/*
+ * Copyright 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.collection;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Replays a key trace against {@link LruCache}, {@link ConcurrentLruCache} and an access-ordered
+ * {@link LinkedHashMap}, loading a value on every miss.  The key space is four times the cache
+ * size, so the hit ratio is governed by how skewed the trace is.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class LruCacheBenchmark {
+    private static final int TRACE_LENGTH = 1 << 14;
+
+    @Param({"100", "1000"})
+    public int maxSize;
+
+    /** {@code uniform} accesses every key equally often; {@code skewed} favours a few keys. */
+    @Param({"uniform", "skewed"})
+    public String distribution;
+
+    private Integer[] mTrace;
+    private int mNext;
+
+    private LruCache<Integer, Integer> mLruCache;
+    private LruCache<Integer, Integer> mTinyLfuCache;
+    private ConcurrentLruCache<Integer, Integer> mConcurrentLruCache;
+    private LinkedHashMap<Integer, Integer> mLinkedHashMap;
+
+    @Setup
+    public void setUp() {
+        final int keySpace = maxSize * 4;
+        final boolean skewed = "skewed".equals(distribution);
+        final Random random = new Random(0);
+        mTrace = new Integer[TRACE_LENGTH];
+        for (int i = 0; i < TRACE_LENGTH; i++) {
+            final double sample = random.nextDouble();
+            mTrace[i] = (int) ((skewed ? sample * sample * sample : sample) * keySpace);
+        }
+
+        mLruCache = new LruCache<>(maxSize);
+        mTinyLfuCache = new LruCache<>(maxSize, LruCache.ADMISSION_FREQUENCY);
+        mConcurrentLruCache = new ConcurrentLruCache<>(maxSize);
+        final int capacity = maxSize;
+        mLinkedHashMap = new LinkedHashMap<Integer, Integer>(0, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, Integer> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    private Integer nextKey() {
+        final int next = mNext;
+        mNext = (next + 1) & (TRACE_LENGTH - 1);
+        return mTrace[next];
+    }
+
+    @Benchmark
+    public Integer lruCache() {
+        final Integer key = nextKey();
+        final Integer value = mLruCache.get(key);
+        if (value != null) {
+            return value;
+        }
+        mLruCache.put(key, key);
+        return key;
+    }
+
+    @Benchmark
+    public Integer lruCacheTinyLfu() {
+        final Integer key = nextKey();
+        final Integer value = mTinyLfuCache.get(key);
+        if (value != null) {
+            return value;
+        }
+        mTinyLfuCache.put(key, key);
+        return key;
+    }
+
+    @Benchmark
+    public Integer concurrentLruCache() {
+        final Integer key = nextKey();
+        final Integer value = mConcurrentLruCache.get(key);
+        if (value != null) {
+            return value;
+        }
+        mConcurrentLruCache.put(key, key);
+        return key;
+    }
+
+    @Benchmark
+    public Integer linkedHashMap() {
+        final Integer key = nextKey();
+        final Integer value = mLinkedHashMap.get(key);
+        if (value != null) {
+            return value;
+        }
+        mLinkedHashMap.put(key, key);
+        return key;
+    }
+}
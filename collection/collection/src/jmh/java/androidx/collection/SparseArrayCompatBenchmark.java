@@ -0,0 +1,153 @@
+/*
+ * Copyright 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.collection;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares {@link SparseArrayCompat} with a {@link HashMap} of boxed keys, for lookups, updates,
+ * ordered iteration and populating from scratch.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SparseArrayCompatBenchmark {
+    @Param({"10", "100", "1000", "10000"})
+    public int size;
+
+    @Param({BenchmarkKeys.SEQUENTIAL, BenchmarkKeys.RANDOM})
+    public String distribution;
+
+    @Param({"1.0", "0.5"})
+    public double hitRatio;
+
+    private int[] mKeys;
+    private String[] mValues;
+    private int[] mProbes;
+    private Integer[] mBoxedProbes;
+    private int mAbsentKey;
+    private int mNext;
+
+    private SparseArrayCompat<String> mSparseArray;
+    private HashMap<Integer, String> mHashMap;
+
+    @Setup
+    public void setUp() {
+        mKeys = BenchmarkKeys.keys(distribution, size);
+        mValues = new String[size];
+        mSparseArray = new SparseArrayCompat<>();
+        mHashMap = new HashMap<>();
+        for (int i = 0; i < size; i++) {
+            mValues[i] = "value" + mKeys[i];
+            mSparseArray.put(mKeys[i], mValues[i]);
+            mHashMap.put(mKeys[i], mValues[i]);
+        }
+        mProbes = BenchmarkKeys.probes(mKeys, hitRatio);
+        mBoxedProbes = BenchmarkKeys.boxed(mProbes);
+        mAbsentKey = BenchmarkKeys.absentKey(mKeys);
+    }
+
+    private int nextProbe() {
+        final int next = mNext;
+        mNext = (next + 1) & (BenchmarkKeys.PROBE_COUNT - 1);
+        return next;
+    }
+
+    @Benchmark
+    public String sparseArrayGet() {
+        return mSparseArray.get(mProbes[nextProbe()]);
+    }
+
+    @Benchmark
+    public String hashMapGet() {
+        return mHashMap.get(mBoxedProbes[nextProbe()]);
+    }
+
+    @Benchmark
+    public int sparseArrayPutThenRemove() {
+        mSparseArray.put(mAbsentKey, "absent");
+        mSparseArray.remove(mAbsentKey);
+        // size() compacts the removed entry, as any subsequent indexed access would.
+        return mSparseArray.size();
+    }
+
+    @Benchmark
+    public String hashMapPutThenRemove() {
+        mHashMap.put(mAbsentKey, "absent");
+        return mHashMap.remove(mAbsentKey);
+    }
+
+    @Benchmark
+    public void sparseArrayIterate(Blackhole blackhole) {
+        final SparseArrayCompat<String> array = mSparseArray;
+        for (int i = 0, n = array.size(); i < n; i++) {
+            blackhole.consume(array.keyAt(i));
+            blackhole.consume(array.valueAt(i));
+        }
+    }
+
+    @Benchmark
+    public void hashMapIterate(Blackhole blackhole) {
+        for (Map.Entry<Integer, String> entry : mHashMap.entrySet()) {
+            blackhole.consume(entry.getKey());
+            blackhole.consume(entry.getValue());
+        }
+    }
+
+    @Benchmark
+    public SparseArrayCompat<String> sparseArrayPopulate() {
+        final SparseArrayCompat<String> array = new SparseArrayCompat<>();
+        for (int i = 0; i < mKeys.length; i++) {
+            array.put(mKeys[i], mValues[i]);
+        }
+        return array;
+    }
+
+    @Benchmark
+    public SparseArrayCompat<String> sparseArrayPopulateBulk() {
+        final SparseArrayCompat<String> array = new SparseArrayCompat<>();
+        array.putAll(mKeys, mValues);
+        return array;
+    }
+
+    @Benchmark
+    public HashMap<Integer, String> hashMapPopulate() {
+        final HashMap<Integer, String> map = new HashMap<>();
+        for (int i = 0; i < mKeys.length; i++) {
+            map.put(mKeys[i], mValues[i]);
+        }
+        return map;
+    }
+}
@@ -0,0 +1,318 @@
+/*
+ * Copyright 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.collection;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A process-wide pool of the backing arrays of {@link SimpleArrayMap}, {@link ArrayMap},
+ * {@link ArraySet} and {@link SparseArrayCompat}, so that containers which are created and
+ * discarded frequently reuse each other's storage instead of producing garbage.
+ *
+ * <p>Arrays are pooled by size class.  The classes run 4, 6, 8, 12, 16, 24... up to 1024
+ * elements, each half again or twice the size of the one before it, so that rounding a request
+ * up to its class wastes at most a third of the array.  Longer arrays are never pooled.  Each
+ * class holds at most {@link #setMaxArraysPerSize(int) a few} arrays of each type.</p>
+ *
+ * <p>The pool is lock-free: arrays are taken and returned with a single compare-and-set, so
+ * containers on different threads do not contend on a shared lock.  A container only returns
+ * its arrays to the pool once it no longer refers to them, and it clears any references they
+ * held first.</p>
+ *
+ * <p>Usage can be observed with {@link #setStatsEnabled(boolean)} and {@link #getStats()}, and
+ * pooled memory released with {@link #trim()}, for example in response to
+ * {@code ComponentCallbacks2.onTrimMemory()}.</p>
+ */
+public final class ArrayPool {
+    /** The number of arrays of each type kept per size class unless configured otherwise. */
+    public static final int DEFAULT_MAX_ARRAYS_PER_SIZE = 8;
+
+    /** The most arrays of each type which may be kept per size class. */
+    private static final int MAX_ARRAYS_PER_SIZE_LIMIT = 64;
+
+    static final int MIN_POOLED_LENGTH = 4;
+    static final int MAX_POOLED_LENGTH = 1024;
+    private static final int SIZE_CLASS_COUNT = sizeClassOf(MAX_POOLED_LENGTH) + 1;
+
+    private static final AtomicReferenceArray<int[]>[] sInts = newSlots();
+    private static final AtomicReferenceArray<Object[]>[] sObjects = newSlots();
+    private static volatile int sMaxArraysPerSize = DEFAULT_MAX_ARRAYS_PER_SIZE;
+
+    private static volatile boolean sStatsEnabled;
+    private static final AtomicLong sHitCount = new AtomicLong();
+    private static final AtomicLong sMissCount = new AtomicLong();
+    private static final AtomicLong sRecycleCount = new AtomicLong();
+    private static final AtomicLong sDropCount = new AtomicLong();
+
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    private static <T> AtomicReferenceArray<T>[] newSlots() {
+        final AtomicReferenceArray<T>[] slots =
+                (AtomicReferenceArray<T>[]) new AtomicReferenceArray[SIZE_CLASS_COUNT];
+        for (int i = 0; i < SIZE_CLASS_COUNT; i++) {
+            slots[i] = new AtomicReferenceArray<>(MAX_ARRAYS_PER_SIZE_LIMIT);
+        }
+        return slots;
+    }
+
+    /**
+     * Sets how many arrays of each type are kept for each size class.  Lowering it does not
+     * discard arrays which are already pooled; call {@link #trim()} for that.  Zero disables
+     * pooling.
+     *
+     * @throws IllegalArgumentException if {@code maxArraysPerSize} is negative or greater than
+     * 64.
+     */
+    public static void setMaxArraysPerSize(int maxArraysPerSize) {
+        if (maxArraysPerSize < 0 || maxArraysPerSize > MAX_ARRAYS_PER_SIZE_LIMIT) {
+            throw new IllegalArgumentException("maxArraysPerSize must be between 0 and "
+                    + MAX_ARRAYS_PER_SIZE_LIMIT + ", was " + maxArraysPerSize);
+        }
+        sMaxArraysPerSize = maxArraysPerSize;
+    }
+
+    /**
+     * Returns how many arrays of each type are kept for each size class.
+     */
+    public static int getMaxArraysPerSize() {
+        return sMaxArraysPerSize;
+    }
+
+    /**
+     * Discards every pooled array.
+     */
+    public static void trim() {
+        for (int i = 0; i < SIZE_CLASS_COUNT; i++) {
+            for (int j = 0; j < MAX_ARRAYS_PER_SIZE_LIMIT; j++) {
+                sInts[i].set(j, null);
+                sObjects[i].set(j, null);
+            }
+        }
+    }
+
+    /**
+     * Turns the counters reported by {@link #getStats()} on or off.  They are off by default to
+     * keep them from becoming a point of contention.
+     */
+    public static void setStatsEnabled(boolean enabled) {
+        sStatsEnabled = enabled;
+    }
+
+    /**
+     * Returns a snapshot of the counters collected while stats were enabled.
+     */
+    @NonNull
+    public static Stats getStats() {
+        return new Stats(sHitCount.get(), sMissCount.get(), sRecycleCount.get(),
+                sDropCount.get());
+    }
+
+    /**
+     * Resets the counters reported by {@link #getStats()} to zero.
+     */
+    public static void resetStats() {
+        sHitCount.set(0);
+        sMissCount.set(0);
+        sRecycleCount.set(0);
+        sDropCount.set(0);
+    }
+
+    /**
+     * Returns the index of the smallest size class whose arrays hold {@code minLength}
+     * elements, or -1 if arrays that long are not pooled.
+     */
+    static int sizeClassOf(int minLength) {
+        if (minLength <= MIN_POOLED_LENGTH) {
+            return 0;
+        }
+        if (minLength > MAX_POOLED_LENGTH) {
+            return -1;
+        }
+        // Classes alternate between 4 << k, at index 2k, and 6 << k, at index 2k + 1.
+        final int shift = 31 - Integer.numberOfLeadingZeros(minLength - 1);
+        final int power = 1 << shift;
+        if (minLength <= power + (power >> 1)) {
+            return 2 * (shift - 2) + 1;
+        }
+        return 2 * (shift - 1);
+    }
+
+    /** Returns the length of the arrays in the given size class. */
+    static int sizeClassLength(int sizeClass) {
+        final int power = MIN_POOLED_LENGTH << (sizeClass >> 1);
+        return (sizeClass & 1) == 0 ? power : power + (power >> 1);
+    }
+
+    /**
+     * Returns the length of the array {@link #acquireInts} or {@link #acquireObjects} would
+     * return for {@code minLength}.
+     */
+    static int pooledLength(int minLength) {
+        final int sizeClass = sizeClassOf(minLength);
+        return sizeClass < 0 ? minLength : sizeClassLength(sizeClass);
+    }
+
+    /**
+     * Returns an array of at least {@code minLength} elements, rounded up to a size class.  Its
+     * contents are undefined.
+     */
+    static int[] acquireInts(int minLength) {
+        final int sizeClass = sizeClassOf(minLength);
+        if (sizeClass < 0) {
+            recordMiss();
+            return new int[minLength];
+        }
+        final int[] array = take(sInts[sizeClass]);
+        return array != null ? array : new int[sizeClassLength(sizeClass)];
+    }
+
+    /**
+     * Returns an array of at least {@code minLength} null elements, rounded up to a size class.
+     */
+    static Object[] acquireObjects(int minLength) {
+        final int sizeClass = sizeClassOf(minLength);
+        if (sizeClass < 0) {
+            recordMiss();
+            return new Object[minLength];
+        }
+        final Object[] array = take(sObjects[sizeClass]);
+        return array != null ? array : new Object[sizeClassLength(sizeClass)];
+    }
+
+    /**
+     * Offers {@code array} to the pool.  The caller must not use it afterwards.
+     */
+    static void release(int[] array) {
+        final int sizeClass = exactSizeClassOf(array.length);
+        if (sizeClass < 0) {
+            recordDrop();
+            return;
+        }
+        put(sInts[sizeClass], array);
+    }
+
+    /**
+     * Offers {@code array} to the pool after clearing its first {@code used} elements, which
+     * must be the only ones which may be non-null.  The caller must not use it afterwards.
+     */
+    static void release(Object[] array, int used) {
+        final int sizeClass = exactSizeClassOf(array.length);
+        if (sizeClass < 0) {
+            recordDrop();
+            return;
+        }
+        Arrays.fill(array, 0, used, null);
+        put(sObjects[sizeClass], array);
+    }
+
+    private static int exactSizeClassOf(int length) {
+        final int sizeClass = length < MIN_POOLED_LENGTH ? -1 : sizeClassOf(length);
+        return sizeClass >= 0 && sizeClassLength(sizeClass) == length ? sizeClass : -1;
+    }
+
+    @Nullable
+    private static <T> T take(AtomicReferenceArray<T> slots) {
+        for (int i = 0, n = sMaxArraysPerSize; i < n; i++) {
+            final T array = slots.get(i);
+            if (array != null && slots.compareAndSet(i, array, null)) {
+                if (sStatsEnabled) {
+                    sHitCount.incrementAndGet();
+                }
+                return array;
+            }
+        }
+        recordMiss();
+        return null;
+    }
+
+    private static <T> void put(AtomicReferenceArray<T> slots, T array) {
+        for (int i = 0, n = sMaxArraysPerSize; i < n; i++) {
+            if (slots.get(i) == null && slots.compareAndSet(i, null, array)) {
+                if (sStatsEnabled) {
+                    sRecycleCount.incrementAndGet();
+                }
+                return;
+            }
+        }
+        recordDrop();
+    }
+
+    private static void recordMiss() {
+        if (sStatsEnabled) {
+            sMissCount.incrementAndGet();
+        }
+    }
+
+    private static void recordDrop() {
+        if (sStatsEnabled) {
+            sDropCount.incrementAndGet();
+        }
+    }
+
+    private ArrayPool() {
+    }
+
+    /**
+     * A snapshot of the counters kept by {@link ArrayPool} while stats are enabled.
+     */
+    public static final class Stats {
+        private final long mHitCount;
+        private final long mMissCount;
+        private final long mRecycleCount;
+        private final long mDropCount;
+
+        Stats(long hitCount, long missCount, long recycleCount, long dropCount) {
+            mHitCount = hitCount;
+            mMissCount = missCount;
+            mRecycleCount = recycleCount;
+            mDropCount = dropCount;
+        }
+
+        /** Returns the number of arrays which were handed out from the pool. */
+        public long getHitCount() {
+            return mHitCount;
+        }
+
+        /** Returns the number of arrays which had to be allocated because none was pooled. */
+        public long getMissCount() {
+            return mMissCount;
+        }
+
+        /** Returns the number of released arrays which were kept for reuse. */
+        public long getRecycleCount() {
+            return mRecycleCount;
+        }
+
+        /**
+         * Returns the number of released arrays which were discarded, because their size class
+         * was full or they were too long to pool.
+         */
+        public long getDropCount() {
+            return mDropCount;
+        }
+
+        @Override
+        public String toString() {
+            return "ArrayPool.Stats[hits=" + mHitCount + ",misses=" + mMissCount
+                    + ",recycled=" + mRecycleCount + ",dropped=" + mDropCount + "]";
+        }
+    }
+}
@@ -44,6 +44,10 @@ import java.util.Set;
  * item, it may reduce the capacity to better match the current size.  In the future an
  * explicit call to set the capacity should turn off this aggressive shrinking behavior.</p>
  *
+ * <p>Like {@link SimpleArrayMap}, a set which grows to its
+ * {@link #setHashIndexThreshold hash index threshold} switches to an open-addressed hash
+ * index so that operations on large sets take constant time.</p>
+ *
  * <p>This structure is <b>NOT</b> thread-safe.</p>
  */
 public final class ArraySet<E> implements Collection<E>, Set<E> {
@@ -56,34 +60,19 @@ public final class ArraySet<E> implements Collection<E>, Set<E> {
      */
     private static final int BASE_SIZE = 4;
 
-    /**
-     * Maximum number of entries to have in array caches.
-     */
-    private static final int CACHE_SIZE = 10;
-
-    /**
-     * Caches of small array objects to avoid spamming garbage.  The cache
-     * Object[] variable is a pointer to a linked list of array objects.
-     * The first entry in the array is a pointer to the next array in the
-     * list; the second entry is a pointer to the int[] hash code array for it.
-     */
-    private static @Nullable Object[] sBaseCache;
-    private static int sBaseCacheSize;
-    private static @Nullable Object[] sTwiceBaseCache;
-    private static int sTwiceBaseCacheSize;
-    /**
-     * Separate locks for each cache since each can be accessed independently of the other without
-     * risk of a deadlock.
-     */
-    private static final Object sBaseCacheLock = new Object();
-    private static final Object sTwiceBaseCacheLock = new Object();
-
     private int[] mHashes;
     @SuppressWarnings("WeakerAccess") /* synthetic access */
     Object[] mArray;
     @SuppressWarnings("WeakerAccess") /* synthetic access */
     int mSize;
 
+    /**
+     * Open-addressed index over {@link #mHashes}, or null while the set is small enough to be
+     * kept sorted by hash and binary searched.
+     */
+    private @Nullable int[] mSlots;
+    private int mHashIndexThreshold = SimpleArrayMap.DEFAULT_HASH_INDEX_THRESHOLD;
+
     private int binarySearch(int hash) {
         try {
             return ContainerHelpers.binarySearch(mHashes, mSize, hash);
@@ -100,6 +89,11 @@ public final class ArraySet<E> implements Collection<E>, Set<E> {
             return ~0;
         }
 
+        final int[] slots = mSlots;
+        if (slots != null) {
+            return indexOfHashed(slots, key, hash);
+        }
+
         int index = binarySearch(hash);
 
         // If the hash code wasn't found, then we have no entry for this key.
@@ -138,6 +132,11 @@ public final class ArraySet<E> implements Collection<E>, Set<E> {
             return ~0;
         }
 
+        final int[] slots = mSlots;
+        if (slots != null) {
+            return indexOfHashed(slots, null, 0);
+        }
+
         int index = binarySearch(0);
 
         // If the hash code wasn't found, then we have no entry for this key.
@@ -168,109 +167,58 @@ public final class ArraySet<E> implements Collection<E>, Set<E> {
         return ~end;
     }
 
-    @SuppressWarnings("ArrayToString")
-    private void allocArrays(final int size) {
-        if (size == (BASE_SIZE * 2)) {
-            synchronized (sTwiceBaseCacheLock) {
-                if (sTwiceBaseCache != null) {
-                    final Object[] array = sTwiceBaseCache;
-                    try {
-                        mArray = array;
-                        sTwiceBaseCache = (Object[]) array[0];
-                        mHashes = (int[]) array[1];
-                        if (mHashes != null) {
-                            array[0] = array[1] = null;
-                            sTwiceBaseCacheSize--;
-                            if (DEBUG) {
-                                System.out.println(TAG + " Retrieving 2x cache " + mHashes
-                                        + " now have " + sTwiceBaseCacheSize + " entries");
-                            }
-                            return;
-                        }
-                    } catch (ClassCastException e) {
-                    }
-                    // Whoops!  Someone trampled the array (probably due to not protecting
-                    // their access with a lock).  Our cache is corrupt; report and give up.
-                    System.out.println(TAG + " Found corrupt ArraySet cache: [0]=" + array[0]
-                            + " [1]=" + array[1]);
-                    sTwiceBaseCache = null;
-                    sTwiceBaseCacheSize = 0;
-                }
+    /**
+     * Looks {@code key} up in the hash index. New values are always appended, so a missing
+     * value's insertion point is the end of the arrays.
+     */
+    private int indexOfHashed(int[] slots, @Nullable Object key, int hash) {
+        final int mask = slots.length - 1;
+        int slot = ContainerHelpers.hash(hash) & mask;
+        while (true) {
+            final int entry = slots[slot];
+            if (entry == 0) {
+                return ~mSize;
             }
-        } else if (size == BASE_SIZE) {
-            synchronized (sBaseCacheLock) {
-                if (sBaseCache != null) {
-                    final Object[] array = sBaseCache;
-                    try {
-                        mArray = array;
-                        sBaseCache = (Object[]) array[0];
-                        mHashes = (int[]) array[1];
-                        if (mHashes != null) {
-                            array[0] = array[1] = null;
-                            sBaseCacheSize--;
-                            if (DEBUG) {
-                                System.out.println(TAG + " Retrieving 1x cache " + mHashes
-                                        + " now have " + sBaseCacheSize + " entries");
-                            }
-                            return;
-                        }
-                    } catch (ClassCastException e) {
-                    }
-                    // Whoops!  Someone trampled the array (probably due to not protecting
-                    // their access with a lock).  Our cache is corrupt; report and give up.
-                    System.out.println(TAG + " Found corrupt ArraySet cache: [0]=" + array[0]
-                            + " [1]=" + array[1]);
-                    sBaseCache = null;
-                    sBaseCacheSize = 0;
-                }
+            final int index = entry - 1;
+            if (mHashes[index] == hash && ContainerHelpers.equal(key, mArray[index])) {
+                return index;
             }
+            slot = (slot + 1) & mask;
         }
-
-        mHashes = new int[size];
-        mArray = new Object[size];
     }
 
     /**
-     * Make sure <b>NOT</b> to call this method with arrays that can still be modified. In other
-     * words, don't pass mHashes or mArray in directly.
+     * Builds the hash index if the set has reached its threshold, or grows it to match the
+     * capacity of the arrays.
      */
-    @SuppressWarnings("ArrayToString")
-    private static void freeArrays(final int[] hashes, final Object[] array, final int size) {
-        if (hashes.length == (BASE_SIZE * 2)) {
-            synchronized (sTwiceBaseCacheLock) {
-                if (sTwiceBaseCacheSize < CACHE_SIZE) {
-                    array[0] = sTwiceBaseCache;
-                    array[1] = hashes;
-                    for (int i = size - 1; i >= 2; i--) {
-                        array[i] = null;
-                    }
-                    sTwiceBaseCache = array;
-                    sTwiceBaseCacheSize++;
-                    if (DEBUG) {
-                        System.out.println(TAG + " Storing 2x cache " + array + " now have "
-                                + sTwiceBaseCacheSize + " entries");
-                    }
-                }
-            }
-        } else if (hashes.length == BASE_SIZE) {
-            synchronized (sBaseCacheLock) {
-                if (sBaseCacheSize < CACHE_SIZE) {
-                    array[0] = sBaseCache;
-                    array[1] = hashes;
-                    for (int i = size - 1; i >= 2; i--) {
-                        array[i] = null;
-                    }
-                    sBaseCache = array;
-                    sBaseCacheSize++;
-                    if (DEBUG) {
-                        System.out.println(TAG + " Storing 1x cache " + array + " now have "
-                                + sBaseCacheSize + " entries");
-                    }
-                }
+    private void updateHashIndex() {
+        final int[] slots = mSlots;
+        if (slots == null) {
+            if (mSize >= mHashIndexThreshold) {
+                mSlots = ContainerHelpers.buildHashIndex(mHashes, mSize);
             }
+        } else if (slots.length < ContainerHelpers.idealHashTableSize(mHashes.length)) {
+            mSlots = ContainerHelpers.buildHashIndex(mHashes, mSize);
         }
     }
 
+    private void allocArrays(final int size) {
+        mHashes = ArrayPool.acquireInts(size);
+        mArray = ArrayPool.acquireObjects(mHashes.length);
+    }
+
+    /**
+     * Returns arrays which are no longer referenced by any set to the {@link ArrayPool}.
+     * {@code size} is the number of values they held.
+     *
+     * <p>Make sure <b>NOT</b> to call this method with arrays that can still be modified. In
+     * other words, don't pass mHashes or mArray in directly.
+     */
+    private static void freeArrays(final int[] hashes, final Object[] array, final int size) {
+        ArrayPool.release(hashes);
+        ArrayPool.release(array, size);
+    }
+
     /**
      * Create a new empty ArraySet.  The default capacity of an array map is 0, and
      * will grow once items are added to it.
@@ -336,6 +284,7 @@ public final class ArraySet<E> implements Collection<E>, Set<E> {
             final int osize = mSize;
             mHashes = ContainerHelpers.EMPTY_INTS;
             mArray = ContainerHelpers.EMPTY_OBJECTS;
+            mSlots = null;
             mSize = 0;
             freeArrays(ohashes, oarray, osize);
         }
@@ -359,6 +308,9 @@ public final class ArraySet<E> implements Collection<E>, Set<E> {
                 System.arraycopy(oarray, 0, mArray, 0, mSize);
             }
             freeArrays(ohashes, oarray, mSize);
+            if (mSlots != null) {
+                updateHashIndex();
+            }
         }
         if (mSize != oSize) {
             throw new ConcurrentModificationException();
@@ -449,6 +401,9 @@ public final class ArraySet<E> implements Collection<E>, Set<E> {
             }
 
             freeArrays(ohashes, oarray, oSize);
+            if (mSlots != null) {
+                updateHashIndex();
+            }
         }
 
         if (index < oSize) {
@@ -467,6 +422,12 @@ public final class ArraySet<E> implements Collection<E>, Set<E> {
         mHashes[index] = hash;
         mArray[index] = value;
         mSize++;
+        final int[] slots = mSlots;
+        if (slots != null) {
+            ContainerHelpers.insertHashIndex(slots, mHashes, index);
+        } else if (mSize >= mHashIndexThreshold) {
+            updateHashIndex();
+        }
         return true;
     }
 
@@ -485,6 +446,12 @@ public final class ArraySet<E> implements Collection<E>, Set<E> {
                     throw new ConcurrentModificationException();
                 }
                 mSize = N;
+                if (array.mSlots != null) {
+                    // The copied hashes are not sorted, so they need an index regardless of size.
+                    mSlots = ContainerHelpers.buildHashIndex(mHashes, N);
+                } else {
+                    updateHashIndex();
+                }
             }
         } else {
             for (int i = 0; i < N; i++) {
@@ -518,6 +485,26 @@ public final class ArraySet<E> implements Collection<E>, Set<E> {
     public E removeAt(int index) {
         final int oSize = mSize;
         final Object old = mArray[index];
+        final int[] slots = mSlots;
+        if (slots != null && oSize > 1) {
+            if (index >= oSize) {
+                throw new ArrayIndexOutOfBoundsException(index);
+            }
+            // Move the last value into the hole rather than shifting everything after it.
+            final int nSize = oSize - 1;
+            ContainerHelpers.removeHashIndex(slots, mHashes, index);
+            if (index < nSize) {
+                slots[ContainerHelpers.hashIndexSlotOf(slots, mHashes, nSize)] = index + 1;
+                mHashes[index] = mHashes[nSize];
+                mArray[index] = mArray[nSize];
+            }
+            mArray[nSize] = null;
+            if (oSize != mSize) {
+                throw new ConcurrentModificationException();
+            }
+            mSize = nSize;
+            return (E) old;
+        }
         if (oSize <= 1) {
             // Now empty.
             if (DEBUG) System.out.println(TAG + " remove: shrink from " + mHashes.length + " to 0");
@@ -549,6 +536,7 @@ public final class ArraySet<E> implements Collection<E>, Set<E> {
                     System.arraycopy(ohashes, index + 1, mHashes, index, nSize - index);
                     System.arraycopy(oarray, index + 1, mArray, index, nSize - index);
                 }
+                freeArrays(ohashes, oarray, oSize);
             } else {
                 if (index < nSize) {
                     if (DEBUG) {
@@ -596,6 +584,25 @@ public final class ArraySet<E> implements Collection<E>, Set<E> {
         return mSize;
     }
 
+    /**
+     * Set the number of values at which this set switches from binary searching its compact
+     * arrays to an open-addressed hash index.  See
+     * {@link SimpleArrayMap#setHashIndexThreshold(int)} for the trade-offs involved.  The
+     * default is 256.
+     *
+     * @param threshold The size at which to start using a hash index.  Pass
+     * {@link Integer#MAX_VALUE} to keep the compact representation at all sizes.
+     */
+    public void setHashIndexThreshold(int threshold) {
+        if (threshold <= 0) {
+            throw new IllegalArgumentException("threshold <= 0");
+        }
+        mHashIndexThreshold = threshold;
+        if (mSize > 0) {
+            updateHashIndex();
+        }
+    }
+
     @NonNull
     @Override
     public Object[] toArray() {
@@ -788,4 +795,118 @@ public final class ArraySet<E> implements Collection<E>, Set<E> {
         }
         return removed;
     }
+
+    /**
+     * A reusable cursor over the values of {@link ArraySet}.  Unlike a for-each loop, which
+     * allocates an iterator every time, a cursor can be {@link #reset reset} and used again for
+     * any number of traversals, so iterating does not allocate at all:
+     *
+     * <pre>
+     * cursor.reset(set);
+     * while (cursor.moveToNext()) {
+     *     ...
+     * }
+     * </pre>
+     *
+     * <p>The current value may be removed through {@link #remove()} without disturbing the
+     * traversal.  Any other change to the ArraySet during a traversal causes
+     * {@link ConcurrentModificationException}.</p>
+     */
+    public static final class Cursor<E> {
+        @Nullable
+        private ArraySet<E> mTarget;
+        private int mIndex;
+        private int mExpectedSize;
+        private boolean mPositioned;
+
+        /**
+         * Creates a cursor which must be {@link #reset reset} before use.
+         */
+        public Cursor() {
+        }
+
+        /**
+         * Creates a cursor positioned before the first value of {@code target}.
+         */
+        public Cursor(@NonNull ArraySet<E> target) {
+            reset(target);
+        }
+
+        /**
+         * Positions this cursor before the first value of {@code target}.
+         *
+         * @return this cursor, to allow chaining.
+         */
+        @NonNull
+        public Cursor<E> reset(@NonNull ArraySet<E> target) {
+            mTarget = target;
+            mIndex = -1;
+            mExpectedSize = target.mSize;
+            mPositioned = false;
+            return this;
+        }
+
+        /**
+         * Advances to the next value.
+         *
+         * @return false once every value has been visited.
+         */
+        public boolean moveToNext() {
+            final ArraySet<E> target = requireTarget();
+            if (target.mSize != mExpectedSize) {
+                throw new ConcurrentModificationException();
+            }
+            if (mIndex + 1 < mExpectedSize) {
+                mIndex++;
+                mPositioned = true;
+            } else {
+                mIndex = mExpectedSize;
+                mPositioned = false;
+            }
+            return mPositioned;
+        }
+
+        /**
+         * Returns the current value.
+         *
+         * @throws IllegalStateException if the cursor is not on a value.
+         */
+        public E getValue() {
+            return requireTarget().valueAt(requirePosition());
+        }
+
+        /**
+         * Removes the current value.  The cursor is left between values, so that the next
+         * call to {@link #moveToNext()} moves to the value that would have followed.
+         *
+         * @throws IllegalStateException if the cursor is not on a value.
+         */
+        public void remove() {
+            final int index = requirePosition();
+            requireTarget().removeAt(index);
+            // Whether the tail shifted down or the last value was moved into the hole, the
+            // next unvisited value is now at this index.
+            mIndex = index - 1;
+            mExpectedSize--;
+            mPositioned = false;
+        }
+
+        private ArraySet<E> requireTarget() {
+            final ArraySet<E> target = mTarget;
+            if (target == null) {
+                throw new IllegalStateException("Cursor has not been reset to a target");
+            }
+            return target;
+        }
+
+        private int requirePosition() {
+            if (!mPositioned) {
+                throw new IllegalStateException("Cursor is not positioned on a value");
+            }
+            if (requireTarget().mSize != mExpectedSize) {
+                throw new ConcurrentModificationException();
+            }
+            return mIndex;
+        }
+    }
 }
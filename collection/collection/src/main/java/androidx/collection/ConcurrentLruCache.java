@@ -0,0 +1,481 @@
+/*
+ * Copyright 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.collection;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * A variant of {@link LruCache} for caches that are accessed from many threads at once.
+ *
+ * <p>{@link LruCache} guards all of its state with a single monitor, so concurrent readers queue
+ * up behind each other. This cache instead splits its keys across a fixed number of segments by
+ * hash code, each with its own lock, access-ordered map and share of {@link #maxSize()}. Threads
+ * touching keys in different segments never contend.
+ *
+ * <p>The price is that recency is tracked per segment: an eviction removes the least recently
+ * used entry of the segment that grew, which is not necessarily the least recently used entry
+ * of the whole cache. For the same reason, an entry whose {@link #sizeOf size} exceeds its
+ * segment's share of the maximum size is evicted immediately, so caches of a few large entries
+ * should use fewer segments or {@link LruCache}.
+ *
+ * <p>The {@link #sizeOf}, {@link #create} and {@link #entryRemoved} contract is the same as
+ * {@link LruCache}'s, and those methods are likewise called without holding any lock.
+ */
+public class ConcurrentLruCache<K, V> {
+    /** The default number of segments for caches which do not specify one. */
+    private static final int DEFAULT_CONCURRENCY_LEVEL = 16;
+
+    /** Passed to {@link #trimSegment} to trim a segment to its own share of the maximum size. */
+    private static final int OWN_MAX_SIZE = -2;
+
+    private final Segment<K, V>[] segments;
+    private final int segmentMask;
+    private int maxSize;
+
+    /**
+     * Creates a cache with the default number of segments.
+     *
+     * @param maxSize for caches that do not override {@link #sizeOf}, this is
+     *     the maximum number of entries in the cache. For all other caches,
+     *     this is the maximum sum of the sizes of the entries in this cache.
+     */
+    public ConcurrentLruCache(int maxSize) {
+        this(maxSize, DEFAULT_CONCURRENCY_LEVEL);
+    }
+
+    /**
+     * @param maxSize for caches that do not override {@link #sizeOf}, this is
+     *     the maximum number of entries in the cache. For all other caches,
+     *     this is the maximum sum of the sizes of the entries in this cache.
+     * @param concurrencyLevel the expected number of threads accessing the cache at once. It is
+     *     rounded up to a power of two and capped at {@code maxSize} to give the segment count.
+     */
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    public ConcurrentLruCache(int maxSize, int concurrencyLevel) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize <= 0");
+        }
+        if (concurrencyLevel <= 0) {
+            throw new IllegalArgumentException("concurrencyLevel <= 0");
+        }
+        int segmentCount = 1;
+        while (segmentCount < concurrencyLevel && segmentCount * 2 <= maxSize) {
+            segmentCount <<= 1;
+        }
+        this.segments = (Segment<K, V>[]) new Segment[segmentCount];
+        this.segmentMask = segmentCount - 1;
+        this.maxSize = maxSize;
+        for (int i = 0; i < segmentCount; i++) {
+            segments[i] = new Segment<>(shareOf(maxSize, i));
+        }
+    }
+
+    /**
+     * Returns the part of {@code total} assigned to segment {@code index}. The remainder of the
+     * division goes to the lowest segments, so the shares always add up to {@code total}.
+     */
+    private int shareOf(int total, int index) {
+        final int count = segments.length;
+        return total / count + (index < total % count ? 1 : 0);
+    }
+
+    private Segment<K, V> segmentFor(Object key) {
+        // Use the high bits of the mixed hash; HashMap inside the segment uses the low ones.
+        return segments[(ContainerHelpers.hash(key.hashCode()) >>> 16) & segmentMask];
+    }
+
+    /**
+     * Sets the size of the cache.
+     *
+     * @param maxSize The new maximum size.
+     */
+    public void resize(int maxSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize <= 0");
+        }
+
+        synchronized (this) {
+            this.maxSize = maxSize;
+            for (int i = 0; i < segments.length; i++) {
+                Segment<K, V> segment = segments[i];
+                synchronized (segment) {
+                    segment.maxSize = shareOf(maxSize, i);
+                }
+            }
+        }
+        trimToSize(maxSize);
+    }
+
+    /**
+     * Returns the value for {@code key} if it exists in the cache or can be
+     * created by {@code #create}. If a value was returned, it is moved to the
+     * head of its segment's queue. This returns null if a value is not cached
+     * and cannot be created.
+     */
+    @Nullable
+    public final V get(@NonNull K key) {
+        if (key == null) {
+            throw new NullPointerException("key == null");
+        }
+
+        final Segment<K, V> segment = segmentFor(key);
+        V mapValue;
+        synchronized (segment) {
+            mapValue = segment.map.get(key);
+            if (mapValue != null) {
+                segment.hitCount++;
+                return mapValue;
+            }
+            segment.missCount++;
+        }
+
+        /*
+         * Attempt to create a value. This may take a long time, and the map
+         * may be different when create() returns. If a conflicting value was
+         * added to the map while create() was working, we leave that value in
+         * the map and release the created value.
+         */
+
+        V createdValue = create(key);
+        if (createdValue == null) {
+            return null;
+        }
+
+        synchronized (segment) {
+            segment.createCount++;
+            mapValue = segment.map.put(key, createdValue);
+
+            if (mapValue != null) {
+                // There was a conflict so undo that last put
+                segment.map.put(key, mapValue);
+            } else {
+                segment.size += safeSizeOf(key, createdValue);
+            }
+        }
+
+        if (mapValue != null) {
+            entryRemoved(false, key, createdValue, mapValue);
+            return mapValue;
+        } else {
+            trimSegment(segment, OWN_MAX_SIZE);
+            return createdValue;
+        }
+    }
+
+    /**
+     * Caches {@code value} for {@code key}. The value is moved to the head of
+     * its segment's queue.
+     *
+     * @return the previous value mapped by {@code key}.
+     */
+    @Nullable
+    public final V put(@NonNull K key, @NonNull V value) {
+        if (key == null || value == null) {
+            throw new NullPointerException("key == null || value == null");
+        }
+
+        final Segment<K, V> segment = segmentFor(key);
+        V previous;
+        synchronized (segment) {
+            segment.putCount++;
+            segment.size += safeSizeOf(key, value);
+            previous = segment.map.put(key, value);
+            if (previous != null) {
+                segment.size -= safeSizeOf(key, previous);
+            }
+        }
+
+        if (previous != null) {
+            entryRemoved(false, key, previous, value);
+        }
+
+        trimSegment(segment, OWN_MAX_SIZE);
+        return previous;
+    }
+
+    /**
+     * Remove the eldest entries of each segment until the total of remaining
+     * entries is at or below the requested size. Each segment is trimmed to
+     * its share of {@code maxSize}.
+     *
+     * @param maxSize the maximum size of the cache before returning. May be -1
+     *            to evict even 0-sized elements.
+     */
+    public void trimToSize(int maxSize) {
+        for (int i = 0; i < segments.length; i++) {
+            trimSegment(segments[i], maxSize < 0 ? -1 : shareOf(maxSize, i));
+        }
+    }
+
+    /**
+     * Evicts the eldest entries of {@code segment} until it is at or below
+     * {@code maxSize}, or its own maximum size if {@code maxSize} is {@link #OWN_MAX_SIZE}.
+     */
+    private void trimSegment(Segment<K, V> segment, int maxSize) {
+        while (true) {
+            K key;
+            V value;
+            synchronized (segment) {
+                if (segment.size < 0 || (segment.map.isEmpty() && segment.size != 0)) {
+                    throw new IllegalStateException(getClass().getName()
+                            + ".sizeOf() is reporting inconsistent results!");
+                }
+
+                final int limit = maxSize == OWN_MAX_SIZE ? segment.maxSize : maxSize;
+                if (segment.size <= limit || segment.map.isEmpty()) {
+                    break;
+                }
+
+                Map.Entry<K, V> toEvict = segment.map.entrySet().iterator().next();
+                key = toEvict.getKey();
+                value = toEvict.getValue();
+                segment.map.remove(key);
+                segment.size -= safeSizeOf(key, value);
+                segment.evictionCount++;
+            }
+
+            entryRemoved(true, key, value, null);
+        }
+    }
+
+    /**
+     * Removes the entry for {@code key} if it exists.
+     *
+     * @return the previous value mapped by {@code key}.
+     */
+    @Nullable
+    public final V remove(@NonNull K key) {
+        if (key == null) {
+            throw new NullPointerException("key == null");
+        }
+
+        final Segment<K, V> segment = segmentFor(key);
+        V previous;
+        synchronized (segment) {
+            previous = segment.map.remove(key);
+            if (previous != null) {
+                segment.size -= safeSizeOf(key, previous);
+            }
+        }
+
+        if (previous != null) {
+            entryRemoved(false, key, previous, null);
+        }
+
+        return previous;
+    }
+
+    /**
+     * Called for entries that have been evicted or removed. This method is
+     * invoked when a value is evicted to make space, removed by a call to
+     * {@link #remove}, or replaced by a call to {@link #put}. The default
+     * implementation does nothing.
+     *
+     * <p>The method is called without synchronization: other threads may
+     * access the cache while this method is executing.
+     *
+     * @param evicted true if the entry is being removed to make space, false
+     *     if the removal was caused by a {@link #put} or {@link #remove}.
+     * @param newValue the new value for {@code key}, if it exists. If non-null,
+     *     this removal was caused by a {@link #put}. Otherwise it was caused by
+     *     an eviction or a {@link #remove}.
+     */
+    protected void entryRemoved(boolean evicted, @NonNull K key, @NonNull V oldValue,
+            @Nullable V newValue) {
+    }
+
+    /**
+     * Called after a cache miss to compute a value for the corresponding key.
+     * Returns the computed value or null if no value can be computed. The
+     * default implementation returns null.
+     *
+     * <p>The method is called without synchronization: other threads may
+     * access the cache while this method is executing.
+     *
+     * <p>If a value for {@code key} exists in the cache when this method
+     * returns, the created value will be released with {@link #entryRemoved}
+     * and discarded.
+     */
+    @Nullable
+    protected V create(@NonNull K key) {
+        return null;
+    }
+
+    private int safeSizeOf(K key, V value) {
+        int result = sizeOf(key, value);
+        if (result < 0) {
+            throw new IllegalStateException("Negative size: " + key + "=" + value);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the size of the entry for {@code key} and {@code value} in
+     * user-defined units.  The default implementation returns 1 so that size
+     * is the number of entries and max size is the maximum number of entries.
+     *
+     * <p>An entry's size must not change while it is in the cache.
+     */
+    protected int sizeOf(@NonNull K key, @NonNull V value) {
+        return 1;
+    }
+
+    /**
+     * Clear the cache, calling {@link #entryRemoved} on each removed entry.
+     */
+    public final void evictAll() {
+        trimToSize(-1); // -1 will evict 0-sized elements
+    }
+
+    /**
+     * For caches that do not override {@link #sizeOf}, this returns the number
+     * of entries in the cache. For all other caches, this returns the sum of
+     * the sizes of the entries in this cache.
+     */
+    public final int size() {
+        int size = 0;
+        for (Segment<K, V> segment : segments) {
+            synchronized (segment) {
+                size += segment.size;
+            }
+        }
+        return size;
+    }
+
+    /**
+     * For caches that do not override {@link #sizeOf}, this returns the maximum
+     * number of entries in the cache. For all other caches, this returns the
+     * maximum sum of the sizes of the entries in this cache.
+     */
+    public synchronized final int maxSize() {
+        return maxSize;
+    }
+
+    /**
+     * Returns the number of times {@link #get} returned a value that was
+     * already present in the cache.
+     */
+    public final int hitCount() {
+        int count = 0;
+        for (Segment<K, V> segment : segments) {
+            synchronized (segment) {
+                count += segment.hitCount;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Returns the number of times {@link #get} returned null or required a new
+     * value to be created.
+     */
+    public final int missCount() {
+        int count = 0;
+        for (Segment<K, V> segment : segments) {
+            synchronized (segment) {
+                count += segment.missCount;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Returns the number of times {@link #create(Object)} returned a value.
+     */
+    public final int createCount() {
+        int count = 0;
+        for (Segment<K, V> segment : segments) {
+            synchronized (segment) {
+                count += segment.createCount;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Returns the number of times {@link #put} was called.
+     */
+    public final int putCount() {
+        int count = 0;
+        for (Segment<K, V> segment : segments) {
+            synchronized (segment) {
+                count += segment.putCount;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Returns the number of values that have been evicted.
+     */
+    public final int evictionCount() {
+        int count = 0;
+        for (Segment<K, V> segment : segments) {
+            synchronized (segment) {
+                count += segment.evictionCount;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Returns a copy of the current contents of the cache. Entries are ordered
+     * from least recently accessed to most recently accessed within each
+     * segment, but segments are concatenated in no particular order.
+     */
+    @NonNull
+    public final Map<K, V> snapshot() {
+        Map<K, V> snapshot = new LinkedHashMap<>();
+        for (Segment<K, V> segment : segments) {
+            synchronized (segment) {
+                snapshot.putAll(segment.map);
+            }
+        }
+        return snapshot;
+    }
+
+    @Override public final String toString() {
+        int hits = hitCount();
+        int accesses = hits + missCount();
+        int hitPercent = accesses != 0 ? (100 * hits / accesses) : 0;
+        return String.format(Locale.US,
+                "ConcurrentLruCache[maxSize=%d,hits=%d,misses=%d,hitRate=%d%%]",
+                maxSize(), hits, accesses - hits, hitPercent);
+    }
+
+    /** One independently locked partition of the cache. All fields are guarded by the segment. */
+    private static final class Segment<K, V> {
+        final LinkedHashMap<K, V> map = new LinkedHashMap<>(0, 0.75f, true);
+        int size;
+        int maxSize;
+
+        int putCount;
+        int createCount;
+        int evictionCount;
+        int hitCount;
+        int missCount;
+
+        Segment(int maxSize) {
+            this.maxSize = maxSize;
+        }
+    }
+}
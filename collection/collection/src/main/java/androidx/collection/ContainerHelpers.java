@@ -16,6 +16,8 @@
 
 package androidx.collection;
 
+import java.util.Arrays;
+
 class ContainerHelpers {
     static final int[] EMPTY_INTS = new int[0];
     static final long[] EMPTY_LONGS = new long[0];
@@ -41,6 +43,86 @@ class ContainerHelpers {
         return a == b || (a != null && a.equals(b));
     }
 
+    /**
+     * Returns the number of slots an open-addressed hash index needs to hold {@code capacity}
+     * entries: the smallest power of two that keeps the load factor at or below one half.
+     */
+    static int idealHashTableSize(int capacity) {
+        if (capacity <= 0) {
+            return 0;
+        }
+        return Integer.highestOneBit(capacity * 2 - 1) << 1;
+    }
+
+    // Fibonacci hashing spreads clustered keys (sequential ids, aligned pointers) across the
+    // whole word; folding the high half down lets callers mask off the low bits as a slot.
+    static int hash(int key) {
+        final int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    static int hash(long key) {
+        final long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    static int hash(Object key) {
+        return key == null ? 0 : hash(key.hashCode());
+    }
+
+    /*
+     * The following maintain an open-addressed index over the unsorted hash array of an
+     * ArrayMap or ArraySet which has grown past its hash index threshold. Each slot holds the
+     * index of an entry plus one, or 0 when free, and entries are placed by their mixed hash.
+     */
+
+    static int[] buildHashIndex(int[] hashes, int size) {
+        final int[] slots = new int[idealHashTableSize(hashes.length)];
+        for (int i = 0; i < size; i++) {
+            insertHashIndex(slots, hashes, i);
+        }
+        return slots;
+    }
+
+    static void insertHashIndex(int[] slots, int[] hashes, int index) {
+        final int mask = slots.length - 1;
+        int slot = hash(hashes[index]) & mask;
+        while (slots[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        slots[slot] = index + 1;
+    }
+
+    static int hashIndexSlotOf(int[] slots, int[] hashes, int index) {
+        final int mask = slots.length - 1;
+        int slot = hash(hashes[index]) & mask;
+        while (slots[slot] != index + 1) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    // Backward-shift deletion: later members of the probe run move into the hole, so lookups
+    // never need tombstones.
+    static void removeHashIndex(int[] slots, int[] hashes, int index) {
+        final int mask = slots.length - 1;
+        int hole = hashIndexSlotOf(slots, hashes, index);
+        int slot = hole;
+        while (true) {
+            slot = (slot + 1) & mask;
+            final int entry = slots[slot];
+            if (entry == 0) {
+                break;
+            }
+            final int home = hash(hashes[entry - 1]) & mask;
+            if (((slot - home) & mask) >= ((slot - hole) & mask)) {
+                slots[hole] = entry;
+                hole = slot;
+            }
+        }
+        slots[hole] = 0;
+    }
+
     // This is Arrays.binarySearch(), but doesn't do any argument validation.
     static int binarySearch(int[] array, int size, int value) {
         int lo = 0;
@@ -80,6 +162,135 @@ class ContainerHelpers {
         return ~lo;  // value not present
     }
 
+    /**
+     * Sorts the first {@code size} keys ascending, carrying their values along, and collapses
+     * runs of equal keys into their last occurrence.  Returns the number of distinct keys.
+     */
+    static int sortAndDeduplicate(int[] keys, Object[] values, int size) {
+        boolean sorted = true;
+        for (int i = 1; i < size && sorted; i++) {
+            sorted = keys[i - 1] <= keys[i];
+        }
+        if (!sorted) {
+            mergeSort(keys, values, size);
+        }
+        int o = 0;
+        for (int i = 0; i < size; i++) {
+            if (o > 0 && keys[o - 1] == keys[i]) {
+                values[o - 1] = values[i];
+            } else {
+                keys[o] = keys[i];
+                values[o] = values[i];
+                o++;
+            }
+        }
+        Arrays.fill(values, o, size, null);
+        return o;
+    }
+
+    static int sortAndDeduplicate(long[] keys, Object[] values, int size) {
+        boolean sorted = true;
+        for (int i = 1; i < size && sorted; i++) {
+            sorted = keys[i - 1] <= keys[i];
+        }
+        if (!sorted) {
+            mergeSort(keys, values, size);
+        }
+        int o = 0;
+        for (int i = 0; i < size; i++) {
+            if (o > 0 && keys[o - 1] == keys[i]) {
+                values[o - 1] = values[i];
+            } else {
+                keys[o] = keys[i];
+                values[o] = values[i];
+                o++;
+            }
+        }
+        Arrays.fill(values, o, size, null);
+        return o;
+    }
+
+    // Bottom-up merge sort. It must be stable so that the last of several equal keys wins.
+    private static void mergeSort(int[] keys, Object[] values, int size) {
+        int[] srcKeys = keys;
+        Object[] srcValues = values;
+        int[] dstKeys = new int[size];
+        Object[] dstValues = new Object[size];
+        for (int width = 1; width < size; width <<= 1) {
+            for (int lo = 0; lo < size; lo += width << 1) {
+                final int mid = Math.min(lo + width, size);
+                final int hi = Math.min(lo + (width << 1), size);
+                int i = lo;
+                int j = mid;
+                int k = lo;
+                while (i < mid && j < hi) {
+                    if (srcKeys[j] < srcKeys[i]) {
+                        dstKeys[k] = srcKeys[j];
+                        dstValues[k++] = srcValues[j++];
+                    } else {
+                        dstKeys[k] = srcKeys[i];
+                        dstValues[k++] = srcValues[i++];
+                    }
+                }
+                System.arraycopy(srcKeys, i, dstKeys, k, mid - i);
+                System.arraycopy(srcValues, i, dstValues, k, mid - i);
+                k += mid - i;
+                System.arraycopy(srcKeys, j, dstKeys, k, hi - j);
+                System.arraycopy(srcValues, j, dstValues, k, hi - j);
+            }
+            final int[] tmpKeys = srcKeys;
+            srcKeys = dstKeys;
+            dstKeys = tmpKeys;
+            final Object[] tmpValues = srcValues;
+            srcValues = dstValues;
+            dstValues = tmpValues;
+        }
+        if (srcKeys != keys) {
+            System.arraycopy(srcKeys, 0, keys, 0, size);
+            System.arraycopy(srcValues, 0, values, 0, size);
+        }
+    }
+
+    private static void mergeSort(long[] keys, Object[] values, int size) {
+        long[] srcKeys = keys;
+        Object[] srcValues = values;
+        long[] dstKeys = new long[size];
+        Object[] dstValues = new Object[size];
+        for (int width = 1; width < size; width <<= 1) {
+            for (int lo = 0; lo < size; lo += width << 1) {
+                final int mid = Math.min(lo + width, size);
+                final int hi = Math.min(lo + (width << 1), size);
+                int i = lo;
+                int j = mid;
+                int k = lo;
+                while (i < mid && j < hi) {
+                    if (srcKeys[j] < srcKeys[i]) {
+                        dstKeys[k] = srcKeys[j];
+                        dstValues[k++] = srcValues[j++];
+                    } else {
+                        dstKeys[k] = srcKeys[i];
+                        dstValues[k++] = srcValues[i++];
+                    }
+                }
+                System.arraycopy(srcKeys, i, dstKeys, k, mid - i);
+                System.arraycopy(srcValues, i, dstValues, k, mid - i);
+                k += mid - i;
+                System.arraycopy(srcKeys, j, dstKeys, k, hi - j);
+                System.arraycopy(srcValues, j, dstValues, k, hi - j);
+            }
+            final long[] tmpKeys = srcKeys;
+            srcKeys = dstKeys;
+            dstKeys = tmpKeys;
+            final Object[] tmpValues = srcValues;
+            srcValues = dstValues;
+            dstValues = tmpValues;
+        }
+        if (srcKeys != keys) {
+            System.arraycopy(srcKeys, 0, keys, 0, size);
+            System.arraycopy(srcValues, 0, values, 0, size);
+        }
+    }
+
     private ContainerHelpers() {
     }
 }
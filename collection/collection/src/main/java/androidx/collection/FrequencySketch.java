@@ -0,0 +1,118 @@
+/*
+ * Copyright 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.collection;
+
+/**
+ * A count-min sketch estimating how often keys have been accessed recently, used by
+ * {@link LruCache} to decide whether a new entry is worth admitting at the expense of an old one.
+ *
+ * <p>Counters are four bits wide and packed sixteen to a {@code long}. Each key maps to four
+ * counters in different words and its estimate is the smallest of them. Once the number of
+ * recorded accesses reaches ten times the table's capacity, every counter is halved so that the
+ * sketch forgets keys which used to be popular.
+ *
+ * <p>This class is not thread-safe; {@link LruCache} only uses it while holding its lock.
+ */
+final class FrequencySketch {
+    private static final long[] SEEDS = {
+            0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L
+    };
+    private static final long RESET_MASK = 0x7777777777777777L;
+    private static final long ONE_MASK = 0x1111111111111111L;
+
+    /** The largest number of entries the sketch is sized for, bounding it to 512 KiB. */
+    private static final int MAXIMUM_CAPACITY = 1 << 16;
+
+    private long[] mTable;
+    private int mTableMask;
+    private int mSampleSize;
+    private int mSize;
+
+    FrequencySketch(int capacity) {
+        mTable = ContainerHelpers.EMPTY_LONGS;
+        ensureCapacity(capacity);
+    }
+
+    /**
+     * Grows the sketch, discarding its counts, if it is too small to track {@code capacity}
+     * distinct keys accurately.
+     */
+    void ensureCapacity(int capacity) {
+        final int length = Integer.highestOneBit(
+                Math.max(Math.min(capacity, MAXIMUM_CAPACITY), 2) - 1) << 1;
+        if (mTable.length >= length) {
+            return;
+        }
+        mTable = new long[length];
+        mTableMask = length - 1;
+        mSampleSize = 10 * length;
+        mSize = 0;
+    }
+
+    /** Returns the estimated number of recent accesses to {@code key}, at most 15. */
+    int frequency(Object key) {
+        final int hash = ContainerHelpers.hash(key.hashCode());
+        final int start = (hash & 3) << 2;
+        int frequency = Integer.MAX_VALUE;
+        for (int i = 0; i < 4; i++) {
+            final int index = indexOf(hash, i);
+            final int count = (int) ((mTable[index] >>> ((start + i) << 2)) & 0xfL);
+            frequency = Math.min(frequency, count);
+        }
+        return frequency;
+    }
+
+    /** Records an access to {@code key}, aging all counters periodically. */
+    void increment(Object key) {
+        final int hash = ContainerHelpers.hash(key.hashCode());
+        final int start = (hash & 3) << 2;
+        boolean added = false;
+        for (int i = 0; i < 4; i++) {
+            added |= incrementAt(indexOf(hash, i), start + i);
+        }
+        if (added && ++mSize == mSampleSize) {
+            reset();
+        }
+    }
+
+    /** Increments the {@code counter}th counter of word {@code index} unless it is saturated. */
+    private boolean incrementAt(int index, int counter) {
+        final int offset = counter << 2;
+        final long mask = 0xfL << offset;
+        if ((mTable[index] & mask) != mask) {
+            mTable[index] += 1L << offset;
+            return true;
+        }
+        return false;
+    }
+
+    private int indexOf(int hash, int i) {
+        long h = (hash + SEEDS[i]) * SEEDS[i];
+        h += h >>> 32;
+        return ((int) h) & mTableMask;
+    }
+
+    /** Halves every counter, adjusting the sample count for the odd counts lost to rounding. */
+    private void reset() {
+        int odd = 0;
+        for (int i = 0; i < mTable.length; i++) {
+            odd += Long.bitCount(mTable[i] & ONE_MASK);
+            mTable[i] = (mTable[i] >>> 1) & RESET_MASK;
+        }
+        mSize = (mSize >>> 1) - (odd >>> 2);
+    }
+}
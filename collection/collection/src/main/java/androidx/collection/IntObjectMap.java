@@ -0,0 +1,422 @@
+/*
+ * Copyright 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.collection;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.Arrays;
+
+/**
+ * IntObjectMap maps integers to Objects using a hash table, so that lookups, insertions and
+ * removals take constant time regardless of the number of mappings.  Keys are not boxed and no
+ * per-entry objects are allocated.  It is a drop-in choice for large
+ * {@link SparseArrayCompat} instances that are populated in random key order.
+ *
+ * <p>Mappings are stored densely in a pair of arrays which are indexed by an open-addressed
+ * table of slots.  It is possible to iterate over the mappings using {@link #keyAt(int)} and
+ * {@link #valueAt(int)} with indices in the range <code>0...size()-1</code>.  Unlike
+ * {@link SparseArrayCompat}, the mappings are <b>not</b> kept in key order: removing a mapping
+ * moves the last mapping into its place, so an index is only meaningful until the next
+ * removal.  Use {@link SparseArrayCompat} where ordered iteration is required.</p>
+ *
+ * <p>This structure is <b>NOT</b> thread-safe.</p>
+ */
+public class IntObjectMap<V> {
+    int[] mKeys;
+    Object[] mValues;
+    int mSize;
+
+    /**
+     * Open-addressed index into {@link #mKeys}. Each slot holds the index of a mapping plus one,
+     * or 0 if the slot is free.
+     */
+    int[] mSlots;
+
+    /**
+     * Creates a new IntObjectMap containing no mappings.  The default capacity is 0, and the map
+     * will grow once mappings are added to it.
+     */
+    public IntObjectMap() {
+        mKeys = ContainerHelpers.EMPTY_INTS;
+        mValues = ContainerHelpers.EMPTY_OBJECTS;
+        mSlots = ContainerHelpers.EMPTY_INTS;
+    }
+
+    /**
+     * Creates a new IntObjectMap that will not require any additional memory allocation to store
+     * the specified number of mappings.
+     */
+    public IntObjectMap(int capacity) {
+        this();
+        ensureCapacity(capacity);
+    }
+
+    /**
+     * Creates a new IntObjectMap with the mappings from the given IntObjectMap.
+     */
+    public IntObjectMap(@Nullable IntObjectMap<? extends V> map) {
+        this();
+        if (map != null) {
+            putAll(map);
+        }
+    }
+
+    /**
+     * Ensure the map can hold at least <var>minimumCapacity</var> mappings.
+     */
+    public void ensureCapacity(int minimumCapacity) {
+        if (mKeys.length >= minimumCapacity) {
+            return;
+        }
+        final int n = ContainerHelpers.idealIntArraySize(minimumCapacity);
+        mKeys = Arrays.copyOf(mKeys, n);
+        mValues = Arrays.copyOf(mValues, n);
+        mSlots = new int[ContainerHelpers.idealHashTableSize(n)];
+        for (int i = 0; i < mSize; i++) {
+            insertSlot(i);
+        }
+    }
+
+    /**
+     * Returns the index of a key in the map.
+     *
+     * @param key The key to search for.
+     * @return Returns the index of the key if it exists, else a negative integer.
+     */
+    public int indexOfKey(int key) {
+        if (mSize == 0) {
+            return -1;
+        }
+        final int[] slots = mSlots;
+        final int mask = slots.length - 1;
+        int slot = ContainerHelpers.hash(key) & mask;
+        while (true) {
+            final int entry = slots[slot];
+            if (entry == 0) {
+                return -1;
+            }
+            if (mKeys[entry - 1] == key) {
+                return entry - 1;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    /**
+     * Returns an index for which {@link #valueAt} would return the specified value, or a
+     * negative number if no keys map to the specified value.
+     * <p>Beware that this is a linear search, unlike lookups by key.
+     */
+    public int indexOfValue(@Nullable Object value) {
+        for (int i = 0; i < mSize; i++) {
+            if (ContainerHelpers.equal(value, mValues[i])) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /** Returns true if the specified key is mapped. */
+    public boolean containsKey(int key) {
+        return indexOfKey(key) >= 0;
+    }
+
+    /** Returns true if the specified value is mapped from any key. */
+    public boolean containsValue(@Nullable Object value) {
+        return indexOfValue(value) >= 0;
+    }
+
+    /**
+     * Gets the Object mapped from the specified key, or <code>null</code> if no such mapping has
+     * been made.
+     */
+    @Nullable
+    @SuppressWarnings("NullAway") // See SimpleArrayMap#get.
+    public V get(int key) {
+        return getOrDefault(key, null);
+    }
+
+    /**
+     * Gets the Object mapped from the specified key, or {@code defaultValue} if no such mapping
+     * has been made.
+     */
+    @SuppressWarnings("unchecked")
+    public V getOrDefault(int key, V defaultValue) {
+        final int index = indexOfKey(key);
+        return index >= 0 ? (V) mValues[index] : defaultValue;
+    }
+
+    /**
+     * Return the key at the given index in the map.
+     * @param index The desired index, must be between 0 and {@link #size()}-1.
+     * @return Returns the key stored at the given index.
+     */
+    public int keyAt(int index) {
+        return mKeys[index];
+    }
+
+    /**
+     * Return the value at the given index in the map.
+     * @param index The desired index, must be between 0 and {@link #size()}-1.
+     * @return Returns the value stored at the given index.
+     */
+    @SuppressWarnings("unchecked")
+    public V valueAt(int index) {
+        return (V) mValues[index];
+    }
+
+    /**
+     * Set the value at a given index in the map.
+     * @param index The desired index, must be between 0 and {@link #size()}-1.
+     * @param value The new value to store at this index.
+     * @return Returns the previous value at the given index.
+     */
+    @SuppressWarnings("unchecked")
+    public V setValueAt(int index, V value) {
+        final V old = (V) mValues[index];
+        mValues[index] = value;
+        return old;
+    }
+
+    /**
+     * Adds a mapping from the specified key to the specified value, replacing the previous
+     * mapping from the specified key if there was one.
+     * @return Returns the old value that was stored for the given key, or null if there
+     * was no such key.
+     */
+    @Nullable
+    public V put(int key, V value) {
+        final int index = indexOfKey(key);
+        if (index >= 0) {
+            return setValueAt(index, value);
+        }
+        final int size = mSize;
+        if (size >= mKeys.length) {
+            ensureCapacity(size + 1);
+        }
+        mKeys[size] = key;
+        mValues[size] = value;
+        insertSlot(size);
+        mSize = size + 1;
+        return null;
+    }
+
+    /**
+     * Copies all of the mappings from {@code other} to this map.
+     */
+    public void putAll(@NonNull IntObjectMap<? extends V> other) {
+        final int n = other.mSize;
+        ensureCapacity(mSize + n);
+        for (int i = 0; i < n; i++) {
+            put(other.mKeys[i], other.valueAt(i));
+        }
+    }
+
+    /**
+     * Add a new value to the map only if the key does not already have a value or it is
+     * mapped to {@code null}.
+     * @param key The key under which to store the value.
+     * @param value The value to store for the given key.
+     * @return Returns the value that was stored for the given key, or null if there
+     * was no such key.
+     */
+    @Nullable
+    public V putIfAbsent(int key, V value) {
+        V mapValue = get(key);
+        if (mapValue == null) {
+            mapValue = put(key, value);
+        }
+        return mapValue;
+    }
+
+    /**
+     * Removes the mapping from the specified key, if there was any.
+     * @return Returns the value that was stored under the key, or null if there
+     * was no such key.
+     */
+    @Nullable
+    public V remove(int key) {
+        final int index = indexOfKey(key);
+        if (index >= 0) {
+            return removeAt(index);
+        }
+        return null;
+    }
+
+    /**
+     * Remove the mapping at the given index.  The last mapping in the map is moved into the
+     * vacated index.
+     * @param index The desired index, must be between 0 and {@link #size()}-1.
+     * @return Returns the value that was stored at this index.
+     */
+    @SuppressWarnings("unchecked")
+    public V removeAt(int index) {
+        final int last = mSize - 1;
+        if (index < 0 || index > last) {
+            throw new ArrayIndexOutOfBoundsException(index);
+        }
+        final V old = (V) mValues[index];
+        removeSlot(index);
+        if (index != last) {
+            mSlots[slotOf(last)] = index + 1;
+            mKeys[index] = mKeys[last];
+            mValues[index] = mValues[last];
+        }
+        mValues[last] = null;
+        mSize = last;
+        return old;
+    }
+
+    /**
+     * Removes all mappings from this map, keeping its capacity.
+     */
+    public void clear() {
+        if (mSize > 0) {
+            Arrays.fill(mSlots, 0);
+            Arrays.fill(mValues, 0, mSize, null);
+            mSize = 0;
+        }
+    }
+
+    /**
+     * Return the number of mappings in this map.
+     */
+    public int size() {
+        return mSize;
+    }
+
+    /**
+     * Return true if the map contains no mappings.
+     */
+    public boolean isEmpty() {
+        return mSize == 0;
+    }
+
+    private void insertSlot(int index) {
+        final int[] slots = mSlots;
+        final int mask = slots.length - 1;
+        int slot = ContainerHelpers.hash(mKeys[index]) & mask;
+        while (slots[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        slots[slot] = index + 1;
+    }
+
+    private int slotOf(int index) {
+        final int[] slots = mSlots;
+        final int mask = slots.length - 1;
+        int slot = ContainerHelpers.hash(mKeys[index]) & mask;
+        while (slots[slot] != index + 1) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /**
+     * Frees the slot for the mapping at {@code index}, shifting later members of its probe
+     * sequence back so that lookups never need tombstones.
+     */
+    private void removeSlot(int index) {
+        final int[] slots = mSlots;
+        final int mask = slots.length - 1;
+        int hole = slotOf(index);
+        int slot = hole;
+        while (true) {
+            slot = (slot + 1) & mask;
+            final int entry = slots[slot];
+            if (entry == 0) {
+                break;
+            }
+            final int home = ContainerHelpers.hash(mKeys[entry - 1]) & mask;
+            if (((slot - home) & mask) >= ((slot - hole) & mask)) {
+                slots[hole] = entry;
+                hole = slot;
+            }
+        }
+        slots[hole] = 0;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>This implementation returns true if the object is an IntObjectMap holding the same
+     * mappings, regardless of their order.  Values are compared using {@code equals}.
+     */
+    @Override
+    public boolean equals(Object object) {
+        if (this == object) {
+            return true;
+        }
+        if (!(object instanceof IntObjectMap)) {
+            return false;
+        }
+        IntObjectMap<?> map = (IntObjectMap<?>) object;
+        if (mSize != map.mSize) {
+            return false;
+        }
+        for (int i = 0; i < mSize; i++) {
+            final int index = map.indexOfKey(mKeys[i]);
+            if (index < 0 || !ContainerHelpers.equal(mValues[i], map.mValues[index])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = 0;
+        for (int i = 0; i < mSize; i++) {
+            final Object value = mValues[i];
+            result += mKeys[i] ^ (value == null ? 0 : value.hashCode());
+        }
+        return result;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>This implementation composes a string by iterating over its mappings. If
+     * this map contains itself as a value, the string "(this Map)"
+     * will appear in its place.
+     */
+    @Override
+    public String toString() {
+        if (isEmpty()) {
+            return "{}";
+        }
+
+        StringBuilder buffer = new StringBuilder(mSize * 28);
+        buffer.append('{');
+        for (int i = 0; i < mSize; i++) {
+            if (i > 0) {
+                buffer.append(", ");
+            }
+            buffer.append(mKeys[i]);
+            buffer.append('=');
+            Object value = mValues[i];
+            if (value != this) {
+                buffer.append(value);
+            } else {
+                buffer.append("(this Map)");
+            }
+        }
+        buffer.append('}');
+        return buffer.toString();
+    }
+}
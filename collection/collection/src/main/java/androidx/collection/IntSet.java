@@ -0,0 +1,331 @@
+/*
+ * Copyright 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.collection;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.Arrays;
+
+/**
+ * IntSet is a set of integers backed by a hash table, so that lookups, insertions and removals
+ * take constant time regardless of the number of elements.  Elements are not boxed.
+ *
+ * <p>The design is the same as {@link IntIntMap}: elements are stored densely and can be
+ * iterated using {@link #valueAt(int)} with indices in the range <code>0...size()-1</code>.
+ * Removing an element moves the last element into its place, so an index is only meaningful
+ * until the next removal.</p>
+ *
+ * <p>This structure is <b>NOT</b> thread-safe.</p>
+ */
+public class IntSet {
+    int[] mValues;
+    int mSize;
+
+    /**
+     * Open-addressed index into {@link #mValues}. Each slot holds the index of an element plus
+     * one, or 0 if the slot is free.
+     */
+    int[] mSlots;
+
+    /**
+     * Create a new empty IntSet.  The default capacity is 0, and the set will grow once
+     * elements are added to it.
+     */
+    public IntSet() {
+        mValues = ContainerHelpers.EMPTY_INTS;
+        mSlots = ContainerHelpers.EMPTY_INTS;
+    }
+
+    /**
+     * Create a new IntSet that will not require any additional memory allocation to store the
+     * specified number of elements.
+     */
+    public IntSet(int capacity) {
+        this();
+        ensureCapacity(capacity);
+    }
+
+    /**
+     * Create a new IntSet with the elements from the given IntSet.
+     */
+    public IntSet(@Nullable IntSet set) {
+        this();
+        if (set != null) {
+            addAll(set);
+        }
+    }
+
+    /**
+     * Ensure the set can hold at least <var>minimumCapacity</var> elements.
+     */
+    public void ensureCapacity(int minimumCapacity) {
+        if (mValues.length >= minimumCapacity) {
+            return;
+        }
+        final int n = ContainerHelpers.idealIntArraySize(minimumCapacity);
+        mValues = Arrays.copyOf(mValues, n);
+        mSlots = new int[ContainerHelpers.idealHashTableSize(n)];
+        for (int i = 0; i < mSize; i++) {
+            insertSlot(i);
+        }
+    }
+
+    /**
+     * Returns the index of a value in the set.
+     *
+     * @param value The value to search for.
+     * @return Returns the index of the value if it exists, else a negative integer.
+     */
+    public int indexOf(int value) {
+        if (mSize == 0) {
+            return -1;
+        }
+        final int[] slots = mSlots;
+        final int mask = slots.length - 1;
+        int slot = ContainerHelpers.hash(value) & mask;
+        while (true) {
+            final int entry = slots[slot];
+            if (entry == 0) {
+                return -1;
+            }
+            if (mValues[entry - 1] == value) {
+                return entry - 1;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    /**
+     * Check whether a value exists in the set.
+     *
+     * @param value The value to search for.
+     * @return Returns true if the value exists, else false.
+     */
+    public boolean contains(int value) {
+        return indexOf(value) >= 0;
+    }
+
+    /**
+     * Return the value at the given index in the set.
+     *
+     * @param index The desired index, must be between 0 and {@link #size()}-1.
+     * @return Returns the value stored at the given index.
+     */
+    public int valueAt(int index) {
+        return mValues[index];
+    }
+
+    /**
+     * Adds the specified value to the set if it is not already present.
+     *
+     * @param value the value to add.
+     * @return true if this set did not already contain the specified value.
+     */
+    public boolean add(int value) {
+        if (indexOf(value) >= 0) {
+            return false;
+        }
+        final int size = mSize;
+        if (size >= mValues.length) {
+            ensureCapacity(size + 1);
+        }
+        mValues[size] = value;
+        insertSlot(size);
+        mSize = size + 1;
+        return true;
+    }
+
+    /**
+     * Perform an {@link #add(int)} of all values in <var>set</var>.
+     *
+     * @param set The set whose contents are to be added.
+     */
+    public void addAll(@NonNull IntSet set) {
+        final int n = set.mSize;
+        ensureCapacity(mSize + n);
+        for (int i = 0; i < n; i++) {
+            add(set.mValues[i]);
+        }
+    }
+
+    /**
+     * Removes the specified value from this set if it is present.
+     *
+     * @param value the value to be removed.
+     * @return true if this set contained the specified value.
+     */
+    public boolean remove(int value) {
+        final int index = indexOf(value);
+        if (index >= 0) {
+            removeAt(index);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Remove the value at the given index.  The last value in the set is moved into the vacated
+     * index.
+     *
+     * @param index The desired index, must be between 0 and {@link #size()}-1.
+     * @return Returns the value that was stored at this index.
+     */
+    public int removeAt(int index) {
+        final int last = mSize - 1;
+        if (index < 0 || index > last) {
+            throw new ArrayIndexOutOfBoundsException(index);
+        }
+        final int old = mValues[index];
+        removeSlot(index);
+        if (index != last) {
+            mSlots[slotOf(last)] = index + 1;
+            mValues[index] = mValues[last];
+        }
+        mSize = last;
+        return old;
+    }
+
+    /**
+     * Removes all values from this set, keeping its capacity.
+     */
+    public void clear() {
+        if (mSize > 0) {
+            Arrays.fill(mSlots, 0);
+            mSize = 0;
+        }
+    }
+
+    /**
+     * Return the number of items in this set.
+     */
+    public int size() {
+        return mSize;
+    }
+
+    /**
+     * Return true if the set contains no items.
+     */
+    public boolean isEmpty() {
+        return mSize == 0;
+    }
+
+    /**
+     * Returns a new array holding the values of this set, in index order.
+     */
+    @NonNull
+    public int[] toArray() {
+        return Arrays.copyOf(mValues, mSize);
+    }
+
+    private void insertSlot(int index) {
+        final int[] slots = mSlots;
+        final int mask = slots.length - 1;
+        int slot = ContainerHelpers.hash(mValues[index]) & mask;
+        while (slots[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        slots[slot] = index + 1;
+    }
+
+    private int slotOf(int index) {
+        final int[] slots = mSlots;
+        final int mask = slots.length - 1;
+        int slot = ContainerHelpers.hash(mValues[index]) & mask;
+        while (slots[slot] != index + 1) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /**
+     * Frees the slot for the value at {@code index}, shifting later members of its probe
+     * sequence back so that lookups never need tombstones.
+     */
+    private void removeSlot(int index) {
+        final int[] slots = mSlots;
+        final int mask = slots.length - 1;
+        int hole = slotOf(index);
+        int slot = hole;
+        while (true) {
+            slot = (slot + 1) & mask;
+            final int entry = slots[slot];
+            if (entry == 0) {
+                break;
+            }
+            final int home = ContainerHelpers.hash(mValues[entry - 1]) & mask;
+            if (((slot - home) & mask) >= ((slot - hole) & mask)) {
+                slots[hole] = entry;
+                hole = slot;
+            }
+        }
+        slots[hole] = 0;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>This implementation returns true if the object is an IntSet holding the same values,
+     * regardless of their order.
+     */
+    @Override
+    public boolean equals(Object object) {
+        if (this == object) {
+            return true;
+        }
+        if (!(object instanceof IntSet)) {
+            return false;
+        }
+        IntSet set = (IntSet) object;
+        if (mSize != set.mSize) {
+            return false;
+        }
+        for (int i = 0; i < mSize; i++) {
+            if (!set.contains(mValues[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = 0;
+        for (int i = 0; i < mSize; i++) {
+            result += mValues[i];
+        }
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        if (isEmpty()) {
+            return "{}";
+        }
+
+        StringBuilder buffer = new StringBuilder(mSize * 8);
+        buffer.append('{');
+        for (int i = 0; i < mSize; i++) {
+            if (i > 0) {
+                buffer.append(", ");
+            }
+            buffer.append(mValues[i]);
+        }
+        buffer.append('}');
+        return buffer.toString();
+    }
+}
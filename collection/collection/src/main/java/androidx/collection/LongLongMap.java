@@ -0,0 +1,380 @@
+/*
+ * Copyright 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.collection;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.Arrays;
+
+/**
+ * LongLongMap maps longs to longs using a hash table, so that lookups, insertions and
+ * removals take constant time regardless of the number of mappings.  Neither keys nor values
+ * are boxed and no per-entry objects are allocated.
+ *
+ * <p>Mappings are stored densely in a pair of arrays which are indexed by an open-addressed
+ * table of slots.  It is possible to iterate over the mappings using {@link #keyAt(int)} and
+ * {@link #valueAt(int)} with indices in the range <code>0...size()-1</code>.  Unlike
+ * {@link SparseArrayCompat}, the mappings are <b>not</b> kept in key order: removing a mapping
+ * moves the last mapping into its place, so an index is only meaningful until the next
+ * removal.  Use {@link SparseArrayCompat} where ordered iteration is required.</p>
+ *
+ * <p>This structure is <b>NOT</b> thread-safe.</p>
+ */
+public class LongLongMap {
+    long[] mKeys;
+    long[] mValues;
+    int mSize;
+
+    /**
+     * Open-addressed index into {@link #mKeys}. Each slot holds the index of a mapping plus one,
+     * or 0 if the slot is free.
+     */
+    int[] mSlots;
+
+    /**
+     * Creates a new LongLongMap containing no mappings.  The default capacity is 0, and the map
+     * will grow once mappings are added to it.
+     */
+    public LongLongMap() {
+        mKeys = ContainerHelpers.EMPTY_LONGS;
+        mValues = ContainerHelpers.EMPTY_LONGS;
+        mSlots = ContainerHelpers.EMPTY_INTS;
+    }
+
+    /**
+     * Creates a new LongLongMap that will not require any additional memory allocation to store
+     * the specified number of mappings.
+     */
+    public LongLongMap(int capacity) {
+        this();
+        ensureCapacity(capacity);
+    }
+
+    /**
+     * Creates a new LongLongMap with the mappings from the given LongLongMap.
+     */
+    public LongLongMap(@Nullable LongLongMap map) {
+        this();
+        if (map != null) {
+            putAll(map);
+        }
+    }
+
+    /**
+     * Ensure the map can hold at least <var>minimumCapacity</var> mappings.
+     */
+    public void ensureCapacity(int minimumCapacity) {
+        if (mKeys.length >= minimumCapacity) {
+            return;
+        }
+        final int n = ContainerHelpers.idealLongArraySize(minimumCapacity);
+        mKeys = Arrays.copyOf(mKeys, n);
+        mValues = Arrays.copyOf(mValues, n);
+        mSlots = new int[ContainerHelpers.idealHashTableSize(n)];
+        for (int i = 0; i < mSize; i++) {
+            insertSlot(i);
+        }
+    }
+
+    /**
+     * Returns the index of a key in the map.
+     *
+     * @param key The key to search for.
+     * @return Returns the index of the key if it exists, else a negative integer.
+     */
+    public int indexOfKey(long key) {
+        if (mSize == 0) {
+            return -1;
+        }
+        final int[] slots = mSlots;
+        final int mask = slots.length - 1;
+        int slot = ContainerHelpers.hash(key) & mask;
+        while (true) {
+            final int entry = slots[slot];
+            if (entry == 0) {
+                return -1;
+            }
+            if (mKeys[entry - 1] == key) {
+                return entry - 1;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    /**
+     * Returns an index for which {@link #valueAt} would return the specified value, or a
+     * negative number if no keys map to the specified value.
+     * <p>Beware that this is a linear search, unlike lookups by key.
+     */
+    public int indexOfValue(long value) {
+        for (int i = 0; i < mSize; i++) {
+            if (mValues[i] == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /** Returns true if the specified key is mapped. */
+    public boolean containsKey(long key) {
+        return indexOfKey(key) >= 0;
+    }
+
+    /** Returns true if the specified value is mapped from any key. */
+    public boolean containsValue(long value) {
+        return indexOfValue(value) >= 0;
+    }
+
+    /**
+     * Gets the value mapped from the specified key, or <code>0</code> if no such mapping has been
+     * made.
+     */
+    public long get(long key) {
+        return getOrDefault(key, 0);
+    }
+
+    /**
+     * Gets the value mapped from the specified key, or {@code defaultValue} if no such mapping
+     * has been made.
+     */
+    public long getOrDefault(long key, long defaultValue) {
+        final int index = indexOfKey(key);
+        return index >= 0 ? mValues[index] : defaultValue;
+    }
+
+    /**
+     * Return the key at the given index in the map.
+     * @param index The desired index, must be between 0 and {@link #size()}-1.
+     * @return Returns the key stored at the given index.
+     */
+    public long keyAt(int index) {
+        return mKeys[index];
+    }
+
+    /**
+     * Return the value at the given index in the map.
+     * @param index The desired index, must be between 0 and {@link #size()}-1.
+     * @return Returns the value stored at the given index.
+     */
+    public long valueAt(int index) {
+        return mValues[index];
+    }
+
+    /**
+     * Set the value at a given index in the map.
+     * @param index The desired index, must be between 0 and {@link #size()}-1.
+     * @param value The new value to store at this index.
+     * @return Returns the previous value at the given index.
+     */
+    public long setValueAt(int index, long value) {
+        final long old = mValues[index];
+        mValues[index] = value;
+        return old;
+    }
+
+    /**
+     * Adds a mapping from the specified key to the specified value, replacing the previous
+     * mapping from the specified key if there was one.
+     */
+    public void put(long key, long value) {
+        final int index = indexOfKey(key);
+        if (index >= 0) {
+            mValues[index] = value;
+            return;
+        }
+        final int size = mSize;
+        if (size >= mKeys.length) {
+            ensureCapacity(size + 1);
+        }
+        mKeys[size] = key;
+        mValues[size] = value;
+        insertSlot(size);
+        mSize = size + 1;
+    }
+
+    /**
+     * Copies all of the mappings from {@code other} to this map.
+     */
+    public void putAll(@NonNull LongLongMap other) {
+        final int n = other.mSize;
+        ensureCapacity(mSize + n);
+        for (int i = 0; i < n; i++) {
+            put(other.mKeys[i], other.mValues[i]);
+        }
+    }
+
+    /**
+     * Removes the mapping from the specified key, if there was any.
+     * @return Returns true if a mapping was removed.
+     */
+    public boolean remove(long key) {
+        final int index = indexOfKey(key);
+        if (index >= 0) {
+            removeAt(index);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Remove the mapping at the given index.  The last mapping in the map is moved into the
+     * vacated index.
+     * @param index The desired index, must be between 0 and {@link #size()}-1.
+     * @return Returns the value that was stored at this index.
+     */
+    public long removeAt(int index) {
+        final int last = mSize - 1;
+        if (index < 0 || index > last) {
+            throw new ArrayIndexOutOfBoundsException(index);
+        }
+        final long old = mValues[index];
+        removeSlot(index);
+        if (index != last) {
+            mSlots[slotOf(last)] = index + 1;
+            mKeys[index] = mKeys[last];
+            mValues[index] = mValues[last];
+        }
+        mSize = last;
+        return old;
+    }
+
+    /**
+     * Removes all mappings from this map, keeping its capacity.
+     */
+    public void clear() {
+        if (mSize > 0) {
+            Arrays.fill(mSlots, 0);
+            mSize = 0;
+        }
+    }
+
+    /**
+     * Return the number of mappings in this map.
+     */
+    public int size() {
+        return mSize;
+    }
+
+    /**
+     * Return true if the map contains no mappings.
+     */
+    public boolean isEmpty() {
+        return mSize == 0;
+    }
+
+    private void insertSlot(int index) {
+        final int[] slots = mSlots;
+        final int mask = slots.length - 1;
+        int slot = ContainerHelpers.hash(mKeys[index]) & mask;
+        while (slots[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        slots[slot] = index + 1;
+    }
+
+    private int slotOf(int index) {
+        final int[] slots = mSlots;
+        final int mask = slots.length - 1;
+        int slot = ContainerHelpers.hash(mKeys[index]) & mask;
+        while (slots[slot] != index + 1) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /**
+     * Frees the slot for the mapping at {@code index}, shifting later members of its probe
+     * sequence back so that lookups never need tombstones.
+     */
+    private void removeSlot(int index) {
+        final int[] slots = mSlots;
+        final int mask = slots.length - 1;
+        int hole = slotOf(index);
+        int slot = hole;
+        while (true) {
+            slot = (slot + 1) & mask;
+            final int entry = slots[slot];
+            if (entry == 0) {
+                break;
+            }
+            final int home = ContainerHelpers.hash(mKeys[entry - 1]) & mask;
+            if (((slot - home) & mask) >= ((slot - hole) & mask)) {
+                slots[hole] = entry;
+                hole = slot;
+            }
+        }
+        slots[hole] = 0;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>This implementation returns true if the object is an LongLongMap holding the same
+     * mappings, regardless of their order.
+     */
+    @Override
+    public boolean equals(Object object) {
+        if (this == object) {
+            return true;
+        }
+        if (!(object instanceof LongLongMap)) {
+            return false;
+        }
+        LongLongMap map = (LongLongMap) object;
+        if (mSize != map.mSize) {
+            return false;
+        }
+        for (int i = 0; i < mSize; i++) {
+            final int index = map.indexOfKey(mKeys[i]);
+            if (index < 0 || map.mValues[index] != mValues[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = 0;
+        for (int i = 0; i < mSize; i++) {
+            final long entry = mKeys[i] ^ mValues[i];
+            result += (int) (entry ^ (entry >>> 32));
+        }
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        if (isEmpty()) {
+            return "{}";
+        }
+
+        StringBuilder buffer = new StringBuilder(mSize * 28);
+        buffer.append('{');
+        for (int i = 0; i < mSize; i++) {
+            if (i > 0) {
+                buffer.append(", ");
+            }
+            buffer.append(mKeys[i]);
+            buffer.append('=');
+            buffer.append(mValues[i]);
+        }
+        buffer.append('}');
+        return buffer.toString();
+    }
+}
@@ -19,6 +19,8 @@ package androidx.collection;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 
+import java.util.Arrays;
+
 /**
  * SparseArray mapping longs to Objects.  Unlike a normal array of Objects,
  * there can be gaps in the indices.  It is intended to be more memory efficient
@@ -303,6 +305,110 @@ public class LongSparseArray<E> implements Cloneable {
         }
     }
 
+    /**
+     * Adds mappings from each of {@code keys} to the value at the same position in
+     * {@code values}, replacing any previous mappings from those keys.  If a key occurs more
+     * than once, the last of its values is kept.
+     *
+     * <p>This is equivalent to calling {@link #put(long, Object)} once for each pair, but the
+     * keys are sorted once and merged into this map in a single pass instead of shifting the
+     * backing arrays for every insertion.
+     *
+     * @throws IllegalArgumentException if {@code keys} and {@code values} differ in length.
+     */
+    public void putAll(@NonNull long[] keys, @NonNull E[] values) {
+        if (keys.length != values.length) {
+            throw new IllegalArgumentException("keys.length (" + keys.length
+                    + ") != values.length (" + values.length + ")");
+        }
+        final int n = keys.length;
+        if (n == 0) {
+            return;
+        }
+        final long[] sortedKeys = keys.clone();
+        final Object[] sortedValues = Arrays.copyOf(values, n, Object[].class);
+        putAllSorted(sortedKeys, sortedValues,
+                ContainerHelpers.sortAndDeduplicate(sortedKeys, sortedValues, n));
+    }
+
+    /**
+     * Removes the mappings from each of {@code keys}, if there were any.  The backing arrays are
+     * compacted once afterwards rather than once per removed key.
+     */
+    public void removeAll(@NonNull long[] keys) {
+        for (long key : keys) {
+            remove(key);
+        }
+    }
+
+    /**
+     * Merges {@code count} mappings with ascending, distinct keys into this map.  Incoming
+     * values replace existing ones for the same key.  The arrays may be adopted as storage.
+     */
+    void putAllSorted(long[] keys, Object[] values, int count) {
+        if (count == 0) {
+            return;
+        }
+        if (mGarbage) {
+            gc();
+        }
+        final int size = mSize;
+        if (size == 0) {
+            if (keys.length >= count) {
+                mKeys = keys;
+                mValues = values;
+            } else {
+                mKeys = Arrays.copyOf(keys, count);
+                mValues = Arrays.copyOf(values, count);
+            }
+            mSize = count;
+            return;
+        }
+        if (keys[0] > mKeys[size - 1]) {
+            // Every incoming key sorts after the existing ones, so the merge is an append.
+            if (size + count > mKeys.length) {
+                final int n = ContainerHelpers.idealLongArraySize(size + count);
+                mKeys = Arrays.copyOf(mKeys, n);
+                mValues = Arrays.copyOf(mValues, n);
+            }
+            System.arraycopy(keys, 0, mKeys, size, count);
+            System.arraycopy(values, 0, mValues, size, count);
+            mSize = size + count;
+            return;
+        }
+
+        final int n = ContainerHelpers.idealLongArraySize(size + count);
+        final long[] nkeys = new long[n];
+        final Object[] nvalues = new Object[n];
+        int i = 0;
+        int j = 0;
+        int o = 0;
+        while (i < size && j < count) {
+            final long a = mKeys[i];
+            final long b = keys[j];
+            if (a < b) {
+                nkeys[o] = a;
+                nvalues[o++] = mValues[i++];
+            } else {
+                if (a == b) {
+                    i++;
+                }
+                nkeys[o] = b;
+                nvalues[o++] = values[j++];
+            }
+        }
+        System.arraycopy(mKeys, i, nkeys, o, size - i);
+        System.arraycopy(mValues, i, nvalues, o, size - i);
+        o += size - i;
+        System.arraycopy(keys, j, nkeys, o, count - j);
+        System.arraycopy(values, j, nvalues, o, count - j);
+        o += count - j;
+
+        mKeys = nkeys;
+        mValues = nvalues;
+        mSize = o;
+    }
+
     /**
      * Add a new value to the array map only if the key does not already have a value or it is
      * mapped to {@code null}.
@@ -515,4 +621,73 @@ public class LongSparseArray<E> implements Cloneable {
         buffer.append('}');
         return buffer.toString();
     }
+
+    /**
+     * Collects mappings in arbitrary key order and then builds a {@link LongSparseArray}
+     * from them, sorting and de-duplicating the keys once instead of on every insertion.  If the
+     * same key is put more than once, the last value wins.
+     *
+     * @param <E> the type of the values.
+     */
+    public static final class Builder<E> {
+        private long[] mKeys;
+        private Object[] mValues;
+        private int mSize;
+
+        /**
+         * Creates a new empty Builder.
+         */
+        public Builder() {
+            this(10);
+        }
+
+        /**
+         * Creates a new empty Builder that will not require any additional memory allocation to
+         * hold the specified number of mappings.
+         */
+        public Builder(int initialCapacity) {
+            if (initialCapacity <= 0) {
+                mKeys = ContainerHelpers.EMPTY_LONGS;
+                mValues = ContainerHelpers.EMPTY_OBJECTS;
+            } else {
+                initialCapacity = ContainerHelpers.idealLongArraySize(initialCapacity);
+                mKeys = new long[initialCapacity];
+                mValues = new Object[initialCapacity];
+            }
+        }
+
+        /**
+         * Records a mapping from {@code key} to {@code value}, replacing any earlier mapping
+         * from the same key once {@link #build()} is called.
+         *
+         * @return this Builder, to allow chaining.
+         */
+        @NonNull
+        public Builder<E> put(long key, E value) {
+            final int size = mSize;
+            if (size >= mKeys.length) {
+                final int n = ContainerHelpers.idealLongArraySize(size + 1);
+                mKeys = Arrays.copyOf(mKeys, n);
+                mValues = Arrays.copyOf(mValues, n);
+            }
+            mKeys[size] = key;
+            mValues[size] = value;
+            mSize = size + 1;
+            return this;
+        }
+
+        /**
+         * Returns a new {@link LongSparseArray} holding the mappings put into this Builder.  The
+         * Builder may continue to be used afterwards.
+         */
+        @NonNull
+        public LongSparseArray<E> build() {
+            final long[] keys = Arrays.copyOf(mKeys, mSize);
+            final Object[] values = Arrays.copyOf(mValues, mSize);
+            final LongSparseArray<E> array = new LongSparseArray<>(0);
+            array.putAllSorted(keys, values,
+                    ContainerHelpers.sortAndDeduplicate(keys, values, mSize));
+            return array;
+        }
+    }
 }
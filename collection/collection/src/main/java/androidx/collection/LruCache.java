@@ -16,9 +16,15 @@
 
 package androidx.collection;
 
+import static androidx.annotation.RestrictTo.Scope.LIBRARY;
+
+import androidx.annotation.IntDef;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
+import androidx.annotation.RestrictTo;
 
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
 import java.util.LinkedHashMap;
 import java.util.Locale;
 import java.util.Map;
@@ -29,10 +35,46 @@ import java.util.Map;
  * this implementation is still used; it does not try to switch to the
  * framework's implementation. See the framework SDK documentation for a class
  * overview.
+ *
+ * <p>Caches created with {@link #ADMISSION_FREQUENCY} additionally filter which
+ * new entries may displace old ones. New entries first enter a small window
+ * holding about 1% of the maximum size. When the cache is full, the eldest
+ * window entry is only admitted in place of the least recently used entry if
+ * it has been accessed more often recently, as estimated by a compact
+ * count-min sketch. This keeps one-off scans from flushing popular entries.
  */
 public class LruCache<K, V> {
+    /**
+     * Admission policy which caches every new entry, evicting the least
+     * recently used entries to make room. This is the default.
+     */
+    public static final int ADMISSION_ALWAYS = 0;
+
+    /**
+     * Admission policy which only lets a new entry displace an existing one if
+     * it has been accessed more frequently (Window-TinyLFU).
+     */
+    public static final int ADMISSION_FREQUENCY = 1;
+
+    /** @hide */
+    @RestrictTo(LIBRARY)
+    @IntDef({ADMISSION_ALWAYS, ADMISSION_FREQUENCY})
+    @Retention(RetentionPolicy.SOURCE)
+    public @interface AdmissionPolicy {}
+
     private final LinkedHashMap<K, V> map;
 
+    /**
+     * New entries awaiting admission into {@link #map}, or null when every
+     * entry is admitted.
+     */
+    @Nullable
+    private final LinkedHashMap<K, V> window;
+    @Nullable
+    private final FrequencySketch sketch;
+    private int windowSize;
+    private int windowMaxSize;
+
     /** Size of this cache in units. Not necessarily the number of elements. */
     private int size;
     private int maxSize;
@@ -49,11 +91,36 @@ public class LruCache<K, V> {
      *     this is the maximum sum of the sizes of the entries in this cache.
      */
     public LruCache(int maxSize) {
+        this(maxSize, ADMISSION_ALWAYS);
+    }
+
+    /**
+     * @param maxSize for caches that do not override {@link #sizeOf}, this is
+     *     the maximum number of entries in the cache. For all other caches,
+     *     this is the maximum sum of the sizes of the entries in this cache.
+     * @param admissionPolicy {@link #ADMISSION_ALWAYS} for a plain LRU cache or
+     *     {@link #ADMISSION_FREQUENCY} to filter new entries by access frequency.
+     */
+    public LruCache(int maxSize, @AdmissionPolicy int admissionPolicy) {
         if (maxSize <= 0) {
             throw new IllegalArgumentException("maxSize <= 0");
         }
         this.maxSize = maxSize;
         this.map = new LinkedHashMap<K, V>(0, 0.75f, true);
+        if (admissionPolicy == ADMISSION_FREQUENCY) {
+            this.window = new LinkedHashMap<K, V>(0, 0.75f, true);
+            this.sketch = new FrequencySketch(Math.min(maxSize, 256));
+            this.windowMaxSize = windowMaxSizeFor(maxSize);
+        } else if (admissionPolicy == ADMISSION_ALWAYS) {
+            this.window = null;
+            this.sketch = null;
+        } else {
+            throw new IllegalArgumentException("Unknown admission policy " + admissionPolicy);
+        }
+    }
+
+    private static int windowMaxSizeFor(int maxSize) {
+        return Math.max(1, maxSize / 100);
     }
 
     /**
@@ -68,6 +135,7 @@ public class LruCache<K, V> {
 
         synchronized (this) {
             this.maxSize = maxSize;
+            this.windowMaxSize = windowMaxSizeFor(maxSize);
         }
         trimToSize(maxSize);
     }
@@ -86,7 +154,10 @@ public class LruCache<K, V> {
 
         V mapValue;
         synchronized (this) {
-            mapValue = map.get(key);
+            if (sketch != null) {
+                sketch.increment(key);
+            }
+            mapValue = getLocked(key);
             if (mapValue != null) {
                 hitCount++;
                 return mapValue;
@@ -108,11 +179,11 @@ public class LruCache<K, V> {
 
         synchronized (this) {
             createCount++;
-            mapValue = map.put(key, createdValue);
+            mapValue = putLocked(key, createdValue);
 
             if (mapValue != null) {
                 // There was a conflict so undo that last put
-                map.put(key, mapValue);
+                putLocked(key, mapValue);
             } else {
                 size += safeSizeOf(key, createdValue);
             }
@@ -142,8 +213,11 @@ public class LruCache<K, V> {
         V previous;
         synchronized (this) {
             putCount++;
+            if (sketch != null) {
+                sketch.increment(key);
+            }
             size += safeSizeOf(key, value);
-            previous = map.put(key, value);
+            previous = putLocked(key, value);
             if (previous != null) {
                 size -= safeSizeOf(key, previous);
             }
@@ -169,19 +243,20 @@ public class LruCache<K, V> {
             K key;
             V value;
             synchronized (this) {
-                if (size < 0 || (map.isEmpty() && size != 0)) {
+                if (size < 0 || (isEmptyLocked() && size != 0)) {
                     throw new IllegalStateException(getClass().getName()
                             + ".sizeOf() is reporting inconsistent results!");
                 }
 
-                if (size <= maxSize || map.isEmpty()) {
+                if (size <= maxSize || isEmptyLocked()) {
+                    promoteWindowOverflowLocked();
                     break;
                 }
 
-                Map.Entry<K, V> toEvict = map.entrySet().iterator().next();
+                Map.Entry<K, V> toEvict = selectVictimLocked();
                 key = toEvict.getKey();
                 value = toEvict.getValue();
-                map.remove(key);
+                removeLocked(key);
                 size -= safeSizeOf(key, value);
                 evictionCount++;
             }
@@ -203,7 +278,7 @@ public class LruCache<K, V> {
 
         V previous;
         synchronized (this) {
-            previous = map.remove(key);
+            previous = removeLocked(key);
             if (previous != null) {
                 size -= safeSizeOf(key, previous);
             }
@@ -216,6 +291,89 @@ public class LruCache<K, V> {
         return previous;
     }
 
+    @Nullable
+    private V getLocked(K key) {
+        V value = map.get(key);
+        if (value == null && window != null) {
+            value = window.get(key);
+        }
+        return value;
+    }
+
+    /**
+     * Stores {@code value} in whichever region already holds {@code key}, or in
+     * the admission window for new keys. The caller accounts for {@link #size}.
+     */
+    @Nullable
+    private V putLocked(K key, V value) {
+        if (window == null || sketch == null || map.containsKey(key)) {
+            return map.put(key, value);
+        }
+        V previous = window.put(key, value);
+        windowSize += safeSizeOf(key, value);
+        if (previous != null) {
+            windowSize -= safeSizeOf(key, previous);
+        }
+        sketch.ensureCapacity(map.size() + window.size());
+        return previous;
+    }
+
+    @Nullable
+    private V removeLocked(K key) {
+        V previous = map.remove(key);
+        if (previous == null && window != null) {
+            previous = window.remove(key);
+            if (previous != null) {
+                windowSize -= safeSizeOf(key, previous);
+            }
+        }
+        return previous;
+    }
+
+    private boolean isEmptyLocked() {
+        return map.isEmpty() && (window == null || window.isEmpty());
+    }
+
+    /**
+     * Returns the entry to evict from a cache which is over its maximum size.
+     * Without an admission window this is the least recently used entry. With
+     * one, an overflowing window's eldest entry is weighed against the least
+     * recently used admitted entry and the less frequently accessed one loses.
+     */
+    private Map.Entry<K, V> selectVictimLocked() {
+        if (window == null || sketch == null || window.isEmpty()) {
+            return map.entrySet().iterator().next();
+        }
+        Map.Entry<K, V> candidate = window.entrySet().iterator().next();
+        if (map.isEmpty()) {
+            return candidate;
+        }
+        Map.Entry<K, V> victim = map.entrySet().iterator().next();
+        if (windowSize <= windowMaxSize) {
+            return victim;
+        }
+        return sketch.frequency(candidate.getKey()) > sketch.frequency(victim.getKey())
+                ? victim : candidate;
+    }
+
+    /**
+     * Moves the eldest window entries into the main region while the window is
+     * over its share and the cache has room, so they need not compete for it.
+     */
+    private void promoteWindowOverflowLocked() {
+        if (window == null) {
+            return;
+        }
+        while (windowSize > windowMaxSize && !window.isEmpty()) {
+            Map.Entry<K, V> eldest = window.entrySet().iterator().next();
+            K key = eldest.getKey();
+            V value = eldest.getValue();
+            window.remove(key);
+            windowSize -= safeSizeOf(key, value);
+            map.put(key, value);
+        }
+    }
+
     /**
      * Called for entries that have been evicted or removed. This method is
      * invoked when a value is evicted to make space, removed by a call to
@@ -338,10 +496,15 @@ public class LruCache<K, V> {
 
     /**
      * Returns a copy of the current contents of the cache, ordered from least
-     * recently accessed to most recently accessed.
+     * recently accessed to most recently accessed. Entries still in the
+     * admission window of an {@link #ADMISSION_FREQUENCY} cache come last.
      */
     public synchronized final Map<K, V> snapshot() {
-        return new LinkedHashMap<K, V>(map);
+        LinkedHashMap<K, V> snapshot = new LinkedHashMap<K, V>(map);
+        if (window != null) {
+            snapshot.putAll(window);
+        }
+        return snapshot;
     }
 
     @Override public synchronized final String toString() {
@@ -29,6 +29,11 @@ import java.util.Map;
  * easier to use as a drop-in replacement for HashMap.  If you don't need them, this
  * class can be preferrable since it doesn't bring in any of the implementation of those
  * APIs, allowing that code to be stripped by ProGuard.
+ *
+ * <p>Once a map grows to {@link #setHashIndexThreshold its hash index threshold}, it switches
+ * from binary searching its sorted hash array to an open-addressed hash index, so that large
+ * maps are built and queried in constant time per operation. In that mode new mappings are
+ * appended and a removal moves the last mapping into the vacated index.
  */
 public class SimpleArrayMap<K, V> {
     private static final boolean DEBUG = false;
@@ -53,25 +58,22 @@ public class SimpleArrayMap<K, V> {
     private static final int BASE_SIZE = 4;
 
     /**
-     * Maximum number of entries to have in array caches.
+     * The default size at which a map switches to a hash index. Below it, binary searching
+     * the compact arrays is competitive and saves the memory of the index.
      */
-    private static final int CACHE_SIZE = 10;
-
-    /**
-     * Caches of small array objects to avoid spamming garbage.  The cache
-     * Object[] variable is a pointer to a linked list of array objects.
-     * The first entry in the array is a pointer to the next array in the
-     * list; the second entry is a pointer to the int[] hash code array for it.
-     */
-    static @Nullable Object[] mBaseCache;
-    static int mBaseCacheSize;
-    static @Nullable Object[] mTwiceBaseCache;
-    static int mTwiceBaseCacheSize;
+    static final int DEFAULT_HASH_INDEX_THRESHOLD = 256;
 
     int[] mHashes;
     Object[] mArray;
     int mSize;
 
+    /**
+     * Open-addressed index over {@link #mHashes}, or null while the map is small enough to be
+     * kept sorted by hash and binary searched.
+     */
+    @Nullable int[] mSlots;
+    private int mHashIndexThreshold = DEFAULT_HASH_INDEX_THRESHOLD;
+
     private static int binarySearchHashes(int[] hashes, int N, int hash) {
         try {
             return ContainerHelpers.binarySearch(hashes, N, hash);
@@ -92,6 +94,11 @@ public class SimpleArrayMap<K, V> {
             return ~0;
         }
 
+        final int[] slots = mSlots;
+        if (slots != null) {
+            return indexOfHashed(slots, key, hash);
+        }
+
         int index = binarySearchHashes(mHashes, N, hash);
 
         // If the hash code wasn't found, then we have no entry for this key.
@@ -130,6 +137,11 @@ public class SimpleArrayMap<K, V> {
             return ~0;
         }
 
+        final int[] slots = mSlots;
+        if (slots != null) {
+            return indexOfHashed(slots, null, 0);
+        }
+
         int index = binarySearchHashes(mHashes, N, 0);
 
         // If the hash code wasn't found, then we have no entry for this key.
@@ -160,75 +172,55 @@ public class SimpleArrayMap<K, V> {
         return ~end;
     }
 
-    @SuppressWarnings("ArrayToString")
-    private void allocArrays(final int size) {
-        if (size == (BASE_SIZE*2)) {
-            synchronized (SimpleArrayMap.class) {
-                if (mTwiceBaseCache != null) {
-                    final Object[] array = mTwiceBaseCache;
-                    mArray = array;
-                    mTwiceBaseCache = (Object[])array[0];
-                    mHashes = (int[])array[1];
-                    array[0] = array[1] = null;
-                    mTwiceBaseCacheSize--;
-                    if (DEBUG) System.out.println(TAG + " Retrieving 2x cache " + mHashes
-                            + " now have " + mTwiceBaseCacheSize + " entries");
-                    return;
-                }
+    /**
+     * Looks {@code key} up in the hash index. New entries are always appended, so a missing
+     * key's insertion point is the end of the arrays.
+     */
+    private int indexOfHashed(int[] slots, @Nullable Object key, int hash) {
+        final int mask = slots.length - 1;
+        int slot = ContainerHelpers.hash(hash) & mask;
+        while (true) {
+            final int entry = slots[slot];
+            if (entry == 0) {
+                return ~mSize;
             }
-        } else if (size == BASE_SIZE) {
-            synchronized (SimpleArrayMap.class) {
-                if (mBaseCache != null) {
-                    final Object[] array = mBaseCache;
-                    mArray = array;
-                    mBaseCache = (Object[])array[0];
-                    mHashes = (int[])array[1];
-                    array[0] = array[1] = null;
-                    mBaseCacheSize--;
-                    if (DEBUG) System.out.println(TAG + " Retrieving 1x cache " + mHashes
-                            + " now have " + mBaseCacheSize + " entries");
-                    return;
-                }
+            final int index = entry - 1;
+            if (mHashes[index] == hash && ContainerHelpers.equal(key, mArray[index << 1])) {
+                return index;
             }
+            slot = (slot + 1) & mask;
         }
-
-        mHashes = new int[size];
-        mArray = new Object[size<<1];
     }
 
-    @SuppressWarnings("ArrayToString")
-    private static void freeArrays(final int[] hashes, final Object[] array, final int size) {
-        if (hashes.length == (BASE_SIZE*2)) {
-            synchronized (SimpleArrayMap.class) {
-                if (mTwiceBaseCacheSize < CACHE_SIZE) {
-                    array[0] = mTwiceBaseCache;
-                    array[1] = hashes;
-                    for (int i=(size<<1)-1; i>=2; i--) {
-                        array[i] = null;
-                    }
-                    mTwiceBaseCache = array;
-                    mTwiceBaseCacheSize++;
-                    if (DEBUG) System.out.println(TAG + " Storing 2x cache " + array
-                            + " now have " + mTwiceBaseCacheSize + " entries");
-                }
-            }
-        } else if (hashes.length == BASE_SIZE) {
-            synchronized (SimpleArrayMap.class) {
-                if (mBaseCacheSize < CACHE_SIZE) {
-                    array[0] = mBaseCache;
-                    array[1] = hashes;
-                    for (int i=(size<<1)-1; i>=2; i--) {
-                        array[i] = null;
-                    }
-                    mBaseCache = array;
-                    mBaseCacheSize++;
-                    if (DEBUG) System.out.println(TAG + " Storing 1x cache " + array
-                            + " now have " + mBaseCacheSize + " entries");
-                }
+    /**
+     * Builds the hash index if the map has reached its threshold, or grows it to match the
+     * capacity of the arrays.
+     */
+    private void updateHashIndex() {
+        final int[] slots = mSlots;
+        if (slots == null) {
+            if (mSize >= mHashIndexThreshold) {
+                mSlots = ContainerHelpers.buildHashIndex(mHashes, mSize);
             }
+        } else if (slots.length < ContainerHelpers.idealHashTableSize(mHashes.length)) {
+            mSlots = ContainerHelpers.buildHashIndex(mHashes, mSize);
         }
     }
 
+    private void allocArrays(final int size) {
+        mHashes = ArrayPool.acquireInts(size);
+        mArray = ArrayPool.acquireObjects(mHashes.length << 1);
+    }
+
+    /**
+     * Returns arrays which are no longer referenced by any map to the {@link ArrayPool}.
+     * {@code size} is the number of mappings they held.
+     */
+    private static void freeArrays(final int[] hashes, final Object[] array, final int size) {
+        ArrayPool.release(hashes);
+        ArrayPool.release(array, size << 1);
+    }
+
     /**
      * Create a new empty ArrayMap.  The default capacity of an array map is 0, and
      * will grow once items are added to it.
@@ -273,6 +265,7 @@ public class SimpleArrayMap<K, V> {
             final int osize = mSize;
             mHashes = ContainerHelpers.EMPTY_INTS;
             mArray = ContainerHelpers.EMPTY_OBJECTS;
+            mSlots = null;
             mSize = 0;
             freeArrays(ohashes, oarray, osize);
         }
@@ -296,6 +289,9 @@ public class SimpleArrayMap<K, V> {
                 System.arraycopy(oarray, 0, mArray, 0, osize<<1);
             }
             freeArrays(ohashes, oarray, osize);
+            if (mSlots != null) {
+                updateHashIndex();
+            }
         }
         if (CONCURRENT_MODIFICATION_EXCEPTIONS && mSize != osize) {
             throw new ConcurrentModificationException();
@@ -473,6 +469,9 @@ public class SimpleArrayMap<K, V> {
             }
 
             freeArrays(ohashes, oarray, osize);
+            if (mSlots != null) {
+                updateHashIndex();
+            }
         }
 
         if (index < osize) {
@@ -492,6 +491,12 @@ public class SimpleArrayMap<K, V> {
         mArray[index<<1] = key;
         mArray[(index<<1)+1] = value;
         mSize++;
+        final int[] slots = mSlots;
+        if (slots != null) {
+            ContainerHelpers.insertHashIndex(slots, mHashes, index);
+        } else if (mSize >= mHashIndexThreshold) {
+            updateHashIndex();
+        }
         return null;
     }
 
@@ -507,6 +512,12 @@ public class SimpleArrayMap<K, V> {
                 System.arraycopy(array.mHashes, 0, mHashes, 0, N);
                 System.arraycopy(array.mArray, 0, mArray, 0, N<<1);
                 mSize = N;
+                if (array.mSlots != null) {
+                    // The copied hashes are not sorted, so they need an index regardless of size.
+                    mSlots = ContainerHelpers.buildHashIndex(mHashes, N);
+                } else {
+                    updateHashIndex();
+                }
             }
         } else {
             for (int i=0; i<N; i++) {
@@ -575,6 +586,28 @@ public class SimpleArrayMap<K, V> {
     public V removeAt(int index) {
         final Object old = mArray[(index << 1) + 1];
         final int osize = mSize;
+        final int[] slots = mSlots;
+        if (slots != null && osize > 1) {
+            if (index >= osize) {
+                throw new ArrayIndexOutOfBoundsException(index);
+            }
+            // Move the last mapping into the hole rather than shifting everything after it.
+            final int nsize = osize - 1;
+            ContainerHelpers.removeHashIndex(slots, mHashes, index);
+            if (index < nsize) {
+                slots[ContainerHelpers.hashIndexSlotOf(slots, mHashes, nsize)] = index + 1;
+                mHashes[index] = mHashes[nsize];
+                mArray[index << 1] = mArray[nsize << 1];
+                mArray[(index << 1) + 1] = mArray[(nsize << 1) + 1];
+            }
+            mArray[nsize << 1] = null;
+            mArray[(nsize << 1) + 1] = null;
+            if (CONCURRENT_MODIFICATION_EXCEPTIONS && osize != mSize) {
+                throw new ConcurrentModificationException();
+            }
+            mSize = nsize;
+            return (V) old;
+        }
         if (osize <= 1) {
             // Now empty.
             if (DEBUG) System.out.println(TAG + " remove: shrink from " + mHashes.length + " to 0");
@@ -609,6 +642,7 @@ public class SimpleArrayMap<K, V> {
                     System.arraycopy(oarray, (index + 1) << 1, mArray, index << 1,
                             (nsize - index) << 1);
                 }
+                freeArrays(ohashes, oarray, osize);
             } else {
                 if (index < nsize) {
                     if (DEBUG) System.out.println(TAG + " remove: move " + (index+1) + "-" + nsize
@@ -670,6 +704,29 @@ public class SimpleArrayMap<K, V> {
         return mSize;
     }
 
+    /**
+     * Set the number of mappings at which this map switches from binary searching its compact
+     * arrays to an open-addressed hash index.  Past that point lookups, insertions and removals
+     * take constant time instead of time proportional to the size of the map, at the cost of an
+     * additional array of two to four ints per mapping.  Mappings are then no longer ordered by
+     * hash code, and a removal moves the last mapping into the removed index.
+     *
+     * <p>The index is only discarded when the map is cleared, so raising the threshold above
+     * the current size has no effect until then.  The default is 256.
+     *
+     * @param threshold The size at which to start using a hash index.  Pass
+     * {@link Integer#MAX_VALUE} to keep the compact representation at all sizes.
+     */
+    public void setHashIndexThreshold(int threshold) {
+        if (threshold <= 0) {
+            throw new IllegalArgumentException("threshold <= 0");
+        }
+        mHashIndexThreshold = threshold;
+        if (mSize > 0) {
+            updateHashIndex();
+        }
+    }
+
     /**
      * {@inheritDoc}
      *
@@ -781,4 +838,137 @@ public class SimpleArrayMap<K, V> {
         buffer.append('}');
         return buffer.toString();
     }
+
+    /**
+     * A reusable cursor over the mappings of {@link SimpleArrayMap}.  Unlike a for-each loop, which
+     * allocates an iterator every time, a cursor can be {@link #reset reset} and used again for
+     * any number of traversals, so iterating does not allocate at all:
+     *
+     * <pre>
+     * cursor.reset(map);
+     * while (cursor.moveToNext()) {
+     *     ...
+     * }
+     * </pre>
+     *
+     * <p>The current mapping may be removed through {@link #remove()} without disturbing the
+     * traversal.  Any other change to the SimpleArrayMap during a traversal causes
+     * {@link ConcurrentModificationException}.</p>
+     */
+    public static final class Cursor<K, V> {
+        @Nullable
+        private SimpleArrayMap<K, V> mTarget;
+        private int mIndex;
+        private int mExpectedSize;
+        private boolean mPositioned;
+
+        /**
+         * Creates a cursor which must be {@link #reset reset} before use.
+         */
+        public Cursor() {
+        }
+
+        /**
+         * Creates a cursor positioned before the first mapping of {@code target}.
+         */
+        public Cursor(@NonNull SimpleArrayMap<K, V> target) {
+            reset(target);
+        }
+
+        /**
+         * Positions this cursor before the first mapping of {@code target}.
+         *
+         * @return this cursor, to allow chaining.
+         */
+        @NonNull
+        public Cursor<K, V> reset(@NonNull SimpleArrayMap<K, V> target) {
+            mTarget = target;
+            mIndex = -1;
+            mExpectedSize = target.mSize;
+            mPositioned = false;
+            return this;
+        }
+
+        /**
+         * Advances to the next mapping.
+         *
+         * @return false once every mapping has been visited.
+         */
+        public boolean moveToNext() {
+            final SimpleArrayMap<K, V> target = requireTarget();
+            if (target.mSize != mExpectedSize) {
+                throw new ConcurrentModificationException();
+            }
+            if (mIndex + 1 < mExpectedSize) {
+                mIndex++;
+                mPositioned = true;
+            } else {
+                mIndex = mExpectedSize;
+                mPositioned = false;
+            }
+            return mPositioned;
+        }
+
+        /**
+         * Returns the key of the current mapping.
+         *
+         * @throws IllegalStateException if the cursor is not on a mapping.
+         */
+        public K getKey() {
+            return requireTarget().keyAt(requirePosition());
+        }
+
+        /**
+         * Returns the value of the current mapping.
+         *
+         * @throws IllegalStateException if the cursor is not on a mapping.
+         */
+        public V getValue() {
+            return requireTarget().valueAt(requirePosition());
+        }
+
+        /**
+         * Replaces the value of the current mapping.
+         *
+         * @return the previous value.
+         * @throws IllegalStateException if the cursor is not on a mapping.
+         */
+        public V setValue(V value) {
+            return requireTarget().setValueAt(requirePosition(), value);
+        }
+
+        /**
+         * Removes the current mapping.  The cursor is left between mappings, so that the next
+         * call to {@link #moveToNext()} moves to the mapping that would have followed.
+         *
+         * @throws IllegalStateException if the cursor is not on a mapping.
+         */
+        public void remove() {
+            final int index = requirePosition();
+            requireTarget().removeAt(index);
+            // Whether the tail shifted down or the last mapping was moved into the hole, the
+            // next unvisited mapping is now at this index.
+            mIndex = index - 1;
+            mExpectedSize--;
+            mPositioned = false;
+        }
+
+        private SimpleArrayMap<K, V> requireTarget() {
+            final SimpleArrayMap<K, V> target = mTarget;
+            if (target == null) {
+                throw new IllegalStateException("Cursor has not been reset to a target");
+            }
+            return target;
+        }
+
+        private int requirePosition() {
+            if (!mPositioned) {
+                throw new IllegalStateException("Cursor is not positioned on a mapping");
+            }
+            if (requireTarget().mSize != mExpectedSize) {
+                throw new ConcurrentModificationException();
+            }
+            return mIndex;
+        }
+    }
 }
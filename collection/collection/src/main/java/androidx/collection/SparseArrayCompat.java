@@ -19,6 +19,8 @@ package androidx.collection;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 
+import java.util.Arrays;
+
 /**
  * SparseArrays map integers to Objects.  Unlike a normal array of Objects,
  * there can be gaps in the indices.  It is intended to be more memory efficient
@@ -32,7 +34,9 @@ import androidx.annotation.Nullable;
  * that may contain large numbers of items.  It is generally slower than a traditional
  * HashMap, since lookups require a binary search and adds and removes require inserting
  * and deleting entries in the array.  For containers holding up to hundreds of items,
- * the performance difference is not significant, less than 50%.</p>
+ * the performance difference is not significant, less than 50%.  Containers which hold
+ * many more items and do not need ordered iteration should use {@link IntObjectMap}
+ * instead.</p>
  *
  * <p>To help with performance, the container includes an optimization when removing
  * keys: instead of compacting its array immediately, it leaves the removed entry marked
@@ -74,9 +78,8 @@ public class SparseArrayCompat<E> implements Cloneable {
             mKeys =  ContainerHelpers.EMPTY_INTS;
             mValues =  ContainerHelpers.EMPTY_OBJECTS;
         } else {
-            initialCapacity =  ContainerHelpers.idealIntArraySize(initialCapacity);
-            mKeys = new int[initialCapacity];
-            mValues = new Object[initialCapacity];
+            mKeys = ArrayPool.acquireInts(ContainerHelpers.idealIntArraySize(initialCapacity));
+            mValues = ArrayPool.acquireObjects(mKeys.length);
         }
     }
 
@@ -253,6 +256,22 @@ public class SparseArrayCompat<E> implements Cloneable {
         // Log.e("SparseArray", "gc end with " + mSize);
     }
 
+    /**
+     * Moves the mappings into arrays from the {@link ArrayPool} able to hold at least
+     * {@code capacity} of them, and returns the old arrays to the pool.
+     */
+    private void grow(int capacity) {
+        final int[] nkeys = ArrayPool.acquireInts(ContainerHelpers.idealIntArraySize(capacity));
+        final Object[] nvalues = ArrayPool.acquireObjects(nkeys.length);
+        System.arraycopy(mKeys, 0, nkeys, 0, mSize);
+        System.arraycopy(mValues, 0, nvalues, 0, mSize);
+        ArrayPool.release(mKeys);
+        // Slots past mSize may still hold DELETED, so clear the whole array.
+        ArrayPool.release(mValues, mValues.length);
+        mKeys = nkeys;
+        mValues = nvalues;
+    }
+
     /**
      * Adds a mapping from the specified key to the specified value,
      * replacing the previous mapping from the specified key if there
@@ -280,17 +299,7 @@ public class SparseArrayCompat<E> implements Cloneable {
             }
 
             if (mSize >= mKeys.length) {
-                int n =  ContainerHelpers.idealIntArraySize(mSize + 1);
-
-                int[] nkeys = new int[n];
-                Object[] nvalues = new Object[n];
-
-                // Log.e("SparseArray", "grow " + mKeys.length + " to " + n);
-                System.arraycopy(mKeys, 0, nkeys, 0, mKeys.length);
-                System.arraycopy(mValues, 0, nvalues, 0, mValues.length);
-
-                mKeys = nkeys;
-                mValues = nvalues;
+                grow(mSize + 1);
             }
 
             if (mSize - i != 0) {
@@ -316,6 +325,111 @@ public class SparseArrayCompat<E> implements Cloneable {
         }
     }
 
+    /**
+     * Adds mappings from each of {@code keys} to the value at the same position in
+     * {@code values}, replacing any previous mappings from those keys.  If a key occurs more
+     * than once, the last of its values is kept.
+     *
+     * <p>This is equivalent to calling {@link #put(int, Object)} once for each pair, but the
+     * keys are sorted once and merged into this map in a single pass instead of shifting the
+     * backing arrays for every insertion.
+     *
+     * @throws IllegalArgumentException if {@code keys} and {@code values} differ in length.
+     */
+    public void putAll(@NonNull int[] keys, @NonNull E[] values) {
+        if (keys.length != values.length) {
+            throw new IllegalArgumentException("keys.length (" + keys.length
+                    + ") != values.length (" + values.length + ")");
+        }
+        final int n = keys.length;
+        if (n == 0) {
+            return;
+        }
+        final int[] sortedKeys = keys.clone();
+        final Object[] sortedValues = Arrays.copyOf(values, n, Object[].class);
+        putAllSorted(sortedKeys, sortedValues,
+                ContainerHelpers.sortAndDeduplicate(sortedKeys, sortedValues, n));
+    }
+
+    /**
+     * Removes the mappings from each of {@code keys}, if there were any.  The backing arrays are
+     * compacted once afterwards rather than once per removed key.
+     */
+    public void removeAll(@NonNull int[] keys) {
+        for (int key : keys) {
+            remove(key);
+        }
+    }
+
+    /**
+     * Merges {@code count} mappings with ascending, distinct keys into this map.  Incoming
+     * values replace existing ones for the same key.  The arrays may be adopted as storage.
+     */
+    void putAllSorted(int[] keys, Object[] values, int count) {
+        if (count == 0) {
+            return;
+        }
+        if (mGarbage) {
+            gc();
+        }
+        final int size = mSize;
+        if (size == 0) {
+            if (keys.length >= count) {
+                ArrayPool.release(mKeys);
+                ArrayPool.release(mValues, mValues.length);
+                mKeys = keys;
+                mValues = values;
+            } else {
+                mKeys = Arrays.copyOf(keys, count);
+                mValues = Arrays.copyOf(values, count);
+            }
+            mSize = count;
+            return;
+        }
+        if (keys[0] > mKeys[size - 1]) {
+            // Every incoming key sorts after the existing ones, so the merge is an append.
+            if (size + count > mKeys.length) {
+                grow(size + count);
+            }
+            System.arraycopy(keys, 0, mKeys, size, count);
+            System.arraycopy(values, 0, mValues, size, count);
+            mSize = size + count;
+            return;
+        }
+
+        final int[] nkeys = ArrayPool.acquireInts(ContainerHelpers.idealIntArraySize(size + count));
+        final Object[] nvalues = ArrayPool.acquireObjects(nkeys.length);
+        int i = 0;
+        int j = 0;
+        int o = 0;
+        while (i < size && j < count) {
+            final int a = mKeys[i];
+            final int b = keys[j];
+            if (a < b) {
+                nkeys[o] = a;
+                nvalues[o++] = mValues[i++];
+            } else {
+                if (a == b) {
+                    i++;
+                }
+                nkeys[o] = b;
+                nvalues[o++] = values[j++];
+            }
+        }
+        System.arraycopy(mKeys, i, nkeys, o, size - i);
+        System.arraycopy(mValues, i, nvalues, o, size - i);
+        o += size - i;
+        System.arraycopy(keys, j, nkeys, o, count - j);
+        System.arraycopy(values, j, nvalues, o, count - j);
+        o += count - j;
+
+        ArrayPool.release(mKeys);
+        ArrayPool.release(mValues, mValues.length);
+        mKeys = nkeys;
+        mValues = nvalues;
+        mSize = o;
+    }
+
     /**
      * Add a new value to the array map only if the key does not already have a value or it is
      * mapped to {@code null}.
@@ -469,17 +583,7 @@ public class SparseArrayCompat<E> implements Cloneable {
 
         int pos = mSize;
         if (pos >= mKeys.length) {
-            int n =  ContainerHelpers.idealIntArraySize(pos + 1);
-
-            int[] nkeys = new int[n];
-            Object[] nvalues = new Object[n];
-
-            // Log.e("SparseArray", "grow " + mKeys.length + " to " + n);
-            System.arraycopy(mKeys, 0, nkeys, 0, mKeys.length);
-            System.arraycopy(mValues, 0, nvalues, 0, mValues.length);
-
-            mKeys = nkeys;
-            mValues = nvalues;
+            grow(pos + 1);
         }
 
         mKeys[pos] = key;
@@ -519,4 +623,73 @@ public class SparseArrayCompat<E> implements Cloneable {
         buffer.append('}');
         return buffer.toString();
     }
+
+    /**
+     * Collects mappings in arbitrary key order and then builds a {@link SparseArrayCompat}
+     * from them, sorting and de-duplicating the keys once instead of on every insertion.  If the
+     * same key is put more than once, the last value wins.
+     *
+     * @param <E> the type of the values.
+     */
+    public static final class Builder<E> {
+        private int[] mKeys;
+        private Object[] mValues;
+        private int mSize;
+
+        /**
+         * Creates a new empty Builder.
+         */
+        public Builder() {
+            this(10);
+        }
+
+        /**
+         * Creates a new empty Builder that will not require any additional memory allocation to
+         * hold the specified number of mappings.
+         */
+        public Builder(int initialCapacity) {
+            if (initialCapacity <= 0) {
+                mKeys = ContainerHelpers.EMPTY_INTS;
+                mValues = ContainerHelpers.EMPTY_OBJECTS;
+            } else {
+                initialCapacity = ContainerHelpers.idealIntArraySize(initialCapacity);
+                mKeys = new int[initialCapacity];
+                mValues = new Object[initialCapacity];
+            }
+        }
+
+        /**
+         * Records a mapping from {@code key} to {@code value}, replacing any earlier mapping
+         * from the same key once {@link #build()} is called.
+         *
+         * @return this Builder, to allow chaining.
+         */
+        @NonNull
+        public Builder<E> put(int key, E value) {
+            final int size = mSize;
+            if (size >= mKeys.length) {
+                final int n = ContainerHelpers.idealIntArraySize(size + 1);
+                mKeys = Arrays.copyOf(mKeys, n);
+                mValues = Arrays.copyOf(mValues, n);
+            }
+            mKeys[size] = key;
+            mValues[size] = value;
+            mSize = size + 1;
+            return this;
+        }
+
+        /**
+         * Returns a new {@link SparseArrayCompat} holding the mappings put into this Builder.  The
+         * Builder may continue to be used afterwards.
+         */
+        @NonNull
+        public SparseArrayCompat<E> build() {
+            final int[] keys = Arrays.copyOf(mKeys, mSize);
+            final Object[] values = Arrays.copyOf(mValues, mSize);
+            final SparseArrayCompat<E> array = new SparseArrayCompat<>(0);
+            array.putAllSorted(keys, values,
+                    ContainerHelpers.sortAndDeduplicate(keys, values, mSize));
+            return array;
+        }
+    }
 }
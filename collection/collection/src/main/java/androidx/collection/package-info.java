@@ -22,7 +22,10 @@
  *         <b>{@link androidx.collection.ArraySet} / {@link androidx.collection.ArrayMap}</b>
  *         <p>
  *         Implementations of {@link java.util.Set} and {@link java.util.Map}, respectively, which
- *         are backed by an array with lookups done by a binary search.
+ *         are backed by an array with lookups done by a binary search. Past a configurable
+ *         size they switch to a hash index so that large instances remain efficient. Their
+ *         backing arrays, and those of {@link androidx.collection.SparseArrayCompat}, are
+ *         recycled through the shared {@link androidx.collection.ArrayPool}.
  *     </li>
  *     <li>
  *         <b>{@link androidx.collection.SparseArrayCompat} /
@@ -32,9 +35,20 @@
  *         prevents boxing compared to a traditional {@link java.util.Map}.
  *     </li>
  *     <li>
+ *         <b>{@link androidx.collection.IntIntMap} / {@link androidx.collection.IntObjectMap} /
+ *         {@link androidx.collection.LongLongMap} / {@link androidx.collection.ObjectIntMap} /
+ *         {@link androidx.collection.IntSet}</b>
+ *         <p>
+ *         Hash-based maps and sets specialized for primitive keys or values, which avoid boxing
+ *         and provide constant-time lookups for large data sets at the cost of unordered
+ *         iteration.
+ *     </li>
+ *     <li>
  *         <b>{@link androidx.collection.LruCache}</b>
  *         <p>
  *         A map-like cache which keeps frequently-used entries and automatically evicts others.
+ *         {@link androidx.collection.ConcurrentLruCache} is a variant for caches shared by many
+ *         threads.
  *     </li>
  *     <li>
  *         <b>{@link androidx.collection.CircularArray} /
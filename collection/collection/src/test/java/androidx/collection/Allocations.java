@@ -0,0 +1,51 @@
+/*
+ * Copyright 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.collection;
+
+import static org.junit.Assume.assumeTrue;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/** Measures heap allocation by the current thread, where the JVM supports it. */
+final class Allocations {
+    /**
+     * Runs {@code action} {@code times} times after warming it up, and returns the number of
+     * bytes the current thread allocated while doing so.  Skips the calling test if the JVM
+     * cannot count allocations.
+     */
+    static long measure(int times, Runnable action) {
+        final ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        assumeTrue(bean instanceof com.sun.management.ThreadMXBean);
+        final com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) bean;
+        assumeTrue(threads.isThreadAllocatedMemorySupported());
+        threads.setThreadAllocatedMemoryEnabled(true);
+
+        final long threadId = Thread.currentThread().getId();
+        for (int i = 0; i < times; i++) {
+            action.run();
+        }
+        final long before = threads.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < times; i++) {
+            action.run();
+        }
+        return threads.getThreadAllocatedBytes(threadId) - before;
+    }
+
+    private Allocations() {
+    }
+}
@@ -0,0 +1,181 @@
+/*
+ * Copyright 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.collection;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class ArrayPoolTest {
+    @Before
+    public void setUp() {
+        ArrayPool.trim();
+        ArrayPool.resetStats();
+    }
+
+    @After
+    public void tearDown() {
+        ArrayPool.setMaxArraysPerSize(ArrayPool.DEFAULT_MAX_ARRAYS_PER_SIZE);
+        ArrayPool.setStatsEnabled(false);
+        ArrayPool.resetStats();
+        ArrayPool.trim();
+    }
+
+    @Test
+    public void sizeClasses() {
+        int[] expected = {4, 6, 8, 12, 16, 24, 32, 48, 64, 96, 128, 192, 256, 384, 512, 768, 1024};
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals(expected[i], ArrayPool.sizeClassLength(i));
+            assertEquals(i, ArrayPool.sizeClassOf(expected[i]));
+            if (i > 0) {
+                assertEquals(i, ArrayPool.sizeClassOf(expected[i - 1] + 1));
+            }
+        }
+        assertEquals(0, ArrayPool.sizeClassOf(1));
+        assertEquals(-1, ArrayPool.sizeClassOf(1025));
+        assertEquals(5000, ArrayPool.pooledLength(5000));
+    }
+
+    @Test
+    public void acquireRoundsUpToSizeClass() {
+        assertEquals(12, ArrayPool.acquireInts(9).length);
+        assertEquals(48, ArrayPool.acquireObjects(33).length);
+        assertEquals(2000, ArrayPool.acquireObjects(2000).length);
+    }
+
+    @Test
+    public void releasedArraysAreReused() {
+        int[] ints = ArrayPool.acquireInts(16);
+        Object[] objects = ArrayPool.acquireObjects(16);
+        ArrayPool.release(ints);
+        ArrayPool.release(objects, 0);
+
+        assertSame(ints, ArrayPool.acquireInts(13));
+        assertSame(objects, ArrayPool.acquireObjects(16));
+        assertNotSame(ints, ArrayPool.acquireInts(16));
+    }
+
+    @Test
+    public void releaseClearsObjects() {
+        Object[] objects = ArrayPool.acquireObjects(8);
+        objects[0] = "a";
+        objects[5] = "b";
+        ArrayPool.release(objects, 6);
+        Object[] reused = ArrayPool.acquireObjects(8);
+        assertSame(objects, reused);
+        for (Object object : reused) {
+            assertNull(object);
+        }
+    }
+
+    @Test
+    public void arraysOutsideSizeClassesAreDropped() {
+        ArrayPool.setStatsEnabled(true);
+        ArrayPool.release(new int[10]);
+        ArrayPool.release(new Object[2048], 0);
+        ArrayPool.release(ContainerHelpers.EMPTY_INTS);
+        assertEquals(3, ArrayPool.getStats().getDropCount());
+        assertEquals(0, ArrayPool.getStats().getRecycleCount());
+    }
+
+    @Test
+    public void sizeClassesAreBounded() {
+        ArrayPool.setMaxArraysPerSize(2);
+        ArrayPool.setStatsEnabled(true);
+        for (int i = 0; i < 3; i++) {
+            ArrayPool.release(new int[4]);
+        }
+        ArrayPool.Stats stats = ArrayPool.getStats();
+        assertEquals(2, stats.getRecycleCount());
+        assertEquals(1, stats.getDropCount());
+
+        ArrayPool.acquireInts(4);
+        ArrayPool.acquireInts(4);
+        ArrayPool.acquireInts(4);
+        stats = ArrayPool.getStats();
+        assertEquals(2, stats.getHitCount());
+        assertEquals(1, stats.getMissCount());
+    }
+
+    @Test
+    public void zeroDisablesPooling() {
+        ArrayPool.setMaxArraysPerSize(0);
+        int[] ints = new int[8];
+        ArrayPool.release(ints);
+        assertNotSame(ints, ArrayPool.acquireInts(8));
+    }
+
+    @Test
+    public void trimDiscardsPooledArrays() {
+        int[] ints = new int[8];
+        ArrayPool.release(ints);
+        ArrayPool.trim();
+        assertNotSame(ints, ArrayPool.acquireInts(8));
+    }
+
+    @Test
+    public void statsAreOffByDefault() {
+        ArrayPool.release(new int[8]);
+        ArrayPool.acquireInts(8);
+        assertEquals(0, ArrayPool.getStats().getHitCount());
+        assertEquals(0, ArrayPool.getStats().getRecycleCount());
+    }
+
+    @Test
+    public void setMaxArraysPerSizeValidates() {
+        try {
+            ArrayPool.setMaxArraysPerSize(-1);
+            fail();
+        } catch (IllegalArgumentException expected) {
+        }
+        try {
+            ArrayPool.setMaxArraysPerSize(65);
+            fail();
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+
+    @Test
+    public void containersShareArrays() {
+        ArrayPool.setStatsEnabled(true);
+        SimpleArrayMap<String, String> map = new SimpleArrayMap<>();
+        for (int i = 0; i < 20; i++) {
+            map.put("key" + i, "value" + i);
+        }
+        map.clear();
+        ArrayPool.Stats afterClear = ArrayPool.getStats();
+
+        // Growing to 20 mappings released arrays of 4, 8 and 12 hashes and 8, 16 and 24
+        // entries, and clearing released those of 24 hashes and 48 entries.
+        ArraySet<String> set = new ArraySet<>(24);
+        SparseArrayCompat<String> array = new SparseArrayCompat<>();
+        ArrayPool.Stats stats = ArrayPool.getStats();
+        // The set reuses 24 hashes and entries, the sparse array 16 entries for its values.
+        assertEquals(afterClear.getHitCount() + 3, stats.getHitCount());
+        assertEquals(0, set.size());
+        assertEquals(0, array.size());
+    }
+}
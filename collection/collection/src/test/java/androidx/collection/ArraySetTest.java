@@ -16,6 +16,9 @@
 
 package androidx.collection;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 import org.junit.After;
@@ -24,6 +27,9 @@ import org.junit.runner.RunWith;
 import org.junit.runners.JUnit4;
 
 import java.util.ConcurrentModificationException;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Random;
 
 @RunWith(JUnit4.class)
 public class ArraySetTest {
@@ -102,4 +108,121 @@ public class ArraySetTest {
         }
     }
 
+    @Test
+    public void testHashIndexMatchesHashSet() {
+        Random random = new Random(0);
+        ArraySet<Integer> set = new ArraySet<>();
+        set.setHashIndexThreshold(16);
+        HashSet<Integer> expected = new HashSet<>();
+        for (int i = 0; i < 20_000; i++) {
+            Integer value = random.nextInt(500);
+            if (random.nextBoolean()) {
+                assertEquals(expected.add(value), set.add(value));
+            } else {
+                assertEquals(expected.remove(value), set.remove(value));
+            }
+            assertEquals(expected.size(), set.size());
+        }
+        assertEquals(expected, set);
+
+        // Removal through the iterator must visit every value exactly once.
+        int visited = 0;
+        for (Iterator<Integer> it = set.iterator(); it.hasNext(); ) {
+            Integer value = it.next();
+            assertTrue(expected.remove(value));
+            visited++;
+            if (value % 2 == 0) {
+                it.remove();
+            }
+        }
+        assertTrue(expected.isEmpty());
+        for (int i = 0; i < set.size(); i++) {
+            assertEquals(1, set.valueAt(i) % 2);
+        }
+        assertTrue(visited > set.size());
+    }
+
+    @Test
+    public void cursorVisitsEveryValue() {
+        ArraySet.Cursor<String> cursor = new ArraySet.Cursor<>(mSet);
+        assertFalse(cursor.moveToNext());
+
+        for (int i = 0; i < 20; i++) {
+            mSet.add("value" + i);
+        }
+        HashSet<String> seen = new HashSet<>();
+        for (int pass = 0; pass < 2; pass++) {
+            seen.clear();
+            cursor.reset(mSet);
+            while (cursor.moveToNext()) {
+                assertTrue(seen.add(cursor.getValue()));
+            }
+            assertEquals(20, seen.size());
+        }
+    }
+
+    @Test
+    public void cursorRemove() {
+        cursorRemove(SimpleArrayMap.DEFAULT_HASH_INDEX_THRESHOLD);
+    }
+
+    @Test
+    public void cursorRemoveWithHashIndex() {
+        cursorRemove(1);
+    }
+
+    private static void cursorRemove(int hashIndexThreshold) {
+        ArraySet<Integer> set = new ArraySet<>();
+        set.setHashIndexThreshold(hashIndexThreshold);
+        for (int i = 0; i < 100; i++) {
+            set.add(i);
+        }
+        ArraySet.Cursor<Integer> cursor = new ArraySet.Cursor<>(set);
+        int visited = 0;
+        while (cursor.moveToNext()) {
+            visited++;
+            if (cursor.getValue() % 3 != 0) {
+                cursor.remove();
+            }
+        }
+        assertEquals(100, visited);
+        assertEquals(34, set.size());
+        for (int i = 0; i < 100; i++) {
+            assertEquals(i % 3 == 0, set.contains(i));
+        }
+    }
+
+    @Test
+    public void iteratingDoesNotAllocate() {
+        final ArraySet<Integer> set = new ArraySet<>();
+        for (int i = 0; i < 100; i++) {
+            set.add(i * 1000);
+        }
+        final ArraySet.Cursor<Integer> cursor = new ArraySet.Cursor<>();
+        final int[] sum = new int[1];
+        long bytes = Allocations.measure(10_000, new Runnable() {
+            @Override
+            public void run() {
+                cursor.reset(set);
+                while (cursor.moveToNext()) {
+                    sum[0] += cursor.getValue();
+                }
+                for (int i = 0, n = set.size(); i < n; i++) {
+                    sum[0] += set.valueAt(i);
+                }
+            }
+        });
+        // Allow for stray bookkeeping by the VM, but far less than one object per traversal.
+        assertTrue("Allocated " + bytes + " bytes", bytes < 1024);
+    }
+
+    @Test(expected = ConcurrentModificationException.class)
+    public void cursorDetectsModification() {
+        mSet.add("a");
+        mSet.add("b");
+        ArraySet.Cursor<String> cursor = new ArraySet.Cursor<>(mSet);
+        assertTrue(cursor.moveToNext());
+        mSet.remove("b");
+        cursor.getValue();
+    }
 }
@@ -0,0 +1,194 @@
+/*
+ * Copyright 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.collection;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@RunWith(JUnit4.class)
+public class ConcurrentLruCacheTest {
+    @Test
+    public void testStatistics() {
+        ConcurrentLruCache<String, String> cache = new ConcurrentLruCache<String, String>(8) {
+            @Override protected String create(String key) {
+                return key.startsWith("c") ? key.toUpperCase() : null;
+            }
+        };
+        assertNull(cache.put("a", "A"));
+        assertEquals("A", cache.put("a", "A2"));
+        assertEquals("A2", cache.get("a"));
+        assertNull(cache.get("b"));
+        assertEquals("CAT", cache.get("cat"));
+        assertEquals(2, cache.putCount());
+        assertEquals(1, cache.hitCount());
+        assertEquals(2, cache.missCount());
+        assertEquals(1, cache.createCount());
+        assertEquals(2, cache.size());
+        assertEquals(8, cache.maxSize());
+        assertEquals("ConcurrentLruCache[maxSize=8,hits=1,misses=2,hitRate=33%]",
+                cache.toString());
+    }
+
+    @Test
+    public void testConstructorDoesNotAllowZeroCacheSize() {
+        try {
+            new ConcurrentLruCache<String, String>(0);
+            fail();
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+
+    @Test
+    public void testSingleSegmentEvictsLeastRecentlyUsed() {
+        List<String> log = new ArrayList<>();
+        ConcurrentLruCache<String, String> cache = newRemovalLogCache(3, 1, log);
+        cache.put("a", "A");
+        cache.put("b", "B");
+        cache.put("c", "C");
+        cache.get("a");
+        cache.put("d", "D");
+        assertEquals(Arrays.asList("b=B"), log);
+        assertEquals(1, cache.evictionCount());
+    }
+
+    @Test
+    public void testSizeNeverExceedsMaxSize() {
+        ConcurrentLruCache<Integer, String> cache = new ConcurrentLruCache<>(64, 8);
+        for (int i = 0; i < 1000; i++) {
+            cache.put(i, "value" + i);
+            assertTrue(cache.size() <= 64);
+        }
+        assertEquals(cache.size(), cache.snapshot().size());
+        assertEquals(1000 - cache.size(), cache.evictionCount());
+    }
+
+    @Test
+    public void testResizeTrims() {
+        ConcurrentLruCache<Integer, String> cache = new ConcurrentLruCache<>(64, 4);
+        for (int i = 0; i < 64; i++) {
+            cache.put(i, "value" + i);
+        }
+        cache.resize(16);
+        assertEquals(16, cache.maxSize());
+        assertTrue(cache.size() <= 16);
+    }
+
+    @Test
+    public void testEvictAllEvictsSizeZeroElements() {
+        ConcurrentLruCache<String, String> cache = new ConcurrentLruCache<String, String>(10) {
+            @Override protected int sizeOf(String key, String value) {
+                return 0;
+            }
+        };
+        cache.put("a", "A");
+        cache.put("b", "B");
+        cache.evictAll();
+        assertEquals(0, cache.size());
+        assertTrue(cache.snapshot().isEmpty());
+    }
+
+    @Test
+    public void testRemoveCallsEntryRemoved() {
+        List<String> log = new ArrayList<>();
+        ConcurrentLruCache<String, String> cache = newRemovalLogCache(3, 2, log);
+        cache.put("a", "A");
+        assertEquals("A", cache.remove("a"));
+        assertNull(cache.remove("a"));
+        assertEquals(Arrays.asList("a=A>null"), log);
+    }
+
+    @Test
+    public void testCallbacksAreCalledWithoutSynchronization() {
+        ConcurrentLruCache<String, String> cache = new ConcurrentLruCache<String, String>(3, 1) {
+            @Override protected String create(String key) {
+                assertFalse(Thread.holdsLock(this));
+                return key;
+            }
+            @Override protected void entryRemoved(
+                    boolean evicted, String key, String oldValue, String newValue) {
+                assertFalse(Thread.holdsLock(this));
+            }
+        };
+        cache.get("a");
+        cache.put("a", "A2");
+        cache.put("b", "B");
+        cache.put("c", "C");
+        cache.put("d", "D");
+        cache.remove("b");
+        cache.evictAll();
+    }
+
+    @Test
+    public void consistentMultithreadedAccess() throws InterruptedException {
+        final int threads = 8;
+        final int rounds = 10000;
+        final AtomicInteger created = new AtomicInteger();
+        final ConcurrentLruCache<Integer, Integer> cache =
+                new ConcurrentLruCache<Integer, Integer>(100) {
+                    @Override protected Integer create(Integer key) {
+                        created.incrementAndGet();
+                        return key;
+                    }
+                };
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            final int seed = t;
+            workers[t] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < rounds; i++) {
+                        int key = (i * 31 + seed) % 200;
+                        assertEquals(key, cache.get(key).intValue());
+                    }
+                }
+            });
+            workers[t].start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        assertEquals(threads * rounds, cache.hitCount() + cache.missCount());
+        assertEquals(created.get(), cache.createCount());
+        assertTrue(cache.size() <= 100);
+        assertEquals(cache.size(), cache.snapshot().size());
+    }
+
+    private static ConcurrentLruCache<String, String> newRemovalLogCache(
+            int maxSize, int concurrencyLevel, final List<String> log) {
+        return new ConcurrentLruCache<String, String>(maxSize, concurrencyLevel) {
+            @Override protected void entryRemoved(
+                    boolean evicted, String key, String oldValue, String newValue) {
+                String message = evicted
+                        ? (key + "=" + oldValue)
+                        : (key + "=" + oldValue + ">" + newValue);
+                log.add(message);
+            }
+        };
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.collection;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+@RunWith(JUnit4.class)
+public class IntIntMapTest {
+    @Test
+    public void getReturnsZeroWhenAbsent() {
+        IntIntMap map = new IntIntMap();
+        assertEquals(0, map.get(1));
+        assertEquals(5, map.getOrDefault(1, 5));
+        assertFalse(map.containsKey(1));
+    }
+
+    @Test
+    public void putReplacesExistingValue() {
+        IntIntMap map = new IntIntMap();
+        map.put(1, 10);
+        map.put(1, 11);
+        assertEquals(1, map.size());
+        assertEquals(11, map.get(1));
+    }
+
+    @Test
+    public void zeroKeyIsStored() {
+        IntIntMap map = new IntIntMap();
+        map.put(0, 7);
+        assertTrue(map.containsKey(0));
+        assertEquals(7, map.getOrDefault(0, -1));
+    }
+
+    @Test
+    public void removeMovesLastEntryIntoHole() {
+        IntIntMap map = new IntIntMap();
+        map.put(1, 10);
+        map.put(2, 20);
+        map.put(3, 30);
+        assertTrue(map.remove(1));
+        assertFalse(map.remove(1));
+        assertEquals(2, map.size());
+        assertEquals(3, map.keyAt(0));
+        assertEquals(30, map.valueAt(0));
+        assertEquals(0, map.indexOfKey(3));
+        assertEquals(20, map.get(2));
+    }
+
+    @Test(expected = ArrayIndexOutOfBoundsException.class)
+    public void removeAtOutOfBoundsThrows() {
+        IntIntMap map = new IntIntMap(10);
+        map.put(1, 1);
+        map.removeAt(1);
+    }
+
+    @Test
+    public void clearKeepsMapUsable() {
+        IntIntMap map = new IntIntMap();
+        for (int i = 0; i < 100; i++) {
+            map.put(i, i);
+        }
+        map.clear();
+        assertTrue(map.isEmpty());
+        assertFalse(map.containsKey(5));
+        map.put(5, 6);
+        assertEquals(6, map.get(5));
+    }
+
+    @Test
+    public void equalsIgnoresOrder() {
+        IntIntMap a = new IntIntMap();
+        IntIntMap b = new IntIntMap();
+        a.put(1, 10);
+        a.put(2, 20);
+        b.put(2, 20);
+        b.put(1, 10);
+        assertEquals(a, b);
+        assertEquals(a.hashCode(), b.hashCode());
+        assertEquals(a, new IntIntMap(a));
+    }
+
+    @Test
+    public void matchesHashMapUnderRandomOperations() {
+        Random random = new Random(0);
+        IntIntMap map = new IntIntMap();
+        Map<Integer, Integer> expected = new HashMap<>();
+        for (int i = 0; i < 50_000; i++) {
+            // Multiples of a large power of two defeat naive (unmixed) slot placement.
+            int key = random.nextInt(2_000) << 12;
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(key) != null, map.remove(key));
+            } else {
+                map.put(key, i);
+                expected.put(key, i);
+            }
+            assertEquals(expected.size(), map.size());
+        }
+        for (Map.Entry<Integer, Integer> entry : expected.entrySet()) {
+            assertEquals((int) entry.getValue(), map.get(entry.getKey()));
+        }
+        for (int i = 0; i < map.size(); i++) {
+            assertEquals(expected.get(map.keyAt(i)).intValue(), map.valueAt(i));
+        }
+    }
+}
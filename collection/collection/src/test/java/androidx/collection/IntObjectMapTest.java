@@ -0,0 +1,107 @@
+/*
+ * Copyright 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.collection;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class IntObjectMapTest {
+    @Test
+    public void getOrDefaultPrefersStoredValue() {
+        IntObjectMap<String> map = new IntObjectMap<>();
+        map.put(1, "1");
+        assertEquals("1", map.getOrDefault(1, "2"));
+    }
+
+    @Test
+    public void getOrDefaultReturnsNullWhenNullStored() {
+        IntObjectMap<String> map = new IntObjectMap<>();
+        map.put(1, null);
+        assertTrue(map.containsKey(1));
+        assertNull(map.getOrDefault(1, "1"));
+    }
+
+    @Test
+    public void putReturnsPreviousValue() {
+        IntObjectMap<String> map = new IntObjectMap<>();
+        assertNull(map.put(1, "1"));
+        assertEquals("1", map.put(1, "2"));
+        assertEquals("2", map.get(1));
+    }
+
+    @Test
+    public void putIfAbsentDoesNotOverwriteStoredValue() {
+        IntObjectMap<String> map = new IntObjectMap<>();
+        map.put(1, "1");
+        assertEquals("1", map.putIfAbsent(1, "2"));
+        assertEquals("1", map.get(1));
+        assertNull(map.putIfAbsent(2, "2"));
+        assertEquals("2", map.get(2));
+    }
+
+    @Test
+    public void removeReturnsValueAndReleasesIt() {
+        IntObjectMap<String> map = new IntObjectMap<>();
+        map.put(1, "1");
+        map.put(2, "2");
+        assertEquals("1", map.remove(1));
+        assertNull(map.remove(1));
+        assertEquals(1, map.size());
+        assertNull(map.mValues[1]);
+    }
+
+    @Test
+    public void containsValueUsesEquals() {
+        IntObjectMap<String> map = new IntObjectMap<>();
+        map.put(1, new String("one"));
+        assertTrue(map.containsValue("one"));
+        assertFalse(map.containsValue("two"));
+    }
+
+    @Test
+    public void growsPastManyEntries() {
+        IntObjectMap<String> map = new IntObjectMap<>();
+        for (int i = 0; i < 10_000; i++) {
+            map.put(i * 31, "value" + i);
+        }
+        assertEquals(10_000, map.size());
+        for (int i = 0; i < 10_000; i++) {
+            assertEquals("value" + i, map.get(i * 31));
+        }
+        for (int i = 0; i < 10_000; i += 2) {
+            map.remove(i * 31);
+        }
+        assertEquals(5_000, map.size());
+        for (int i = 1; i < 10_000; i += 2) {
+            assertEquals("value" + i, map.get(i * 31));
+        }
+    }
+
+    @Test
+    public void toStringDescribesSelfReference() {
+        IntObjectMap<Object> map = new IntObjectMap<>();
+        map.put(1, map);
+        assertEquals("{1=(this Map)}", map.toString());
+    }
+}
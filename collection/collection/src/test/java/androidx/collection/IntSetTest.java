@@ -0,0 +1,87 @@
+/*
+ * Copyright 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.collection;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+@RunWith(JUnit4.class)
+public class IntSetTest {
+    @Test
+    public void addReportsNewElements() {
+        IntSet set = new IntSet();
+        assertTrue(set.add(1));
+        assertFalse(set.add(1));
+        assertTrue(set.add(0));
+        assertEquals(2, set.size());
+        assertTrue(set.contains(0));
+    }
+
+    @Test
+    public void toArrayReturnsElements() {
+        IntSet set = new IntSet();
+        set.add(3);
+        set.add(1);
+        set.add(2);
+        int[] values = set.toArray();
+        Arrays.sort(values);
+        assertArrayEquals(new int[] {1, 2, 3}, values);
+    }
+
+    @Test
+    public void addAllMergesSets() {
+        IntSet a = new IntSet();
+        a.add(1);
+        a.add(2);
+        IntSet b = new IntSet();
+        b.add(2);
+        b.add(3);
+        a.addAll(b);
+        assertEquals(3, a.size());
+        assertTrue(a.contains(3));
+    }
+
+    @Test
+    public void matchesHashSetUnderRandomOperations() {
+        Random random = new Random(0);
+        IntSet set = new IntSet();
+        Set<Integer> expected = new HashSet<>();
+        for (int i = 0; i < 50_000; i++) {
+            int value = random.nextInt(1_000);
+            if (random.nextBoolean()) {
+                assertEquals(expected.add(value), set.add(value));
+            } else {
+                assertEquals(expected.remove(value), set.remove(value));
+            }
+        }
+        assertEquals(expected.size(), set.size());
+        for (int i = 0; i < set.size(); i++) {
+            assertTrue(expected.contains(set.valueAt(i)));
+        }
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.collection;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+@RunWith(JUnit4.class)
+public class LongLongMapTest {
+    @Test
+    public void getReturnsZeroWhenAbsent() {
+        LongLongMap map = new LongLongMap();
+        assertEquals(0, map.get(1));
+        assertEquals(5, map.getOrDefault(1, 5));
+        assertFalse(map.containsKey(1));
+    }
+
+    @Test
+    public void putReplacesExistingValue() {
+        LongLongMap map = new LongLongMap();
+        map.put(1, 10);
+        map.put(1, 11);
+        assertEquals(1, map.size());
+        assertEquals(11, map.get(1));
+    }
+
+    @Test
+    public void wideKeysAreDistinct() {
+        LongLongMap map = new LongLongMap();
+        map.put(1L, 7L);
+        map.put(1L << 32, 8L);
+        map.put(Long.MIN_VALUE, Long.MAX_VALUE);
+        assertEquals(7L, map.get(1L));
+        assertEquals(8L, map.get(1L << 32));
+        assertEquals(Long.MAX_VALUE, map.getOrDefault(Long.MIN_VALUE, -1L));
+    }
+
+    @Test
+    public void removeMovesLastEntryIntoHole() {
+        LongLongMap map = new LongLongMap();
+        map.put(1, 10);
+        map.put(2, 20);
+        map.put(3, 30);
+        assertTrue(map.remove(1));
+        assertFalse(map.remove(1));
+        assertEquals(2, map.size());
+        assertEquals(3, map.keyAt(0));
+        assertEquals(30, map.valueAt(0));
+        assertEquals(0, map.indexOfKey(3));
+        assertEquals(20, map.get(2));
+    }
+
+    @Test(expected = ArrayIndexOutOfBoundsException.class)
+    public void removeAtOutOfBoundsThrows() {
+        LongLongMap map = new LongLongMap(10);
+        map.put(1, 1);
+        map.removeAt(1);
+    }
+
+    @Test
+    public void clearKeepsMapUsable() {
+        LongLongMap map = new LongLongMap();
+        for (int i = 0; i < 100; i++) {
+            map.put(i, i);
+        }
+        map.clear();
+        assertTrue(map.isEmpty());
+        assertFalse(map.containsKey(5));
+        map.put(5, 6);
+        assertEquals(6, map.get(5));
+    }
+
+    @Test
+    public void equalsIgnoresOrder() {
+        LongLongMap a = new LongLongMap();
+        LongLongMap b = new LongLongMap();
+        a.put(1, 10);
+        a.put(2, 20);
+        b.put(2, 20);
+        b.put(1, 10);
+        assertEquals(a, b);
+        assertEquals(a.hashCode(), b.hashCode());
+        assertEquals(a, new LongLongMap(a));
+    }
+
+    @Test
+    public void matchesHashMapUnderRandomOperations() {
+        Random random = new Random(0);
+        LongLongMap map = new LongLongMap();
+        Map<Long, Long> expected = new HashMap<>();
+        for (int i = 0; i < 50_000; i++) {
+            // Multiples of a large power of two defeat naive (unmixed) slot placement.
+            long key = (long) random.nextInt(2_000) << 40;
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(key) != null, map.remove(key));
+            } else {
+                map.put(key, i);
+                expected.put(key, (long) i);
+            }
+            assertEquals(expected.size(), map.size());
+        }
+        for (Map.Entry<Long, Long> entry : expected.entrySet()) {
+            assertEquals((long) entry.getValue(), map.get(entry.getKey()));
+        }
+        for (int i = 0; i < map.size(); i++) {
+            assertEquals(expected.get(map.keyAt(i)).longValue(), map.valueAt(i));
+        }
+    }
+}
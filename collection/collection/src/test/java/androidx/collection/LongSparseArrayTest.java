@@ -26,6 +26,8 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.junit.runners.JUnit4;
 
+import java.util.Random;
+
 @RunWith(JUnit4.class)
 public class LongSparseArrayTest {
     @Test
@@ -290,4 +292,98 @@ public class LongSparseArrayTest {
             assertEquals(source.valueAt(i), dest.valueAt(i));
         }
     }
+
+    @Test
+    public void putAllArraysMergesSortsAndKeepsLastDuplicate() {
+        LongSparseArray<String> map = new LongSparseArray<>();
+        map.put(2L, "two");
+        map.put(4L, "four");
+        map.remove(4L);
+        map.put(6L, "six");
+
+        map.putAll(new long[] {5L, 1L, 6L, 5L, 3L},
+                new String[] {"five", "one", "SIX", "FIVE", "three"});
+
+        long[] expectedKeys = {1L, 2L, 3L, 5L, 6L};
+        String[] expectedValues = {"one", "two", "three", "FIVE", "SIX"};
+        assertEquals(expectedKeys.length, map.size());
+        for (int i = 0; i < expectedKeys.length; i++) {
+            assertEquals(expectedKeys[i], map.keyAt(i));
+            assertEquals(expectedValues[i], map.valueAt(i));
+        }
+    }
+
+    @Test
+    public void putAllArraysAppendsAfterExistingKeys() {
+        LongSparseArray<String> map = new LongSparseArray<>();
+        map.put(1L, "one");
+        map.putAll(new long[] {2L, 3L}, new String[] {"two", "three"});
+        assertEquals(3, map.size());
+        assertEquals("one", map.get(1L));
+        assertEquals("three", map.get(3L));
+        assertEquals(3L, map.keyAt(2));
+    }
+
+    @Test
+    public void putAllArraysMatchesRepeatedPut() {
+        Random random = new Random(42);
+        LongSparseArray<Integer> expected = new LongSparseArray<>();
+        LongSparseArray<Integer> actual = new LongSparseArray<>();
+        for (int round = 0; round < 10; round++) {
+            long[] keys = new long[100];
+            Integer[] values = new Integer[keys.length];
+            for (int i = 0; i < keys.length; i++) {
+                keys[i] = random.nextInt(500);
+                values[i] = random.nextInt();
+                expected.put(keys[i], values[i]);
+            }
+            actual.putAll(keys, values);
+        }
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.keyAt(i), actual.keyAt(i));
+            assertEquals(expected.valueAt(i), actual.valueAt(i));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void putAllArraysRejectsMismatchedLengths() {
+        new LongSparseArray<String>().putAll(new long[] {1L, 2L}, new String[] {"one"});
+    }
+
+    @Test
+    public void removeAllArray() {
+        LongSparseArray<String> map = new LongSparseArray<>();
+        map.put(1L, "one");
+        map.put(2L, "two");
+        map.put(3L, "three");
+        map.removeAll(new long[] {3L, 1L, 7L});
+        assertEquals(1, map.size());
+        assertEquals(2L, map.keyAt(0));
+        assertEquals("two", map.valueAt(0));
+    }
+
+    @Test
+    public void builderSortsAndDeduplicates() {
+        LongSparseArray.Builder<String> builder = new LongSparseArray.Builder<>(2);
+        builder.put(30L, "thirty").put(10L, "ten").put(20L, "twenty").put(10L, "TEN");
+        LongSparseArray<String> map = builder.build();
+        assertEquals(3, map.size());
+        assertEquals(10L, map.keyAt(0));
+        assertEquals("TEN", map.valueAt(0));
+        assertEquals(20L, map.keyAt(1));
+        assertEquals(30L, map.keyAt(2));
+
+        // The built array must not share storage with the builder.
+        builder.put(5L, "five");
+        assertEquals(3, map.size());
+        assertEquals(4, builder.build().size());
+        map.put(40L, "forty");
+        assertNull(builder.build().get(40L));
+    }
+
+    @Test
+    public void builderEmpty() {
+        assertTrue(new LongSparseArray.Builder<String>().build().isEmpty());
+    }
 }
@@ -18,6 +18,7 @@ package androidx.collection;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 import org.junit.Test;
@@ -29,6 +30,7 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.Random;
 
 @RunWith(JUnit4.class)
 public class LruCacheTest {
@@ -523,6 +525,114 @@ public class LruCacheTest {
         assertEquals(rounds, tally.mValuesPut + tally.mConflicts + tally.mRemoved);
     }
 
+    @Test
+    public void testConstructorDoesNotAllowUnknownAdmissionPolicy() {
+        try {
+            new LruCache<String, String>(3, 2);
+            fail();
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+
+    @Test
+    public void testFrequencyAdmissionBehavesLikeLruWhileNotFull() {
+        LruCache<String, String> cache =
+                new LruCache<String, String>(3, LruCache.ADMISSION_FREQUENCY);
+        cache.put("a", "A");
+        cache.put("b", "B");
+        cache.put("c", "C");
+        assertEquals(3, cache.size());
+        assertEquals("A", cache.get("a"));
+        assertEquals("C", cache.put("c", "C2"));
+        assertEquals("B", cache.remove("b"));
+        assertEquals(2, cache.size());
+        assertEquals(2, cache.snapshot().size());
+    }
+
+    @Test
+    public void testFrequencyAdmissionEvictAll() {
+        List<String> log = new ArrayList<String>();
+        LruCache<String, String> cache =
+                new LruCache<String, String>(3, LruCache.ADMISSION_FREQUENCY) {
+                    @Override protected void entryRemoved(
+                            boolean evicted, String key, String oldValue, String newValue) {
+                        log.add(key + "=" + oldValue);
+                    }
+                };
+        cache.put("a", "A");
+        cache.put("b", "B");
+        cache.put("c", "C");
+        cache.put("d", "D");
+        cache.evictAll();
+        assertEquals(0, cache.size());
+        assertEquals(4, log.size());
+        assertSnapshot(cache);
+    }
+
+    @Test
+    public void testFrequencyAdmissionResistsScans() {
+        LruCache<Integer, String> cache =
+                new LruCache<Integer, String>(100, LruCache.ADMISSION_FREQUENCY);
+        for (int round = 0; round < 5; round++) {
+            for (int key = 0; key < 100; key++) {
+                if (cache.get(key) == null) {
+                    cache.put(key, "hot" + key);
+                }
+            }
+        }
+        for (int key = 1000; key < 2000; key++) {
+            cache.put(key, "scan" + key);
+        }
+        int survivors = 0;
+        for (int key = 0; key < 100; key++) {
+            if (cache.snapshot().containsKey(key)) {
+                survivors++;
+            }
+        }
+        assertTrue("Only " + survivors + " hot entries survived", survivors >= 95);
+        assertTrue(cache.size() <= 100);
+    }
+
+    /**
+     * Replays a trace of a skewed working set interrupted by long one-off scans, like a list
+     * that is mostly browsed near the top but occasionally flung through, and checks that
+     * frequency admission gets a better hit rate than plain LRU.
+     */
+    @Test
+    public void testFrequencyAdmissionImprovesHitRateOnScanTrace() {
+        int[] trace = scanTrace();
+        int lruHits = replay(new LruCache<Integer, Integer>(200), trace);
+        int tinyLfuHits = replay(
+                new LruCache<Integer, Integer>(200, LruCache.ADMISSION_FREQUENCY), trace);
+        assertTrue("TinyLFU hits " + tinyLfuHits + " vs LRU hits " + lruHits,
+                tinyLfuHits > lruHits * 1.1);
+    }
+
+    private static int[] scanTrace() {
+        Random random = new Random(0);
+        int[] trace = new int[100_000];
+        int scanKey = 1_000_000;
+        for (int i = 0; i < trace.length; i++) {
+            if ((i / 2_000) % 4 == 3) {
+                trace[i] = scanKey++;
+            } else {
+                // Squaring a uniform variable skews accesses towards low keys.
+                double u = random.nextDouble();
+                trace[i] = (int) (u * u * 1_000);
+            }
+        }
+        return trace;
+    }
+
+    private static int replay(LruCache<Integer, Integer> cache, int[] trace) {
+        for (int key : trace) {
+            if (cache.get(key) == null) {
+                cache.put(key, key);
+            }
+        }
+        return cache.hitCount();
+    }
+
     private LruCache<String, String> newCreatingCache() {
         return new LruCache<String, String>(3) {
             @Override protected String create(String key) {
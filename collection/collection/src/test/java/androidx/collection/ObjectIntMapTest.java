@@ -0,0 +1,90 @@
+/*
+ * Copyright 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.collection;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class ObjectIntMapTest {
+    @Test
+    public void getReturnsZeroWhenAbsent() {
+        ObjectIntMap<String> map = new ObjectIntMap<>();
+        assertEquals(0, map.get("a"));
+        assertEquals(-1, map.getOrDefault("a", -1));
+    }
+
+    @Test
+    public void nullKeyIsSupported() {
+        ObjectIntMap<String> map = new ObjectIntMap<>();
+        map.put(null, 3);
+        map.put("a", 4);
+        assertTrue(map.containsKey(null));
+        assertEquals(3, map.get(null));
+        assertTrue(map.remove(null));
+        assertFalse(map.containsKey(null));
+        assertEquals(4, map.get("a"));
+    }
+
+    @Test
+    public void keysComparedWithEquals() {
+        ObjectIntMap<String> map = new ObjectIntMap<>();
+        map.put(new String("key"), 1);
+        map.put(new String("key"), 2);
+        assertEquals(1, map.size());
+        assertEquals(2, map.get("key"));
+    }
+
+    @Test
+    public void collidingHashCodesAreDistinct() {
+        ObjectIntMap<String> map = new ObjectIntMap<>();
+        // "Aa" and "BB" share a hash code.
+        map.put("Aa", 1);
+        map.put("BB", 2);
+        assertEquals(1, map.get("Aa"));
+        assertEquals(2, map.get("BB"));
+        map.remove("Aa");
+        assertEquals(2, map.get("BB"));
+    }
+
+    @Test
+    public void removeReleasesKey() {
+        ObjectIntMap<String> map = new ObjectIntMap<>();
+        map.put("a", 1);
+        map.put("b", 2);
+        map.removeAt(map.indexOfKey("a"));
+        assertEquals("b", map.keyAt(0));
+        assertNull(map.mKeys[1]);
+    }
+
+    @Test
+    public void equalsComparesMappings() {
+        ObjectIntMap<String> a = new ObjectIntMap<>();
+        a.put("a", 1);
+        ObjectIntMap<String> b = new ObjectIntMap<>(a);
+        assertEquals(a, b);
+        b.put("a", 2);
+        assertNotEquals(a, b);
+    }
+}
@@ -30,6 +30,7 @@ import java.util.Collections;
 import java.util.ConcurrentModificationException;
 import java.util.HashMap;
 import java.util.Locale;
+import java.util.Random;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 @RunWith(JUnit4.class)
@@ -401,4 +402,195 @@ public class SimpleArrayMapTest {
             }
         }
     }
+
+    @Test
+    public void hashIndexMatchesHashMapUnderRandomOperations() {
+        Random random = new Random(0);
+        SimpleArrayMap<Integer, String> map = new SimpleArrayMap<>();
+        map.setHashIndexThreshold(16);
+        HashMap<Integer, String> expected = new HashMap<>();
+        for (int i = 0; i < 20_000; i++) {
+            // Include null keys and colliding hash codes alongside ordinary keys.
+            int raw = random.nextInt(500);
+            Integer key = raw == 0 ? null : raw;
+            switch (random.nextInt(4)) {
+                case 0:
+                    assertEquals(expected.remove(key), map.remove(key));
+                    break;
+                case 1:
+                    if (map.size() > 0) {
+                        int index = random.nextInt(map.size());
+                        assertEquals(expected.remove(map.keyAt(index)), map.removeAt(index));
+                    }
+                    break;
+                default:
+                    assertEquals(expected.put(key, "v" + i), map.put(key, "v" + i));
+            }
+            assertEquals(expected.size(), map.size());
+        }
+        for (int i = 0; i < map.size(); i++) {
+            assertEquals(expected.get(map.keyAt(i)), map.valueAt(i));
+        }
+        assertTrue(map.equals(expected));
+    }
+
+    @Test
+    public void hashIndexSurvivesCopyIntoSmallMap() {
+        SimpleArrayMap<String, String> large = new SimpleArrayMap<>();
+        large.setHashIndexThreshold(4);
+        for (int i = 0; i < 100; i++) {
+            large.put("key" + i, "value" + i);
+        }
+        large.remove("key0");
+
+        SimpleArrayMap<String, String> copy = new SimpleArrayMap<>(large);
+        assertEquals(99, copy.size());
+        for (int i = 1; i < 100; i++) {
+            assertEquals("value" + i, copy.get("key" + i));
+        }
+        assertFalse(copy.containsKey("key0"));
+    }
+
+    @Test
+    public void hashIndexIsDroppedOnClear() {
+        SimpleArrayMap<String, String> map = new SimpleArrayMap<>();
+        map.setHashIndexThreshold(2);
+        map.put("a", "A");
+        map.put("b", "B");
+        assertTrue(map.mSlots != null);
+        map.clear();
+        assertNull(map.mSlots);
+        map.setHashIndexThreshold(Integer.MAX_VALUE);
+        map.put("a", "A");
+        map.put("b", "B");
+        assertNull(map.mSlots);
+    }
+
+    @Test
+    public void cursorVisitsEveryMapping() {
+        SimpleArrayMap<String, Integer> map = new SimpleArrayMap<>();
+        SimpleArrayMap.Cursor<String, Integer> cursor = new SimpleArrayMap.Cursor<>(map);
+        assertFalse(cursor.moveToNext());
+
+        for (int i = 0; i < 20; i++) {
+            map.put("key" + i, i);
+        }
+        HashMap<String, Integer> seen = new HashMap<>();
+        // The same cursor can be reused for any number of traversals.
+        for (int pass = 0; pass < 2; pass++) {
+            seen.clear();
+            cursor.reset(map);
+            while (cursor.moveToNext()) {
+                seen.put(cursor.getKey(), cursor.getValue());
+            }
+            assertEquals(20, seen.size());
+            for (int i = 0; i < 20; i++) {
+                assertEquals(Integer.valueOf(i), seen.get("key" + i));
+            }
+        }
+    }
+
+    @Test
+    public void cursorSetValue() {
+        SimpleArrayMap<String, Integer> map = new SimpleArrayMap<>();
+        map.put("a", 1);
+        map.put("b", 2);
+        SimpleArrayMap.Cursor<String, Integer> cursor = new SimpleArrayMap.Cursor<>(map);
+        while (cursor.moveToNext()) {
+            assertEquals(cursor.getValue(), cursor.setValue(cursor.getValue() * 10));
+        }
+        assertEquals(Integer.valueOf(10), map.get("a"));
+        assertEquals(Integer.valueOf(20), map.get("b"));
+    }
+
+    @Test
+    public void cursorRemove() {
+        cursorRemove(SimpleArrayMap.DEFAULT_HASH_INDEX_THRESHOLD);
+    }
+
+    @Test
+    public void cursorRemoveWithHashIndex() {
+        cursorRemove(1);
+    }
+
+    private static void cursorRemove(int hashIndexThreshold) {
+        SimpleArrayMap<Integer, String> map = new SimpleArrayMap<>();
+        map.setHashIndexThreshold(hashIndexThreshold);
+        for (int i = 0; i < 100; i++) {
+            map.put(i, "value" + i);
+        }
+        SimpleArrayMap.Cursor<Integer, String> cursor = new SimpleArrayMap.Cursor<>(map);
+        int visited = 0;
+        while (cursor.moveToNext()) {
+            visited++;
+            if (cursor.getKey() % 3 != 0) {
+                cursor.remove();
+            }
+        }
+        assertEquals(100, visited);
+        assertEquals(34, map.size());
+        for (int i = 0; i < 100; i++) {
+            assertEquals(i % 3 == 0, map.containsKey(i));
+        }
+    }
+
+    @Test
+    public void cursorRequiresPosition() {
+        SimpleArrayMap<String, String> map = new SimpleArrayMap<>();
+        map.put("a", "A");
+        SimpleArrayMap.Cursor<String, String> cursor = new SimpleArrayMap.Cursor<>();
+        try {
+            cursor.moveToNext();
+            fail();
+        } catch (IllegalStateException expected) {
+        }
+        cursor.reset(map);
+        try {
+            cursor.getKey();
+            fail();
+        } catch (IllegalStateException expected) {
+        }
+        assertTrue(cursor.moveToNext());
+        cursor.remove();
+        try {
+            cursor.remove();
+            fail();
+        } catch (IllegalStateException expected) {
+        }
+    }
+
+    @Test
+    public void iteratingDoesNotAllocate() {
+        final SimpleArrayMap<String, Integer> map = new SimpleArrayMap<>();
+        for (int i = 0; i < 100; i++) {
+            map.put("key" + i, i);
+        }
+        final SimpleArrayMap.Cursor<String, Integer> cursor = new SimpleArrayMap.Cursor<>();
+        final int[] sum = new int[1];
+        long bytes = Allocations.measure(10_000, new Runnable() {
+            @Override
+            public void run() {
+                cursor.reset(map);
+                while (cursor.moveToNext()) {
+                    sum[0] += cursor.getKey().length() + cursor.getValue();
+                }
+                for (int i = 0, n = map.size(); i < n; i++) {
+                    sum[0] += map.keyAt(i).length() + map.valueAt(i);
+                }
+            }
+        });
+        // Allow for stray bookkeeping by the VM, but far less than one object per traversal.
+        assertTrue("Allocated " + bytes + " bytes", bytes < 1024);
+    }
+
+    @Test(expected = ConcurrentModificationException.class)
+    public void cursorDetectsModification() {
+        SimpleArrayMap<String, String> map = new SimpleArrayMap<>();
+        map.put("a", "A");
+        map.put("b", "B");
+        SimpleArrayMap.Cursor<String, String> cursor = new SimpleArrayMap.Cursor<>(map);
+        assertTrue(cursor.moveToNext());
+        map.put("c", "C");
+        cursor.moveToNext();
+    }
 }
@@ -26,6 +26,8 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.junit.runners.JUnit4;
 
+import java.util.Random;
+
 @RunWith(JUnit4.class)
 public class SparseArrayCompatTest {
     @Test
@@ -290,4 +292,98 @@ public class SparseArrayCompatTest {
             assertEquals(source.valueAt(i), dest.valueAt(i));
         }
     }
+
+    @Test
+    public void putAllArraysMergesSortsAndKeepsLastDuplicate() {
+        SparseArrayCompat<String> map = new SparseArrayCompat<>();
+        map.put(2, "two");
+        map.put(4, "four");
+        map.remove(4);
+        map.put(6, "six");
+
+        map.putAll(new int[] {5, 1, 6, 5, 3},
+                new String[] {"five", "one", "SIX", "FIVE", "three"});
+
+        int[] expectedKeys = {1, 2, 3, 5, 6};
+        String[] expectedValues = {"one", "two", "three", "FIVE", "SIX"};
+        assertEquals(expectedKeys.length, map.size());
+        for (int i = 0; i < expectedKeys.length; i++) {
+            assertEquals(expectedKeys[i], map.keyAt(i));
+            assertEquals(expectedValues[i], map.valueAt(i));
+        }
+    }
+
+    @Test
+    public void putAllArraysAppendsAfterExistingKeys() {
+        SparseArrayCompat<String> map = new SparseArrayCompat<>();
+        map.put(1, "one");
+        map.putAll(new int[] {2, 3}, new String[] {"two", "three"});
+        assertEquals(3, map.size());
+        assertEquals("one", map.get(1));
+        assertEquals("three", map.get(3));
+        assertEquals(3, map.keyAt(2));
+    }
+
+    @Test
+    public void putAllArraysMatchesRepeatedPut() {
+        Random random = new Random(42);
+        SparseArrayCompat<Integer> expected = new SparseArrayCompat<>();
+        SparseArrayCompat<Integer> actual = new SparseArrayCompat<>();
+        for (int round = 0; round < 10; round++) {
+            int[] keys = new int[100];
+            Integer[] values = new Integer[keys.length];
+            for (int i = 0; i < keys.length; i++) {
+                keys[i] = random.nextInt(500);
+                values[i] = random.nextInt();
+                expected.put(keys[i], values[i]);
+            }
+            actual.putAll(keys, values);
+        }
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.keyAt(i), actual.keyAt(i));
+            assertEquals(expected.valueAt(i), actual.valueAt(i));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void putAllArraysRejectsMismatchedLengths() {
+        new SparseArrayCompat<String>().putAll(new int[] {1, 2}, new String[] {"one"});
+    }
+
+    @Test
+    public void removeAllArray() {
+        SparseArrayCompat<String> map = new SparseArrayCompat<>();
+        map.put(1, "one");
+        map.put(2, "two");
+        map.put(3, "three");
+        map.removeAll(new int[] {3, 1, 7});
+        assertEquals(1, map.size());
+        assertEquals(2, map.keyAt(0));
+        assertEquals("two", map.valueAt(0));
+    }
+
+    @Test
+    public void builderSortsAndDeduplicates() {
+        SparseArrayCompat.Builder<String> builder = new SparseArrayCompat.Builder<>(2);
+        builder.put(30, "thirty").put(10, "ten").put(20, "twenty").put(10, "TEN");
+        SparseArrayCompat<String> map = builder.build();
+        assertEquals(3, map.size());
+        assertEquals(10, map.keyAt(0));
+        assertEquals("TEN", map.valueAt(0));
+        assertEquals(20, map.keyAt(1));
+        assertEquals(30, map.keyAt(2));
+
+        // The built array must not share storage with the builder.
+        builder.put(5, "five");
+        assertEquals(3, map.size());
+        assertEquals(4, builder.build().size());
+        map.put(40, "forty");
+        assertNull(builder.build().get(40));
+    }
+
+    @Test
+    public void builderEmpty() {
+        assertTrue(new SparseArrayCompat.Builder<String>().build().isEmpty());
+    }
 }
@@ -0,0 +1,142 @@
+/*
+ * Copyright 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.lifecycle;
+
+import androidx.arch.core.internal.FastSafeIterableMap;
+import androidx.arch.core.internal.SafeIterableMap;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the observer maps used by {@code LiveData} and {@code LifecycleRegistry} on the
+ * access patterns those classes have, for subjects with up to hundreds of observers.
+ * <ul>
+ *     <li>{@code dispatch}: a value is delivered to every observer, as
+ *     {@code LiveData.dispatchingValue} does.</li>
+ *     <li>{@code sync}: every observer is visited and looked up again before it is moved to a
+ *     new state, as {@code LifecycleRegistry.forwardPass} does.</li>
+ *     <li>{@code churn}: one observer is removed and another added, then a value is
+ *     dispatched, as when a short-lived screen comes and goes.</li>
+ * </ul>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ObserverMapBenchmark {
+    @Param({"10", "100", "500"})
+    public int observers;
+
+    private Object[] mObservers;
+    private SafeIterableMap<Object, Object> mSafeMap;
+    private FastSafeIterableMap<Object, Object> mFastSafeMap;
+    private CopyOnWriteIterableMap<Object, Object> mCopyOnWriteMap;
+    // the slot of mObservers which is not currently in the maps
+    private int mFree;
+
+    @Setup
+    public void setUp() {
+        mObservers = new Object[observers + 1];
+        mSafeMap = new SafeIterableMap<>();
+        mFastSafeMap = new FastSafeIterableMap<>();
+        mCopyOnWriteMap = new CopyOnWriteIterableMap<>();
+        for (int i = 0; i < mObservers.length; i++) {
+            mObservers[i] = new Object();
+        }
+        mFree = observers;
+        for (int i = 0; i < observers; i++) {
+            Object wrapper = new Object();
+            mSafeMap.putIfAbsent(mObservers[i], wrapper);
+            mFastSafeMap.putIfAbsent(mObservers[i], wrapper);
+            mCopyOnWriteMap.putIfAbsent(mObservers[i], wrapper);
+        }
+    }
+
+    @Benchmark
+    public void dispatchSafeIterableMap(Blackhole blackhole) {
+        for (Iterator<Map.Entry<Object, Object>> iterator = mSafeMap.iteratorWithAdditions();
+                iterator.hasNext(); ) {
+            blackhole.consume(iterator.next().getValue());
+        }
+    }
+
+    @Benchmark
+    public void dispatchCopyOnWriteIterableMap(Blackhole blackhole) {
+        for (Iterator<Map.Entry<Object, Object>> iterator =
+                mCopyOnWriteMap.iteratorWithAdditions(); iterator.hasNext(); ) {
+            blackhole.consume(iterator.next().getValue());
+        }
+    }
+
+    @Benchmark
+    public void syncFastSafeIterableMap(Blackhole blackhole) {
+        for (Iterator<Map.Entry<Object, Object>> iterator = mFastSafeMap.iteratorWithAdditions();
+                iterator.hasNext(); ) {
+            Map.Entry<Object, Object> entry = iterator.next();
+            blackhole.consume(mFastSafeMap.contains(entry.getKey()));
+        }
+    }
+
+    @Benchmark
+    public void syncCopyOnWriteIterableMap(Blackhole blackhole) {
+        for (Iterator<Map.Entry<Object, Object>> iterator =
+                mCopyOnWriteMap.iteratorWithAdditions(); iterator.hasNext(); ) {
+            Map.Entry<Object, Object> entry = iterator.next();
+            blackhole.consume(mCopyOnWriteMap.contains(entry.getKey()));
+        }
+    }
+
+    @Benchmark
+    public void churnSafeIterableMap(Blackhole blackhole) {
+        Object added = mObservers[mFree];
+        Object wrapper = mSafeMap.remove(nextEldest());
+        mSafeMap.putIfAbsent(added, wrapper);
+        dispatchSafeIterableMap(blackhole);
+    }
+
+    @Benchmark
+    public void churnCopyOnWriteIterableMap(Blackhole blackhole) {
+        Object added = mObservers[mFree];
+        Object wrapper = mCopyOnWriteMap.remove(nextEldest());
+        mCopyOnWriteMap.putIfAbsent(added, wrapper);
+        dispatchCopyOnWriteIterableMap(blackhole);
+    }
+
+    // Observers are added in slot order, so the one after the free slot is always the eldest.
+    // It becomes the new free slot once it has been removed.
+    private Object nextEldest() {
+        mFree = (mFree + 1) % mObservers.length;
+        return mObservers[mFree];
+    }
+}
@@ -0,0 +1,374 @@
+/*
+ * Copyright 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.lifecycle;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.RestrictTo;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * An insertion-ordered map which, like {@code FastSafeIterableMap}, supports modifications during
+ * iterations, but keeps its entries in a copy-on-write array instead of a linked list.
+ * <p>
+ * Every mutation publishes a new array, so an iteration only reads an immutable snapshot and
+ * never has to be registered with the map or notified of removals: creating and advancing an
+ * iterator takes no locks and does not touch any shared mutable state. Each entry carries an
+ * ever increasing order number; when an iterator notices that the map has been modified it
+ * finds its place in the new array by a binary search on that number. Iterators observe the
+ * same semantics as those of {@code SafeIterableMap}: removed entries which have not been
+ * visited yet are skipped, and entries added during the iteration are only visited by
+ * {@link #iteratorWithAdditions()}.
+ * <p>
+ * Iterations may run on any thread, but mutations and lookups must not be performed
+ * concurrently with each other.
+ *
+ * @param <K> Key type
+ * @param <V> Value type
+ * @hide
+ */
+@RestrictTo(RestrictTo.Scope.LIBRARY_GROUP_PREFIX)
+public class CopyOnWriteIterableMap<K, V> implements Iterable<Map.Entry<K, V>> {
+
+    @SuppressWarnings("rawtypes")
+    private static final Entry[] EMPTY_ENTRIES = new Entry[0];
+
+    @SuppressWarnings({"unchecked", "WeakerAccess"}) /* synthetic access */
+    volatile Entry<K, V>[] mEntries = EMPTY_ENTRIES;
+    private final HashMap<K, Entry<K, V>> mIndex = new HashMap<>();
+    @SuppressWarnings("WeakerAccess") /* synthetic access */
+    long mNextOrder;
+
+    /**
+     * If the specified key is not already associated
+     * with a value, associates it with the given value.
+     *
+     * @param key key with which the specified value is to be associated
+     * @param v   value to be associated with the specified key
+     * @return the previous value associated with the specified key,
+     * or {@code null} if there was no mapping for the key
+     */
+    @Nullable
+    public V putIfAbsent(@NonNull K key, @NonNull V v) {
+        Entry<K, V> current = mIndex.get(key);
+        if (current != null) {
+            return current.mValue;
+        }
+        Entry<K, V> entry = new Entry<>(key, v, mNextOrder++);
+        mIndex.put(key, entry);
+        Entry<K, V>[] entries = mEntries;
+        Entry<K, V>[] newEntries = newArray(entries.length + 1);
+        System.arraycopy(entries, 0, newEntries, 0, entries.length);
+        newEntries[entries.length] = entry;
+        mEntries = newEntries;
+        return null;
+    }
+
+    /**
+     * Removes the mapping for a key from this map if it is present.
+     *
+     * @param key key whose mapping is to be removed from the map
+     * @return the previous value associated with the specified key,
+     * or {@code null} if there was no mapping for the key
+     */
+    @Nullable
+    public V remove(@NonNull K key) {
+        Entry<K, V> entry = mIndex.remove(key);
+        if (entry == null) {
+            return null;
+        }
+        Entry<K, V>[] entries = mEntries;
+        int index = indexOf(entries, entry.mOrder);
+        Entry<K, V>[] newEntries = newArray(entries.length - 1);
+        System.arraycopy(entries, 0, newEntries, 0, index);
+        System.arraycopy(entries, index + 1, newEntries, index, newEntries.length - index);
+        mEntries = newEntries;
+        return entry.mValue;
+    }
+
+    /**
+     * Returns {@code true} if this map contains a mapping for the specified key.
+     */
+    public boolean contains(K key) {
+        return mIndex.containsKey(key);
+    }
+
+    /**
+     * @return the number of elements in this map
+     */
+    public int size() {
+        return mEntries.length;
+    }
+
+    /**
+     * @return eldest added entry or null
+     */
+    @Nullable
+    public Map.Entry<K, V> eldest() {
+        Entry<K, V>[] entries = mEntries;
+        return entries.length == 0 ? null : entries[0];
+    }
+
+    /**
+     * @return newest added entry or null
+     */
+    @Nullable
+    public Map.Entry<K, V> newest() {
+        Entry<K, V>[] entries = mEntries;
+        return entries.length == 0 ? null : entries[entries.length - 1];
+    }
+
+    /**
+     * Return an entry added to prior to an entry associated with the given key.
+     *
+     * @param k the key
+     */
+    @Nullable
+    public Map.Entry<K, V> ceil(K k) {
+        Entry<K, V> entry = mIndex.get(k);
+        if (entry == null) {
+            return null;
+        }
+        Entry<K, V>[] entries = mEntries;
+        int index = indexOf(entries, entry.mOrder);
+        return index == 0 ? null : entries[index - 1];
+    }
+
+    /**
+     * @return an ascending iterator, which doesn't include new elements added during an
+     * iteration.
+     */
+    @NonNull
+    @Override
+    public Iterator<Map.Entry<K, V>> iterator() {
+        return new AscendingIterator(mNextOrder);
+    }
+
+    /**
+     * @return an descending iterator, which doesn't include new elements added during an
+     * iteration.
+     */
+    @NonNull
+    public Iterator<Map.Entry<K, V>> descendingIterator() {
+        return new DescendingIterator(mNextOrder);
+    }
+
+    /**
+     * return an iterator with additions.
+     */
+    @NonNull
+    public Iterator<Map.Entry<K, V>> iteratorWithAdditions() {
+        return new AscendingIterator(Long.MAX_VALUE);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == this) {
+            return true;
+        }
+        if (!(obj instanceof CopyOnWriteIterableMap)) {
+            return false;
+        }
+        Entry<?, ?>[] entries = mEntries;
+        Entry<?, ?>[] otherEntries = ((CopyOnWriteIterableMap<?, ?>) obj).mEntries;
+        if (entries.length != otherEntries.length) {
+            return false;
+        }
+        for (int i = 0; i < entries.length; i++) {
+            if (!entries[i].equals(otherEntries[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int h = 0;
+        for (Entry<K, V> entry : mEntries) {
+            h += entry.hashCode();
+        }
+        return h;
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        builder.append("[");
+        Entry<K, V>[] entries = mEntries;
+        for (int i = 0; i < entries.length; i++) {
+            if (i > 0) {
+                builder.append(", ");
+            }
+            builder.append(entries[i]);
+        }
+        builder.append("]");
+        return builder.toString();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <K, V> Entry<K, V>[] newArray(int length) {
+        return length == 0 ? EMPTY_ENTRIES : new Entry[length];
+    }
+
+    /**
+     * Returns the index of the first entry whose order is greater than {@code order}, or the
+     * length of the array if there is none. Entries are always sorted by their order.
+     */
+    @SuppressWarnings("WeakerAccess") /* synthetic access */
+    static int indexAfter(Entry<?, ?>[] entries, long order) {
+        int lo = 0;
+        int hi = entries.length - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            if (entries[mid].mOrder <= order) {
+                lo = mid + 1;
+            } else {
+                hi = mid - 1;
+            }
+        }
+        return lo;
+    }
+
+    private static int indexOf(Entry<?, ?>[] entries, long order) {
+        return indexAfter(entries, order) - 1;
+    }
+
+    private class AscendingIterator implements Iterator<Map.Entry<K, V>> {
+        // Entries whose order is not below the bound were added after this iterator was created.
+        private final long mBound;
+        private Entry<K, V>[] mSnapshot;
+        private int mNext;
+        private long mLastOrder = -1;
+
+        AscendingIterator(long bound) {
+            mBound = bound;
+            mSnapshot = mEntries;
+        }
+
+        @Override
+        public boolean hasNext() {
+            Entry<K, V>[] entries = mEntries;
+            if (entries != mSnapshot) {
+                mSnapshot = entries;
+                mNext = indexAfter(entries, mLastOrder);
+            }
+            return mNext < entries.length && entries[mNext].mOrder < mBound;
+        }
+
+        @Override
+        public Map.Entry<K, V> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Entry<K, V> entry = mSnapshot[mNext++];
+            mLastOrder = entry.mOrder;
+            return entry;
+        }
+    }
+
+    private class DescendingIterator implements Iterator<Map.Entry<K, V>> {
+        private Entry<K, V>[] mSnapshot;
+        private int mNext;
+        private long mLastOrder;
+
+        DescendingIterator(long bound) {
+            mLastOrder = bound;
+            mSnapshot = mEntries;
+            mNext = mSnapshot.length - 1;
+        }
+
+        @Override
+        public boolean hasNext() {
+            Entry<K, V>[] entries = mEntries;
+            if (entries != mSnapshot) {
+                mSnapshot = entries;
+                mNext = indexAfter(entries, mLastOrder - 1) - 1;
+            }
+            return mNext >= 0;
+        }
+
+        @Override
+        public Map.Entry<K, V> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Entry<K, V> entry = mSnapshot[mNext--];
+            mLastOrder = entry.mOrder;
+            return entry;
+        }
+    }
+
+    static final class Entry<K, V> implements Map.Entry<K, V> {
+        @NonNull
+        final K mKey;
+        @NonNull
+        final V mValue;
+        final long mOrder;
+
+        Entry(@NonNull K key, @NonNull V value, long order) {
+            mKey = key;
+            mValue = value;
+            mOrder = order;
+        }
+
+        @NonNull
+        @Override
+        public K getKey() {
+            return mKey;
+        }
+
+        @NonNull
+        @Override
+        public V getValue() {
+            return mValue;
+        }
+
+        @Override
+        public V setValue(V value) {
+            throw new UnsupportedOperationException("An entry modification is not supported");
+        }
+
+        @NonNull
+        @Override
+        public String toString() {
+            return mKey + "=" + mValue;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (obj == this) {
+                return true;
+            }
+            if (!(obj instanceof Map.Entry)) {
+                return false;
+            }
+            Map.Entry<?, ?> entry = (Map.Entry<?, ?>) obj;
+            return mKey.equals(entry.getKey()) && mValue.equals(entry.getValue());
+        }
+
+        @Override
+        public int hashCode() {
+            return mKey.hashCode() ^ mValue.hashCode();
+        }
+    }
+}
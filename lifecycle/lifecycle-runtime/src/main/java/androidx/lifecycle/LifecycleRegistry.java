@@ -26,7 +26,6 @@ import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.annotation.VisibleForTesting;
 import androidx.arch.core.executor.ArchTaskExecutor;
-import androidx.arch.core.internal.FastSafeIterableMap;
 
 import java.lang.ref.WeakReference;
 import java.util.ArrayList;
@@ -48,8 +47,8 @@ public class LifecycleRegistry extends Lifecycle {
      * if addition_order(observer1) < addition_order(observer2), then
      * state(observer1) >= state(observer2),
      */
-    private FastSafeIterableMap<LifecycleObserver, ObserverWithState> mObserverMap =
-            new FastSafeIterableMap<>();
+    private CopyOnWriteIterableMap<LifecycleObserver, ObserverWithState> mObserverMap =
+            new CopyOnWriteIterableMap<>();
     /**
      * Current state
      */
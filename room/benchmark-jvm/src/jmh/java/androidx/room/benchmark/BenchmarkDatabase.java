@@ -0,0 +1,70 @@
+/*
+ * Copyright 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package androidx.room.benchmark;
+
+import static org.mockito.Mockito.mock;
+
+import android.content.Context;
+
+import androidx.annotation.NonNull;
+import androidx.room.Database;
+import androidx.room.Room;
+import androidx.room.RoomDatabase;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Database(entities = User.class, version = 1, exportSchema = false)
+public abstract class BenchmarkDatabase extends RoomDatabase {
+    public abstract UserDao getUserDao();
+
+    /**
+     * Creates an in-memory database on sqlite-jdbc.
+     * <p>
+     * Queries run on the calling thread and so does the invalidation tracker, which refreshes
+     * right after each write transaction: its cost is part of the cost of the write, instead of
+     * being paid on another thread.
+     */
+    static BenchmarkDatabase create() {
+        // The context is not used by the JDBC open helper, but is required by the builder.
+        return Room.inMemoryDatabaseBuilder(mock(Context.class), BenchmarkDatabase.class)
+                .openHelperFactory(new JdbcSQLiteOpenHelperFactory())
+                .setJournalMode(JournalMode.TRUNCATE)
+                .allowMainThreadQueries()
+                .setQueryExecutor(Runnable::run)
+                .build();
+    }
+
+    /**
+     * Creates the given number of users, with ids starting at 0.
+     */
+    static List<User> createUsers(int count) {
+        List<User> users = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            users.add(User.create(i));
+        }
+        return users;
+    }
+
+    /**
+     * Returns the connection of the database, to run the statements of Room directly on it.
+     */
+    @NonNull
+    SupportSQLiteDatabase getConnection() {
+        return getOpenHelper().getWritableDatabase();
+    }
+}
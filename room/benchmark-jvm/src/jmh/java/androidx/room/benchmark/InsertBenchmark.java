@@ -0,0 +1,108 @@
+/*
+ * Copyright 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package androidx.room.benchmark;
+
+import androidx.sqlite.db.SupportSQLiteDatabase;
+import androidx.sqlite.db.SupportSQLiteStatement;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares an {@code @Insert} method of a generated DAO, which goes through an
+ * {@link androidx.room.EntityInsertionAdapter} in a transaction of the {@link
+ * androidx.room.RoomDatabase}, with the same statement run directly on the connection in a
+ * transaction. The Room benchmark also includes the refresh of the invalidation tracker which
+ * follows each write transaction.
+ * <p>
+ * The users replace themselves, so the table keeps the same size.
+ * <p>
+ * android.jar reports an SDK_INT of 0 on the host, so the adapter runs one statement per row,
+ * as it does below API 16. This measures the per-row path only; the multi-row path is measured
+ * on a device by {@code InsertBatchBenchmark} in the room-benchmark module.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class InsertBenchmark {
+    private static final String INSERT_SQL = "INSERT OR REPLACE INTO `User` "
+            + "(`id`,`name`,`email`,`age`,`lastSeen`) VALUES (?,?,?,?,?)";
+
+    @Param({"1", "10", "100"})
+    public int rows;
+
+    private BenchmarkDatabase mDatabase;
+    private UserDao mUserDao;
+    private SupportSQLiteDatabase mConnection;
+    private SupportSQLiteStatement mInsertStatement;
+    private List<User> mUsers;
+
+    @Setup
+    public void setUp() {
+        mDatabase = BenchmarkDatabase.create();
+        mUserDao = mDatabase.getUserDao();
+        mUsers = BenchmarkDatabase.createUsers(rows);
+        mUserDao.insertAll(mUsers);
+        mConnection = mDatabase.getConnection();
+        mInsertStatement = mConnection.compileStatement(INSERT_SQL);
+    }
+
+    @TearDown
+    public void tearDown() {
+        mDatabase.close();
+    }
+
+    @Benchmark
+    public void roomInsertAll() {
+        mUserDao.insertAll(mUsers);
+    }
+
+    @Benchmark
+    public void driverInsertAll() {
+        final SupportSQLiteStatement statement = mInsertStatement;
+        mConnection.beginTransaction();
+        try {
+            for (int i = 0; i < mUsers.size(); i++) {
+                final User user = mUsers.get(i);
+                statement.bindLong(1, user.id);
+                statement.bindString(2, user.name);
+                statement.bindString(3, user.email);
+                statement.bindLong(4, user.age);
+                statement.bindLong(5, user.lastSeen);
+                statement.executeInsert();
+            }
+            mConnection.setTransactionSuccessful();
+        } finally {
+            mConnection.endTransaction();
+        }
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package androidx.room.benchmark;
+
+import androidx.annotation.NonNull;
+import androidx.room.InvalidationTracker;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+import androidx.sqlite.db.SupportSQLiteStatement;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of tracking a table with observers. Each write through the DAO is followed
+ * by a refresh of the {@link InvalidationTracker}, which reads and clears the modification log
+ * and notifies the observers. The same update run directly on the connection still fires the
+ * triggers of the tracker, so the difference is the cost of the refresh.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class InvalidationTrackerBenchmark {
+    private static final int USER_COUNT = 100;
+    private static final String TOUCH_SQL =
+            "UPDATE User SET lastSeen = lastSeen + 1 WHERE id = ?";
+
+    @Param({"0", "1", "10"})
+    public int observers;
+
+    private BenchmarkDatabase mDatabase;
+    private UserDao mUserDao;
+    private SupportSQLiteDatabase mConnection;
+    private SupportSQLiteStatement mTouchStatement;
+    private int mNextId;
+    int mInvalidations;
+
+    @Setup
+    public void setUp() {
+        mDatabase = BenchmarkDatabase.create();
+        mUserDao = mDatabase.getUserDao();
+        mUserDao.insertAll(BenchmarkDatabase.createUsers(USER_COUNT));
+        final InvalidationTracker tracker = mDatabase.getInvalidationTracker();
+        for (int i = 0; i < observers; i++) {
+            tracker.addObserver(new InvalidationTracker.Observer("User") {
+                @Override
+                public void onInvalidated(@NonNull Set<String> tables) {
+                    mInvalidations++;
+                }
+            });
+        }
+        mConnection = mDatabase.getConnection();
+        mTouchStatement = mConnection.compileStatement(TOUCH_SQL);
+    }
+
+    @TearDown
+    public void tearDown() {
+        mDatabase.close();
+    }
+
+    @Benchmark
+    public int roomUpdate() {
+        return mUserDao.touch(nextId());
+    }
+
+    @Benchmark
+    public int driverUpdate() {
+        mConnection.beginTransaction();
+        try {
+            mTouchStatement.bindLong(1, nextId());
+            final int updated = mTouchStatement.executeUpdateDelete();
+            mConnection.setTransactionSuccessful();
+            return updated;
+        } finally {
+            mConnection.endTransaction();
+        }
+    }
+
+    @Benchmark
+    public void roomRefreshWithoutChanges() {
+        mDatabase.getInvalidationTracker().refreshVersionsSync();
+    }
+
+    private int nextId() {
+        mNextId = (mNextId + 1) % USER_COUNT;
+        return mNextId;
+    }
+}
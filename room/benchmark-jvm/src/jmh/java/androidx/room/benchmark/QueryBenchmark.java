@@ -0,0 +1,124 @@
+/*
+ * Copyright 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package androidx.room.benchmark;
+
+import android.database.Cursor;
+
+import androidx.room.CursorIterator;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the query methods of a generated DAO with the same queries run directly on the
+ * connection, reading the same columns. The difference is the cost of Room itself: acquiring and
+ * binding a {@link androidx.room.RoomSQLiteQuery}, resolving the column indexes and converting
+ * the rows to entities.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class QueryBenchmark {
+    private static final String LOAD_BY_ID_SQL = "SELECT * FROM User WHERE id = ?";
+    private static final String LOAD_USERS_SQL = "SELECT * FROM User ORDER BY id LIMIT ?";
+
+    @Param({"1", "100", "1000"})
+    public int rows;
+
+    private BenchmarkDatabase mDatabase;
+    private UserDao mUserDao;
+    private SupportSQLiteDatabase mConnection;
+
+    @Setup
+    public void setUp() {
+        mDatabase = BenchmarkDatabase.create();
+        mUserDao = mDatabase.getUserDao();
+        mUserDao.insertAll(BenchmarkDatabase.createUsers(rows));
+        mConnection = mDatabase.getConnection();
+    }
+
+    @TearDown
+    public void tearDown() {
+        mDatabase.close();
+    }
+
+    @Benchmark
+    public User roomLoadById() {
+        return mUserDao.loadById(rows - 1);
+    }
+
+    @Benchmark
+    public void driverLoadById(Blackhole blackhole) {
+        Cursor cursor = mConnection.query(LOAD_BY_ID_SQL, new Object[]{rows - 1});
+        try {
+            consumeRows(cursor, blackhole);
+        } finally {
+            cursor.close();
+        }
+    }
+
+    @Benchmark
+    public List<User> roomLoadUsers() {
+        return mUserDao.loadUsers(rows);
+    }
+
+    @Benchmark
+    public void roomIterateUsers(Blackhole blackhole) {
+        try (CursorIterator<User> users = mUserDao.iterateUsers(rows)) {
+            while (users.hasNext()) {
+                blackhole.consume(users.next());
+            }
+        }
+    }
+
+    @Benchmark
+    public void driverLoadUsers(Blackhole blackhole) {
+        Cursor cursor = mConnection.query(LOAD_USERS_SQL, new Object[]{rows});
+        try {
+            consumeRows(cursor, blackhole);
+        } finally {
+            cursor.close();
+        }
+    }
+
+    private static void consumeRows(Cursor cursor, Blackhole blackhole) {
+        while (cursor.moveToNext()) {
+            blackhole.consume(cursor.getInt(0));
+            blackhole.consume(cursor.getString(1));
+            blackhole.consume(cursor.getString(2));
+            blackhole.consume(cursor.getInt(3));
+            blackhole.consume(cursor.getLong(4));
+        }
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package androidx.room.benchmark;
+
+import androidx.room.RoomSQLiteQuery;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures acquiring, binding and releasing a {@link RoomSQLiteQuery}, as done by every query
+ * method of a generated DAO. This does not involve SQLite at all.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class RoomSQLiteQueryBenchmark {
+    private static final String SQL = "SELECT * FROM User WHERE id = ?";
+
+    @Param({"1", "10"})
+    public int arguments;
+
+    @Benchmark
+    public void acquireBindRelease() {
+        acquireBindRelease(arguments);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void acquireBindReleaseContended() {
+        acquireBindRelease(arguments);
+    }
+
+    private static void acquireBindRelease(int argumentCount) {
+        final RoomSQLiteQuery query = RoomSQLiteQuery.acquire(SQL, argumentCount);
+        for (int index = 1; index <= argumentCount; index++) {
+            query.bindLong(index, index);
+        }
+        query.release();
+    }
+}
@@ -0,0 +1,39 @@
+/*
+ * Copyright 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package androidx.room.benchmark;
+
+import androidx.room.Entity;
+import androidx.room.PrimaryKey;
+
+@Entity
+public class User {
+    @PrimaryKey
+    public int id;
+    public String name;
+    public String email;
+    public int age;
+    public long lastSeen;
+
+    static User create(int id) {
+        User user = new User();
+        user.id = id;
+        user.name = "name" + id;
+        user.email = "user" + id + "@example.com";
+        user.age = id % 100;
+        user.lastSeen = 1_600_000_000_000L + id;
+        return user;
+    }
+}
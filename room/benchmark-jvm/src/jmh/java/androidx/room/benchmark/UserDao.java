@@ -0,0 +1,46 @@
+/*
+ * Copyright 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package androidx.room.benchmark;
+
+import androidx.room.CursorIterator;
+import androidx.room.Dao;
+import androidx.room.Insert;
+import androidx.room.OnConflictStrategy;
+import androidx.room.Query;
+
+import java.util.List;
+
+@Dao
+public interface UserDao {
+    // Replacing keeps the size of the table constant while the insert benchmarks run.
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    void insert(User user);
+
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    void insertAll(List<User> users);
+
+    @Query("SELECT * FROM User WHERE id = :id")
+    User loadById(int id);
+
+    @Query("SELECT * FROM User ORDER BY id LIMIT :limit")
+    List<User> loadUsers(int limit);
+
+    @Query("SELECT * FROM User ORDER BY id LIMIT :limit")
+    CursorIterator<User> iterateUsers(int limit);
+
+    @Query("UPDATE User SET lastSeen = lastSeen + 1 WHERE id = :id")
+    int touch(int id);
+}
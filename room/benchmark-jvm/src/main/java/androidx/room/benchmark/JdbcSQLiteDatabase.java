@@ -0,0 +1,556 @@
+/*
+ * Copyright 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package androidx.room.benchmark;
+
+import android.content.ContentValues;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteTransactionListener;
+import android.os.CancellationSignal;
+import android.util.Pair;
+
+import androidx.annotation.Nullable;
+import androidx.sqlite.db.SimpleSQLiteQuery;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+import androidx.sqlite.db.SupportSQLiteQuery;
+import androidx.sqlite.db.SupportSQLiteStatement;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A {@link SupportSQLiteDatabase} running its statements on a sqlite-jdbc {@link Connection}.
+ * <p>
+ * It behaves like a framework database with a single connection: statements are prepared once and
+ * kept in a cache, query results are read entirely when the query runs, and a transaction holds
+ * the connection until it ends. Nested transactions follow the framework: the outermost
+ * transaction commits only if all of the transactions nested in it were successful.
+ */
+final class JdbcSQLiteDatabase implements SupportSQLiteDatabase {
+    private static final int DEFAULT_MAX_SQL_CACHE_SIZE = 25;
+    private static final int MAX_SQL_CACHE_SIZE = 100;
+    private static final String IN_MEMORY_PATH = ":memory:";
+    private static final String LAST_INSERT_ROWID_SQL = "SELECT last_insert_rowid()";
+
+    private final Connection mConnection;
+    private final String mPath;
+
+    // Held by the thread using the connection, for the whole of its transactions.
+    private final ReentrantLock mLock = new ReentrantLock();
+    private final ArrayDeque<Transaction> mTransactions = new ArrayDeque<>();
+    private final LinkedHashMap<String, PreparedStatement> mStatementCache =
+            new LinkedHashMap<String, PreparedStatement>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, PreparedStatement> eldest) {
+                    if (size() > mMaxSqlCacheSize) {
+                        closeQuietly(eldest.getValue());
+                        return true;
+                    }
+                    return false;
+                }
+            };
+    private int mMaxSqlCacheSize = DEFAULT_MAX_SQL_CACHE_SIZE;
+    private boolean mWriteAheadLoggingEnabled;
+    private volatile boolean mClosed;
+
+    JdbcSQLiteDatabase(Connection connection, String path) {
+        mConnection = connection;
+        mPath = path;
+    }
+
+    @Override
+    public SupportSQLiteStatement compileStatement(String sql) {
+        acquire();
+        try {
+            return new JdbcSQLiteStatement(this, sql,
+                    prepare(sql).getParameterMetaData().getParameterCount());
+        } catch (SQLException e) {
+            throw error(sql, e);
+        } finally {
+            mLock.unlock();
+        }
+    }
+
+    @Override
+    public void beginTransaction() {
+        beginTransaction(null, true);
+    }
+
+    @Override
+    public void beginTransactionNonExclusive() {
+        beginTransaction(null, false);
+    }
+
+    @Override
+    public void beginTransactionWithListener(SQLiteTransactionListener transactionListener) {
+        beginTransaction(transactionListener, true);
+    }
+
+    @Override
+    public void beginTransactionWithListenerNonExclusive(
+            SQLiteTransactionListener transactionListener) {
+        beginTransaction(transactionListener, false);
+    }
+
+    private void beginTransaction(@Nullable SQLiteTransactionListener listener,
+            boolean exclusive) {
+        acquire();
+        boolean begun = false;
+        try {
+            if (mTransactions.isEmpty()) {
+                executeInternal(exclusive ? "BEGIN EXCLUSIVE;" : "BEGIN IMMEDIATE;", null);
+            }
+            mTransactions.push(new Transaction(listener));
+            begun = true;
+        } catch (SQLException e) {
+            throw error("BEGIN", e);
+        } finally {
+            if (!begun) {
+                mLock.unlock();
+            }
+        }
+        if (listener != null) {
+            try {
+                listener.onBegin();
+            } catch (RuntimeException e) {
+                endTransaction();
+                throw e;
+            }
+        }
+    }
+
+    @Override
+    public void endTransaction() {
+        final Transaction transaction = currentTransaction();
+        try {
+            mTransactions.pop();
+            boolean successful = transaction.mSuccessful && !transaction.mChildFailed;
+            RuntimeException listenerError = null;
+            if (transaction.mListener != null) {
+                try {
+                    if (successful) {
+                        transaction.mListener.onCommit();
+                    } else {
+                        transaction.mListener.onRollback();
+                    }
+                } catch (RuntimeException e) {
+                    successful = false;
+                    listenerError = e;
+                }
+            }
+            final Transaction parent = mTransactions.peek();
+            if (parent != null) {
+                if (!successful) {
+                    parent.mChildFailed = true;
+                }
+            } else {
+                final String sql = successful ? "COMMIT;" : "ROLLBACK;";
+                try {
+                    executeInternal(sql, null);
+                } catch (SQLException e) {
+                    throw error(sql, e);
+                }
+            }
+            if (listenerError != null) {
+                throw listenerError;
+            }
+        } finally {
+            mLock.unlock();
+        }
+    }
+
+    @Override
+    public void setTransactionSuccessful() {
+        final Transaction transaction = currentTransaction();
+        if (transaction.mSuccessful) {
+            throw new IllegalStateException("Cannot perform this operation because the transaction"
+                    + " has already been marked successful. The only thing you can do now is call"
+                    + " endTransaction().");
+        }
+        transaction.mSuccessful = true;
+    }
+
+    @Override
+    public boolean inTransaction() {
+        return mLock.isHeldByCurrentThread() && !mTransactions.isEmpty();
+    }
+
+    @Override
+    public boolean isDbLockedByCurrentThread() {
+        return mLock.isHeldByCurrentThread();
+    }
+
+    @Override
+    public boolean yieldIfContendedSafely() {
+        return false;
+    }
+
+    @Override
+    public boolean yieldIfContendedSafely(long sleepAfterYieldDelay) {
+        return false;
+    }
+
+    @Override
+    public int getVersion() {
+        return (int) executeForLong("PRAGMA user_version;", null);
+    }
+
+    @Override
+    public void setVersion(int version) {
+        execSQL("PRAGMA user_version = " + version);
+    }
+
+    @Override
+    public long getMaximumSize() {
+        return executeForLong("PRAGMA max_page_count;", null) * getPageSize();
+    }
+
+    @Override
+    public long setMaximumSize(long numBytes) {
+        final long pageSize = getPageSize();
+        long numPages = numBytes / pageSize;
+        if (numBytes % pageSize != 0) {
+            numPages++;
+        }
+        return executeForLong("PRAGMA max_page_count = " + numPages, null) * pageSize;
+    }
+
+    @Override
+    public long getPageSize() {
+        return executeForLong("PRAGMA page_size;", null);
+    }
+
+    @Override
+    public void setPageSize(long numBytes) {
+        execSQL("PRAGMA page_size = " + numBytes);
+    }
+
+    @Override
+    public Cursor query(String query) {
+        return query(new SimpleSQLiteQuery(query));
+    }
+
+    @Override
+    public Cursor query(String query, Object[] bindArgs) {
+        return query(new SimpleSQLiteQuery(query, bindArgs));
+    }
+
+    @Override
+    public Cursor query(SupportSQLiteQuery supportQuery) {
+        final String sql = supportQuery.getSql();
+        final JdbcSQLiteProgram program = new JdbcSQLiteProgram(supportQuery.getArgCount());
+        supportQuery.bindTo(program);
+        acquire();
+        try {
+            final PreparedStatement statement = prepare(sql);
+            program.bindTo(statement);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                return JdbcCursor.read(resultSet);
+            }
+        } catch (SQLException e) {
+            throw error(sql, e);
+        } finally {
+            mLock.unlock();
+        }
+    }
+
+    /**
+     * The cancellation signal is ignored: the result is read entirely before this method returns.
+     */
+    @Override
+    public Cursor query(SupportSQLiteQuery supportQuery, CancellationSignal cancellationSignal) {
+        return query(supportQuery);
+    }
+
+    @Override
+    public long insert(String table, int conflictAlgorithm, ContentValues values) {
+        throw new UnsupportedOperationException("ContentValues cannot be used off device");
+    }
+
+    @Override
+    public int delete(String table, String whereClause, Object[] whereArgs) {
+        final String sql = "DELETE FROM " + table
+                + (whereClause == null || whereClause.isEmpty() ? "" : " WHERE " + whereClause);
+        final SupportSQLiteStatement statement = compileStatement(sql);
+        SimpleSQLiteQuery.bind(statement, whereArgs);
+        return statement.executeUpdateDelete();
+    }
+
+    @Override
+    public int update(String table, int conflictAlgorithm, ContentValues values,
+            String whereClause, Object[] whereArgs) {
+        throw new UnsupportedOperationException("ContentValues cannot be used off device");
+    }
+
+    @Override
+    public void execSQL(String sql) {
+        execute(sql, null);
+    }
+
+    @Override
+    public void execSQL(String sql, Object[] bindArgs) {
+        if (bindArgs == null) {
+            throw new IllegalArgumentException("Empty bindArgs");
+        }
+        final JdbcSQLiteProgram program = new JdbcSQLiteProgram(bindArgs.length);
+        for (int i = 0; i < bindArgs.length; i++) {
+            program.bindObject(i + 1, bindArgs[i]);
+        }
+        execute(sql, program);
+    }
+
+    @Override
+    public boolean isReadOnly() {
+        return false;
+    }
+
+    @Override
+    public boolean isOpen() {
+        return !mClosed;
+    }
+
+    @Override
+    public boolean needUpgrade(int newVersion) {
+        return newVersion > getVersion();
+    }
+
+    @Override
+    public String getPath() {
+        return mPath;
+    }
+
+    @Override
+    public void setLocale(Locale locale) {
+        throw new UnsupportedOperationException("Localized collators are not available off device");
+    }
+
+    @Override
+    public void setMaxSqlCacheSize(int cacheSize) {
+        if (cacheSize > MAX_SQL_CACHE_SIZE || cacheSize < 0) {
+            throw new IllegalStateException(
+                    "expected value between 0 and " + MAX_SQL_CACHE_SIZE);
+        }
+        acquire();
+        try {
+            // A statement stays in the cache while it runs.
+            mMaxSqlCacheSize = Math.max(1, cacheSize);
+            final Iterator<PreparedStatement> statements = mStatementCache.values().iterator();
+            while (mStatementCache.size() > mMaxSqlCacheSize) {
+                closeQuietly(statements.next());
+                statements.remove();
+            }
+        } finally {
+            mLock.unlock();
+        }
+    }
+
+    @Override
+    public void setForeignKeyConstraintsEnabled(boolean enable) {
+        execSQL("PRAGMA foreign_keys = " + (enable ? 1 : 0));
+    }
+
+    @Override
+    public boolean enableWriteAheadLogging() {
+        if (IN_MEMORY_PATH.equals(mPath)) {
+            return false;
+        }
+        mWriteAheadLoggingEnabled =
+                "wal".equalsIgnoreCase(executeForString("PRAGMA journal_mode = WAL;", null));
+        return mWriteAheadLoggingEnabled;
+    }
+
+    @Override
+    public void disableWriteAheadLogging() {
+        if (mWriteAheadLoggingEnabled) {
+            executeForString("PRAGMA journal_mode = TRUNCATE;", null);
+            mWriteAheadLoggingEnabled = false;
+        }
+    }
+
+    @Override
+    public boolean isWriteAheadLoggingEnabled() {
+        return mWriteAheadLoggingEnabled;
+    }
+
+    @Override
+    public List<Pair<String, String>> getAttachedDbs() {
+        throw new UnsupportedOperationException("android.util.Pair cannot be created off device");
+    }
+
+    @Override
+    public boolean isDatabaseIntegrityOk() {
+        return "ok".equalsIgnoreCase(executeForString("PRAGMA integrity_check;", null));
+    }
+
+    @Override
+    public void close() {
+        if (mClosed) {
+            return;
+        }
+        acquire();
+        try {
+            for (PreparedStatement statement : mStatementCache.values()) {
+                closeQuietly(statement);
+            }
+            mStatementCache.clear();
+            mConnection.close();
+        } catch (SQLException e) {
+            throw error("close", e);
+        } finally {
+            mClosed = true;
+            mLock.unlock();
+        }
+    }
+
+    void execute(String sql, @Nullable JdbcSQLiteProgram program) {
+        acquire();
+        try {
+            executeInternal(sql, program);
+        } catch (SQLException e) {
+            throw error(sql, e);
+        } finally {
+            mLock.unlock();
+        }
+    }
+
+    int executeForChangedRowCount(String sql, @Nullable JdbcSQLiteProgram program) {
+        acquire();
+        try {
+            return bind(prepare(sql), program).executeUpdate();
+        } catch (SQLException e) {
+            throw error(sql, e);
+        } finally {
+            mLock.unlock();
+        }
+    }
+
+    long executeForLastInsertedRowId(String sql, @Nullable JdbcSQLiteProgram program) {
+        acquire();
+        try {
+            if (bind(prepare(sql), program).executeUpdate() <= 0) {
+                return -1;
+            }
+            try (ResultSet resultSet = prepare(LAST_INSERT_ROWID_SQL).executeQuery()) {
+                resultSet.next();
+                return resultSet.getLong(1);
+            }
+        } catch (SQLException e) {
+            throw error(sql, e);
+        } finally {
+            mLock.unlock();
+        }
+    }
+
+    long executeForLong(String sql, @Nullable JdbcSQLiteProgram program) {
+        acquire();
+        try (ResultSet resultSet = bind(prepare(sql), program).executeQuery()) {
+            if (!resultSet.next()) {
+                throw new IllegalStateException("The query returned no rows: " + sql);
+            }
+            return resultSet.getLong(1);
+        } catch (SQLException e) {
+            throw error(sql, e);
+        } finally {
+            mLock.unlock();
+        }
+    }
+
+    @Nullable
+    String executeForString(String sql, @Nullable JdbcSQLiteProgram program) {
+        acquire();
+        try (ResultSet resultSet = bind(prepare(sql), program).executeQuery()) {
+            if (!resultSet.next()) {
+                throw new IllegalStateException("The query returned no rows: " + sql);
+            }
+            return resultSet.getString(1);
+        } catch (SQLException e) {
+            throw error(sql, e);
+        } finally {
+            mLock.unlock();
+        }
+    }
+
+    private void executeInternal(String sql, @Nullable JdbcSQLiteProgram program)
+            throws SQLException {
+        bind(prepare(sql), program).execute();
+    }
+
+    private void acquire() {
+        mLock.lock();
+        if (mClosed) {
+            mLock.unlock();
+            throw new IllegalStateException(
+                    "attempt to re-open an already-closed object: " + mPath);
+        }
+    }
+
+    private Transaction currentTransaction() {
+        if (!inTransaction()) {
+            throw new IllegalStateException(
+                    "Cannot perform this operation because there is no current transaction.");
+        }
+        return mTransactions.peek();
+    }
+
+    private PreparedStatement prepare(String sql) throws SQLException {
+        PreparedStatement statement = mStatementCache.get(sql);
+        if (statement == null) {
+            statement = mConnection.prepareStatement(sql);
+            mStatementCache.put(sql, statement);
+        } else {
+            statement.clearParameters();
+        }
+        return statement;
+    }
+
+    private static PreparedStatement bind(PreparedStatement statement,
+            @Nullable JdbcSQLiteProgram program) throws SQLException {
+        if (program != null) {
+            program.bindTo(statement);
+        }
+        return statement;
+    }
+
+    private static IllegalStateException error(String sql, SQLException e) {
+        return new IllegalStateException(e.getMessage() + ", while executing: " + sql, e);
+    }
+
+    static void closeQuietly(PreparedStatement statement) {
+        try {
+            statement.close();
+        } catch (SQLException ignored) {
+        }
+    }
+
+    private static final class Transaction {
+        @Nullable
+        final SQLiteTransactionListener mListener;
+        boolean mSuccessful;
+        boolean mChildFailed;
+
+        Transaction(@Nullable SQLiteTransactionListener listener) {
+            mListener = listener;
+        }
+    }
+}
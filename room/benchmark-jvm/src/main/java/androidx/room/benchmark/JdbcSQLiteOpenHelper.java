@@ -0,0 +1,123 @@
+/*
+ * Copyright 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package androidx.room.benchmark;
+
+import androidx.annotation.Nullable;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+import androidx.sqlite.db.SupportSQLiteOpenHelper;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+
+/**
+ * Opens a {@link JdbcSQLiteDatabase} and creates, migrates and opens it through the callback, as
+ * the framework's {@code SQLiteOpenHelper} does.
+ */
+final class JdbcSQLiteOpenHelper implements SupportSQLiteOpenHelper {
+    private static final String URL_PREFIX = "jdbc:sqlite:";
+    private static final String IN_MEMORY_PATH = ":memory:";
+
+    @Nullable
+    private final String mName;
+    private final Callback mCallback;
+    @Nullable
+    private JdbcSQLiteDatabase mDatabase;
+    private boolean mWriteAheadLoggingEnabled;
+
+    JdbcSQLiteOpenHelper(@Nullable String name, Callback callback) {
+        mName = name;
+        mCallback = callback;
+    }
+
+    @Nullable
+    @Override
+    public String getDatabaseName() {
+        return mName;
+    }
+
+    @Override
+    public synchronized void setWriteAheadLoggingEnabled(boolean enabled) {
+        mWriteAheadLoggingEnabled = enabled;
+        if (mDatabase != null && mDatabase.isOpen()) {
+            if (enabled) {
+                mDatabase.enableWriteAheadLogging();
+            } else {
+                mDatabase.disableWriteAheadLogging();
+            }
+        }
+    }
+
+    @Override
+    public synchronized SupportSQLiteDatabase getWritableDatabase() {
+        if (mDatabase == null || !mDatabase.isOpen()) {
+            mDatabase = open();
+        }
+        return mDatabase;
+    }
+
+    @Override
+    public SupportSQLiteDatabase getReadableDatabase() {
+        return getWritableDatabase();
+    }
+
+    @Override
+    public synchronized void close() {
+        if (mDatabase != null) {
+            mDatabase.close();
+            mDatabase = null;
+        }
+    }
+
+    private JdbcSQLiteDatabase open() {
+        final String path = mName == null ? IN_MEMORY_PATH : mName;
+        final Connection connection;
+        try {
+            connection = DriverManager.getConnection(URL_PREFIX + path);
+        } catch (SQLException e) {
+            throw new IllegalStateException("Cannot open database " + path, e);
+        }
+        final JdbcSQLiteDatabase database = new JdbcSQLiteDatabase(connection, path);
+        try {
+            mCallback.onConfigure(database);
+            if (mWriteAheadLoggingEnabled) {
+                database.enableWriteAheadLogging();
+            }
+            final int version = database.getVersion();
+            if (version != mCallback.version) {
+                database.beginTransaction();
+                try {
+                    if (version == 0) {
+                        mCallback.onCreate(database);
+                    } else if (version > mCallback.version) {
+                        mCallback.onDowngrade(database, version, mCallback.version);
+                    } else {
+                        mCallback.onUpgrade(database, version, mCallback.version);
+                    }
+                    database.setVersion(mCallback.version);
+                    database.setTransactionSuccessful();
+                } finally {
+                    database.endTransaction();
+                }
+            }
+            mCallback.onOpen(database);
+        } catch (RuntimeException e) {
+            database.close();
+            throw e;
+        }
+        return database;
+    }
+}
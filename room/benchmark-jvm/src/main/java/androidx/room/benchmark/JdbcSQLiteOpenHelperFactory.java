@@ -0,0 +1,37 @@
+/*
+ * Copyright 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package androidx.room.benchmark;
+
+import androidx.annotation.NonNull;
+import androidx.sqlite.db.SupportSQLiteOpenHelper;
+
+/**
+ * Creates {@link SupportSQLiteOpenHelper}s backed by the desktop sqlite-jdbc driver, so that a
+ * Room database can be opened on a host JVM.
+ * <p>
+ * Databases without a name are in memory, the name of other databases is the path of their file.
+ * Like the framework, each open helper uses a single connection, and transactions lock it for the
+ * thread which began them. Since the classes of android.jar cannot be created off device, SQLite
+ * errors are thrown as {@link IllegalStateException}s rather than {@code SQLiteException}s.
+ */
+public final class JdbcSQLiteOpenHelperFactory implements SupportSQLiteOpenHelper.Factory {
+    @NonNull
+    @Override
+    public SupportSQLiteOpenHelper create(
+            @NonNull SupportSQLiteOpenHelper.Configuration configuration) {
+        return new JdbcSQLiteOpenHelper(configuration.name, configuration.callback);
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package androidx.room.benchmark;
+
+import androidx.annotation.Nullable;
+import androidx.sqlite.db.SupportSQLiteProgram;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.Arrays;
+
+/**
+ * Holds the arguments bound to a statement until it is executed, like the framework's
+ * {@code SQLiteProgram}. Arguments which are not bound are null.
+ */
+class JdbcSQLiteProgram implements SupportSQLiteProgram {
+    private static final Object[] EMPTY_ARGS = new Object[0];
+
+    private Object[] mBindArgs;
+
+    JdbcSQLiteProgram(int argCount) {
+        mBindArgs = argCount == 0 ? EMPTY_ARGS : new Object[argCount];
+    }
+
+    @Override
+    public void bindNull(int index) {
+        bind(index, null);
+    }
+
+    @Override
+    public void bindLong(int index, long value) {
+        bind(index, value);
+    }
+
+    @Override
+    public void bindDouble(int index, double value) {
+        bind(index, value);
+    }
+
+    @Override
+    public void bindString(int index, String value) {
+        if (value == null) {
+            throw new IllegalArgumentException("the bind value at index " + index + " is null");
+        }
+        bind(index, value);
+    }
+
+    @Override
+    public void bindBlob(int index, byte[] value) {
+        if (value == null) {
+            throw new IllegalArgumentException("the bind value at index " + index + " is null");
+        }
+        bind(index, value);
+    }
+
+    /**
+     * Binds an argument of any of the types accepted by
+     * {@link androidx.sqlite.db.SupportSQLiteDatabase#execSQL(String, Object[])}.
+     */
+    void bindObject(int index, @Nullable Object value) {
+        if (value == null) {
+            bindNull(index);
+        } else if (value instanceof Double || value instanceof Float) {
+            bindDouble(index, ((Number) value).doubleValue());
+        } else if (value instanceof Number) {
+            bindLong(index, ((Number) value).longValue());
+        } else if (value instanceof Boolean) {
+            bindLong(index, (Boolean) value ? 1 : 0);
+        } else if (value instanceof byte[]) {
+            bindBlob(index, (byte[]) value);
+        } else {
+            bindString(index, value.toString());
+        }
+    }
+
+    @Override
+    public void clearBindings() {
+        Arrays.fill(mBindArgs, null);
+    }
+
+    @Override
+    public void close() {
+    }
+
+    /**
+     * Sets the bound arguments on the given JDBC statement.
+     */
+    void bindTo(PreparedStatement statement) throws SQLException {
+        final Object[] bindArgs = mBindArgs;
+        for (int i = 0; i < bindArgs.length; i++) {
+            final Object value = bindArgs[i];
+            if (value == null) {
+                statement.setNull(i + 1, Types.NULL);
+            } else if (value instanceof Long) {
+                statement.setLong(i + 1, (Long) value);
+            } else if (value instanceof Double) {
+                statement.setDouble(i + 1, (Double) value);
+            } else if (value instanceof String) {
+                statement.setString(i + 1, (String) value);
+            } else {
+                statement.setBytes(i + 1, (byte[]) value);
+            }
+        }
+    }
+
+    private void bind(int index, @Nullable Object value) {
+        if (index < 1) {
+            throw new IllegalArgumentException("Cannot bind argument at index " + index);
+        }
+        if (index > mBindArgs.length) {
+            // The arguments of a query are only known once it is bound.
+            mBindArgs = Arrays.copyOf(mBindArgs, index);
+        }
+        mBindArgs[index - 1] = value;
+    }
+}
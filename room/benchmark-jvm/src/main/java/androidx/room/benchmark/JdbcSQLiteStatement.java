@@ -0,0 +1,63 @@
+/*
+ * Copyright 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package androidx.room.benchmark;
+
+import androidx.sqlite.db.SupportSQLiteStatement;
+
+/**
+ * A statement compiled by {@link JdbcSQLiteDatabase#compileStatement(String)}. The JDBC statement
+ * itself is taken from the statement cache of the database when this statement is executed.
+ */
+final class JdbcSQLiteStatement extends JdbcSQLiteProgram implements SupportSQLiteStatement {
+    private final JdbcSQLiteDatabase mDatabase;
+    private final String mSql;
+
+    JdbcSQLiteStatement(JdbcSQLiteDatabase database, String sql, int argCount) {
+        super(argCount);
+        mDatabase = database;
+        mSql = sql;
+    }
+
+    @Override
+    public void execute() {
+        mDatabase.execute(mSql, this);
+    }
+
+    @Override
+    public int executeUpdateDelete() {
+        return mDatabase.executeForChangedRowCount(mSql, this);
+    }
+
+    @Override
+    public long executeInsert() {
+        return mDatabase.executeForLastInsertedRowId(mSql, this);
+    }
+
+    @Override
+    public long simpleQueryForLong() {
+        return mDatabase.executeForLong(mSql, this);
+    }
+
+    @Override
+    public String simpleQueryForString() {
+        return mDatabase.executeForString(mSql, this);
+    }
+
+    @Override
+    public String toString() {
+        return "JdbcSQLiteStatement: " + mSql;
+    }
+}
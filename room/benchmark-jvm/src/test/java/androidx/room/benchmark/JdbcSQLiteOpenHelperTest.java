@@ -0,0 +1,171 @@
+/*
+ * Copyright 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package androidx.room.benchmark;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+
+import android.content.Context;
+import android.database.Cursor;
+
+import androidx.annotation.NonNull;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+import androidx.sqlite.db.SupportSQLiteOpenHelper;
+import androidx.sqlite.db.SupportSQLiteStatement;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@RunWith(JUnit4.class)
+public class JdbcSQLiteOpenHelperTest {
+    private final List<String> mCallbacks = new ArrayList<>();
+    private SupportSQLiteOpenHelper mOpenHelper;
+
+    @Before
+    public void setup() {
+        SupportSQLiteOpenHelper.Callback callback = new SupportSQLiteOpenHelper.Callback(3) {
+            @Override
+            public void onCreate(@NonNull SupportSQLiteDatabase db) {
+                mCallbacks.add("create");
+                db.execSQL("CREATE TABLE item (id INTEGER PRIMARY KEY, name TEXT)");
+            }
+
+            @Override
+            public void onUpgrade(@NonNull SupportSQLiteDatabase db, int oldVersion,
+                    int newVersion) {
+                mCallbacks.add("upgrade");
+            }
+
+            @Override
+            public void onOpen(@NonNull SupportSQLiteDatabase db) {
+                mCallbacks.add("open");
+            }
+        };
+        mOpenHelper = new JdbcSQLiteOpenHelperFactory().create(
+                SupportSQLiteOpenHelper.Configuration.builder(mock(Context.class))
+                        .callback(callback)
+                        .build());
+    }
+
+    @After
+    public void tearDown() {
+        mOpenHelper.close();
+    }
+
+    @Test
+    public void createsThenOpens() {
+        SupportSQLiteDatabase db = mOpenHelper.getWritableDatabase();
+        assertThat(mCallbacks).containsExactly("create", "open").inOrder();
+        assertThat(db.getVersion()).isEqualTo(3);
+        assertThat(db.inTransaction()).isFalse();
+        assertThat(mOpenHelper.getReadableDatabase()).isSameInstanceAs(db);
+    }
+
+    @Test
+    public void insertAndQuery() {
+        SupportSQLiteDatabase db = mOpenHelper.getWritableDatabase();
+        SupportSQLiteStatement insert = db.compileStatement(
+                "INSERT OR IGNORE INTO item (id, name) VALUES (?, ?)");
+        insert.bindLong(1, 5);
+        insert.bindString(2, "five");
+        assertThat(insert.executeInsert()).isEqualTo(5);
+        // The row is ignored, so there is no rowid.
+        assertThat(insert.executeInsert()).isEqualTo(-1);
+        insert.clearBindings();
+        insert.bindLong(1, 6);
+        assertThat(insert.executeInsert()).isEqualTo(6);
+
+        Cursor cursor = db.query("SELECT id, name FROM item WHERE id >= ? ORDER BY id",
+                new Object[]{5});
+        try {
+            assertThat(cursor.getCount()).isEqualTo(2);
+            assertThat(cursor.getColumnIndexOrThrow("name")).isEqualTo(1);
+            assertThat(cursor.moveToNext()).isTrue();
+            assertThat(cursor.getLong(0)).isEqualTo(5);
+            assertThat(cursor.getString(1)).isEqualTo("five");
+            assertThat(cursor.moveToNext()).isTrue();
+            assertThat(cursor.isNull(1)).isTrue();
+            assertThat(cursor.getType(1)).isEqualTo(Cursor.FIELD_TYPE_NULL);
+            assertThat(cursor.moveToNext()).isFalse();
+        } finally {
+            cursor.close();
+        }
+    }
+
+    @Test
+    public void failedNestedTransactionRollsBackOuterTransaction() {
+        SupportSQLiteDatabase db = mOpenHelper.getWritableDatabase();
+        db.beginTransaction();
+        try {
+            db.execSQL("INSERT INTO item (id, name) VALUES (1, 'one')");
+            db.beginTransaction();
+            try {
+                db.execSQL("INSERT INTO item (id, name) VALUES (2, 'two')");
+            } finally {
+                db.endTransaction();
+            }
+            assertThat(db.inTransaction()).isTrue();
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+        assertThat(db.inTransaction()).isFalse();
+        assertThat(count(db)).isEqualTo(0);
+    }
+
+    @Test
+    public void transactionLocksTheConnection() throws InterruptedException {
+        final SupportSQLiteDatabase db = mOpenHelper.getWritableDatabase();
+        db.beginTransaction();
+        final long[] otherThreadCount = new long[1];
+        Thread other = new Thread(() -> otherThreadCount[0] = count(db));
+        try {
+            db.execSQL("INSERT INTO item (id, name) VALUES (1, 'one')");
+            other.start();
+            other.join(100);
+            // The other thread waits for the transaction to end.
+            assertThat(other.isAlive()).isTrue();
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+        other.join();
+        assertThat(otherThreadCount[0]).isEqualTo(1);
+    }
+
+    @Test
+    public void errorsAreIllegalStateExceptions() {
+        SupportSQLiteDatabase db = mOpenHelper.getWritableDatabase();
+        try {
+            db.execSQL("INSERT INTO missing (id) VALUES (1)");
+            fail("inserting in a missing table should fail");
+        } catch (IllegalStateException expected) {
+            assertThat(expected).hasMessageThat().contains("missing");
+        }
+    }
+
+    private static long count(SupportSQLiteDatabase db) {
+        return db.compileStatement("SELECT count(*) FROM item").simpleQueryForLong();
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.room.benchmark
+
+import android.os.Build
+import androidx.benchmark.junit4.BenchmarkRule
+import androidx.benchmark.junit4.measureRepeated
+import androidx.room.Dao
+import androidx.room.Database
+import androidx.room.Entity
+import androidx.room.Insert
+import androidx.room.OnConflictStrategy
+import androidx.room.PrimaryKey
+import androidx.room.Query
+import androidx.room.Room
+import androidx.room.RoomDatabase
+import androidx.test.core.app.ApplicationProvider
+import androidx.test.filters.LargeTest
+import androidx.test.filters.SdkSuppress
+import org.junit.After
+import org.junit.Assert.assertEquals
+import org.junit.Before
+import org.junit.Rule
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.junit.runners.Parameterized
+
+/**
+ * Compares an `@Insert` method returning nothing, which binds many rows into each multi-row
+ * `INSERT ... VALUES` statement, with one returning the row ids, which runs a statement per row.
+ * The users replace themselves, so the table keeps the same size.
+ */
+@LargeTest
+@RunWith(Parameterized::class)
+@SdkSuppress(minSdkVersion = Build.VERSION_CODES.JELLY_BEAN)
+class InsertBatchBenchmark(private val rowCount: Int) {
+
+    @get:Rule
+    val benchmarkRule = BenchmarkRule()
+
+    private lateinit var db: TestDatabase
+    private lateinit var dao: UserDao
+    private lateinit var users: List<User>
+
+    @Before
+    fun setup() {
+        db = Room.inMemoryDatabaseBuilder(
+            ApplicationProvider.getApplicationContext(),
+            TestDatabase::class.java
+        ).build()
+        dao = db.getUserDao()
+        users = List(rowCount) { i -> User(i, "name$i", i % 100) }
+        dao.insertAll(users)
+    }
+
+    @After
+    fun tearDown() {
+        db.close()
+    }
+
+    @Test
+    fun insertBatch() {
+        benchmarkRule.measureRepeated {
+            dao.insertAll(users)
+        }
+        assertEquals(rowCount, dao.count())
+    }
+
+    @Test
+    fun insertPerRow() {
+        benchmarkRule.measureRepeated {
+            dao.insertAllAndReturnIds(users)
+        }
+        assertEquals(rowCount, dao.count())
+    }
+
+    companion object {
+        @JvmStatic
+        @Parameterized.Parameters(name = "rowCount={0}")
+        fun data() = arrayOf(10, 100, 1000)
+    }
+
+    @Database(entities = [User::class], version = 1, exportSchema = false)
+    abstract class TestDatabase : RoomDatabase() {
+        abstract fun getUserDao(): UserDao
+    }
+
+    @Entity
+    data class User(@PrimaryKey val id: Int, val name: String, val age: Int)
+
+    @Dao
+    interface UserDao {
+        @Insert(onConflict = OnConflictStrategy.REPLACE)
+        fun insertAll(users: List<User>)
+
+        @Insert(onConflict = OnConflictStrategy.REPLACE)
+        fun insertAllAndReturnIds(users: List<User>): List<Long>
+
+        @Query("SELECT COUNT(*) FROM User")
+        fun count(): Int
+    }
+}
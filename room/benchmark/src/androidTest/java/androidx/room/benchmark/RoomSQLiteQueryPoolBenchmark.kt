@@ -0,0 +1,107 @@
+/*
+ * Copyright 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.room.benchmark
+
+import android.annotation.SuppressLint
+import androidx.benchmark.junit4.BenchmarkRule
+import androidx.benchmark.junit4.measureRepeated
+import androidx.room.RoomSQLiteQuery
+import androidx.test.filters.LargeTest
+import org.junit.After
+import org.junit.Assert.assertTrue
+import org.junit.Before
+import org.junit.Rule
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.junit.runners.Parameterized
+import java.util.concurrent.TimeUnit
+
+/**
+ * Measures acquiring, binding and releasing a [RoomSQLiteQuery], as done by every generated DAO
+ * query, while other threads do the same.
+ */
+@LargeTest
+@RunWith(Parameterized::class)
+@SuppressLint("RestrictedApi")
+class RoomSQLiteQueryPoolBenchmark(
+    private val backgroundThreads: Int,
+    private val argumentCount: Int
+) {
+
+    @get:Rule
+    val benchmarkRule = BenchmarkRule()
+
+    @Volatile
+    private var running = true
+    private val threads = mutableListOf<Thread>()
+
+    @Before
+    fun startBackgroundThreads() {
+        repeat(backgroundThreads) { index ->
+            // Background threads use various argument counts, as different DAO queries would.
+            val threadArgumentCount = argumentCount + index % 3
+            threads += Thread {
+                while (running) {
+                    acquireBindRelease(threadArgumentCount)
+                }
+            }.apply { start() }
+        }
+    }
+
+    @After
+    fun stopBackgroundThreads() {
+        running = false
+        threads.forEach { it.join(TimeUnit.SECONDS.toMillis(10)) }
+    }
+
+    @Test
+    fun acquireAndRelease() {
+        val hits = RoomSQLiteQuery.getPoolHitCount()
+        val misses = RoomSQLiteQuery.getPoolMissCount()
+        benchmarkRule.measureRepeated {
+            acquireBindRelease(argumentCount)
+        }
+        // The pool should serve nearly every query once warm.
+        val newHits = RoomSQLiteQuery.getPoolHitCount() - hits
+        val newMisses = RoomSQLiteQuery.getPoolMissCount() - misses
+        assertTrue("hits: $newHits, misses: $newMisses", newHits > newMisses)
+    }
+
+    private fun acquireBindRelease(argumentCount: Int) {
+        val query = RoomSQLiteQuery.acquire(SQL, argumentCount)
+        for (index in 1..argumentCount) {
+            query.bindLong(index, index.toLong())
+        }
+        query.release()
+    }
+
+    companion object {
+        @JvmStatic
+        @Parameterized.Parameters(name = "backgroundThreads={0}, argumentCount={1}")
+        fun data(): List<Array<Any>> {
+            return mutableListOf<Array<Any>>().apply {
+                arrayOf(0, 1, 3, 7).forEach { backgroundThreads ->
+                    arrayOf(1, 10).forEach { argumentCount ->
+                        add(arrayOf(backgroundThreads, argumentCount))
+                    }
+                }
+            }
+        }
+
+        private const val SQL = "SELECT * FROM User WHERE id = ?"
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.room;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Pages a {@link Query} method returning a {@code DataSource.Factory} or a {@code PagingSource}
+ * by the value of a column instead of by its offset in the result.
+ * <p>
+ * By default, Room loads each page with {@code LIMIT ? OFFSET ?}, which makes SQLite step over
+ * every row before the page, so that pages deep into a large table load slowly. When the rows
+ * are ordered by a unique, indexed column, such as the primary key, Room can instead remember
+ * the key of the last row it loaded and seek past it with {@code WHERE key > ?}, which costs
+ * the same regardless of the page's position.
+ * <pre>
+ * {@literal @}Dao
+ * interface MessageDao {
+ *     {@literal @}PagingKey("id")
+ *     {@literal @}Query("SELECT * FROM Message WHERE conversationId = :conversationId")
+ *     {@literal DataSource.Factory<Integer, Message>} messages(long conversationId);
+ * }
+ * </pre>
+ * <p>
+ * The rows are returned ordered by the key column, so the query does not need an
+ * {@code ORDER BY} clause of its own. The column must be part of the query's result, must not
+ * contain {@code NULL} and must not contain the same value twice, otherwise rows may be skipped.
+ * <p>
+ * When placeholders are disabled, Room also skips counting the rows of the query, which
+ * otherwise requires a scan of the whole result before the first page is loaded.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.CLASS)
+public @interface PagingKey {
+    /**
+     * The name of the result column which orders the rows and identifies where a page ends.
+     *
+     * @return The name of the key column.
+     */
+    String value();
+
+    /**
+     * Whether rows are ordered by a descending key, for example to show the most recent
+     * messages first.
+     *
+     * @return Whether the key column is sorted in descending order.
+     */
+    boolean descending() default false;
+}
@@ -86,6 +86,8 @@ object RoomTypeNames {
         ClassName.get("$ROOM_PACKAGE.util", "FtsTableInfo")
     val VIEW_INFO: ClassName =
         ClassName.get("$ROOM_PACKAGE.util", "ViewInfo")
+    val CURSOR_ITERATOR: ClassName =
+        ClassName.get(ROOM_PACKAGE, "CursorIterator")
     val LIMIT_OFFSET_DATA_SOURCE: ClassName =
         ClassName.get("$ROOM_PACKAGE.paging", "LimitOffsetDataSource")
     val DB_UTIL: ClassName =
@@ -16,6 +16,7 @@
 
 package androidx.room.processor
 
+import androidx.room.PagingKey
 import androidx.room.RewriteQueriesToDropUnusedColumns
 import androidx.room.log.RLog
 import androidx.room.parser.expansion.ProjectionExpander
@@ -27,6 +28,7 @@ import androidx.room.compiler.processing.XType
 import androidx.room.processor.cache.Cache
 import androidx.room.solver.TypeAdapterStore
 import androidx.room.verifier.DatabaseVerifier
+import androidx.room.vo.PagingKeyColumn
 import androidx.room.vo.Warning
 import java.io.File
 import java.util.LinkedHashSet
@@ -37,7 +39,11 @@ class Context private constructor(
     private val typeConverters: CustomConverterProcessor.ProcessResult,
     private val inheritedAdapterStore: TypeAdapterStore?,
     val cache: Cache,
-    private val canRewriteQueriesToDropUnusedColumns: Boolean
+    private val canRewriteQueriesToDropUnusedColumns: Boolean,
+    /**
+     * The key column declared with [PagingKey] on the method being processed, if any.
+     */
+    val pagingKey: PagingKeyColumn?
 ) {
     val checker: Checks = Checks(logger)
     val COMMON_TYPES = CommonTypes(processingEnv)
@@ -91,7 +97,8 @@ class Context private constructor(
         typeConverters = CustomConverterProcessor.ProcessResult.EMPTY,
         inheritedAdapterStore = null,
         cache = Cache(null, LinkedHashSet(), emptySet()),
-        canRewriteQueriesToDropUnusedColumns = false
+        canRewriteQueriesToDropUnusedColumns = false,
+        pagingKey = null
     )
 
     class CommonTypes(val processingEnv: XProcessingEnv) {
@@ -127,7 +134,8 @@ class Context private constructor(
             typeConverters = this.typeConverters,
             inheritedAdapterStore = typeAdapterStore,
             cache = cache,
-            canRewriteQueriesToDropUnusedColumns = canRewriteQueriesToDropUnusedColumns
+            canRewriteQueriesToDropUnusedColumns = canRewriteQueriesToDropUnusedColumns,
+            pagingKey = pagingKey
         )
         subContext.databaseVerifier = databaseVerifier
         val result = handler(subContext)
@@ -149,13 +157,17 @@ class Context private constructor(
         val subCache = Cache(cache, subTypeConverters.classes, subSuppressedWarnings)
         val subCanRemoveUnusedColumns = canRewriteQueriesToDropUnusedColumns ||
             element.hasRemoveUnusedColumnsAnnotation()
+        val subPagingKey = element.getAnnotation(PagingKey::class)?.value?.let {
+            PagingKeyColumn(name = it.value, descending = it.descending)
+        } ?: pagingKey
         val subContext = Context(
             processingEnv = processingEnv,
             logger = RLog(logger.messager, subSuppressedWarnings, element),
             typeConverters = subTypeConverters,
             inheritedAdapterStore = if (canReUseAdapterStore) typeAdapterStore else null,
             cache = subCache,
-            canRewriteQueriesToDropUnusedColumns = subCanRemoveUnusedColumns
+            canRewriteQueriesToDropUnusedColumns = subCanRemoveUnusedColumns,
+            pagingKey = subPagingKey
         )
         subContext.databaseVerifier = databaseVerifier
         return subContext
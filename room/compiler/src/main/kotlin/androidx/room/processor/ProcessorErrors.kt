@@ -611,6 +611,22 @@ object ProcessorErrors {
     val PAGING_SPECIFY_PAGING_SOURCE_TYPE = "For now, Room only supports PagingSource with Key of" +
         " type Int."
 
+    val PAGING_KEY_REQUIRES_PAGED_RETURN_TYPE = "@PagingKey can only be used on query methods" +
+        " returning a DataSource.Factory, a PositionalDataSource or a PagingSource."
+
+    val CURSOR_ITERATOR_CANNOT_HAVE_RELATIONS = "A query method returning a CursorIterator" +
+        " converts its rows while they are iterated, so it cannot return a POJO with @Relation" +
+        " fields. Return a List instead."
+
+    val CURSOR_ITERATOR_CANNOT_BE_IN_TRANSACTION = "A query method returning a CursorIterator" +
+        " reads its rows after it returns, so it cannot be annotated with @Transaction. Iterate" +
+        " within RoomDatabase#runInTransaction instead."
+
+    fun pagingKeyNotInResult(key: String, columnNames: List<String>): String {
+        return "The @PagingKey column $key is not returned by the query. Available columns:" +
+            " ${columnNames.joinToString(", ")}."
+    }
+
     fun primaryKeyNull(field: String): String {
         return "You must annotate primary keys with @NonNull. \"$field\" is nullable. SQLite " +
             "considers this a " +
@@ -16,6 +16,7 @@
 
 package androidx.room.processor
 
+import androidx.room.PagingKey
 import androidx.room.Query
 import androidx.room.SkipQueryVerification
 import androidx.room.Transaction
@@ -25,7 +26,10 @@ import androidx.room.parser.SqlParser
 import androidx.room.compiler.processing.XMethodElement
 import androidx.room.compiler.processing.XType
 import androidx.room.ext.isNotError
+import androidx.room.solver.query.result.CursorIteratorQueryResultBinder
+import androidx.room.solver.query.result.PagingQueryResultBinder
 import androidx.room.solver.query.result.PojoRowAdapter
+import androidx.room.solver.query.result.PositionalDataSourceQueryResultBinder
 import androidx.room.verifier.DatabaseVerificationErrors
 import androidx.room.verifier.DatabaseVerifier
 import androidx.room.vo.QueryMethod
@@ -209,7 +213,32 @@ private class InternalQueryProcessor(
             ProcessorErrors.cannotFindQueryResultAdapter(returnType.typeName)
         )
 
+        val pagingKey = executableElement.getAnnotation(PagingKey::class)?.value
+        if (pagingKey != null) {
+            context.checker.check(
+                resultBinder is PagingQueryResultBinder ||
+                    resultBinder is PositionalDataSourceQueryResultBinder,
+                executableElement,
+                ProcessorErrors.PAGING_KEY_REQUIRES_PAGED_RETURN_TYPE
+            )
+            val columnNames = query.resultInfo?.columns?.map { it.name }
+            if (columnNames != null) {
+                context.checker.check(
+                    columnNames.contains(pagingKey.value),
+                    executableElement,
+                    ProcessorErrors.pagingKeyNotInResult(pagingKey.value, columnNames)
+                )
+            }
+        }
+
         val inTransaction = executableElement.hasAnnotation(Transaction::class)
+        if (inTransaction) {
+            context.checker.check(
+                resultBinder !is CursorIteratorQueryResultBinder,
+                executableElement,
+                ProcessorErrors.CURSOR_ITERATOR_CANNOT_BE_IN_TRANSACTION
+            )
+        }
         if (query.type == QueryType.SELECT && !inTransaction) {
             // put a warning if it is has relations and not annotated w/ transaction
             if (rowAdapter is PojoRowAdapter && rowAdapter.relationCollectors.isNotEmpty()) {
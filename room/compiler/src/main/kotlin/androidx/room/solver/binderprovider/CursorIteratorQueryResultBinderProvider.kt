@@ -0,0 +1,45 @@
+/*
+ * Copyright 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.room.solver.binderprovider
+
+import androidx.room.compiler.processing.XType
+import androidx.room.ext.RoomTypeNames
+import androidx.room.parser.ParsedQuery
+import androidx.room.processor.Context
+import androidx.room.processor.ProcessorErrors
+import androidx.room.solver.QueryResultBinderProvider
+import androidx.room.solver.query.result.CursorIteratorQueryResultBinder
+import androidx.room.solver.query.result.ListQueryResultAdapter
+import androidx.room.solver.query.result.QueryResultBinder
+
+class CursorIteratorQueryResultBinderProvider(val context: Context) : QueryResultBinderProvider {
+    override fun provide(declared: XType, query: ParsedQuery): QueryResultBinder {
+        val typeArg = declared.typeArguments.first()
+        val listAdapter = context.typeAdapterStore.findRowAdapter(typeArg, query)?.let {
+            ListQueryResultAdapter(typeArg, it)
+        }
+        if (listAdapter?.rowAdapter?.onCursorFinished() != null) {
+            // Relations are fetched for all the rows at once, after reading the whole cursor.
+            context.logger.e(ProcessorErrors.CURSOR_ITERATOR_CANNOT_HAVE_RELATIONS)
+        }
+        return CursorIteratorQueryResultBinder(listAdapter)
+    }
+
+    override fun matches(declared: XType): Boolean =
+        declared.typeArguments.size == 1 &&
+            declared.rawType.typeName == RoomTypeNames.CURSOR_ITERATOR
+}
@@ -49,7 +49,8 @@ class DataSourceFactoryQueryResultBinderProvider(val context: Context) : QueryRe
         val countedBinder = PositionalDataSourceQueryResultBinder(
             listAdapter = adapter,
             tableNames = tableNames,
-            forPaging3 = false
+            forPaging3 = false,
+            pagingKey = context.pagingKey
         )
         return DataSourceFactoryQueryResultBinder(countedBinder)
     }
@@ -51,7 +51,8 @@ class DataSourceQueryResultBinderProvider(val context: Context) : QueryResultBin
         return PositionalDataSourceQueryResultBinder(
             listAdapter = listAdapter,
             tableNames = tableNames,
-            forPaging3 = false
+            forPaging3 = false,
+            pagingKey = context.pagingKey
         )
     }
 
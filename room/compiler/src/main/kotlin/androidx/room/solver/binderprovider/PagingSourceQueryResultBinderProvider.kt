@@ -50,7 +50,8 @@ class PagingSourceQueryResultBinderProvider(val context: Context) : QueryResultB
             PositionalDataSourceQueryResultBinder(
                 listAdapter = listAdapter,
                 tableNames = tableNames,
-                forPaging3 = true
+                forPaging3 = true,
+                pagingKey = context.pagingKey
             )
         )
     }
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.room.solver.query.result
+
+import androidx.room.ext.AndroidTypeNames
+import androidx.room.ext.L
+import androidx.room.ext.N
+import androidx.room.ext.RoomTypeNames
+import androidx.room.ext.T
+import androidx.room.solver.CodeGenScope
+import androidx.room.writer.DaoWriter
+import com.squareup.javapoet.FieldSpec
+import com.squareup.javapoet.MethodSpec
+import com.squareup.javapoet.ParameterSpec
+import com.squareup.javapoet.ParameterizedTypeName
+import com.squareup.javapoet.TypeName
+import com.squareup.javapoet.TypeSpec
+import javax.lang.model.element.Modifier
+
+/**
+ * Runs the query and returns a CursorIterator which converts the rows of the cursor as they are
+ * iterated, rather than all of them before returning.
+ *
+ * The column indices are looked up once, before the iterator is created, and captured by its
+ * convert method. If that fails, the cursor is closed as the iterator never gets to own it.
+ */
+class CursorIteratorQueryResultBinder(
+    val listAdapter: ListQueryResultAdapter?
+) : QueryResultBinder(listAdapter) {
+    val itemTypeName: TypeName = listAdapter?.rowAdapter?.out?.typeName ?: TypeName.OBJECT
+    val typeName: ParameterizedTypeName = ParameterizedTypeName.get(
+        RoomTypeNames.CURSOR_ITERATOR, itemTypeName
+    )
+
+    override fun convertAndReturn(
+        roomSQLiteQueryVar: String,
+        canReleaseQuery: Boolean,
+        dbField: FieldSpec,
+        inTransaction: Boolean,
+        scope: CodeGenScope
+    ) {
+        val rowAdapter = listAdapter?.rowAdapter
+        scope.builder().apply {
+            addStatement("$N.assertNotSuspendingTransaction()", DaoWriter.dbField)
+            val cursorVar = scope.getTmpVar("_cursor")
+            addStatement(
+                "final $T $L = $T.query($N, $L, false, null)",
+                AndroidTypeNames.CURSOR,
+                cursorVar,
+                RoomTypeNames.DB_UTIL,
+                dbField,
+                roomSQLiteQueryVar
+            )
+            beginControlFlow("try").apply {
+                rowAdapter?.onCursorReady(cursorVar, scope)
+                val spec = TypeSpec.anonymousClassBuilder(
+                    "$L, $L",
+                    cursorVar,
+                    if (canReleaseQuery) roomSQLiteQueryVar else "null"
+                ).apply {
+                    superclass(typeName)
+                    addMethod(createConvertMethod(scope))
+                }.build()
+                addStatement("return $L", spec)
+            }
+            val exceptionVar = scope.getTmpVar("_e")
+            nextControlFlow("catch ($T $L)", RuntimeException::class.java, exceptionVar).apply {
+                addStatement("$L.close()", cursorVar)
+                if (canReleaseQuery) {
+                    addStatement("$L.release()", roomSQLiteQueryVar)
+                }
+                addStatement("throw $L", exceptionVar)
+            }
+            endControlFlow()
+        }
+    }
+
+    private fun createConvertMethod(scope: CodeGenScope): MethodSpec =
+        MethodSpec.methodBuilder("convert").apply {
+            addAnnotation(Override::class.java)
+            addModifiers(Modifier.PROTECTED)
+            returns(itemTypeName)
+            val cursorParam = ParameterSpec.builder(AndroidTypeNames.CURSOR, "cursor")
+                .build()
+            addParameter(cursorParam)
+            val rowScope = scope.fork()
+            val itemVar = rowScope.getTmpVar("_item")
+            rowScope.builder().addStatement("final $T $L", itemTypeName, itemVar)
+            listAdapter?.rowAdapter?.convert(itemVar, cursorParam.name, rowScope)
+            addCode(rowScope.builder().build())
+            addStatement("return $L", itemVar)
+        }.build()
+}
@@ -21,7 +21,9 @@ import androidx.room.ext.CommonTypeNames
 import androidx.room.ext.L
 import androidx.room.ext.N
 import androidx.room.ext.RoomTypeNames
+import androidx.room.ext.S
 import androidx.room.solver.CodeGenScope
+import androidx.room.vo.PagingKeyColumn
 import com.squareup.javapoet.FieldSpec
 import com.squareup.javapoet.MethodSpec
 import com.squareup.javapoet.ParameterSpec
@@ -43,11 +45,15 @@ import javax.lang.model.element.Modifier
  * As a result, we change behavior based on whether we create the data source for paging 3 or 2.
  * In practice, [forPaging3] parameter controls whether LimitOffsetDataSource registers its observer
  * immediately (paging2) or not (paging3).
+ *
+ * When [pagingKey] is set, the data source seeks pages by that column instead of counting them off
+ * with OFFSET.
  */
 class PositionalDataSourceQueryResultBinder(
     val listAdapter: ListQueryResultAdapter?,
     val tableNames: Set<String>,
     val forPaging3: Boolean,
+    val pagingKey: PagingKeyColumn? = null,
 ) : QueryResultBinder(listAdapter) {
     val itemTypeName: TypeName = listAdapter?.rowAdapter?.out?.typeName ?: TypeName.OBJECT
     val typeName: ParameterizedTypeName = ParameterizedTypeName.get(
@@ -64,10 +70,18 @@ class PositionalDataSourceQueryResultBinder(
         // we don't need a comma. If list is empty, this prevents generating bad code (it is still
         // an error to have empty list but that is already reported while item is processed)
         val tableNamesList = tableNames.joinToString("") { ", \"$it\"" }
-        val spec = TypeSpec.anonymousClassBuilder(
-            "$N, $L, $L, $L $L",
-            dbField, roomSQLiteQueryVar, inTransaction, !forPaging3, tableNamesList
-        ).apply {
+        val spec = if (pagingKey == null) {
+            TypeSpec.anonymousClassBuilder(
+                "$N, $L, $L, $L $L",
+                dbField, roomSQLiteQueryVar, inTransaction, !forPaging3, tableNamesList
+            )
+        } else {
+            TypeSpec.anonymousClassBuilder(
+                "$N, $L, $L, $L, $S, $L $L",
+                dbField, roomSQLiteQueryVar, inTransaction, !forPaging3, pagingKey.name,
+                pagingKey.descending, tableNamesList
+            )
+        }.apply {
             superclass(typeName)
             addMethod(createConvertRowsMethod(scope))
         }.build()
@@ -40,6 +40,9 @@ import com.squareup.javapoet.TypeSpec
  */
 class InsertMethodAdapter private constructor(private val insertionType: InsertionType) {
     companion object {
+        // matches EntityInsertionAdapter#insertBatch
+        private const val INSERT_BATCH_METHOD_NAME = "insertBatch"
+
         fun create(
             returnType: XType,
             params: List<ShortcutQueryParameter>
@@ -149,10 +152,14 @@ class InsertMethodAdapter private constructor(private val insertionType: Inserti
                             param.name
                         )
                     } else {
-                        addStatement(
-                            "$N.$L($L)", insertionAdapter, insertionType.methodName,
-                            param.name
-                        )
+                        // Collections are inserted with multi-row statements, unless row ids
+                        // are needed as only the one of the last row is returned.
+                        val methodName = if (param.isMultiple) {
+                            INSERT_BATCH_METHOD_NAME
+                        } else {
+                            insertionType.methodName
+                        }
+                        addStatement("$N.$L($L)", insertionAdapter, methodName, param.name)
                     }
                 }
                 addStatement("$N.setTransactionSuccessful()", dbField)
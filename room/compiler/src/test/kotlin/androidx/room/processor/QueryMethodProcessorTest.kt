@@ -28,10 +28,12 @@ import androidx.room.ext.CommonTypeNames
 import androidx.room.ext.KotlinTypeNames
 import androidx.room.ext.LifecyclesTypeNames
 import androidx.room.ext.PagingTypeNames
+import androidx.room.ext.RoomTypeNames
 import androidx.room.ext.typeName
 import androidx.room.parser.QueryType
 import androidx.room.parser.Table
 import androidx.room.processor.ProcessorErrors.cannotFindQueryResultAdapter
+import androidx.room.solver.query.result.CursorIteratorQueryResultBinder
 import androidx.room.solver.query.result.DataSourceFactoryQueryResultBinder
 import androidx.room.solver.query.result.ListQueryResultAdapter
 import androidx.room.solver.query.result.LiveDataQueryResultBinder
@@ -39,6 +41,7 @@ import androidx.room.solver.query.result.PojoRowAdapter
 import androidx.room.solver.query.result.SingleEntityQueryResultAdapter
 import androidx.room.testing.context
 import androidx.room.vo.Field
+import androidx.room.vo.PagingKeyColumn
 import androidx.room.vo.QueryMethod
 import androidx.room.vo.ReadQueryMethod
 import androidx.room.vo.Warning
@@ -676,6 +679,117 @@ class QueryMethodProcessorTest(private val enableVerification: Boolean) {
         }
     }
 
+    @Test
+    fun testDataSourceFactoryQueryWithPagingKey() {
+        singleQueryMethod<ReadQueryMethod>(
+            """
+                @PagingKey(value = "uid", descending = true)
+                @Query("select * from user")
+                abstract ${PagingTypeNames.DATA_SOURCE_FACTORY}<Integer, User>
+                userDataSourceFactory();
+                """
+        ) { parsedQuery, _ ->
+            assertThat(
+                parsedQuery.queryResultBinder,
+                instanceOf(DataSourceFactoryQueryResultBinder::class.java)
+            )
+            val pagingKey =
+                (parsedQuery.queryResultBinder as DataSourceFactoryQueryResultBinder)
+                    .positionalDataSourceQueryResultBinder.pagingKey
+            assertEquals(PagingKeyColumn(name = "uid", descending = true), pagingKey)
+        }
+    }
+
+    @Test
+    fun testPagingKeyWithoutPagedReturnType() {
+        singleQueryMethod<ReadQueryMethod>(
+            """
+                @PagingKey("uid")
+                @Query("select * from user")
+                abstract java.util.List<User> users();
+                """
+        ) { _, invocation ->
+            invocation.assertCompilationResult {
+                hasErrorContaining(ProcessorErrors.PAGING_KEY_REQUIRES_PAGED_RETURN_TYPE)
+            }
+        }
+    }
+
+    @Test
+    fun testPagingKeyNotInResult() {
+        singleQueryMethod<ReadQueryMethod>(
+            """
+                @PagingKey("uid")
+                @Query("select name from user")
+                abstract ${PagingTypeNames.DATA_SOURCE_FACTORY}<Integer, String>
+                nameDataSourceFactory();
+                """
+        ) { _, invocation ->
+            // the result columns are only known when queries are verified
+            if (enableVerification) {
+                invocation.assertCompilationResult {
+                    hasErrorContaining(
+                        ProcessorErrors.pagingKeyNotInResult("uid", listOf("name"))
+                    )
+                }
+            }
+        }
+    }
+
+    @Test
+    fun testCursorIteratorQuery() {
+        singleQueryMethod<ReadQueryMethod>(
+            """
+                @Query("select * from user")
+                abstract ${RoomTypeNames.CURSOR_ITERATOR}<User> iterateUsers();
+                """
+        ) { parsedQuery, invocation ->
+            assertThat(
+                parsedQuery.queryResultBinder,
+                instanceOf(CursorIteratorQueryResultBinder::class.java)
+            )
+            val binder = parsedQuery.queryResultBinder as CursorIteratorQueryResultBinder
+            assertThat(binder.itemTypeName, `is`(COMMON.USER_TYPE_NAME as TypeName))
+            invocation.assertCompilationResult {
+                hasNoWarnings()
+            }
+        }
+    }
+
+    @Test
+    fun testCursorIteratorInTransaction() {
+        singleQueryMethod<ReadQueryMethod>(
+            """
+                @Transaction
+                @Query("select * from user")
+                abstract ${RoomTypeNames.CURSOR_ITERATOR}<User> iterateUsers();
+                """
+        ) { _, invocation ->
+            invocation.assertCompilationResult {
+                hasErrorContaining(ProcessorErrors.CURSOR_ITERATOR_CANNOT_BE_IN_TRANSACTION)
+            }
+        }
+    }
+
+    @Test
+    fun testCursorIteratorWithRelation() {
+        singleQueryMethod<ReadQueryMethod>(
+            """
+                static class Merged extends User {
+                   @Relation(parentColumn = "name", entityColumn = "lastName",
+                             entity = User.class)
+                   java.util.List<User> users;
+                }
+                @Query("select * from user")
+                abstract ${RoomTypeNames.CURSOR_ITERATOR}<Merged> iterateUsers();
+                """
+        ) { _, invocation ->
+            invocation.assertCompilationResult {
+                hasErrorContaining(ProcessorErrors.CURSOR_ITERATOR_CANNOT_HAVE_RELATIONS)
+            }
+        }
+    }
+
     @Test
     fun testBadChannelReturnForQuery() {
         singleQueryMethod<QueryMethod>(
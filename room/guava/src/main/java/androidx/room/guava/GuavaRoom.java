@@ -24,6 +24,7 @@ import androidx.annotation.Nullable;
 import androidx.annotation.RestrictTo;
 import androidx.arch.core.executor.ArchTaskExecutor;
 import androidx.concurrent.futures.ResolvableFuture;
+import androidx.room.GroupCommit;
 import androidx.room.RoomDatabase;
 import androidx.room.RoomSQLiteQuery;
 
@@ -56,7 +57,7 @@ public class GuavaRoom {
             final Callable<T> callable,
             final RoomSQLiteQuery query,
             final boolean releaseQuery) {
-        return createListenableFuture(
+        return createListenableFuture(null,
                 ArchTaskExecutor.getIOThreadExecutor(), callable, query, releaseQuery, null);
     }
 
@@ -73,7 +74,7 @@ public class GuavaRoom {
             final Callable<T> callable,
             final RoomSQLiteQuery query,
             final boolean releaseQuery) {
-        return createListenableFuture(
+        return createListenableFuture(roomDatabase,
                 roomDatabase.getQueryExecutor(), callable, query, releaseQuery, null);
     }
 
@@ -88,7 +89,7 @@ public class GuavaRoom {
             final Callable<T> callable,
             final RoomSQLiteQuery query,
             final boolean releaseQuery) {
-        return createListenableFuture(
+        return createListenableFuture(roomDatabase,
                 getExecutor(roomDatabase, inTransaction), callable, query, releaseQuery, null);
     }
 
@@ -104,19 +105,20 @@ public class GuavaRoom {
             final @NonNull RoomSQLiteQuery query,
             final boolean releaseQuery,
             final @Nullable CancellationSignal cancellationSignal) {
-        return createListenableFuture(
+        return createListenableFuture(roomDatabase,
                 getExecutor(roomDatabase, inTransaction), callable, query, releaseQuery,
                 cancellationSignal);
     }
 
     private static <T> ListenableFuture<T> createListenableFuture(
+            final @Nullable RoomDatabase roomDatabase,
             final Executor executor,
             final Callable<T> callable,
             final RoomSQLiteQuery query,
             final boolean releaseQuery,
             final @Nullable CancellationSignal cancellationSignal) {
 
-        final ListenableFuture<T> future = createListenableFuture(executor, callable);
+        final ListenableFuture<T> future = createListenableFuture(roomDatabase, executor, callable);
         if (cancellationSignal != null && Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
             future.addListener(new Runnable() {
                 @Override
@@ -163,15 +165,20 @@ public class GuavaRoom {
             final @NonNull RoomDatabase roomDatabase,
             final boolean inTransaction,
             final @NonNull Callable<T> callable) {
-        return createListenableFuture(getExecutor(roomDatabase, inTransaction), callable);
+        return createListenableFuture(roomDatabase, getExecutor(roomDatabase, inTransaction),
+                callable);
     }
 
     /**
      * Returns a {@link ListenableFuture<T>} created by submitting the input {@code callable} to
      * an {@link java.util.concurrent.Executor}.
+     * <p>
+     * If the callable writes in a group commit of the given database, the future completes once
+     * the group commit ends.
      */
     @NonNull
     private static <T> ListenableFuture<T> createListenableFuture(
+            final @Nullable RoomDatabase roomDatabase,
             final @NonNull Executor executor,
             final @NonNull Callable<T> callable) {
 
@@ -179,12 +186,29 @@ public class GuavaRoom {
         executor.execute(new Runnable() {
             @Override
             public void run() {
+                final T result;
                 try {
-                    T result = callable.call();
-                    future.set(result);
+                    result = callable.call();
                 } catch (Throwable throwable) {
                     future.setException(throwable);
+                    return;
+                }
+                GroupCommit groupCommit =
+                        roomDatabase == null ? null : roomDatabase.getCurrentGroupCommit();
+                if (groupCommit == null) {
+                    future.set(result);
+                    return;
                 }
+                groupCommit.addCallback(new GroupCommit.Callback() {
+                    @Override
+                    public void onGroupCommitEnded(@Nullable Throwable error) {
+                        if (error == null) {
+                            future.set(result);
+                        } else {
+                            future.setException(error);
+                        }
+                    }
+                });
             }
         });
 
@@ -20,10 +20,12 @@ import android.database.Cursor;
 
 import androidx.lifecycle.LiveData;
 import androidx.paging.DataSource;
+import androidx.room.CursorIterator;
 import androidx.room.Dao;
 import androidx.room.Delete;
 import androidx.room.Insert;
 import androidx.room.OnConflictStrategy;
+import androidx.room.PagingKey;
 import androidx.room.Query;
 import androidx.room.RawQuery;
 import androidx.room.Transaction;
@@ -90,6 +92,12 @@ public abstract class UserDao {
     @Query("select * from user")
     public abstract List<UserAndFriends> loadUserAndFriends();
 
+    @Query("select * from user order by mId")
+    public abstract CursorIterator<User> iterateAll();
+
+    @Query("select mName from user order by mId")
+    public abstract CursorIterator<String> iterateNames();
+
     @Insert
     public abstract void insert(User user);
 
@@ -279,6 +287,14 @@ public abstract class UserDao {
     @Query("SELECT * FROM user ORDER BY mAge DESC")
     public abstract DataSource.Factory<Integer, User> loadUsersByAgeDesc();
 
+    @PagingKey("mId")
+    @Query("SELECT * FROM user")
+    public abstract DataSource.Factory<Integer, User> loadUsersByIdKeyset();
+
+    @PagingKey(value = "mId", descending = true)
+    @Query("SELECT * FROM user")
+    public abstract DataSource.Factory<Integer, User> loadUsersByIdDescKeyset();
+
     @Query("DELETE FROM User WHERE mId IN (:ids) AND mAge == :age")
     public abstract int deleteByAgeAndIds(int age, List<Integer> ids);
 
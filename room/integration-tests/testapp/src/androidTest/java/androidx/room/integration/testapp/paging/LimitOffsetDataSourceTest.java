@@ -19,9 +19,11 @@ package androidx.room.integration.testapp.paging;
 import static junit.framework.Assert.assertFalse;
 
 import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
 import static org.hamcrest.MatcherAssert.assertThat;
 
 import androidx.annotation.NonNull;
+import androidx.paging.PositionalDataSource;
 import androidx.room.integration.testapp.test.TestDatabaseTest;
 import androidx.room.integration.testapp.test.TestUtil;
 import androidx.room.integration.testapp.vo.User;
@@ -34,6 +36,7 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 @MediumTest
@@ -101,6 +104,101 @@ public class LimitOffsetDataSourceTest extends TestDatabaseTest {
         assertThat(result, is(users.subList(4, 6)));
     }
 
+    @Test
+    public void keysetSequentialPages() {
+        List<User> users = createUsers(10);
+        LimitOffsetDataSource<User> dataSource = loadUsersByIdKeyset();
+        List<User> all = new ArrayList<>();
+        for (int position = 0; position < 12; position += 3) {
+            all.addAll(dataSource.loadRange(position, 3));
+        }
+        assertThat(all, is(users));
+    }
+
+    @Test
+    public void keysetJumpAhead() {
+        List<User> users = createUsers(10);
+        LimitOffsetDataSource<User> dataSource = loadUsersByIdKeyset();
+        assertThat(dataSource.loadRange(4, 2), is(users.subList(4, 6)));
+        // seeks past the last row of the previous page, then skips one row
+        assertThat(dataSource.loadRange(7, 2), is(users.subList(7, 9)));
+        // before any remembered key, falls back to an offset
+        assertThat(dataSource.loadRange(1, 2), is(users.subList(1, 3)));
+    }
+
+    @Test
+    public void keysetDescending() {
+        List<User> users = createUsers(5);
+        Collections.reverse(users);
+        LimitOffsetDataSource<User> dataSource =
+                (LimitOffsetDataSource<User>) mUserDao.loadUsersByIdDescKeyset().create();
+        List<User> all = new ArrayList<>(dataSource.loadRange(0, 2));
+        all.addAll(dataSource.loadRange(2, 2));
+        all.addAll(dataSource.loadRange(4, 2));
+        assertThat(all, is(users));
+    }
+
+    @SuppressWarnings("deprecation")
+    @Test
+    public void keysetInitialLoadWithoutPlaceholdersSkipsCount() {
+        List<User> users = createUsers(10);
+        LimitOffsetDataSource<User> dataSource = loadUsersByIdKeyset();
+        InitialResult result = new InitialResult();
+        dataSource.loadInitial(
+                new PositionalDataSource.LoadInitialParams(4, 4, 2, false), result);
+        assertThat(result.mData, is(users.subList(4, 8)));
+        assertThat(result.mPosition, is(4));
+        assertThat(result.mTotalCount, nullValue());
+    }
+
+    @SuppressWarnings("deprecation")
+    @Test
+    public void keysetInitialLoadPastTheEnd() {
+        List<User> users = createUsers(3);
+        LimitOffsetDataSource<User> dataSource = loadUsersByIdKeyset();
+        InitialResult result = new InitialResult();
+        dataSource.loadInitial(
+                new PositionalDataSource.LoadInitialParams(20, 4, 2, false), result);
+        assertThat(result.mData, is(users));
+        assertThat(result.mPosition, is(0));
+    }
+
+    @SuppressWarnings("deprecation")
+    @Test
+    public void keysetInitialLoadWithPlaceholdersCounts() {
+        createUsers(10);
+        LimitOffsetDataSource<User> dataSource = loadUsersByIdKeyset();
+        InitialResult result = new InitialResult();
+        dataSource.loadInitial(
+                new PositionalDataSource.LoadInitialParams(0, 4, 2, true), result);
+        assertThat(result.mData.size(), is(4));
+        assertThat(result.mTotalCount, is(10));
+    }
+
+    private LimitOffsetDataSource<User> loadUsersByIdKeyset() {
+        return (LimitOffsetDataSource<User>) mUserDao.loadUsersByIdKeyset().create();
+    }
+
+    @SuppressWarnings("deprecation")
+    private static class InitialResult extends PositionalDataSource.LoadInitialCallback<User> {
+        List<User> mData;
+        int mPosition;
+        Integer mTotalCount;
+
+        @Override
+        public void onResult(@NonNull List<? extends User> data, int position, int totalCount) {
+            mData = new ArrayList<>(data);
+            mPosition = position;
+            mTotalCount = totalCount;
+        }
+
+        @Override
+        public void onResult(@NonNull List<? extends User> data, int position) {
+            mData = new ArrayList<>(data);
+            mPosition = position;
+        }
+    }
+
     @NonNull
     private List<User> createUsers(int count) {
         List<User> users = new ArrayList<>();
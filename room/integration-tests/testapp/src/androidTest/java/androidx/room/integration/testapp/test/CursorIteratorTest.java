@@ -0,0 +1,143 @@
+/*
+ * Copyright 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.room.integration.testapp.test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.fail;
+
+import android.content.Context;
+
+import androidx.room.CursorIterator;
+import androidx.room.Room;
+import androidx.room.integration.testapp.TestDatabase;
+import androidx.room.integration.testapp.dao.UserDao;
+import androidx.room.integration.testapp.vo.User;
+import androidx.test.core.app.ApplicationProvider;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.MediumTest;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+@MediumTest
+@RunWith(AndroidJUnit4.class)
+public class CursorIteratorTest {
+    private TestDatabase mDb;
+    private UserDao mUserDao;
+
+    @Before
+    public void createDb() {
+        Context context = ApplicationProvider.getApplicationContext();
+        mDb = Room.inMemoryDatabaseBuilder(context, TestDatabase.class).build();
+        mUserDao = mDb.getUserDao();
+    }
+
+    @After
+    public void closeDb() {
+        mDb.close();
+    }
+
+    @Test
+    public void iteratesRowsInOrder() {
+        User[] users = TestUtil.createUsersArray(3, 1, 2);
+        mUserDao.insertAll(users);
+        List<User> result = new ArrayList<>();
+        try (CursorIterator<User> iterator = mUserDao.iterateAll()) {
+            while (iterator.hasNext()) {
+                result.add(iterator.next());
+            }
+        }
+        assertThat(result, is(Arrays.asList(users[1], users[2], users[0])));
+    }
+
+    @Test
+    public void exhaustedIteratorThrows() {
+        mUserDao.insert(TestUtil.createUser(1));
+        CursorIterator<String> iterator = mUserDao.iterateNames();
+        assertThat(iterator.next(), is(TestUtil.createUser(1).getName()));
+        assertThat(iterator.hasNext(), is(false));
+        try {
+            iterator.next();
+            fail("next() should throw once the rows are exhausted");
+        } catch (NoSuchElementException expected) {
+        }
+        // Closing again is harmless.
+        iterator.close();
+    }
+
+    @Test
+    public void closedIteratorHasNoNext() {
+        mUserDao.insertAll(TestUtil.createUsersArray(1, 2));
+        CursorIterator<User> iterator = mUserDao.iterateAll();
+        assertThat(iterator.next().getId(), is(1));
+        iterator.close();
+        assertThat(iterator.hasNext(), is(false));
+    }
+
+    @Test
+    public void forEach() {
+        mUserDao.insertAll(TestUtil.createUsersArray(1, 2, 3));
+        final List<Integer> ids = new ArrayList<>();
+        CursorIterator<User> iterator = mUserDao.iterateAll();
+        iterator.forEach(user -> ids.add(user.getId()));
+        assertThat(ids, is(Arrays.asList(1, 2, 3)));
+        assertThat(iterator.hasNext(), is(false));
+    }
+
+    @Test
+    public void forEachClosesWhenCallbackThrows() {
+        mUserDao.insertAll(TestUtil.createUsersArray(1, 2, 3));
+        CursorIterator<User> iterator = mUserDao.iterateAll();
+        try {
+            iterator.forEach(user -> {
+                throw new IllegalStateException("stop");
+            });
+            fail("forEach should rethrow the exception of the callback");
+        } catch (IllegalStateException expected) {
+        }
+        assertThat(iterator.hasNext(), is(false));
+    }
+
+    @Test
+    public void scanSpanningManyCursorWindows() {
+        // ~4MB of names, more than the 2MB of a cursor window.
+        char[] padding = new char[1000];
+        Arrays.fill(padding, 'x');
+        final int count = 4000;
+        mDb.runInTransaction(() -> {
+            for (int i = 0; i < count; i++) {
+                User user = TestUtil.createUser(i);
+                user.setName(i + new String(padding));
+                mUserDao.insert(user);
+            }
+        });
+        final int[] next = new int[1];
+        mUserDao.iterateNames().forEach(name -> {
+            assertThat(name, is(next[0] + new String(padding)));
+            next[0]++;
+        });
+        assertThat(next[0], is(count));
+    }
+}
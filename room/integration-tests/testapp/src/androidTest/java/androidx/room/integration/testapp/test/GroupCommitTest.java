@@ -0,0 +1,107 @@
+/*
+ * Copyright 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.room.integration.testapp.test;
+
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.fail;
+
+import android.content.Context;
+import android.database.sqlite.SQLiteConstraintException;
+
+import androidx.room.Room;
+import androidx.room.integration.testapp.TestDatabase;
+import androidx.room.integration.testapp.dao.UserDao;
+import androidx.test.core.app.ApplicationProvider;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.MediumTest;
+
+import com.google.common.util.concurrent.ListenableFuture;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tests the writes made through the transaction executor of a database with group commit.
+ */
+@MediumTest
+@RunWith(AndroidJUnit4.class)
+public class GroupCommitTest {
+    private TestDatabase mDb;
+    private UserDao mUserDao;
+
+    @Before
+    public void createDb() {
+        Context context = ApplicationProvider.getApplicationContext();
+        mDb = Room.inMemoryDatabaseBuilder(context, TestDatabase.class)
+                .enableGroupCommit(2, TimeUnit.MILLISECONDS)
+                .build();
+        mUserDao = mDb.getUserDao();
+    }
+
+    @After
+    public void closeDb() {
+        mDb.close();
+    }
+
+    @Test
+    public void writesAreCommitted() throws Exception {
+        List<ListenableFuture<Long>> futures = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            futures.add(mUserDao.insertWithLongFuture(TestUtil.createUser(i)));
+        }
+        for (int i = 0; i < futures.size(); i++) {
+            // The rowid of a user is its id.
+            assertThat(futures.get(i).get(5, TimeUnit.SECONDS), is((long) i));
+        }
+        assertThat(mUserDao.count(), is(200));
+    }
+
+    @Test
+    public void failedWriteDoesNotAffectOthers() throws Exception {
+        mUserDao.insert(TestUtil.createUser(1));
+        ListenableFuture<Long> second = mUserDao.insertWithLongFuture(TestUtil.createUser(2));
+        ListenableFuture<Long> duplicate = mUserDao.insertWithLongFuture(TestUtil.createUser(1));
+        ListenableFuture<Long> third = mUserDao.insertWithLongFuture(TestUtil.createUser(3));
+
+        assertThat(second.get(5, TimeUnit.SECONDS), is(2L));
+        assertThat(third.get(5, TimeUnit.SECONDS), is(3L));
+        try {
+            duplicate.get(5, TimeUnit.SECONDS);
+            fail("inserting a duplicate user should fail");
+        } catch (ExecutionException e) {
+            assertThat(e.getCause(), instanceOf(SQLiteConstraintException.class));
+        }
+        assertThat(mUserDao.loadIds(), is(Arrays.asList(1, 2, 3)));
+    }
+
+    @Test
+    public void completedWriteIsVisibleToOtherThreads() throws Exception {
+        mUserDao.insertWithVoidFuture(TestUtil.createUser(1)).get(5, TimeUnit.SECONDS);
+        // Reads on this thread do not use the connection of the group commit.
+        assertThat(mUserDao.loadIds(), is(Arrays.asList(1)));
+    }
+}
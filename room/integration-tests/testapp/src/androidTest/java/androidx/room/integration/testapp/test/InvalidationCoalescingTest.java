@@ -0,0 +1,194 @@
+/*
+ * Copyright 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.room.integration.testapp.test;
+
+import static org.hamcrest.CoreMatchers.hasItems;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.lessThan;
+
+import android.content.Context;
+import android.os.SystemClock;
+
+import androidx.annotation.NonNull;
+import androidx.room.InvalidationTracker;
+import androidx.room.Room;
+import androidx.room.integration.testapp.TestDatabase;
+import androidx.room.integration.testapp.dao.PetDao;
+import androidx.room.integration.testapp.dao.UserDao;
+import androidx.test.core.app.ApplicationProvider;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.MediumTest;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tests the coalescing window and the rate limited observers of the invalidation tracker.
+ */
+@MediumTest
+@RunWith(AndroidJUnit4.class)
+public class InvalidationCoalescingTest {
+    private static final int BURST_SIZE = 10;
+
+    private TestDatabase mDb;
+    private UserDao mUserDao;
+    private PetDao mPetDao;
+
+    @Before
+    public void createDb() {
+        Context context = ApplicationProvider.getApplicationContext();
+        mDb = Room.inMemoryDatabaseBuilder(context, TestDatabase.class)
+                .setInvalidationCoalescingWindow(1, TimeUnit.SECONDS)
+                .build();
+        mUserDao = mDb.getUserDao();
+        mPetDao = mDb.getPetDao();
+    }
+
+    @After
+    public void closeDb() {
+        mDb.close();
+    }
+
+    @Test
+    public void burstIsCoalesced() throws InterruptedException {
+        InvalidationTracker tracker = mDb.getInvalidationTracker();
+        RecordingObserver observer = new RecordingObserver("User", "Pet");
+        tracker.addObserver(observer);
+        for (int i = 0; i < BURST_SIZE; i++) {
+            mUserDao.insert(TestUtil.createUser(i));
+        }
+        mPetDao.insertOrReplace(TestUtil.createPet(1));
+
+        observer.await(1);
+        // Leave time for any refresh which was not coalesced.
+        Thread.sleep(1500);
+        assertThat(observer.getInvocationCount(), lessThan(BURST_SIZE + 1));
+        assertThat(tracker.getCoalescedRefreshCount(), greaterThan(0L));
+        assertThat(tracker.getCoalescedRefreshCount() + tracker.getRefreshCount(),
+                is((long) BURST_SIZE + 1));
+        // Every table changed in the burst is reported, whichever refresh noticed it.
+        assertThat(observer.getAllTables(), hasItems("User", "Pet"));
+    }
+
+    @Test
+    public void rateLimitedObserverGetsMergedTables() throws InterruptedException {
+        mDb.close();
+        mDb = Room.inMemoryDatabaseBuilder(ApplicationProvider.getApplicationContext(),
+                TestDatabase.class).build();
+        mUserDao = mDb.getUserDao();
+        mPetDao = mDb.getPetDao();
+        InvalidationTracker tracker = mDb.getInvalidationTracker();
+        RecordingObserver observer = new RecordingObserver("User", "Pet");
+        tracker.addObserver(observer, 500, TimeUnit.MILLISECONDS);
+
+        mUserDao.insert(TestUtil.createUser(1));
+        observer.await(1);
+        long firstNotification = SystemClock.uptimeMillis();
+        assertThat(observer.getInvocation(0), hasItems("User"));
+
+        mPetDao.insertOrReplace(TestUtil.createPet(1));
+        mUserDao.insert(TestUtil.createUser(2));
+        observer.await(1);
+        assertThat(SystemClock.uptimeMillis() - firstNotification,
+                greaterThanOrEqualTo(400L));
+        assertThat(observer.getInvocation(1), hasItems("User", "Pet"));
+        assertThat(tracker.getRateLimitedNotificationCount(), greaterThan(0L));
+    }
+
+    @Test
+    public void removedRateLimitedObserverIsNotNotified() throws InterruptedException {
+        InvalidationTracker tracker = mDb.getInvalidationTracker();
+        RecordingObserver observer = new RecordingObserver("User");
+        tracker.addObserver(observer, 1, TimeUnit.SECONDS);
+
+        mUserDao.insert(TestUtil.createUser(1));
+        observer.await(1);
+        mUserDao.insert(TestUtil.createUser(2));
+        // Wait for the second invalidation to be held back by the rate limit.
+        long deadline = SystemClock.uptimeMillis() + 5000;
+        while (tracker.getRateLimitedNotificationCount() == 0
+                && SystemClock.uptimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+        assertThat(tracker.getRateLimitedNotificationCount(), is(1L));
+        tracker.removeObserver(observer);
+
+        Thread.sleep(1500);
+        assertThat(observer.getInvocationCount(), is(1));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void negativeWindow() {
+        Room.inMemoryDatabaseBuilder(ApplicationProvider.getApplicationContext(),
+                TestDatabase.class)
+                .setInvalidationCoalescingWindow(-1, TimeUnit.MILLISECONDS);
+    }
+
+    private static class RecordingObserver extends InvalidationTracker.Observer {
+        private final List<Set<String>> mInvocations = new ArrayList<>();
+        private final Semaphore mSemaphore = new Semaphore(0);
+
+        RecordingObserver(String... tables) {
+            super(tables);
+        }
+
+        @Override
+        public void onInvalidated(@NonNull Set<String> tables) {
+            synchronized (mInvocations) {
+                mInvocations.add(tables);
+            }
+            mSemaphore.release();
+        }
+
+        void await(int invocations) throws InterruptedException {
+            assertThat(mSemaphore.tryAcquire(invocations, 5, TimeUnit.SECONDS), is(true));
+        }
+
+        int getInvocationCount() {
+            synchronized (mInvocations) {
+                return mInvocations.size();
+            }
+        }
+
+        Set<String> getInvocation(int index) {
+            synchronized (mInvocations) {
+                return mInvocations.get(index);
+            }
+        }
+
+        List<String> getAllTables() {
+            List<String> tables = new ArrayList<>();
+            synchronized (mInvocations) {
+                for (Set<String> invocation : mInvocations) {
+                    tables.addAll(invocation);
+                }
+            }
+            return tables;
+        }
+    }
+}
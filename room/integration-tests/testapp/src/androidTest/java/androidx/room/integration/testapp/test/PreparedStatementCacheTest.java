@@ -0,0 +1,75 @@
+/*
+ * Copyright 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.room.integration.testapp.test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import androidx.room.Room;
+import androidx.room.RoomDatabase;
+import androidx.room.integration.testapp.TestDatabase;
+import androidx.test.core.app.ApplicationProvider;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.SmallTest;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+@RunWith(AndroidJUnit4.class)
+@SmallTest
+public class PreparedStatementCacheTest {
+
+    private TestDatabase mDatabase;
+
+    @Before
+    public void openDatabase() {
+        mDatabase = Room.inMemoryDatabaseBuilder(ApplicationProvider.getApplicationContext(),
+                TestDatabase.class)
+                .setPreparedStatementCacheSize(10)
+                .build();
+    }
+
+    @After
+    public void closeDatabase() {
+        mDatabase.close();
+    }
+
+    @Test
+    public void firstStatementIsTracked() {
+        // The first query opens the database, which must not forget the statement.
+        mDatabase.query("SELECT * FROM User", null).close();
+        mDatabase.query("SELECT * FROM User", null).close();
+
+        RoomDatabase.PreparedStatementCacheStats stats =
+                mDatabase.getPreparedStatementCacheStats();
+        assertThat(stats.getMissCount(), is(1L));
+        assertThat(stats.getHitCount(), is(1L));
+    }
+
+    @Test
+    public void firstCompiledStatementIsTracked() throws Exception {
+        mDatabase.compileStatement("DELETE FROM User").close();
+        mDatabase.compileStatement("DELETE FROM User").close();
+
+        RoomDatabase.PreparedStatementCacheStats stats =
+                mDatabase.getPreparedStatementCacheStats();
+        assertThat(stats.getMissCount(), is(1L));
+        assertThat(stats.getHitCount(), is(1L));
+    }
+}
@@ -0,0 +1,182 @@
+/*
+ * Copyright 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.room.integration.testapp.test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+
+import android.content.Context;
+import android.database.Cursor;
+
+import androidx.room.Room;
+import androidx.room.RoomDatabase;
+import androidx.room.integration.testapp.TestDatabase;
+import androidx.room.integration.testapp.dao.UserDao;
+import androidx.room.integration.testapp.vo.User;
+import androidx.test.core.app.ApplicationProvider;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.MediumTest;
+import androidx.test.filters.SdkSuppress;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+@RunWith(AndroidJUnit4.class)
+@MediumTest
+@SdkSuppress(minSdkVersion = 16)
+public class ReadConnectionPoolTest {
+
+    private static final String DATABASE_NAME = "read_pool.db";
+    private TestDatabase mDatabase;
+    private UserDao mUserDao;
+    private ExecutorService mExecutor;
+
+    @Before
+    public void openDatabase() {
+        Context context = ApplicationProvider.getApplicationContext();
+        context.deleteDatabase(DATABASE_NAME);
+        mDatabase = Room.databaseBuilder(context, TestDatabase.class, DATABASE_NAME)
+                .setJournalMode(RoomDatabase.JournalMode.WRITE_AHEAD_LOGGING)
+                .setReadConnectionPoolSize(1)
+                .build();
+        mUserDao = mDatabase.getUserDao();
+        mExecutor = Executors.newCachedThreadPool();
+    }
+
+    @After
+    public void closeDatabase() {
+        mExecutor.shutdownNow();
+        mDatabase.close();
+        Context context = ApplicationProvider.getApplicationContext();
+        context.deleteDatabase(DATABASE_NAME);
+    }
+
+    @Test
+    public void queriesUseThePool() {
+        mUserDao.insert(TestUtil.createUser(1));
+        assertThat(mUserDao.load(1), is(notNullValue()));
+
+        RoomDatabase.ReadConnectionPoolStats stats = mDatabase.getReadConnectionPoolStats();
+        assertThat(stats.getPoolSize(), is(1));
+        assertThat(stats.getOpenedCount(), is(1));
+        assertThat(stats.getLeasedCount(), is(0));
+        assertThat(stats.getAcquiredCount(), is(1L));
+    }
+
+    @Test
+    public void queriesInTransactionUseTheWriter() {
+        mDatabase.runInTransaction(() -> {
+            mUserDao.insert(TestUtil.createUser(1));
+            // The insert is not committed yet, only the writer connection can see it.
+            assertThat(mUserDao.load(1), is(notNullValue()));
+        });
+        assertThat(mDatabase.getReadConnectionPoolStats().getAcquiredCount(), is(0L));
+    }
+
+    @Test
+    public void readDuringWriteTransaction() throws Exception {
+        mUserDao.insert(TestUtil.createUser(1));
+        final CountDownLatch inTransaction = new CountDownLatch(1);
+        final CountDownLatch readDone = new CountDownLatch(1);
+        Future<?> writer = mExecutor.submit(() -> mDatabase.runInTransaction(() -> {
+            mUserDao.delete(mUserDao.load(1));
+            inTransaction.countDown();
+            try {
+                assertThat(readDone.await(10, TimeUnit.SECONDS), is(true));
+            } catch (InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+        }));
+        assertThat(inTransaction.await(10, TimeUnit.SECONDS), is(true));
+        // Readers see the last committed state and do not wait for the transaction.
+        assertThat(mUserDao.load(1), is(notNullValue()));
+        readDone.countDown();
+        writer.get(10, TimeUnit.SECONDS);
+        assertThat(mUserDao.load(1), is(nullValue()));
+    }
+
+    @Test
+    public void nestedQueriesShareTheConnection() {
+        mUserDao.insert(TestUtil.createUser(1));
+        Cursor outer = mDatabase.query("SELECT * FROM User", null);
+        try {
+            // With a single connection, this would wait forever if it was not reused.
+            User user = mUserDao.load(1);
+            assertThat(user, is(notNullValue()));
+        } finally {
+            outer.close();
+        }
+        RoomDatabase.ReadConnectionPoolStats stats = mDatabase.getReadConnectionPoolStats();
+        assertThat(stats.getAcquiredCount(), is(1L));
+        assertThat(stats.getLeasedCount(), is(0));
+    }
+
+    @Test
+    public void waitsAreReported() throws Exception {
+        mUserDao.insert(TestUtil.createUser(1));
+        Cursor held = mDatabase.query("SELECT * FROM User", null);
+        Future<User> waiting = mExecutor.submit(() -> mUserDao.load(1));
+        Thread.sleep(100);
+        held.close();
+        assertThat(waiting.get(10, TimeUnit.SECONDS), is(notNullValue()));
+
+        RoomDatabase.ReadConnectionPoolStats stats = mDatabase.getReadConnectionPoolStats();
+        assertThat(stats.getAcquiredCount(), is(2L));
+        assertThat(stats.getContendedCount(), is(1L));
+        assertThat(stats.getMaxLeasedCount(), is(1));
+        assertThat(stats.getMaxWaitNanos(),
+                greaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(50)));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void inMemoryDatabase() {
+        Room.inMemoryDatabaseBuilder(ApplicationProvider.getApplicationContext(),
+                TestDatabase.class)
+                .setReadConnectionPoolSize(2)
+                .build();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void truncateJournalMode() {
+        Room.databaseBuilder(ApplicationProvider.getApplicationContext(), TestDatabase.class,
+                DATABASE_NAME)
+                .setJournalMode(RoomDatabase.JournalMode.TRUNCATE)
+                .setReadConnectionPoolSize(2)
+                .build();
+    }
+
+    @Test
+    public void disabledByDefault() {
+        mDatabase.close();
+        mDatabase = Room.databaseBuilder(ApplicationProvider.getApplicationContext(),
+                TestDatabase.class, DATABASE_NAME)
+                .setJournalMode(RoomDatabase.JournalMode.WRITE_AHEAD_LOGGING)
+                .build();
+        assertThat(mDatabase.getReadConnectionPoolStats(), is(nullValue()));
+    }
+}
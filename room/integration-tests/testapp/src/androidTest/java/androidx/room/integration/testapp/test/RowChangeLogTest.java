@@ -0,0 +1,171 @@
+/*
+ * Copyright 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.room.integration.testapp.test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import android.content.Context;
+
+import androidx.annotation.NonNull;
+import androidx.room.InvalidationTracker;
+import androidx.room.InvalidationTracker.RowChange;
+import androidx.room.Room;
+import androidx.room.integration.testapp.TestDatabase;
+import androidx.room.integration.testapp.dao.UserDao;
+import androidx.room.integration.testapp.vo.User;
+import androidx.test.core.app.ApplicationProvider;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.MediumTest;
+
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tests the rows reported by the change log of the invalidation tracker.
+ */
+@MediumTest
+@RunWith(AndroidJUnit4.class)
+public class RowChangeLogTest {
+    private TestDatabase mDb;
+    private UserDao mUserDao;
+
+    private void createDb(int maxRowChanges) {
+        Context context = ApplicationProvider.getApplicationContext();
+        mDb = Room.inMemoryDatabaseBuilder(context, TestDatabase.class)
+                .enableChangeLog(maxRowChanges)
+                .build();
+        mUserDao = mDb.getUserDao();
+    }
+
+    @After
+    public void closeDb() {
+        if (mDb != null) {
+            mDb.close();
+        }
+    }
+
+    @Test
+    public void changedRowsAreReported() throws InterruptedException {
+        createDb(100);
+        RecordingObserver observer = new RecordingObserver("User");
+        mDb.getInvalidationTracker().addObserver(observer);
+
+        final User first = TestUtil.createUser(1);
+        mDb.runInTransaction(() -> {
+            mUserDao.insert(first);
+            mUserDao.insert(TestUtil.createUser(2));
+        });
+        assertRowChanges(observer.nextRowChanges().get("User"),
+                RowChange.OPERATION_INSERT, 1,
+                RowChange.OPERATION_INSERT, 2);
+
+        mDb.runInTransaction(() -> {
+            mUserDao.updateById(2, "updated");
+            mUserDao.delete(first);
+        });
+        assertRowChanges(observer.nextRowChanges().get("User"),
+                RowChange.OPERATION_UPDATE, 2,
+                RowChange.OPERATION_DELETE, 1);
+    }
+
+    @Test
+    public void overflowReportsTables() throws InterruptedException {
+        createDb(2);
+        RecordingObserver observer = new RecordingObserver("User");
+        mDb.getInvalidationTracker().addObserver(observer);
+
+        mDb.runInTransaction(() -> {
+            for (int i = 0; i < 3; i++) {
+                mUserDao.insert(TestUtil.createUser(i));
+            }
+        });
+        assertThat(observer.nextRowChanges(), is(nullValue()));
+        assertThat(mDb.getInvalidationTracker().getChangeLogOverflowCount(), is(1L));
+
+        // The log starts over with the next refresh.
+        mUserDao.insert(TestUtil.createUser(10));
+        assertRowChanges(observer.nextRowChanges().get("User"),
+                RowChange.OPERATION_INSERT, 10);
+    }
+
+    @Test
+    public void observersOfOtherTablesAreNotNotified() throws InterruptedException {
+        createDb(100);
+        RecordingObserver petObserver = new RecordingObserver("Pet");
+        RecordingObserver userObserver = new RecordingObserver("User");
+        mDb.getInvalidationTracker().addObserver(petObserver);
+        mDb.getInvalidationTracker().addObserver(userObserver);
+
+        mUserDao.insert(TestUtil.createUser(1));
+        assertThat(userObserver.nextRowChanges(), is(notNullValue()));
+        assertThat(petObserver.mNotifications.poll(100, TimeUnit.MILLISECONDS),
+                is(nullValue()));
+    }
+
+    /**
+     * Asserts the given changes match the expected pairs of operation and rowid.
+     */
+    private static void assertRowChanges(List<RowChange> changes, long... expected) {
+        assertThat(changes.size(), is(expected.length / 2));
+        for (int i = 0; i < changes.size(); i++) {
+            assertThat((long) changes.get(i).getOperation(), is(expected[2 * i]));
+            assertThat(changes.get(i).getRowId(), is(expected[2 * i + 1]));
+        }
+    }
+
+    private static class RecordingObserver extends InvalidationTracker.Observer {
+        // Holds the row changes, or the invalidated tables when they are not known.
+        final BlockingQueue<Object> mNotifications = new LinkedBlockingQueue<>();
+
+        RecordingObserver(String... tables) {
+            super(tables);
+        }
+
+        @Override
+        public void onInvalidated(@NonNull Set<String> tables) {
+            mNotifications.add(tables);
+        }
+
+        @Override
+        public void onRowsChanged(@NonNull Map<String, List<RowChange>> rowChanges) {
+            mNotifications.add(rowChanges);
+        }
+
+        /**
+         * Returns the next row changes, or null if the observer was only told the invalidated
+         * tables.
+         */
+        @SuppressWarnings("unchecked")
+        Map<String, List<RowChange>> nextRowChanges() throws InterruptedException {
+            Object notification = mNotifications.poll(5, TimeUnit.SECONDS);
+            assertThat(notification, is(notNullValue()));
+            return notification instanceof Map
+                    ? (Map<String, List<RowChange>>) notification : null;
+        }
+    }
+}
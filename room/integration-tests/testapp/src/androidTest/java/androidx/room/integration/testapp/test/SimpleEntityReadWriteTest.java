@@ -226,6 +226,36 @@ public class SimpleEntityReadWriteTest {
         assertThat(mUserDao.load(user.getId()), equalTo(user));
     }
 
+    @Test
+    public void insertAllInBatches() {
+        // more than fits in the bind arguments of a single statement, with a partial last batch
+        final int[] ids = new int[1234];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = i + 1;
+        }
+        User[] users = TestUtil.createUsersArray(ids);
+        users[7].setName(null);
+        mUserDao.insertAll(users);
+        assertThat(mUserDao.count(), is(ids.length));
+        for (User user : users) {
+            assertThat(mUserDao.load(user.getId()), is(user));
+        }
+    }
+
+    @Test
+    public void insertAllInBatches_failure() {
+        User[] users = TestUtil.createUsersArray(1, 2, 3, 4, 5, 6, 7, 8, 9, 10);
+        users[9].setId(5);
+        boolean caught = false;
+        try {
+            mUserDao.insertAll(users);
+        } catch (SQLiteConstraintException e) {
+            caught = true;
+        }
+        assertTrue("SQLiteConstraintException expected", caught);
+        assertThat(mUserDao.count(), is(0));
+    }
+
     @Test
     public void updateNonExisting() {
         User user = TestUtil.createUser(3);
@@ -57,11 +57,20 @@ public class CoroutinesRoom private constructor() {
 
             // Use the transaction dispatcher if we are on a transaction coroutine, otherwise
             // use the database dispatchers.
-            val context = coroutineContext[TransactionElement]?.transactionDispatcher
+            val transactionDispatcher = coroutineContext[TransactionElement]?.transactionDispatcher
+            val context = transactionDispatcher
                 ?: if (inTransaction) db.transactionDispatcher else db.queryDispatcher
-            return withContext(context) {
-                callable.call()
+            var groupCommit: GroupCommit? = null
+            val result = withContext(context) {
+                callable.call().also {
+                    if (transactionDispatcher == null) {
+                        groupCommit = db.currentGroupCommit
+                    }
+                }
             }
+            // The write is only visible to other connections once its group commit ends.
+            groupCommit?.await()
+            return result
         }
 
         @JvmStatic
@@ -77,15 +86,30 @@ public class CoroutinesRoom private constructor() {
 
             // Use the transaction dispatcher if we are on a transaction coroutine, otherwise
             // use the database dispatchers.
-            val context = coroutineContext[TransactionElement]?.transactionDispatcher
+            val transactionDispatcher = coroutineContext[TransactionElement]?.transactionDispatcher
+            val context = transactionDispatcher
                 ?: if (inTransaction) db.transactionDispatcher else db.queryDispatcher
             return suspendCancellableCoroutine<R> { continuation ->
                 val job = GlobalScope.launch(context) {
-                    try {
-                        val result = callable.call()
-                        continuation.resume(result)
+                    val result = try {
+                        callable.call()
                     } catch (exception: Throwable) {
                         continuation.resumeWithException(exception)
+                        return@launch
+                    }
+                    // The write is only visible to other connections once its group commit ends.
+                    val groupCommit =
+                        if (transactionDispatcher == null) db.currentGroupCommit else null
+                    if (groupCommit == null) {
+                        continuation.resume(result)
+                    } else {
+                        groupCommit.addCallback { error ->
+                            if (error == null) {
+                                continuation.resume(result)
+                            } else {
+                                continuation.resumeWithException(error)
+                            }
+                        }
                     }
                 }
                 continuation.invokeOnCancellation {
@@ -0,0 +1,31 @@
+/*
+ * Copyright 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.room
+
+/**
+ * Calls the specified [block] with a [Sequence] of the remaining rows of this iterator, then
+ * closes the iterator whether or not the whole sequence was consumed.
+ *
+ * The rows are converted as the sequence is consumed, which can only be done once:
+ * ```
+ * val names = songDao.iterateAll().useSequence { songs ->
+ *     songs.filter { it.liked }.map { it.name }.take(10).toList()
+ * }
+ * ```
+ */
+public inline fun <T, R> CursorIterator<T>.useSequence(block: (Sequence<T>) -> R): R =
+    use { block(it.asSequence()) }
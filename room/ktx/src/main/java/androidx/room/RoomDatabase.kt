@@ -29,6 +29,8 @@ import kotlin.coroutines.ContinuationInterceptor
 import kotlin.coroutines.CoroutineContext
 import kotlin.coroutines.coroutineContext
 import kotlin.coroutines.resume
+import kotlin.coroutines.resumeWithException
+import kotlin.coroutines.suspendCoroutine
 
 /**
  * Calls the specified suspending [block] in a database transaction. The transaction will be
@@ -46,12 +48,16 @@ import kotlin.coroutines.resume
  */
 public suspend fun <R> RoomDatabase.withTransaction(block: suspend () -> R): R {
     // Use inherited transaction context if available, this allows nested suspending transactions.
-    val transactionContext =
-        coroutineContext[TransactionElement]?.transactionDispatcher ?: createTransactionContext()
-    return withContext(transactionContext) {
+    val inheritedDispatcher = coroutineContext[TransactionElement]?.transactionDispatcher
+    val transactionContext = inheritedDispatcher ?: createTransactionContext()
+    var groupCommit: GroupCommit? = null
+    val transactionResult = withContext(transactionContext) {
         val transactionElement = coroutineContext[TransactionElement]!!
         transactionElement.acquire()
         try {
+            if (inheritedDispatcher == null) {
+                groupCommit = currentGroupCommit
+            }
             @Suppress("DEPRECATION")
             beginTransaction()
             try {
@@ -67,6 +73,24 @@ public suspend fun <R> RoomDatabase.withTransaction(block: suspend () -> R): R {
             transactionElement.release()
         }
     }
+    // The changes are only visible to other connections once the group commit ends.
+    groupCommit?.await()
+    return transactionResult
+}
+
+/**
+ * Suspends until the group commit ends, throwing the exception which prevented it, if any.
+ */
+internal suspend fun GroupCommit.await() {
+    suspendCoroutine<Unit> { continuation ->
+        addCallback { error ->
+            if (error == null) {
+                continuation.resume(Unit)
+            } else {
+                continuation.resumeWithException(error)
+            }
+        }
+    }
 }
 
 /**
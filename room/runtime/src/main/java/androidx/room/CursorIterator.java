@@ -0,0 +1,171 @@
+/*
+ * Copyright 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.room;
+
+import android.database.Cursor;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.RestrictTo;
+
+import java.io.Closeable;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Iterates over the rows returned by a {@link Query} method, converting each row only when it is
+ * reached.
+ * <p>
+ * Unlike a {@link java.util.List} return type, which reads every row of the result before the
+ * method returns, a query method returning a {@code CursorIterator} leaves the result in its
+ * {@link Cursor}, so only the rows of the current cursor window are held in memory at any time.
+ * This keeps the memory used by a full table scan constant:
+ * <pre>
+ * {@literal @}Dao
+ * public interface SongDao {
+ *     {@literal @}Query("SELECT * FROM song")
+ *     CursorIterator&lt;Song&gt; iterateAll();
+ * }
+ *
+ * try (CursorIterator&lt;Song&gt; songs = songDao.iterateAll()) {
+ *     while (songs.hasNext()) {
+ *         export(songs.next());
+ *     }
+ * }
+ * </pre>
+ * The cursor is closed once the last row is read, or when {@link #close()} is called, which must
+ * be done if the iteration stops early. {@link #forEach(RowCallback)} does both.
+ * <p>
+ * Rows are read while the iterator is used, outside of the call to the query method, so a query
+ * method returning a {@code CursorIterator} cannot be annotated with {@link Transaction} and cannot
+ * return a POJO with {@link Relation} fields. As with a {@link Cursor} return type, results which
+ * do not fit in a single cursor window may observe writes made while iterating unless the whole
+ * iteration runs in a transaction.
+ * <p>
+ * A {@code CursorIterator} is not thread safe.
+ *
+ * @param <T> The type of the rows.
+ */
+public abstract class CursorIterator<T> implements Iterator<T>, Closeable {
+    private final Cursor mCursor;
+    @Nullable
+    private RoomSQLiteQuery mQuery;
+    private boolean mClosed;
+    // Whether the cursor is on a row which was not returned yet.
+    private boolean mHasRow;
+
+    /**
+     * @param cursor The cursor of the query result.
+     * @param query The query to release once the cursor is closed, or null if it is owned by the
+     *              caller.
+     * @hide
+     */
+    @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP_PREFIX)
+    protected CursorIterator(@NonNull Cursor cursor, @Nullable RoomSQLiteQuery query) {
+        mCursor = cursor;
+        mQuery = query;
+    }
+
+    /**
+     * Converts the row the cursor is on.
+     *
+     * @hide
+     */
+    @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP_PREFIX)
+    protected abstract T convert(@NonNull Cursor cursor);
+
+    @Override
+    public boolean hasNext() {
+        if (mClosed) {
+            return false;
+        }
+        if (!mHasRow) {
+            mHasRow = mCursor.moveToNext();
+            if (!mHasRow) {
+                close();
+            }
+        }
+        return mHasRow;
+    }
+
+    @Override
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        mHasRow = false;
+        return convert(mCursor);
+    }
+
+    /**
+     * Rows cannot be removed through a {@code CursorIterator}.
+     *
+     * @throws UnsupportedOperationException always.
+     */
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException("Cannot remove rows through a CursorIterator");
+    }
+
+    /**
+     * Passes each remaining row to the given callback and closes the iterator, even if the
+     * callback throws.
+     *
+     * @param callback The callback to receive the rows.
+     */
+    public void forEach(@NonNull RowCallback<? super T> callback) {
+        try {
+            while (hasNext()) {
+                callback.onRow(next());
+            }
+        } finally {
+            close();
+        }
+    }
+
+    /**
+     * Closes the cursor. Calling this method more than once has no effect.
+     */
+    @Override
+    public void close() {
+        if (mClosed) {
+            return;
+        }
+        mClosed = true;
+        mHasRow = false;
+        mCursor.close();
+        if (mQuery != null) {
+            mQuery.release();
+            mQuery = null;
+        }
+    }
+
+    /**
+     * Receives the rows of a {@link CursorIterator}.
+     *
+     * @param <T> The type of the rows.
+     * @see #forEach(RowCallback)
+     */
+    public interface RowCallback<T> {
+        /**
+         * Called for each row, in the order of the query result.
+         *
+         * @param row The converted row.
+         */
+        void onRow(T row);
+    }
+}
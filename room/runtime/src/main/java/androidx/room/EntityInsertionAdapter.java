@@ -16,12 +16,18 @@
 
 package androidx.room;
 
+import android.os.Build;
+
 import androidx.annotation.RestrictTo;
+import androidx.room.util.SneakyThrow;
 import androidx.sqlite.db.SupportSQLiteStatement;
 
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * Implementations of this class knows how to insert a particular entity.
@@ -34,6 +40,20 @@ import java.util.List;
 @SuppressWarnings({"WeakerAccess", "unused"})
 @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP_PREFIX)
 public abstract class EntityInsertionAdapter<T> extends SharedSQLiteStatement {
+    /**
+     * The maximum number of rows of a multi-row INSERT. Each row of the VALUES clause is a term
+     * of a compound SELECT, whose length is limited to 500 terms by the SQLite versions shipped
+     * with Android before 3.8.8.
+     */
+    private static final int MAX_BATCH_ROW_CNT = 500;
+
+    private final RoomDatabase mDatabase;
+    private final AtomicBoolean mBatchLock = new AtomicBoolean(false);
+    // Lazily computed from createQuery(), 0 until then.
+    private int mColumnCount;
+    private volatile int mBatchRowCount;
+    private volatile SupportSQLiteStatement mBatchStmt;
+
     /**
      * Creates an InsertionAdapter that can insert the entity type T into the given database.
      *
@@ -41,6 +61,7 @@ public abstract class EntityInsertionAdapter<T> extends SharedSQLiteStatement {
      */
     public EntityInsertionAdapter(RoomDatabase database) {
         super(database);
+        mDatabase = database;
     }
 
     /**
@@ -101,6 +122,60 @@ public abstract class EntityInsertionAdapter<T> extends SharedSQLiteStatement {
         }
     }
 
+    /**
+     * Inserts the given entities into the database, binding as many of them into each multi-row
+     * {@code INSERT ... VALUES (...),(...)} statement as SQLite allows. Unlike
+     * {@link #insert(Object[])}, it runs one statement for many rows instead of one per row.
+     *
+     * @param entities Entities to insert
+     */
+    public final void insertBatch(T[] entities) {
+        insertBatch(Arrays.asList(entities));
+    }
+
+    /**
+     * Inserts the given entities into the database, binding as many of them into each multi-row
+     * {@code INSERT ... VALUES (...),(...)} statement as SQLite allows. Unlike
+     * {@link #insert(Iterable)}, it runs one statement for many rows instead of one per row.
+     *
+     * @param entities Entities to insert
+     */
+    public final void insertBatch(Iterable<? extends T> entities) {
+        final int batchRowCount = getBatchRowCount();
+        if (batchRowCount < 2) {
+            insert(entities);
+            return;
+        }
+        final Object[] batch = new Object[batchRowCount];
+        int size = 0;
+        for (T entity : entities) {
+            batch[size++] = entity;
+            if (size == batchRowCount) {
+                final SupportSQLiteStatement stmt = acquireBatch();
+                try {
+                    bindBatch(stmt, batch, size);
+                    stmt.executeInsert();
+                } finally {
+                    releaseBatch(stmt);
+                }
+                size = 0;
+            }
+        }
+        if (size == 1) {
+            insert(entityAt(batch, 0));
+        } else if (size > 1) {
+            // a one off statement, as the leftover row count varies
+            final SupportSQLiteStatement stmt = mDatabase.compileStatement(
+                    createBatchQuery(size));
+            try {
+                bindBatch(stmt, batch, size);
+                stmt.executeInsert();
+            } finally {
+                close(stmt);
+            }
+        }
+    }
+
     /**
      * Inserts the given entity into the database and returns the row id.
      *
@@ -248,4 +323,178 @@ public abstract class EntityInsertionAdapter<T> extends SharedSQLiteStatement {
             release(stmt);
         }
     }
+
+    private void bindBatch(SupportSQLiteStatement stmt, Object[] batch, int size) {
+        final OffsetStatement offsetStmt = new OffsetStatement(stmt);
+        for (int i = 0; i < size; i++) {
+            offsetStmt.mOffset = i * mColumnCount;
+            bind(offsetStmt, entityAt(batch, i));
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private T entityAt(Object[] batch, int index) {
+        return (T) batch[index];
+    }
+
+    private int getBatchRowCount() {
+        int batchRowCount = mBatchRowCount;
+        if (batchRowCount == 0) {
+            if (Build.VERSION.SDK_INT < Build.VERSION_CODES.JELLY_BEAN) {
+                // multi-row VALUES requires SQLite 3.7.11
+                batchRowCount = 1;
+            } else {
+                final int columnCount = getColumnCount(createQuery());
+                batchRowCount = columnCount == 0 ? 1 : Math.max(1, Math.min(MAX_BATCH_ROW_CNT,
+                        RoomDatabase.MAX_BIND_PARAMETER_CNT / columnCount));
+                mColumnCount = columnCount;
+            }
+            // published after mColumnCount, which is only read once this is set
+            mBatchRowCount = batchRowCount;
+        }
+        return batchRowCount;
+    }
+
+    private SupportSQLiteStatement acquireBatch() {
+        if (mBatchLock.compareAndSet(false, true)) {
+            if (mBatchStmt == null) {
+                mBatchStmt = mDatabase.compileStatement(createBatchQuery(getBatchRowCount()));
+            }
+            return mBatchStmt;
+        }
+        // it is in use, create a one off statement
+        return mDatabase.compileStatement(createBatchQuery(getBatchRowCount()));
+    }
+
+    private void releaseBatch(SupportSQLiteStatement statement) {
+        if (statement == mBatchStmt) {
+            mBatchLock.set(false);
+        } else {
+            close(statement);
+        }
+    }
+
+    private static void close(SupportSQLiteStatement statement) {
+        try {
+            statement.close();
+        } catch (IOException e) {
+            SneakyThrow.reThrow(e);
+        }
+    }
+
+    /**
+     * Creates the multi-row version of the single row INSERT statement returned by
+     * {@link #createQuery()}, by repeating its VALUES row.
+     */
+    private String createBatchQuery(int rowCount) {
+        final String query = createQuery();
+        final int valuesIndex = getValuesIndex(query);
+        final String row = query.substring(valuesIndex);
+        final StringBuilder builder = new StringBuilder(
+                valuesIndex + (row.length() + 1) * rowCount);
+        builder.append(query, 0, valuesIndex).append(row);
+        for (int i = 1; i < rowCount; i++) {
+            builder.append(',').append(row);
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Returns the number of bind arguments of the VALUES row of the given INSERT statement.
+     */
+    private static int getColumnCount(String query) {
+        final int valuesIndex = getValuesIndex(query);
+        if (valuesIndex < 0) {
+            return 0;
+        }
+        int count = 0;
+        for (int i = valuesIndex; i < query.length(); i++) {
+            if (query.charAt(i) == '?') {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Returns the index of the opening parenthesis of the VALUES row of the given INSERT
+     * statement, which ends the statement, or -1 if there is no such row.
+     */
+    private static int getValuesIndex(String query) {
+        final int index = query.lastIndexOf(" VALUES (");
+        return index < 0 ? -1 : index + " VALUES ".length();
+    }
+
+    /**
+     * A statement which shifts the index of the arguments bound by
+     * {@link #bind(SupportSQLiteStatement, Object)} to those of a row of a multi-row INSERT.
+     */
+    private static final class OffsetStatement implements SupportSQLiteStatement {
+        private final SupportSQLiteStatement mDelegate;
+        int mOffset;
+
+        OffsetStatement(SupportSQLiteStatement delegate) {
+            mDelegate = delegate;
+        }
+
+        @Override
+        public void bindNull(int index) {
+            mDelegate.bindNull(mOffset + index);
+        }
+
+        @Override
+        public void bindLong(int index, long value) {
+            mDelegate.bindLong(mOffset + index, value);
+        }
+
+        @Override
+        public void bindDouble(int index, double value) {
+            mDelegate.bindDouble(mOffset + index, value);
+        }
+
+        @Override
+        public void bindString(int index, String value) {
+            mDelegate.bindString(mOffset + index, value);
+        }
+
+        @Override
+        public void bindBlob(int index, byte[] value) {
+            mDelegate.bindBlob(mOffset + index, value);
+        }
+
+        @Override
+        public void clearBindings() {
+            mDelegate.clearBindings();
+        }
+
+        @Override
+        public void execute() {
+            mDelegate.execute();
+        }
+
+        @Override
+        public int executeUpdateDelete() {
+            return mDelegate.executeUpdateDelete();
+        }
+
+        @Override
+        public long executeInsert() {
+            return mDelegate.executeInsert();
+        }
+
+        @Override
+        public long simpleQueryForLong() {
+            return mDelegate.simpleQueryForLong();
+        }
+
+        @Override
+        public String simpleQueryForString() {
+            return mDelegate.simpleQueryForString();
+        }
+
+        @Override
+        public void close() throws IOException {
+            mDelegate.close();
+        }
+    }
 }
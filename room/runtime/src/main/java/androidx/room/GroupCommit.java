@@ -0,0 +1,141 @@
+/*
+ * Copyright 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.room;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.RestrictTo;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A transaction in which the transaction executor runs several writes, so that they are committed
+ * together.
+ * <p>
+ * The transactions of the writes become savepoints of the group commit: a write which fails only
+ * rolls back its own changes, the other writes of the group commit are still committed. Like
+ * nested transactions of the framework, a savepoint is rolled back if one of the savepoints nested
+ * in it was.
+ * <p>
+ * The changes of a write are only visible to other connections, and durable, once the group commit
+ * ends, so the callers waiting for a write should be told it completed through
+ * {@link #addCallback(Callback)}.
+ *
+ * @hide
+ */
+@RestrictTo(RestrictTo.Scope.LIBRARY_GROUP_PREFIX)
+public final class GroupCommit {
+    private static final String SAVEPOINT_NAME = "room_group_commit";
+
+    // Only used by the thread of the group commit.
+    private final ArrayDeque<Savepoint> mSavepoints = new ArrayDeque<>();
+
+    private final List<Callback> mCallbacks = new ArrayList<>();
+    private boolean mEnded;
+    @Nullable
+    private Throwable mError;
+
+    GroupCommit() {
+    }
+
+    /**
+     * Calls the given callback once the group commit ends, right away if it already has.
+     *
+     * @param callback The callback to call.
+     */
+    public void addCallback(@NonNull Callback callback) {
+        synchronized (mCallbacks) {
+            if (!mEnded) {
+                mCallbacks.add(callback);
+                return;
+            }
+        }
+        callback.onGroupCommitEnded(mError);
+    }
+
+    /**
+     * Ends the group commit and calls its callbacks.
+     *
+     * @param error The exception which prevented the commit, or null if it succeeded.
+     */
+    void end(@Nullable Throwable error) {
+        final List<Callback> callbacks;
+        synchronized (mCallbacks) {
+            mError = error;
+            mEnded = true;
+            callbacks = new ArrayList<>(mCallbacks);
+            mCallbacks.clear();
+        }
+        for (Callback callback : callbacks) {
+            callback.onGroupCommitEnded(error);
+        }
+    }
+
+    void beginSavepoint(@NonNull SupportSQLiteDatabase database) {
+        database.execSQL("SAVEPOINT " + SAVEPOINT_NAME);
+        mSavepoints.push(new Savepoint());
+    }
+
+    void setSavepointSuccessful() {
+        Savepoint savepoint = mSavepoints.peek();
+        if (savepoint == null) {
+            throw new IllegalStateException("Cannot mark a transaction successful, none was begun");
+        }
+        savepoint.mSuccessful = true;
+    }
+
+    void endSavepoint(@NonNull SupportSQLiteDatabase database) {
+        Savepoint savepoint = mSavepoints.pop();
+        if (!savepoint.mSuccessful || savepoint.mChildFailed) {
+            database.execSQL("ROLLBACK TO " + SAVEPOINT_NAME);
+            Savepoint parent = mSavepoints.peek();
+            if (parent != null) {
+                parent.mChildFailed = true;
+            }
+        }
+        database.execSQL("RELEASE " + SAVEPOINT_NAME);
+    }
+
+    /**
+     * Rolls back the savepoints which a write left open.
+     */
+    @SuppressWarnings("ConstantConditions")
+    void rollbackOpenSavepoints(@NonNull RoomDatabase database) {
+        while (!mSavepoints.isEmpty()) {
+            mSavepoints.peek().mSuccessful = false;
+            endSavepoint(database.getOpenHelper().getWritableDatabase());
+        }
+    }
+
+    private static final class Savepoint {
+        boolean mSuccessful;
+        boolean mChildFailed;
+    }
+
+    /**
+     * Called when a group commit ends.
+     */
+    public interface Callback {
+        /**
+         * @param error The exception which prevented the group commit, or null if it committed.
+         */
+        void onGroupCommitEnded(@Nullable Throwable error);
+    }
+}
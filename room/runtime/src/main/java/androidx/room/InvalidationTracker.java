@@ -21,8 +21,12 @@ import android.content.Context;
 import android.database.Cursor;
 import android.database.sqlite.SQLiteException;
 import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
 import android.util.Log;
 
+import androidx.annotation.GuardedBy;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.annotation.RestrictTo;
@@ -35,15 +39,19 @@ import androidx.sqlite.db.SupportSQLiteDatabase;
 import androidx.sqlite.db.SupportSQLiteStatement;
 
 import java.lang.ref.WeakReference;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.Lock;
 
 /**
@@ -61,6 +69,13 @@ import java.util.concurrent.locks.Lock;
 // memory table table, flipping the invalidated flag ON.
 // * When multi-instance invalidation is turned on, MultiInstanceInvalidationClient will be created.
 // It works as an Observer, and notifies other instances of table invalidation.
+// * With a coalescing window, the refresh is delayed by the window after the first transaction
+// that requests it. Transactions ending in the meantime find it pending and are folded into it,
+// their changes are all flagged in the memory table by then.
+// * When the change log is enabled, the triggers also append the rowid of each changed row, and the
+// kind of change, to a second memory table. The refresh reads and clears it along with the
+// invalidated flags, and hands the rows to the observers. The triggers stop appending once the
+// log holds its limit of rows, the observers are then only told which tables were invalidated.
 public class InvalidationTracker {
 
     private static final String[] TRIGGERS = new String[]{"UPDATE", "DELETE", "INSERT"};
@@ -83,6 +98,24 @@ public class InvalidationTracker {
     static final String SELECT_UPDATED_TABLES_SQL = "SELECT * FROM " + UPDATE_TABLE_NAME
             + " WHERE " + INVALIDATED_COLUMN_NAME + " = 1;";
 
+    private static final String CHANGE_LOG_TABLE_NAME = "room_table_change_log";
+
+    private static final String OPERATION_COLUMN_NAME = "operation";
+
+    private static final String ROW_ID_COLUMN_NAME = "row_id";
+
+    private static final String CREATE_CHANGE_LOG_TABLE_SQL = "CREATE TEMP TABLE "
+            + CHANGE_LOG_TABLE_NAME + "(" + TABLE_ID_COLUMN_NAME + " INTEGER NOT NULL, "
+            + OPERATION_COLUMN_NAME + " INTEGER NOT NULL, " + ROW_ID_COLUMN_NAME + " INTEGER)";
+
+    @VisibleForTesting
+    static final String SELECT_CHANGE_LOG_SQL = "SELECT " + TABLE_ID_COLUMN_NAME + ", "
+            + OPERATION_COLUMN_NAME + ", " + ROW_ID_COLUMN_NAME + " FROM " + CHANGE_LOG_TABLE_NAME
+            + " ORDER BY rowid";
+
+    @VisibleForTesting
+    static final String RESET_CHANGE_LOG_SQL = "DELETE FROM " + CHANGE_LOG_TABLE_NAME;
+
     @NonNull
     final HashMap<String, Integer> mTableIdLookup;
     final String[] mTableNames;
@@ -98,11 +131,34 @@ public class InvalidationTracker {
 
     AtomicBoolean mPendingRefresh = new AtomicBoolean(false);
 
+    // Only created when needed to delay refreshes or notifications.
+    @Nullable
+    private Handler mHandler;
+
+    private volatile long mCoalescingWindowMillis;
+
+    private final AtomicLong mRefreshCount = new AtomicLong();
+
+    private final AtomicLong mCoalescedRefreshCount = new AtomicLong();
+
+    @SuppressWarnings("WeakerAccess") /* synthetic access */
+    final AtomicLong mRateLimitedNotificationCount = new AtomicLong();
+
+    // The maximum number of rows held by the change log, 0 when it is disabled.
+    @SuppressWarnings("WeakerAccess") /* synthetic access */
+    int mChangeLogLimit;
+
+    @SuppressWarnings("WeakerAccess") /* synthetic access */
+    final AtomicLong mChangeLogOverflowCount = new AtomicLong();
+
     private volatile boolean mInitialized = false;
 
     @SuppressWarnings("WeakerAccess") /* synthetic access */
     volatile SupportSQLiteStatement mCleanupStatement;
 
+    @SuppressWarnings("WeakerAccess") /* synthetic access */
+    volatile SupportSQLiteStatement mChangeLogCleanupStatement;
+
     private ObservedTableTracker mObservedTableTracker;
 
     private final InvalidationLiveDataContainer mInvalidationLiveDataContainer;
@@ -180,6 +236,38 @@ public class InvalidationTracker {
         mAutoCloser.setAutoCloseCallback(this::onAutoCloseCallback);
     }
 
+    /**
+     * Sets how long a refresh requested by the end of a transaction is delayed so that the
+     * transactions ending in the meantime are folded into it. Observers are then notified once
+     * for the whole burst, with the union of the tables it invalidated.
+     *
+     * @param coalescingWindowMillis the window in milliseconds, 0 to refresh right away.
+     */
+    void setCoalescingWindow(long coalescingWindowMillis) {
+        mCoalescingWindowMillis = coalescingWindowMillis;
+    }
+
+    /**
+     * Enables the change log, which records the rows changed in the observed tables so that
+     * observers are notified of them through {@link Observer#onRowsChanged(Map)}.
+     * <p>
+     * This must be called before the database is opened.
+     *
+     * @param limit the maximum number of rows recorded between two refreshes.
+     */
+    void setChangeLogLimit(int limit) {
+        mChangeLogLimit = limit;
+    }
+
+    @NonNull
+    @SuppressWarnings("WeakerAccess") /* synthetic access */
+    synchronized Handler getHandler() {
+        if (mHandler == null) {
+            mHandler = new Handler(Looper.getMainLooper());
+        }
+        return mHandler;
+    }
+
     /**
      * Internal method to initialize table tracking.
      * <p>
@@ -197,6 +285,10 @@ public class InvalidationTracker {
             database.execSQL("PRAGMA temp_store = MEMORY;");
             database.execSQL("PRAGMA recursive_triggers='ON';");
             database.execSQL(CREATE_TRACKING_TABLE_SQL);
+            if (mChangeLogLimit > 0) {
+                database.execSQL(CREATE_CHANGE_LOG_TABLE_SQL);
+                mChangeLogCleanupStatement = database.compileStatement(RESET_CHANGE_LOG_SQL);
+            }
             syncTriggers(database);
             mCleanupStatement = database.compileStatement(RESET_UPDATED_TABLES_SQL);
             mInitialized = true;
@@ -261,11 +353,42 @@ public class InvalidationTracker {
                     .append(" SET ").append(INVALIDATED_COLUMN_NAME).append(" = 1")
                     .append(" WHERE ").append(TABLE_ID_COLUMN_NAME).append(" = ").append(tableId)
                     .append(" AND ").append(INVALIDATED_COLUMN_NAME).append(" = 0")
-                    .append("; END");
+                    .append(";");
+            if (mChangeLogLimit > 0) {
+                appendChangeLogStatement(stringBuilder, tableId, trigger);
+            }
+            stringBuilder.append(" END");
             writableDb.execSQL(stringBuilder.toString());
         }
     }
 
+    private void appendChangeLogStatement(StringBuilder builder, int tableId, String trigger) {
+        final int operation;
+        final String row;
+        switch (trigger) {
+            case "INSERT":
+                operation = RowChange.OPERATION_INSERT;
+                row = "NEW";
+                break;
+            case "UPDATE":
+                operation = RowChange.OPERATION_UPDATE;
+                row = "NEW";
+                break;
+            default:
+                operation = RowChange.OPERATION_DELETE;
+                row = "OLD";
+                break;
+        }
+        // Rowids restart from 1 once the log is cleared, so the largest one is its size.
+        builder.append(" INSERT INTO ").append(CHANGE_LOG_TABLE_NAME)
+                .append(" SELECT ").append(tableId)
+                .append(", ").append(operation)
+                .append(", ").append(row).append(".rowid")
+                .append(" WHERE ifnull((SELECT max(rowid) FROM ").append(CHANGE_LOG_TABLE_NAME)
+                .append("), 0) < ").append(mChangeLogLimit)
+                .append(";");
+    }
+
     /**
      * Adds the given observer to the observers list and it will be notified if any table it
      * observes changes.
@@ -283,9 +406,40 @@ public class InvalidationTracker {
      *
      * @param observer The observer which listens the database for changes.
      */
-    @SuppressLint("RestrictedApi")
     @WorkerThread
     public void addObserver(@NonNull Observer observer) {
+        addObserver(observer, 0);
+    }
+
+    /**
+     * Adds the given observer to the observers list, like {@link #addObserver(Observer)}, but
+     * notifies it at most once per {@code minInterval}.
+     * <p>
+     * Invalidations that happen less than {@code minInterval} after the observer was last
+     * notified are merged and delivered together, as a single call with the union of the
+     * invalidated tables, once the interval has elapsed. Delayed notifications are delivered on
+     * the {@link RoomDatabase#getQueryExecutor() query executor}.
+     * <p>
+     * This method should be called on a background/worker thread as it performs database
+     * operations.
+     *
+     * @param observer    The observer which listens the database for changes.
+     * @param minInterval The minimum time between two notifications of the observer.
+     * @param unit        The time unit of {@code minInterval}.
+     * @see #getRateLimitedNotificationCount()
+     */
+    @ExperimentalRoomApi
+    @WorkerThread
+    public void addObserver(@NonNull Observer observer, long minInterval,
+            @NonNull TimeUnit unit) {
+        if (minInterval < 0) {
+            throw new IllegalArgumentException("minInterval must be >= 0");
+        }
+        addObserver(observer, unit.toMillis(minInterval));
+    }
+
+    @SuppressLint("RestrictedApi")
+    private void addObserver(@NonNull Observer observer, long minIntervalMillis) {
         final String[] tableNames = resolveViews(observer.mTables);
         int[] tableIds = new int[tableNames.length];
         final int size = tableNames.length;
@@ -297,7 +451,10 @@ public class InvalidationTracker {
             }
             tableIds[i] = tableId;
         }
-        ObserverWrapper wrapper = new ObserverWrapper(observer, tableIds, tableNames);
+        ObserverWrapper wrapper = minIntervalMillis > 0
+                ? new RateLimitedObserverWrapper(this, observer, tableIds, tableNames,
+                        minIntervalMillis)
+                : new ObserverWrapper(observer, tableIds, tableNames);
         ObserverWrapper currentObserver;
         synchronized (mObserverMap) {
             currentObserver = mObserverMap.putIfAbsent(observer, wrapper);
@@ -403,6 +560,7 @@ public class InvalidationTracker {
         public void run() {
             final Lock closeLock = mDatabase.getCloseLock();
             Set<Integer> invalidatedTableIds = null;
+            Map<Integer, List<RowChange>> rowChanges = null;
             closeLock.lock();
             try {
 
@@ -428,6 +586,10 @@ public class InvalidationTracker {
                 db.beginTransactionNonExclusive();
                 try {
                     invalidatedTableIds = checkUpdatedTable();
+                    if (mChangeLogLimit > 0 && !invalidatedTableIds.isEmpty()) {
+                        rowChanges = readChangeLog();
+                    }
+                    mRefreshCount.incrementAndGet();
                     db.setTransactionSuccessful();
                 } finally {
                     db.endTransaction();
@@ -446,7 +608,8 @@ public class InvalidationTracker {
             if (invalidatedTableIds != null && !invalidatedTableIds.isEmpty()) {
                 synchronized (mObserverMap) {
                     for (Map.Entry<Observer, ObserverWrapper> entry : mObserverMap) {
-                        entry.getValue().notifyByTableInvalidStatus(invalidatedTableIds);
+                        entry.getValue().notifyByTableInvalidStatus(invalidatedTableIds,
+                                rowChanges);
                     }
                 }
             }
@@ -469,6 +632,44 @@ public class InvalidationTracker {
             }
             return invalidatedTableIds;
         }
+
+        /**
+         * Reads and clears the change log.
+         *
+         * @return The changed rows of each table, or null if the log reached its limit and some
+         * changes were not recorded.
+         */
+        @Nullable
+        private Map<Integer, List<RowChange>> readChangeLog() {
+            HashMap<Integer, List<RowChange>> rowChanges = null;
+            Cursor cursor = mDatabase.query(new SimpleSQLiteQuery(SELECT_CHANGE_LOG_SQL));
+            //noinspection TryFinallyCanBeTryWithResources
+            try {
+                if (cursor.getCount() < mChangeLogLimit) {
+                    rowChanges = new HashMap<>();
+                    while (cursor.moveToNext()) {
+                        final int tableId = cursor.getInt(0);
+                        List<RowChange> tableChanges = rowChanges.get(tableId);
+                        if (tableChanges == null) {
+                            tableChanges = new ArrayList<>();
+                            rowChanges.put(tableId, tableChanges);
+                        }
+                        tableChanges.add(new RowChange(cursor.getInt(1), cursor.getLong(2)));
+                    }
+                } else {
+                    mChangeLogOverflowCount.incrementAndGet();
+                }
+            } finally {
+                cursor.close();
+            }
+            mChangeLogCleanupStatement.executeUpdateDelete();
+            if (rowChanges != null) {
+                for (Map.Entry<Integer, List<RowChange>> entry : rowChanges.entrySet()) {
+                    entry.setValue(Collections.unmodifiableList(entry.getValue()));
+                }
+            }
+            return rowChanges;
+        }
     };
 
     /**
@@ -489,8 +690,85 @@ public class InvalidationTracker {
                 // matched with a corresponding call in mRefreshRunnable.
                 mAutoCloser.incrementCountAndEnsureDbIsOpen();
             }
+            final long coalescingWindowMillis = mCoalescingWindowMillis;
+            if (coalescingWindowMillis > 0) {
+                getHandler().postDelayed(mExecuteRefreshRunnable, coalescingWindowMillis);
+            } else {
+                mDatabase.getQueryExecutor().execute(mRefreshRunnable);
+            }
+        } else {
+            mCoalescedRefreshCount.incrementAndGet();
+        }
+    }
+
+    private final Runnable mExecuteRefreshRunnable = new Runnable() {
+        @Override
+        public void run() {
             mDatabase.getQueryExecutor().execute(mRefreshRunnable);
         }
+    };
+
+    /**
+     * Returns the number of times the tables were checked for changes in order to notify the
+     * observers.
+     *
+     * @return The number of refreshes.
+     */
+    @ExperimentalRoomApi
+    public long getRefreshCount() {
+        return mRefreshCount.get();
+    }
+
+    /**
+     * Returns the number of refresh requests which did not cause a refresh of their own because
+     * another one was already pending, for instance within the coalescing window.
+     *
+     * @return The number of coalesced refresh requests.
+     * @see RoomDatabase.Builder#setInvalidationCoalescingWindow(long, TimeUnit)
+     */
+    @ExperimentalRoomApi
+    public long getCoalescedRefreshCount() {
+        return mCoalescedRefreshCount.get();
+    }
+
+    /**
+     * Returns the number of notifications of rate limited observers which were delayed and
+     * merged into a later one.
+     *
+     * @return The number of rate limited notifications.
+     * @see #addObserver(Observer, long, TimeUnit)
+     */
+    @ExperimentalRoomApi
+    public long getRateLimitedNotificationCount() {
+        return mRateLimitedNotificationCount.get();
+    }
+
+    /**
+     * Returns the number of refreshes which found the change log full. The observers were only
+     * told which tables were invalidated by these refreshes.
+     *
+     * @return The number of change log overflows.
+     * @see RoomDatabase.Builder#enableChangeLog(int)
+     */
+    @ExperimentalRoomApi
+    public long getChangeLogOverflowCount() {
+        return mChangeLogOverflowCount.get();
+    }
+
+    /**
+     * Returns true if the given wrapper is still the one registered for its observer.
+     */
+    @SuppressWarnings("WeakerAccess") /* synthetic access */
+    @SuppressLint("RestrictedApi")
+    boolean isRegistered(ObserverWrapper wrapper) {
+        synchronized (mObserverMap) {
+            for (Map.Entry<Observer, ObserverWrapper> entry : mObserverMap) {
+                if (entry.getValue() == wrapper) {
+                    return true;
+                }
+            }
+            return false;
+        }
     }
 
     /**
@@ -666,9 +944,14 @@ public class InvalidationTracker {
          * based on the given invalid status set.
          *
          * @param invalidatedTablesIds The table ids of the tables that are invalidated.
+         * @param rowChanges           The rows changed in each table, or null if they are not
+         *                             known.
          */
-        void notifyByTableInvalidStatus(Set<Integer> invalidatedTablesIds) {
+        void notifyByTableInvalidStatus(Set<Integer> invalidatedTablesIds,
+                @Nullable Map<Integer, List<RowChange>> rowChanges) {
             Set<String> invalidatedTables = null;
+            Map<String, List<RowChange>> observedRowChanges = null;
+            boolean rowChangesKnown = rowChanges != null;
             final int size = mTableIds.length;
             for (int index = 0; index < size; index++) {
                 final int tableId = mTableIds[index];
@@ -682,10 +965,28 @@ public class InvalidationTracker {
                         }
                         invalidatedTables.add(mTableNames[index]);
                     }
+                    if (rowChangesKnown) {
+                        final List<RowChange> tableChanges = rowChanges.get(tableId);
+                        if (tableChanges == null) {
+                            rowChangesKnown = false;
+                        } else if (size == 1) {
+                            observedRowChanges = Collections.singletonMap(mTableNames[0],
+                                    tableChanges);
+                        } else {
+                            if (observedRowChanges == null) {
+                                observedRowChanges = new HashMap<>(size);
+                            }
+                            observedRowChanges.put(mTableNames[index], tableChanges);
+                        }
+                    }
                 }
             }
             if (invalidatedTables != null) {
-                mObserver.onInvalidated(invalidatedTables);
+                if (rowChangesKnown) {
+                    dispatch(invalidatedTables, Collections.unmodifiableMap(observedRowChanges));
+                } else {
+                    dispatch(invalidatedTables, null);
+                }
             }
         }
 
@@ -720,11 +1021,204 @@ public class InvalidationTracker {
                 }
             }
             if (invalidatedTables != null) {
+                dispatch(invalidatedTables, null);
+            }
+        }
+
+        /**
+         * Delivers the tables invalidated by a refresh to the underlying {@link #mObserver}.
+         *
+         * @param invalidatedTables The names of the observed tables that are invalidated.
+         * @param rowChanges        The rows changed in each of these tables, or null if they are
+         *                          not known.
+         */
+        void dispatch(@NonNull Set<String> invalidatedTables,
+                @Nullable Map<String, List<RowChange>> rowChanges) {
+            if (rowChanges != null) {
+                mObserver.onRowsChanged(rowChanges);
+            } else {
                 mObserver.onInvalidated(invalidatedTables);
             }
         }
     }
 
+    /**
+     * Wraps an observer which is notified at most once per interval. Invalidations arriving
+     * within the interval are merged and delivered together once it has elapsed.
+     */
+    static class RateLimitedObserverWrapper extends ObserverWrapper {
+        private final InvalidationTracker mTracker;
+        private final long mMinIntervalMillis;
+        @GuardedBy("this")
+        private boolean mNotified;
+        @GuardedBy("this")
+        private long mLastNotifyMillis;
+        // Non null while a delayed notification is scheduled.
+        @GuardedBy("this")
+        @Nullable
+        private Set<String> mPendingTables;
+        // The rows changed by the merged invalidations, null once one of them did not know them.
+        @GuardedBy("this")
+        @Nullable
+        private Map<String, List<RowChange>> mPendingRowChanges;
+
+        private final Runnable mFlushRunnable = new Runnable() {
+            @Override
+            public void run() {
+                mTracker.mDatabase.getQueryExecutor().execute(mDeliverRunnable);
+            }
+        };
+
+        private final Runnable mDeliverRunnable = new Runnable() {
+            @Override
+            public void run() {
+                Set<String> tables;
+                Map<String, List<RowChange>> rowChanges;
+                synchronized (RateLimitedObserverWrapper.this) {
+                    tables = mPendingTables;
+                    rowChanges = mPendingRowChanges;
+                    mPendingTables = null;
+                    mPendingRowChanges = null;
+                    mLastNotifyMillis = SystemClock.uptimeMillis();
+                }
+                if (tables == null || !mTracker.isRegistered(RateLimitedObserverWrapper.this)) {
+                    return;
+                }
+                if (rowChanges != null) {
+                    mObserver.onRowsChanged(Collections.unmodifiableMap(rowChanges));
+                } else {
+                    mObserver.onInvalidated(Collections.unmodifiableSet(tables));
+                }
+            }
+        };
+
+        RateLimitedObserverWrapper(InvalidationTracker tracker, Observer observer,
+                int[] tableIds, String[] tableNames, long minIntervalMillis) {
+            super(observer, tableIds, tableNames);
+            mTracker = tracker;
+            mMinIntervalMillis = minIntervalMillis;
+        }
+
+        @Override
+        void dispatch(@NonNull Set<String> invalidatedTables,
+                @Nullable Map<String, List<RowChange>> rowChanges) {
+            synchronized (this) {
+                if (mPendingTables != null) {
+                    mPendingTables.addAll(invalidatedTables);
+                    mergeRowChanges(rowChanges);
+                    mTracker.mRateLimitedNotificationCount.incrementAndGet();
+                    return;
+                }
+                final long now = SystemClock.uptimeMillis();
+                final long elapsed = now - mLastNotifyMillis;
+                if (mNotified && elapsed < mMinIntervalMillis) {
+                    mPendingTables = new HashSet<>(invalidatedTables);
+                    if (rowChanges != null) {
+                        mPendingRowChanges = new HashMap<>();
+                        mergeRowChanges(rowChanges);
+                    }
+                    mTracker.mRateLimitedNotificationCount.incrementAndGet();
+                    mTracker.getHandler().postDelayed(mFlushRunnable,
+                            mMinIntervalMillis - elapsed);
+                    return;
+                }
+                mNotified = true;
+                mLastNotifyMillis = now;
+            }
+            super.dispatch(invalidatedTables, rowChanges);
+        }
+
+        @GuardedBy("this")
+        private void mergeRowChanges(@Nullable Map<String, List<RowChange>> rowChanges) {
+            if (mPendingRowChanges == null) {
+                return;
+            }
+            if (rowChanges == null) {
+                mPendingRowChanges = null;
+                return;
+            }
+            for (Map.Entry<String, List<RowChange>> entry : rowChanges.entrySet()) {
+                List<RowChange> pending = mPendingRowChanges.get(entry.getKey());
+                if (pending == null) {
+                    pending = new ArrayList<>(entry.getValue());
+                    mPendingRowChanges.put(entry.getKey(), pending);
+                } else {
+                    pending.addAll(entry.getValue());
+                }
+            }
+        }
+    }
+
+    /**
+     * A change made to a row of an observed table, as recorded by the change log.
+     *
+     * @see RoomDatabase.Builder#enableChangeLog(int)
+     * @see Observer#onRowsChanged(Map)
+     */
+    public static final class RowChange {
+        /**
+         * The row was inserted.
+         */
+        public static final int OPERATION_INSERT = 1;
+
+        /**
+         * The row was updated.
+         */
+        public static final int OPERATION_UPDATE = 2;
+
+        /**
+         * The row was deleted.
+         */
+        public static final int OPERATION_DELETE = 3;
+
+        private final int mOperation;
+        private final long mRowId;
+
+        RowChange(int operation, long rowId) {
+            mOperation = operation;
+            mRowId = rowId;
+        }
+
+        /**
+         * Returns the kind of change made to the row, one of {@link #OPERATION_INSERT},
+         * {@link #OPERATION_UPDATE} and {@link #OPERATION_DELETE}.
+         *
+         * @return The operation.
+         */
+        public int getOperation() {
+            return mOperation;
+        }
+
+        /**
+         * Returns the rowid of the row. For tables with an {@code INTEGER} primary key, this is
+         * the primary key.
+         *
+         * @return The rowid of the changed row.
+         */
+        public long getRowId() {
+            return mRowId;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            RowChange rowChange = (RowChange) o;
+            return mOperation == rowChange.mOperation && mRowId == rowChange.mRowId;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * mOperation + (int) (mRowId ^ (mRowId >>> 32));
+        }
+
+        @NonNull
+        @Override
+        public String toString() {
+            return "RowChange{operation=" + mOperation + ", rowId=" + mRowId + "}";
+        }
+    }
+
     /**
      * An observer that can listen for changes in the database.
      */
@@ -762,6 +1256,28 @@ public class InvalidationTracker {
          */
         public abstract void onInvalidated(@NonNull Set<String> tables);
 
+        /**
+         * Called instead of {@link #onInvalidated(Set)} when the database records the changed
+         * rows and all of them are known.
+         * <p>
+         * The rows are reported by their rowid, in the order of the changes, for each invalidated
+         * table. A row changed several times is reported for each change. When too many rows
+         * changed for the change log, or when the tables were invalidated by another instance of
+         * the database, {@link #onInvalidated(Set)} is called instead and the observer should
+         * re-query the tables.
+         * <p>
+         * The default implementation calls {@link #onInvalidated(Set)} with the invalidated
+         * tables.
+         *
+         * @param rowChanges The changed rows, by invalidated table. The keys are the same names
+         *                   {@link #onInvalidated(Set)} would receive.
+         * @see RoomDatabase.Builder#enableChangeLog(int)
+         */
+        @ExperimentalRoomApi
+        public void onRowsChanged(@NonNull Map<String, List<RowChange>> rowChanges) {
+            onInvalidated(rowChanges.keySet());
+        }
+
         boolean isRemote() {
             return false;
         }
@@ -913,5 +1429,15 @@ public class InvalidationTracker {
                 observer.onInvalidated(tables);
             }
         }
+
+        @Override
+        public void onRowsChanged(@NonNull Map<String, List<RowChange>> rowChanges) {
+            final Observer observer = mDelegateRef.get();
+            if (observer == null) {
+                mTracker.removeObserver(this);
+            } else {
+                observer.onRowsChanged(rowChanges);
+            }
+        }
     }
 }
@@ -0,0 +1,343 @@
+/*
+ * Copyright 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.room;
+
+import android.database.Cursor;
+import android.database.CursorWrapper;
+import android.os.Build;
+import android.os.CancellationSignal;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+import androidx.sqlite.db.SupportSQLiteOpenHelper;
+import androidx.sqlite.db.SupportSQLiteQuery;
+
+import java.util.ArrayDeque;
+import java.util.Locale;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A fixed size pool of connections used to read a database in write-ahead logging mode.
+ * <p>
+ * Each connection is opened lazily, through its own {@link SupportSQLiteOpenHelper}, the first
+ * time all the opened ones are busy. Under WAL, readers do not block each other nor the writer,
+ * so queries running on different connections of the pool proceed concurrently while the
+ * writer connection is left to transactions and writes.
+ * <p>
+ * A connection is leased to a thread until the cursor of its query is closed. A thread which
+ * already holds a connection gets the same one back for nested queries (as done while fetching
+ * relations), so it never waits for itself. Threads which find every connection leased wait for
+ * one to be released and the time they spent waiting is reported by {@link #getStats()}.
+ */
+final class ReadConnectionPool {
+    private final SupportSQLiteOpenHelper.Factory mFactory;
+    private final SupportSQLiteOpenHelper.Configuration mConfiguration;
+    private final int mPoolSize;
+
+    private final ReentrantLock mLock = new ReentrantLock();
+    private final Condition mAvailable = mLock.newCondition();
+    private final ArrayDeque<Connection> mIdleConnections = new ArrayDeque<>();
+    private final ThreadLocal<Connection> mThreadConnection = new ThreadLocal<>();
+    // Guarded by mLock.
+    private int mOpenedCount;
+    private int mLeasedCount;
+    private int mMaxLeasedCount;
+    private long mAcquiredCount;
+    private long mContendedCount;
+    private long mTotalWaitNanos;
+    private long mMaxWaitNanos;
+    // Incremented by close(), connections opened before that are closed once released.
+    private int mGeneration;
+    @Nullable
+    private volatile StatementCacheTracker mStatementCacheTracker;
+
+    /**
+     * @param factory       The factory which opens the reader connections.
+     * @param configuration The configuration of the writer's open helper. Readers open the same
+     *                      database but never create or migrate it.
+     * @param poolSize      The maximum number of reader connections.
+     */
+    ReadConnectionPool(@NonNull SupportSQLiteOpenHelper.Factory factory,
+            @NonNull SupportSQLiteOpenHelper.Configuration configuration, int poolSize) {
+        if (poolSize < 1) {
+            throw new IllegalArgumentException("poolSize must be >= 1");
+        }
+        mFactory = factory;
+        mConfiguration = SupportSQLiteOpenHelper.Configuration.builder(configuration.context)
+                .name(configuration.name)
+                .noBackupDirectory(configuration.useNoBackupDirectory)
+                .callback(new ReaderCallback(configuration.callback.version))
+                .build();
+        mPoolSize = poolSize;
+    }
+
+    /**
+     * Returns true if the given SQL statement is a plain query which can be served by a reader.
+     */
+    static boolean isReadOnly(@NonNull String sql) {
+        int start = 0;
+        while (start < sql.length() && Character.isWhitespace(sql.charAt(start))) {
+            start++;
+        }
+        return sql.regionMatches(true, start, "SELECT", 0, 6);
+    }
+
+    /**
+     * Sets the tracker which sizes the prepared statement cache of the connections. This must be
+     * called before the pool is used.
+     */
+    void setStatementCacheTracker(@NonNull StatementCacheTracker tracker) {
+        mStatementCacheTracker = tracker;
+    }
+
+    /**
+     * Runs the given query on a reader connection. The connection is released when the returned
+     * cursor is closed.
+     */
+    @NonNull
+    Cursor query(@NonNull SupportSQLiteQuery query, @Nullable CancellationSignal signal) {
+        Connection connection = acquire();
+        try {
+            if (connection.mStatementCache != null) {
+                connection.mStatementCache.onStatement(query.getSql());
+            }
+            Cursor cursor;
+            if (signal != null && Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
+                cursor = connection.mDatabase.query(query, signal);
+            } else {
+                cursor = connection.mDatabase.query(query);
+            }
+            return new ReleasingCursor(cursor, connection);
+        } catch (RuntimeException e) {
+            release(connection);
+            throw e;
+        }
+    }
+
+    /**
+     * Closes the idle connections. Leased connections are closed when they are released. Like
+     * the writer's open helper, the pool opens new connections if it is used again afterwards.
+     */
+    void close() {
+        mLock.lock();
+        try {
+            mGeneration++;
+            while (!mIdleConnections.isEmpty()) {
+                mIdleConnections.poll().mOpenHelper.close();
+                mOpenedCount--;
+            }
+            mAvailable.signalAll();
+        } finally {
+            mLock.unlock();
+        }
+    }
+
+    @NonNull
+    RoomDatabase.ReadConnectionPoolStats getStats() {
+        mLock.lock();
+        try {
+            return new RoomDatabase.ReadConnectionPoolStats(mPoolSize, mOpenedCount, mLeasedCount,
+                    mMaxLeasedCount, mAcquiredCount, mContendedCount, mTotalWaitNanos,
+                    mMaxWaitNanos);
+        } finally {
+            mLock.unlock();
+        }
+    }
+
+    @NonNull
+    private Connection acquire() {
+        final Thread thread = Thread.currentThread();
+        final long start = System.nanoTime();
+        boolean open = false;
+        boolean waited = false;
+        int generation;
+        Connection connection;
+        mLock.lock();
+        try {
+            connection = mThreadConnection.get();
+            if (connection != null && connection.mOwner == thread) {
+                connection.mHoldCount++;
+                return connection;
+            }
+            while (true) {
+                connection = mIdleConnections.poll();
+                if (connection != null) {
+                    break;
+                }
+                if (mOpenedCount < mPoolSize) {
+                    mOpenedCount++;
+                    open = true;
+                    break;
+                }
+                waited = true;
+                mAvailable.awaitUninterruptibly();
+            }
+            generation = mGeneration;
+            mLeasedCount++;
+            mMaxLeasedCount = Math.max(mMaxLeasedCount, mLeasedCount);
+            mAcquiredCount++;
+            if (waited) {
+                long waitNanos = System.nanoTime() - start;
+                mContendedCount++;
+                mTotalWaitNanos += waitNanos;
+                mMaxWaitNanos = Math.max(mMaxWaitNanos, waitNanos);
+            }
+        } finally {
+            mLock.unlock();
+        }
+        if (open) {
+            // Opening a connection can take a while, the lock is not held so that other threads
+            // can keep using the connections which are already open.
+            try {
+                connection = openConnection(generation);
+            } catch (RuntimeException e) {
+                mLock.lock();
+                try {
+                    mOpenedCount--;
+                    mLeasedCount--;
+                    mAvailable.signal();
+                } finally {
+                    mLock.unlock();
+                }
+                throw e;
+            }
+        }
+        mLock.lock();
+        try {
+            connection.mOwner = thread;
+            connection.mHoldCount = 1;
+        } finally {
+            mLock.unlock();
+        }
+        mThreadConnection.set(connection);
+        return connection;
+    }
+
+    @SuppressWarnings("WeakerAccess") /* synthetic access */
+    void release(@NonNull Connection connection) {
+        mLock.lock();
+        try {
+            if (--connection.mHoldCount > 0) {
+                return;
+            }
+            connection.mOwner = null;
+            mLeasedCount--;
+            if (connection.mGeneration != mGeneration) {
+                connection.mOpenHelper.close();
+                mOpenedCount--;
+            } else {
+                mIdleConnections.push(connection);
+            }
+            mAvailable.signal();
+        } finally {
+            mLock.unlock();
+        }
+    }
+
+    @NonNull
+    private Connection openConnection(int generation) {
+        SupportSQLiteOpenHelper openHelper = mFactory.create(mConfiguration);
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
+            // Opening the file in any other journal mode would take it out of WAL.
+            openHelper.setWriteAheadLoggingEnabled(true);
+        }
+        try {
+            final SupportSQLiteDatabase db = openHelper.getWritableDatabase();
+            final StatementCacheTracker tracker = mStatementCacheTracker;
+            return new Connection(openHelper, db, generation,
+                    tracker == null ? null : tracker.onReaderOpened(db));
+        } catch (RuntimeException e) {
+            openHelper.close();
+            throw e;
+        }
+    }
+
+    static final class Connection {
+        final SupportSQLiteOpenHelper mOpenHelper;
+        final SupportSQLiteDatabase mDatabase;
+        final int mGeneration;
+        @Nullable
+        final StatementCacheTracker.ConnectionCache mStatementCache;
+        // Guarded by the pool's lock.
+        Thread mOwner;
+        int mHoldCount;
+
+        Connection(SupportSQLiteOpenHelper openHelper, SupportSQLiteDatabase database,
+                int generation, @Nullable StatementCacheTracker.ConnectionCache statementCache) {
+            mOpenHelper = openHelper;
+            mDatabase = database;
+            mGeneration = generation;
+            mStatementCache = statementCache;
+        }
+    }
+
+    /**
+     * A cursor which releases the connection it was read from once it is closed.
+     */
+    private final class ReleasingCursor extends CursorWrapper {
+        private final Connection mConnection;
+        private boolean mReleased;
+
+        ReleasingCursor(Cursor cursor, Connection connection) {
+            super(cursor);
+            mConnection = connection;
+        }
+
+        @Override
+        public void close() {
+            try {
+                super.close();
+            } finally {
+                if (!mReleased) {
+                    mReleased = true;
+                    release(mConnection);
+                }
+            }
+        }
+    }
+
+    /**
+     * The callback of reader connections. The writer opens the database, and creates or migrates
+     * it, before any reader is opened so readers always find the expected version. RoomDatabase
+     * ensures this by opening the writer before it runs a query on this pool.
+     */
+    private static final class ReaderCallback extends SupportSQLiteOpenHelper.Callback {
+        ReaderCallback(int version) {
+            super(version);
+        }
+
+        @Override
+        public void onCreate(@NonNull SupportSQLiteDatabase db) {
+            throw new IllegalStateException("A read connection cannot create the database.");
+        }
+
+        @Override
+        public void onUpgrade(@NonNull SupportSQLiteDatabase db, int oldVersion,
+                int newVersion) {
+            throw new IllegalStateException(String.format(Locale.US, "A read connection cannot "
+                    + "migrate the database from version %d to %d.", oldVersion, newVersion));
+        }
+
+        @Override
+        public void onDowngrade(@NonNull SupportSQLiteDatabase db, int oldVersion,
+                int newVersion) {
+            onUpgrade(db, oldVersion, newVersion);
+        }
+    }
+}
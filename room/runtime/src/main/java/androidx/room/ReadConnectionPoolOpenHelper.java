@@ -0,0 +1,86 @@
+/*
+ * Copyright 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.room;
+
+import android.os.Build;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.RequiresApi;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+import androidx.sqlite.db.SupportSQLiteOpenHelper;
+
+/**
+ * A SupportSQLiteOpenHelper which owns a {@link ReadConnectionPool} next to the writer
+ * connection, so that both are closed together.
+ */
+final class ReadConnectionPoolOpenHelper implements SupportSQLiteOpenHelper,
+        DelegatingOpenHelper {
+    @NonNull
+    private final SupportSQLiteOpenHelper mDelegate;
+
+    @NonNull
+    private final ReadConnectionPool mReadConnectionPool;
+
+    ReadConnectionPoolOpenHelper(@NonNull SupportSQLiteOpenHelper supportSQLiteOpenHelper,
+            @NonNull ReadConnectionPool readConnectionPool) {
+        mDelegate = supportSQLiteOpenHelper;
+        mReadConnectionPool = readConnectionPool;
+    }
+
+    @Nullable
+    @Override
+    public String getDatabaseName() {
+        return mDelegate.getDatabaseName();
+    }
+
+    @RequiresApi(api = Build.VERSION_CODES.JELLY_BEAN)
+    @Override
+    public void setWriteAheadLoggingEnabled(boolean enabled) {
+        mDelegate.setWriteAheadLoggingEnabled(enabled);
+    }
+
+    @Override
+    public SupportSQLiteDatabase getWritableDatabase() {
+        return mDelegate.getWritableDatabase();
+    }
+
+    @Override
+    public SupportSQLiteDatabase getReadableDatabase() {
+        return mDelegate.getReadableDatabase();
+    }
+
+    @Override
+    public void close() {
+        mReadConnectionPool.close();
+        mDelegate.close();
+    }
+
+    /**
+     * package protected to pass it to the database...
+     */
+    @NonNull
+    ReadConnectionPool getReadConnectionPool() {
+        return mReadConnectionPool;
+    }
+
+    @Override
+    @NonNull
+    public SupportSQLiteOpenHelper getDelegate() {
+        return mDelegate;
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.room;
+
+import androidx.annotation.NonNull;
+import androidx.sqlite.db.SupportSQLiteOpenHelper;
+
+/**
+ * Factory class for ReadConnectionPoolOpenHelper
+ */
+final class ReadConnectionPoolOpenHelperFactory implements SupportSQLiteOpenHelper.Factory {
+    @NonNull
+    private final SupportSQLiteOpenHelper.Factory mDelegate;
+
+    @NonNull
+    private final SupportSQLiteOpenHelper.Factory mReaderFactory;
+
+    private final int mPoolSize;
+
+    /**
+     * @param factory       The factory of the writer connection.
+     * @param readerFactory The factory of the reader connections.
+     * @param poolSize      The maximum number of reader connections.
+     */
+    ReadConnectionPoolOpenHelperFactory(
+            @NonNull SupportSQLiteOpenHelper.Factory factory,
+            @NonNull SupportSQLiteOpenHelper.Factory readerFactory,
+            int poolSize) {
+        mDelegate = factory;
+        mReaderFactory = readerFactory;
+        mPoolSize = poolSize;
+    }
+
+    /**
+     * @return ReadConnectionPoolOpenHelper instances.
+     */
+    @Override
+    @NonNull
+    public ReadConnectionPoolOpenHelper create(
+            @NonNull SupportSQLiteOpenHelper.Configuration configuration) {
+        return new ReadConnectionPoolOpenHelper(mDelegate.create(configuration),
+                new ReadConnectionPool(mReaderFactory, configuration, mPoolSize));
+    }
+}
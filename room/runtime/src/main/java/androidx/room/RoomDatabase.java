@@ -86,7 +86,7 @@ public abstract class RoomDatabase {
     @Deprecated
     protected volatile SupportSQLiteDatabase mDatabase;
     private Executor mQueryExecutor;
-    private Executor mTransactionExecutor;
+    private TransactionExecutor mTransactionExecutor;
     private SupportSQLiteOpenHelper mOpenHelper;
     private final InvalidationTracker mInvalidationTracker;
     private boolean mAllowMainThreadQueries;
@@ -114,6 +114,12 @@ public abstract class RoomDatabase {
     @Nullable
     private AutoCloser mAutoCloser;
 
+    @Nullable
+    private ReadConnectionPool mReadConnectionPool;
+
+    @Nullable
+    private StatementCacheTracker mStatementCacheTracker;
+
     /**
      * {@link InvalidationTracker} uses this lock to prevent the database from closing while it is
      * querying database updates.
@@ -251,6 +257,11 @@ public abstract class RoomDatabase {
             mInvalidationTracker.setAutoCloser(mAutoCloser);
         }
 
+        ReadConnectionPoolOpenHelper readConnectionPoolOpenHelper =
+                unwrapOpenHelper(ReadConnectionPoolOpenHelper.class, mOpenHelper);
+        if (readConnectionPoolOpenHelper != null) {
+            mReadConnectionPool = readConnectionPoolOpenHelper.getReadConnectionPool();
+        }
 
         boolean wal = false;
         if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
@@ -497,7 +508,13 @@ public abstract class RoomDatabase {
      */
     @NonNull
     public Cursor query(@NonNull String query, @Nullable Object[] args) {
-        return mOpenHelper.getWritableDatabase().query(new SimpleSQLiteQuery(query, args));
+        SimpleSQLiteQuery sqLiteQuery = new SimpleSQLiteQuery(query, args);
+        if (useReadConnectionPool(sqLiteQuery)) {
+            return mReadConnectionPool.query(sqLiteQuery, null);
+        }
+        final SupportSQLiteDatabase db = mOpenHelper.getWritableDatabase();
+        onWriterStatement(query);
+        return db.query(sqLiteQuery);
     }
 
     /**
@@ -522,13 +539,86 @@ public abstract class RoomDatabase {
     public Cursor query(@NonNull SupportSQLiteQuery query, @Nullable CancellationSignal signal) {
         assertNotMainThread();
         assertNotSuspendingTransaction();
+        if (useReadConnectionPool(query)) {
+            return mReadConnectionPool.query(query, signal);
+        }
+        final SupportSQLiteDatabase db = mOpenHelper.getWritableDatabase();
+        onWriterStatement(query.getSql());
         if (signal != null && Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
-            return mOpenHelper.getWritableDatabase().query(query, signal);
+            return db.query(query, signal);
         } else {
-            return mOpenHelper.getWritableDatabase().query(query);
+            return db.query(query);
+        }
+    }
+
+    /**
+     * Returns true if the query can be run on a connection of the read connection pool: the pool
+     * is enabled, the query does not write and the current thread is not in a transaction, whose
+     * changes and locks are only visible to the writer connection.
+     * <p>
+     * This also opens the writer connection before any reader is used. Readers cannot create or
+     * migrate the database: opening the writer does, so it has to happen first.
+     */
+    private boolean useReadConnectionPool(@NonNull SupportSQLiteQuery query) {
+        if (mReadConnectionPool == null || !ReadConnectionPool.isReadOnly(query.getSql())) {
+            return false;
+        }
+        // A no-op once the writer is open.
+        final SupportSQLiteDatabase writer = mOpenHelper.getWritableDatabase();
+        return !writer.inTransaction();
+    }
+
+    /**
+     * Records a statement run on the writer connection. This must be called once the writer is
+     * open, as opening it resets the tracked cache of the connection.
+     */
+    private void onWriterStatement(@NonNull String sql) {
+        final StatementCacheTracker tracker = mStatementCacheTracker;
+        if (tracker != null) {
+            tracker.onWriterStatement(sql);
+        }
+    }
+
+    /**
+     * Sets the size of the prepared statement cache of each connection.
+     * <p>
+     * This must be called before the database is opened.
+     */
+    void setPreparedStatementCacheSize(int cacheSize) {
+        mStatementCacheTracker = new StatementCacheTracker(cacheSize);
+        if (mReadConnectionPool != null) {
+            mReadConnectionPool.setStatementCacheTracker(mStatementCacheTracker);
         }
     }
 
+    /**
+     * Returns a snapshot of the estimated statistics of the prepared statement caches of the
+     * connections, or {@code null} if their size was not set.
+     *
+     * @return The statistics of the prepared statement caches.
+     * @see Builder#setPreparedStatementCacheSize(int)
+     */
+    @Nullable
+    @ExperimentalRoomApi
+    public PreparedStatementCacheStats getPreparedStatementCacheStats() {
+        final StatementCacheTracker tracker = mStatementCacheTracker;
+        return tracker == null ? null : tracker.getStats();
+    }
+
+    /**
+     * Returns a snapshot of the statistics of the read connection pool, or {@code null} if this
+     * database does not use one.
+     *
+     * @return The statistics of the read connection pool.
+     * @see Builder#setReadConnectionPoolSize(int)
+     */
+    @Nullable
+    @ExperimentalRoomApi
+    public ReadConnectionPoolStats getReadConnectionPoolStats() {
+        final ReadConnectionPool pool = mReadConnectionPool;
+        return pool == null ? null : pool.getStats();
+    }
+
     /**
      * Wrapper for {@link SupportSQLiteDatabase#compileStatement(String)}.
      *
@@ -538,7 +628,9 @@ public abstract class RoomDatabase {
     public SupportSQLiteStatement compileStatement(@NonNull String sql) {
         assertNotMainThread();
         assertNotSuspendingTransaction();
-        return mOpenHelper.getWritableDatabase().compileStatement(sql);
+        final SupportSQLiteDatabase db = mOpenHelper.getWritableDatabase();
+        onWriterStatement(sql);
+        return db.compileStatement(sql);
     }
 
     /**
@@ -562,6 +654,11 @@ public abstract class RoomDatabase {
     private void internalBeginTransaction() {
         assertNotMainThread();
         SupportSQLiteDatabase database = mOpenHelper.getWritableDatabase();
+        GroupCommit groupCommit = mTransactionExecutor.getCurrentGroupCommit();
+        if (groupCommit != null) {
+            groupCommit.beginSavepoint(database);
+            return;
+        }
         mInvalidationTracker.syncTriggers(database);
         if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN
                 && database.isWriteAheadLoggingEnabled()) {
@@ -589,6 +686,12 @@ public abstract class RoomDatabase {
     }
 
     private void internalEndTransaction() {
+        GroupCommit groupCommit = mTransactionExecutor.getCurrentGroupCommit();
+        if (groupCommit != null) {
+            // The group commit refreshes the invalidation tracker once it ends.
+            groupCommit.endSavepoint(mOpenHelper.getWritableDatabase());
+            return;
+        }
         mOpenHelper.getWritableDatabase().endTransaction();
         if (!inTransaction()) {
             // enqueue refresh only if we are NOT in a transaction. Otherwise, wait for the last
@@ -620,9 +723,34 @@ public abstract class RoomDatabase {
      */
     @Deprecated
     public void setTransactionSuccessful() {
+        GroupCommit groupCommit = mTransactionExecutor.getCurrentGroupCommit();
+        if (groupCommit != null) {
+            groupCommit.setSavepointSuccessful();
+            return;
+        }
         mOpenHelper.getWritableDatabase().setTransactionSuccessful();
     }
 
+    /**
+     * Returns the group commit in which the calling thread runs a write, or null if it does not.
+     *
+     * @return The group commit of the calling thread.
+     * @see Builder#enableGroupCommit(long, TimeUnit)
+     * @hide
+     */
+    @Nullable
+    @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP_PREFIX)
+    public GroupCommit getCurrentGroupCommit() {
+        return mTransactionExecutor.getCurrentGroupCommit();
+    }
+
+    /**
+     * Makes the transaction executor run its runnables in group commits.
+     */
+    void enableGroupCommit(long windowMillis) {
+        mTransactionExecutor.enableGroupCommit(this, windowMillis);
+    }
+
     /**
      * Executes the specified {@link Runnable} in a database transaction. The transaction will be
      * marked as successful unless an exception is thrown in the {@link Runnable}.
@@ -677,6 +805,9 @@ public abstract class RoomDatabase {
      * @param db The database instance.
      */
     protected void internalInitInvalidationTracker(@NonNull SupportSQLiteDatabase db) {
+        if (mStatementCacheTracker != null) {
+            mStatementCacheTracker.onWriterOpened(db);
+        }
         mInvalidationTracker.internalInit(db);
     }
 
@@ -788,6 +919,16 @@ public abstract class RoomDatabase {
         private long mAutoCloseTimeout = -1L;
         private TimeUnit mAutoCloseTimeUnit;
 
+        private int mReadConnectionPoolSize;
+
+        private long mInvalidationCoalescingWindowMillis;
+
+        private int mChangeLogLimit;
+
+        private int mPreparedStatementCacheSize;
+
+        private long mGroupCommitWindowMillis = -1L;
+
         /**
          * Migrations, mapped by from-to pairs.
          */
@@ -1345,6 +1486,174 @@ public abstract class RoomDatabase {
             return this;
         }
 
+        /**
+         * Enables a pool of connections dedicated to reading the database, next to the single
+         * connection used for writes and transactions.
+         * <p>
+         * In {@link JournalMode#WRITE_AHEAD_LOGGING write-ahead logging} mode, readers do not
+         * block each other nor the writer. Room runs the {@code SELECT} queries made outside of
+         * a transaction on a connection of the pool, so that up to {@code poolSize} of them can
+         * run concurrently with each other and with a write transaction. Queries made in a
+         * transaction keep running on the writer connection, where they see the changes of the
+         * transaction. Each connection is opened the first time it is needed and is held by the
+         * query until its cursor is closed. A thread which runs a query while all of the
+         * connections are held waits for one to be released; these waits are reported by
+         * {@link RoomDatabase#getReadConnectionPoolStats()}.
+         * <p>
+         * Connections of the pool are separate from the writer connection, they do not see its
+         * temp tables and temp triggers nor the configuration applied to it in
+         * {@link RoomDatabase.Callback#onOpen}.
+         * <p>
+         * The pool is only used in write-ahead logging mode. It is not compatible with in-memory
+         * databases, whose connections cannot share data, nor with
+         * {@link #setAutoCloseTimeout(long, TimeUnit) auto-closing}.
+         *
+         * @param poolSize the maximum number of read connections, 0 disables the pool.
+         * @return This {@link Builder} instance
+         */
+        @NonNull
+        @SuppressWarnings("MissingGetterMatchingBuilder")
+        @ExperimentalRoomApi // When experimental is removed, add this parameter to
+        // DatabaseConfiguration
+        public Builder<T> setReadConnectionPoolSize(@IntRange(from = 0) int poolSize) {
+            if (poolSize < 0) {
+                throw new IllegalArgumentException("poolSize must be >= 0");
+            }
+            mReadConnectionPoolSize = poolSize;
+            return this;
+        }
+
+        /**
+         * Sets a window during which the invalidations of the database are coalesced.
+         * <p>
+         * By default, the {@link InvalidationTracker} checks which tables changed as soon as a
+         * transaction ends, and notifies the observers of these tables, including the
+         * {@code LiveData} and other observable queries, which then
+         * run their query again. When many small transactions are made in a burst, this causes as
+         * many refreshes of the observers. With a coalescing window, the check is delayed by the
+         * given amount of time and covers every transaction ending in the meantime, so observers
+         * are notified once, with all of the tables invalidated by the burst. The number of
+         * refreshes saved this way is reported by
+         * {@link InvalidationTracker#getCoalescedRefreshCount()}.
+         * <p>
+         * Observers which only need a lower refresh rate can be rate limited individually with
+         * {@link InvalidationTracker#addObserver(InvalidationTracker.Observer, long, TimeUnit)}.
+         *
+         * @param coalescingWindow The delay of the invalidation checks, 0 to check right away.
+         * @param timeUnit         The time unit of {@code coalescingWindow}.
+         * @return This {@link Builder} instance
+         */
+        @NonNull
+        @SuppressWarnings("MissingGetterMatchingBuilder")
+        @ExperimentalRoomApi
+        public Builder<T> setInvalidationCoalescingWindow(
+                @IntRange(from = 0) long coalescingWindow, @NonNull TimeUnit timeUnit) {
+            if (coalescingWindow < 0) {
+                throw new IllegalArgumentException("coalescingWindow must be >= 0");
+            }
+            mInvalidationCoalescingWindowMillis = timeUnit.toMillis(coalescingWindow);
+            return this;
+        }
+
+        /**
+         * Enables the change log of the {@link InvalidationTracker}.
+         * <p>
+         * By default, the tracker only records which tables changed, so observers have to query
+         * them again to find what changed. With the change log, the tracker also records the
+         * rowid of each row inserted, updated or deleted in an observed table, and the kind of
+         * change. Observers receive these rows in
+         * {@link InvalidationTracker.Observer#onRowsChanged(Map)}, which lets them apply the
+         * changes to the data they hold rather than reload it.
+         * <p>
+         * Recording a row adds a small cost to each write of an observed table. At most
+         * {@code maxRowChanges} rows are recorded between two notifications of the observers.
+         * Beyond that, observers are only told which tables changed, as if the change log was
+         * disabled, and {@link InvalidationTracker#getChangeLogOverflowCount()} is incremented.
+         *
+         * @param maxRowChanges The maximum number of changed rows recorded between two
+         *                      notifications.
+         * @return This {@link Builder} instance
+         */
+        @NonNull
+        @ExperimentalRoomApi
+        public Builder<T> enableChangeLog(@IntRange(from = 1) int maxRowChanges) {
+            if (maxRowChanges < 1) {
+                throw new IllegalArgumentException("maxRowChanges must be >= 1");
+            }
+            mChangeLogLimit = maxRowChanges;
+            return this;
+        }
+
+        /**
+         * Sets how many prepared statements each connection to the database keeps compiled.
+         * <p>
+         * Compiling a statement can take as long as running it, for simple queries such as
+         * lookups by primary key. Each connection keeps the statements it compiled in a least
+         * recently used cache, keyed by their SQL, and runs the same SQL again without compiling
+         * it. The cache holds 25 statements by default, which an application running more
+         * distinct queries in turn keeps evicting. The cache is emptied when its connection
+         * closes, and SQLite compiles a cached statement again if the schema changed since.
+         * <p>
+         * When set, the size applies to the writer connection and to the connections of the
+         * {@link #setReadConnectionPoolSize(int) read connection pool}, and
+         * {@link RoomDatabase#getPreparedStatementCacheStats()} estimates how often the caches
+         * are hit from the SQL Room runs on each connection.
+         *
+         * @param cacheSize The number of prepared statements cached by each connection, at most
+         *                  100.
+         * @return This {@link Builder} instance
+         */
+        @NonNull
+        @SuppressWarnings("MissingGetterMatchingBuilder")
+        @ExperimentalRoomApi
+        public Builder<T> setPreparedStatementCacheSize(
+                @IntRange(from = 1, to = 100) int cacheSize) {
+            if (cacheSize < 1 || cacheSize > 100) {
+                throw new IllegalArgumentException("cacheSize must be between 1 and 100");
+            }
+            mPreparedStatementCacheSize = cacheSize;
+            return this;
+        }
+
+        /**
+         * Makes the {@link #setTransactionExecutor(Executor) transaction executor} commit the
+         * writes it runs in groups.
+         * <p>
+         * By default, each write run on the transaction executor, such as a suspending
+         * {@link Insert} method or one returning a {@code ListenableFuture}, is its own
+         * transaction, and committing it waits for the journal to be synced to disk. When many
+         * small writes are made concurrently, syncing limits how many can be made per second.
+         * With group commit, the executor runs the writes queued while the previous group ran,
+         * and those queued within {@code window} after the group started, in a single
+         * transaction, so they are synced once. Each write runs in a savepoint of that
+         * transaction, so a write which fails does not affect the other writes of its group.
+         * <p>
+         * Suspending DAO methods and those returning a {@code ListenableFuture} only complete once
+         * the group of their write is committed, and fail if it could not be. Other code run on
+         * the transaction executor, such as {@link #runInTransaction(Runnable)} called from a
+         * runnable given to it, does not wait for the commit, so its changes may not yet be
+         * visible to other threads when it returns.
+         * <p>
+         * While a group is open, including during its window, it holds the database for writing,
+         * so writes made on other threads wait for it. The window should be short, a few
+         * milliseconds at most, and can be 0 to only group the writes queued while the previous
+         * group ran.
+         *
+         * @param window   How long a group waits for more writes once started.
+         * @param timeUnit The time unit of {@code window}.
+         * @return This {@link Builder} instance
+         */
+        @NonNull
+        @ExperimentalRoomApi
+        public Builder<T> enableGroupCommit(@IntRange(from = 0) long window,
+                @NonNull TimeUnit timeUnit) {
+            if (window < 0) {
+                throw new IllegalArgumentException("window must be >= 0");
+            }
+            mGroupCommitWindowMillis = timeUnit.toMillis(window);
+            return this;
+        }
+
         /**
          * Creates the databases and initializes it.
          * <p>
@@ -1396,6 +1705,10 @@ public abstract class RoomDatabase {
             } else {
                 factory = mFactory;
             }
+            // Readers of the pool open the database after the writer, which has already created
+            // or copied and migrated it.
+            SupportSQLiteOpenHelper.Factory readerFactory = factory;
+            JournalMode journalMode = mJournalMode.resolve(mContext);
 
             if (mAutoCloseTimeout > 0) {
                 if (mName == null) {
@@ -1433,6 +1746,29 @@ public abstract class RoomDatabase {
             if (mQueryCallback != null) {
                 factory = new QueryInterceptorOpenHelperFactory(factory, mQueryCallback,
                         mQueryCallbackExecutor);
+                readerFactory = new QueryInterceptorOpenHelperFactory(readerFactory,
+                        mQueryCallback, mQueryCallbackExecutor);
+            }
+
+            if (mReadConnectionPoolSize > 0) {
+                if (mName == null) {
+                    throw new IllegalArgumentException("Cannot create a read connection pool for "
+                            + "an in-memory database.");
+                }
+                if (autoCloser != null) {
+                    throw new IllegalArgumentException("Cannot create a read connection pool for "
+                            + "an auto-closing database.");
+                }
+                if (mJournalMode == JournalMode.TRUNCATE) {
+                    throw new IllegalArgumentException("Cannot create a read connection pool for "
+                            + "a database which does not use write-ahead logging.");
+                }
+                // JournalMode.AUTOMATIC falls back to TRUNCATE on low-RAM devices, which simply
+                // run without the pool.
+                if (journalMode == JournalMode.WRITE_AHEAD_LOGGING) {
+                    factory = new ReadConnectionPoolOpenHelperFactory(factory, readerFactory,
+                            mReadConnectionPoolSize);
+                }
             }
 
             DatabaseConfiguration configuration =
@@ -1443,7 +1779,7 @@ public abstract class RoomDatabase {
                             mMigrationContainer,
                             mCallbacks,
                             mAllowMainThreadQueries,
-                            mJournalMode.resolve(mContext),
+                            journalMode,
                             mQueryExecutor,
                             mTransactionExecutor,
                             mMultiInstanceInvalidation,
@@ -1458,6 +1794,19 @@ public abstract class RoomDatabase {
                             mAutoMigrationSpecs);
             T db = Room.getGeneratedImplementation(mDatabaseClass, DB_IMPL_SUFFIX);
             db.init(configuration);
+            if (mInvalidationCoalescingWindowMillis > 0) {
+                db.getInvalidationTracker().setCoalescingWindow(
+                        mInvalidationCoalescingWindowMillis);
+            }
+            if (mChangeLogLimit > 0) {
+                db.getInvalidationTracker().setChangeLogLimit(mChangeLogLimit);
+            }
+            if (mPreparedStatementCacheSize > 0) {
+                db.setPreparedStatementCacheSize(mPreparedStatementCacheSize);
+            }
+            if (mGroupCommitWindowMillis >= 0) {
+                db.enableGroupCommit(mGroupCommitWindowMillis);
+            }
             return db;
         }
     }
@@ -1648,4 +1997,151 @@ public abstract class RoomDatabase {
         void onQuery(@NonNull String sqlQuery, @NonNull List<Object>
                 bindArgs);
     }
+
+    /**
+     * Estimated statistics of the prepared statement caches of the connections to a database, as
+     * returned by {@link RoomDatabase#getPreparedStatementCacheStats()}.
+     *
+     * @see RoomDatabase.Builder#setPreparedStatementCacheSize(int)
+     */
+    public static final class PreparedStatementCacheStats {
+        private final int mCacheSize;
+        private final long mHitCount;
+        private final long mMissCount;
+        private final long mEvictionCount;
+
+        PreparedStatementCacheStats(int cacheSize, long hitCount, long missCount,
+                long evictionCount) {
+            mCacheSize = cacheSize;
+            mHitCount = hitCount;
+            mMissCount = missCount;
+            mEvictionCount = evictionCount;
+        }
+
+        /** Returns the number of prepared statements cached by each connection. */
+        public int getCacheSize() {
+            return mCacheSize;
+        }
+
+        /** Returns the number of statements which were found compiled in the cache. */
+        public long getHitCount() {
+            return mHitCount;
+        }
+
+        /** Returns the number of statements which had to be compiled. */
+        public long getMissCount() {
+            return mMissCount;
+        }
+
+        /** Returns the number of statements evicted from a full cache. */
+        public long getEvictionCount() {
+            return mEvictionCount;
+        }
+
+        /** Returns the fraction of the statements which were found in the cache. */
+        public double getHitRate() {
+            final long total = mHitCount + mMissCount;
+            return total == 0 ? 0 : (double) mHitCount / total;
+        }
+
+        @NonNull
+        @Override
+        public String toString() {
+            return "PreparedStatementCacheStats{cacheSize=" + mCacheSize
+                    + ", hits=" + mHitCount
+                    + ", misses=" + mMissCount
+                    + ", evictions=" + mEvictionCount + "}";
+        }
+    }
+
+    /**
+     * Statistics of the read connection pool of a database, as returned by
+     * {@link RoomDatabase#getReadConnectionPoolStats()}.
+     *
+     * @see RoomDatabase.Builder#setReadConnectionPoolSize(int)
+     */
+    public static final class ReadConnectionPoolStats {
+        private final int mPoolSize;
+        private final int mOpenedCount;
+        private final int mLeasedCount;
+        private final int mMaxLeasedCount;
+        private final long mAcquiredCount;
+        private final long mContendedCount;
+        private final long mTotalWaitNanos;
+        private final long mMaxWaitNanos;
+
+        ReadConnectionPoolStats(int poolSize, int openedCount, int leasedCount,
+                int maxLeasedCount, long acquiredCount, long contendedCount, long totalWaitNanos,
+                long maxWaitNanos) {
+            mPoolSize = poolSize;
+            mOpenedCount = openedCount;
+            mLeasedCount = leasedCount;
+            mMaxLeasedCount = maxLeasedCount;
+            mAcquiredCount = acquiredCount;
+            mContendedCount = contendedCount;
+            mTotalWaitNanos = totalWaitNanos;
+            mMaxWaitNanos = maxWaitNanos;
+        }
+
+        /** Returns the maximum number of connections of the pool. */
+        public int getPoolSize() {
+            return mPoolSize;
+        }
+
+        /** Returns the number of connections which are currently open. */
+        public int getOpenedCount() {
+            return mOpenedCount;
+        }
+
+        /** Returns the number of connections which are currently held by a query. */
+        public int getLeasedCount() {
+            return mLeasedCount;
+        }
+
+        /** Returns the largest number of connections seen held at the same time. */
+        public int getMaxLeasedCount() {
+            return mMaxLeasedCount;
+        }
+
+        /** Returns the number of times a connection was handed to a query. */
+        public long getAcquiredCount() {
+            return mAcquiredCount;
+        }
+
+        /** Returns the number of times a query had to wait for a connection to be released. */
+        public long getContendedCount() {
+            return mContendedCount;
+        }
+
+        /** Returns the total time queries spent waiting for a connection, in nanoseconds. */
+        public long getTotalWaitNanos() {
+            return mTotalWaitNanos;
+        }
+
+        /** Returns the longest time a query waited for a connection, in nanoseconds. */
+        public long getMaxWaitNanos() {
+            return mMaxWaitNanos;
+        }
+
+        /**
+         * Returns the average time a query waited for a connection, in nanoseconds, including
+         * the queries which did not wait.
+         */
+        public long getAverageWaitNanos() {
+            return mAcquiredCount == 0 ? 0 : mTotalWaitNanos / mAcquiredCount;
+        }
+
+        @NonNull
+        @Override
+        public String toString() {
+            return "ReadConnectionPoolStats{poolSize=" + mPoolSize
+                    + ", opened=" + mOpenedCount
+                    + ", leased=" + mLeasedCount
+                    + ", maxLeased=" + mMaxLeasedCount
+                    + ", acquired=" + mAcquiredCount
+                    + ", contended=" + mContendedCount
+                    + ", totalWaitNanos=" + mTotalWaitNanos
+                    + ", maxWaitNanos=" + mMaxWaitNanos + "}";
+        }
+    }
 }
@@ -25,15 +25,19 @@ import androidx.sqlite.db.SupportSQLiteQuery;
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
 import java.util.Arrays;
-import java.util.Iterator;
-import java.util.Map;
-import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 /**
  * This class is used as an intermediate place to keep binding arguments so that we can run
  * Cursor queries with correct types rather than passing everything as a string.
  * <p>
  * Because it is relatively a big object, they are pooled and must be released after each use.
+ * <p>
+ * The pool is split in buckets by capacity, each holding a few queries in slots which are taken
+ * and filled with compare-and-set, so threads acquiring and releasing queries neither lock nor
+ * allocate. Capacities up to {@link #MAX_EXACT_CAPACITY} get a bucket each; larger ones are
+ * rounded up to a power of two so that queries with close argument counts share a bucket.
  *
  * @hide
  */
@@ -42,13 +46,22 @@ import java.util.TreeMap;
 public class RoomSQLiteQuery implements SupportSQLiteQuery, SupportSQLiteProgram {
     @SuppressWarnings("WeakerAccess")
     @VisibleForTesting
-    // Maximum number of queries we'll keep cached.
-    static final int POOL_LIMIT = 15;
+    // Largest capacity which has a bucket of its own.
+    static final int MAX_EXACT_CAPACITY = 16;
+    @SuppressWarnings("WeakerAccess")
+    @VisibleForTesting
+    // Largest capacity which is pooled, bigger queries are left to the garbage collector.
+    static final int MAX_POOLED_CAPACITY = 1024;
     @SuppressWarnings("WeakerAccess")
     @VisibleForTesting
-    // Once we hit POOL_LIMIT, we'll bring the pool size back to the desired number. We always
-    // clear the bigger queries (# of arguments).
-    static final int DESIRED_POOL_SIZE = 10;
+    // Exact buckets, then one per power of two from 32 to MAX_POOLED_CAPACITY.
+    static final int BUCKET_COUNT = MAX_EXACT_CAPACITY + 1
+            + Integer.numberOfTrailingZeros(MAX_POOLED_CAPACITY)
+            - Integer.numberOfTrailingZeros(MAX_EXACT_CAPACITY);
+    @SuppressWarnings("WeakerAccess")
+    @VisibleForTesting
+    // Maximum number of queries kept in each bucket, a power of two.
+    static final int SLOTS_PER_BUCKET = 4;
     private volatile String mQuery;
     @SuppressWarnings("WeakerAccess")
     @VisibleForTesting
@@ -76,7 +89,17 @@ public class RoomSQLiteQuery implements SupportSQLiteQuery, SupportSQLiteProgram
 
     @SuppressWarnings("WeakerAccess")
     @VisibleForTesting
-    static final TreeMap<Integer, RoomSQLiteQuery> sQueryPool = new TreeMap<>();
+    static final AtomicReferenceArray<RoomSQLiteQuery> sQueryPool =
+            new AtomicReferenceArray<>(BUCKET_COUNT * SLOTS_PER_BUCKET);
+
+    // Hit, miss and discard counts of each bucket, plus a last row for the queries too big to be
+    // pooled. Rows are a cache line apart so that threads using different buckets do not contend.
+    private static final int STATS_STRIDE = 8;
+    private static final int HIT = 0;
+    private static final int MISS = 1;
+    private static final int DISCARD = 2;
+    private static final AtomicLongArray sPoolStats =
+            new AtomicLongArray((BUCKET_COUNT + 1) * STATS_STRIDE);
 
     /**
      * Copies the given SupportSQLiteQuery and converts it into RoomSQLiteQuery.
@@ -138,21 +161,79 @@ public class RoomSQLiteQuery implements SupportSQLiteQuery, SupportSQLiteProgram
      */
     @SuppressWarnings("WeakerAccess")
     public static RoomSQLiteQuery acquire(String query, int argumentCount) {
-        synchronized (sQueryPool) {
-            final Map.Entry<Integer, RoomSQLiteQuery> entry =
-                    sQueryPool.ceilingEntry(argumentCount);
-            if (entry != null) {
-                sQueryPool.remove(entry.getKey());
-                final RoomSQLiteQuery sqliteQuery = entry.getValue();
-                sqliteQuery.init(query, argumentCount);
-                return sqliteQuery;
+        final int bucket = bucketOf(argumentCount);
+        final int capacity;
+        if (bucket >= 0) {
+            final int start = probeStart();
+            RoomSQLiteQuery pooled = take(bucket, start);
+            if (pooled == null && bucket + 1 < BUCKET_COUNT) {
+                // A slightly bigger query is better than a new one.
+                pooled = take(bucket + 1, start);
+            }
+            if (pooled != null) {
+                sPoolStats.incrementAndGet(bucket * STATS_STRIDE + HIT);
+                pooled.init(query, argumentCount);
+                return pooled;
             }
+            sPoolStats.incrementAndGet(bucket * STATS_STRIDE + MISS);
+            capacity = capacityOf(bucket);
+        } else {
+            sPoolStats.incrementAndGet(BUCKET_COUNT * STATS_STRIDE + MISS);
+            capacity = argumentCount;
         }
-        RoomSQLiteQuery sqLiteQuery = new RoomSQLiteQuery(argumentCount);
+        RoomSQLiteQuery sqLiteQuery = new RoomSQLiteQuery(capacity);
         sqLiteQuery.init(query, argumentCount);
         return sqLiteQuery;
     }
 
+    /**
+     * Returns the bucket of the queries which can hold the given number of arguments, or -1 if
+     * they are not pooled.
+     */
+    @VisibleForTesting
+    static int bucketOf(int argumentCount) {
+        if (argumentCount <= MAX_EXACT_CAPACITY) {
+            return argumentCount;
+        }
+        if (argumentCount > MAX_POOLED_CAPACITY) {
+            return -1;
+        }
+        // The power of two buckets follow the exact ones, starting with 2 * MAX_EXACT_CAPACITY.
+        final int log2 = 32 - Integer.numberOfLeadingZeros(argumentCount - 1);
+        return MAX_EXACT_CAPACITY + log2 - Integer.numberOfTrailingZeros(MAX_EXACT_CAPACITY);
+    }
+
+    /**
+     * Returns the capacity of the queries in the given bucket.
+     */
+    @VisibleForTesting
+    static int capacityOf(int bucket) {
+        if (bucket <= MAX_EXACT_CAPACITY) {
+            return bucket;
+        }
+        return MAX_EXACT_CAPACITY << (bucket - MAX_EXACT_CAPACITY);
+    }
+
+    /**
+     * Returns the slot where the current thread starts looking into a bucket, so that threads
+     * tend to use different slots.
+     */
+    private static int probeStart() {
+        return (int) Thread.currentThread().getId();
+    }
+
+    private static RoomSQLiteQuery take(int bucket, int start) {
+        final int base = bucket * SLOTS_PER_BUCKET;
+        for (int i = 0; i < SLOTS_PER_BUCKET; i++) {
+            final int slot = base + ((start + i) & (SLOTS_PER_BUCKET - 1));
+            final RoomSQLiteQuery query = sQueryPool.get(slot);
+            if (query != null && sQueryPool.compareAndSet(slot, query, null)) {
+                return query;
+            }
+        }
+        return null;
+    }
+
     private RoomSQLiteQuery(int capacity) {
         mCapacity = capacity;
         // because, 1 based indices... we don't want to offsets everything with 1 all the time.
@@ -179,20 +260,67 @@ public class RoomSQLiteQuery implements SupportSQLiteQuery, SupportSQLiteProgram
      */
     @SuppressWarnings("WeakerAccess")
     public void release() {
-        synchronized (sQueryPool) {
-            sQueryPool.put(mCapacity, this);
-            prunePoolLocked();
+        final int bucket = bucketOf(mCapacity);
+        if (bucket < 0) {
+            return;
+        }
+        final int base = bucket * SLOTS_PER_BUCKET;
+        final int start = probeStart();
+        for (int i = 0; i < SLOTS_PER_BUCKET; i++) {
+            final int slot = base + ((start + i) & (SLOTS_PER_BUCKET - 1));
+            if (sQueryPool.get(slot) == null && sQueryPool.compareAndSet(slot, null, this)) {
+                return;
+            }
         }
+        sPoolStats.incrementAndGet(bucket * STATS_STRIDE + DISCARD);
     }
 
-    private static void prunePoolLocked() {
-        if (sQueryPool.size() > POOL_LIMIT) {
-            int toBeRemoved = sQueryPool.size() - DESIRED_POOL_SIZE;
-            final Iterator<Integer> iterator = sQueryPool.descendingKeySet().iterator();
-            while (toBeRemoved-- > 0) {
-                iterator.next();
-                iterator.remove();
-            }
+    /**
+     * Returns the number of {@link #acquire(String, int)} calls which reused a pooled query.
+     *
+     * @return The number of pool hits.
+     */
+    public static long getPoolHitCount() {
+        return sumPoolStats(HIT);
+    }
+
+    /**
+     * Returns the number of {@link #acquire(String, int)} calls which created a new query.
+     *
+     * @return The number of pool misses.
+     */
+    public static long getPoolMissCount() {
+        return sumPoolStats(MISS);
+    }
+
+    /**
+     * Returns the number of queries which were not kept by {@link #release()} because their
+     * bucket was full.
+     *
+     * @return The number of discarded queries.
+     */
+    public static long getPoolDiscardCount() {
+        return sumPoolStats(DISCARD);
+    }
+
+    private static long sumPoolStats(int stat) {
+        long sum = 0;
+        for (int row = 0; row <= BUCKET_COUNT; row++) {
+            sum += sPoolStats.get(row * STATS_STRIDE + stat);
+        }
+        return sum;
+    }
+
+    /**
+     * Empties the pool and resets its statistics.
+     */
+    @VisibleForTesting
+    static void clearPool() {
+        for (int slot = 0; slot < sQueryPool.length(); slot++) {
+            sQueryPool.set(slot, null);
+        }
+        for (int index = 0; index < sPoolStats.length(); index++) {
+            sPoolStats.set(index, 0);
         }
     }
 
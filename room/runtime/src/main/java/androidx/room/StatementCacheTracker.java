@@ -0,0 +1,116 @@
+/*
+ * Copyright 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.room;
+
+import androidx.annotation.NonNull;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Sizes the prepared statement cache of the connections of a database and estimates how well it
+ * performs.
+ * <p>
+ * Each connection of the framework database keeps an LRU cache of its prepared statements, keyed
+ * by SQL, so that running the same SQL again skips compiling it. The cache is cleared with its
+ * connection and statements compiled before a schema change are compiled again by SQLite when they
+ * are next used. The framework does not report whether the cache is hit, so each connection gets a
+ * {@link ConnectionCache} which replays the SQL Room runs on it through an LRU of the same size.
+ */
+final class StatementCacheTracker {
+    private final int mCacheSize;
+    private final ConnectionCache mWriterCache = new ConnectionCache();
+    @SuppressWarnings("WeakerAccess") /* synthetic access */
+    final AtomicLong mHitCount = new AtomicLong();
+    @SuppressWarnings("WeakerAccess") /* synthetic access */
+    final AtomicLong mMissCount = new AtomicLong();
+    @SuppressWarnings("WeakerAccess") /* synthetic access */
+    final AtomicLong mEvictionCount = new AtomicLong();
+
+    /**
+     * @param cacheSize The number of prepared statements cached by each connection.
+     */
+    StatementCacheTracker(int cacheSize) {
+        mCacheSize = cacheSize;
+    }
+
+    /**
+     * Sizes the cache of the writer connection, which was just opened.
+     */
+    void onWriterOpened(@NonNull SupportSQLiteDatabase db) {
+        db.setMaxSqlCacheSize(mCacheSize);
+        mWriterCache.clear();
+    }
+
+    /**
+     * Sizes the cache of a reader connection, which was just opened.
+     *
+     * @return The cache of the reader connection.
+     */
+    @NonNull
+    ConnectionCache onReaderOpened(@NonNull SupportSQLiteDatabase db) {
+        db.setMaxSqlCacheSize(mCacheSize);
+        return new ConnectionCache();
+    }
+
+    /**
+     * Records the given SQL being compiled on the writer connection.
+     */
+    void onWriterStatement(@NonNull String sql) {
+        mWriterCache.onStatement(sql);
+    }
+
+    @NonNull
+    RoomDatabase.PreparedStatementCacheStats getStats() {
+        return new RoomDatabase.PreparedStatementCacheStats(mCacheSize, mHitCount.get(),
+                mMissCount.get(), mEvictionCount.get());
+    }
+
+    /**
+     * Mirrors the prepared statement cache of a connection.
+     */
+    final class ConnectionCache {
+        private final LinkedHashMap<String, Boolean> mStatements =
+                new LinkedHashMap<String, Boolean>(16, 0.75f, true) {
+                    @Override
+                    protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+                        if (size() > mCacheSize) {
+                            mEvictionCount.incrementAndGet();
+                            return true;
+                        }
+                        return false;
+                    }
+                };
+
+        /**
+         * Records the given SQL being compiled on the connection.
+         */
+        synchronized void onStatement(@NonNull String sql) {
+            if (mStatements.put(sql, Boolean.TRUE) != null) {
+                mHitCount.incrementAndGet();
+            } else {
+                mMissCount.incrementAndGet();
+            }
+        }
+
+        synchronized void clear() {
+            mStatements.clear();
+        }
+    }
+}
@@ -17,9 +17,11 @@
 package androidx.room;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 
 import java.util.ArrayDeque;
 import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Executor wrapper for performing database transactions serially.
@@ -27,19 +29,70 @@ import java.util.concurrent.Executor;
  * Since database transactions are exclusive, this executor ensures that transactions are performed
  * in-order and one at a time, preventing threads from blocking each other when multiple concurrent
  * transactions are attempted.
+ * <p>
+ * When group commit is enabled, the runnables are instead run in batches, each in a single
+ * transaction, so that a batch of small writes is committed, and synced to disk, once. A batch
+ * takes the runnables queued while the previous one ran and those queued within the group commit
+ * window after it started, up to {@link #MAX_GROUP_COMMIT_SIZE}. See {@link GroupCommit}.
  */
 class TransactionExecutor implements Executor {
+    /**
+     * The maximum number of runnables run in the transaction of a group commit.
+     */
+    static final int MAX_GROUP_COMMIT_SIZE = 64;
 
     private final Executor mExecutor;
     private final ArrayDeque<Runnable> mTasks = new ArrayDeque<>();
     private Runnable mActive;
 
+    // Set when group commit is enabled.
+    @Nullable
+    private RoomDatabase mDatabase;
+    private long mGroupCommitWindowNanos;
+    private final ThreadLocal<GroupCommit> mCurrentGroupCommit = new ThreadLocal<>();
+    private final Runnable mGroupCommitRunnable = new Runnable() {
+        @Override
+        public void run() {
+            runGroupCommit();
+        }
+    };
+
     TransactionExecutor(@NonNull Executor executor) {
         mExecutor = executor;
     }
 
+    /**
+     * Runs the queued runnables in group commits of the given database.
+     *
+     * @param database The database the runnables write to.
+     * @param windowMillis How long a group commit waits for more runnables once started.
+     */
+    synchronized void enableGroupCommit(@NonNull RoomDatabase database, long windowMillis) {
+        mDatabase = database;
+        mGroupCommitWindowNanos = TimeUnit.MILLISECONDS.toNanos(windowMillis);
+    }
+
+    /**
+     * Returns the group commit the calling thread is running a write of, if any.
+     */
+    @Nullable
+    GroupCommit getCurrentGroupCommit() {
+        return mCurrentGroupCommit.get();
+    }
+
     @Override
     public synchronized void execute(final Runnable command) {
+        if (mDatabase != null) {
+            mTasks.offer(command);
+            if (mActive == null) {
+                mActive = mGroupCommitRunnable;
+                mExecutor.execute(mActive);
+            } else {
+                // Wakes up a group commit waiting for more runnables.
+                notify();
+            }
+            return;
+        }
         mTasks.offer(new Runnable() {
             @Override
             public void run() {
@@ -61,4 +114,103 @@ class TransactionExecutor implements Executor {
             mExecutor.execute(mActive);
         }
     }
+
+    @SuppressWarnings({"WeakerAccess", "deprecation"}) /* synthetic access */
+    void runGroupCommit() {
+        final RoomDatabase database = mDatabase;
+        try {
+            database.beginTransaction();
+        } catch (RuntimeException e) {
+            // Still run a runnable so that the queue makes progress, it fails in the same way and
+            // reports it to its caller.
+            Runnable task = nextGroupCommitTask(0, 0);
+            try {
+                if (task != null) {
+                    task.run();
+                }
+            } finally {
+                scheduleNextGroupCommit();
+            }
+            return;
+        }
+        final GroupCommit groupCommit = new GroupCommit();
+        RuntimeException taskException = null;
+        RuntimeException commitException = null;
+        boolean committed = false;
+        try {
+            try {
+                mCurrentGroupCommit.set(groupCommit);
+                final long deadline = System.nanoTime() + mGroupCommitWindowNanos;
+                int count = 0;
+                Runnable task;
+                while ((task = nextGroupCommitTask(deadline, count)) != null) {
+                    count++;
+                    try {
+                        task.run();
+                    } catch (RuntimeException e) {
+                        if (taskException == null) {
+                            taskException = e;
+                        }
+                    }
+                    groupCommit.rollbackOpenSavepoints(database);
+                }
+                mCurrentGroupCommit.remove();
+                database.setTransactionSuccessful();
+            } finally {
+                mCurrentGroupCommit.remove();
+                database.endTransaction();
+            }
+            committed = true;
+        } catch (RuntimeException e) {
+            commitException = e;
+        } finally {
+            if (committed) {
+                groupCommit.end(null);
+            } else if (commitException != null) {
+                groupCommit.end(commitException);
+            } else {
+                groupCommit.end(new IllegalStateException("The group commit was rolled back"));
+            }
+            scheduleNextGroupCommit();
+        }
+        if (commitException != null) {
+            throw commitException;
+        }
+        if (taskException != null) {
+            throw taskException;
+        }
+    }
+
+    /**
+     * Returns the next runnable of the group commit, waiting for one until the given deadline, or
+     * null if the group commit should end.
+     */
+    private synchronized Runnable nextGroupCommitTask(long deadline, int count) {
+        if (count >= MAX_GROUP_COMMIT_SIZE) {
+            return null;
+        }
+        Runnable task = mTasks.poll();
+        while (task == null) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                return null;
+            }
+            try {
+                TimeUnit.NANOSECONDS.timedWait(this, remaining);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            }
+            task = mTasks.poll();
+        }
+        return task;
+    }
+
+    private synchronized void scheduleNextGroupCommit() {
+        if (mTasks.isEmpty()) {
+            mActive = null;
+        } else {
+            mExecutor.execute(mActive);
+        }
+    }
 }
@@ -19,6 +19,7 @@ package androidx.room.paging;
 import android.database.Cursor;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import androidx.annotation.RestrictTo;
 import androidx.room.InvalidationTracker;
 import androidx.room.RoomDatabase;
@@ -27,7 +28,9 @@ import androidx.sqlite.db.SupportSQLiteQuery;
 
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
@@ -43,6 +46,12 @@ import java.util.concurrent.atomic.AtomicBoolean;
  * it does lazy registration for observers to be suitable for initialization on the main thread
  * whereas in Paging2, it will register observer eagerly to obey Paging2's strict Data Source
  * rules. (Paging2 does not let data source to possibly return invalidated data).
+ * <p>
+ * When the query declares a {@link androidx.room.PagingKey}, pages are instead loaded by keyset:
+ * the key of the last row of every loaded page is remembered, and a page starting at or after
+ * such a position seeks past that key with {@code WHERE key > ?}. Only the distance from the
+ * closest remembered position, usually zero, is skipped with {@code OFFSET}. In this mode the
+ * rows are not counted unless placeholders are enabled.
  *
  * @param <T> Data type returned by the data source.
  *
@@ -54,6 +63,13 @@ public abstract class LimitOffsetDataSource<T> extends androidx.paging.Positiona
     private final RoomSQLiteQuery mSourceQuery;
     private final String mCountQuery;
     private final String mLimitOffsetQuery;
+    @Nullable
+    private final String mKeyColumn;
+    @Nullable
+    private final String mKeysetQuery;
+    // Maps a position to the key of the row right before it, for every position a page has been
+    // loaded up to.
+    private final TreeMap<Integer, Object> mPageKeys = new TreeMap<>();
     private final RoomDatabase mDb;
     @SuppressWarnings("FieldCanBeLocal")
     private final InvalidationTracker.Observer mObserver;
@@ -78,6 +94,18 @@ public abstract class LimitOffsetDataSource<T> extends androidx.paging.Positiona
                 tables);
     }
 
+    protected LimitOffsetDataSource(
+            @NonNull RoomDatabase db,
+            @NonNull SupportSQLiteQuery query,
+            boolean inTransaction,
+            boolean registerObserverImmediately,
+            @NonNull String keyColumn,
+            boolean keyDescending,
+            @NonNull String... tables) {
+        this(db, RoomSQLiteQuery.copyFrom(query), inTransaction, registerObserverImmediately,
+                keyColumn, keyDescending, tables);
+    }
+
     protected LimitOffsetDataSource(
             @NonNull RoomDatabase db,
             @NonNull RoomSQLiteQuery query,
@@ -92,11 +120,38 @@ public abstract class LimitOffsetDataSource<T> extends androidx.paging.Positiona
             boolean inTransaction,
             boolean registerObserverImmediately,
             @NonNull String... tables) {
+        this(db, query, inTransaction, registerObserverImmediately, null, false, tables);
+    }
+
+    /**
+     * Creates a data source which pages {@code query} by the values of {@code keyColumn}, which
+     * must be unique and not null.
+     */
+    protected LimitOffsetDataSource(
+            @NonNull RoomDatabase db,
+            @NonNull RoomSQLiteQuery query,
+            boolean inTransaction,
+            boolean registerObserverImmediately,
+            @Nullable String keyColumn,
+            boolean keyDescending,
+            @NonNull String... tables) {
         mDb = db;
         mSourceQuery = query;
         mInTransaction = inTransaction;
+        mKeyColumn = keyColumn;
         mCountQuery = "SELECT COUNT(*) FROM ( " + mSourceQuery.getSql() + " )";
-        mLimitOffsetQuery = "SELECT * FROM ( " + mSourceQuery.getSql() + " ) LIMIT ? OFFSET ?";
+        if (keyColumn == null) {
+            mLimitOffsetQuery = "SELECT * FROM ( " + mSourceQuery.getSql()
+                    + " ) LIMIT ? OFFSET ?";
+            mKeysetQuery = null;
+        } else {
+            final String key = "`" + keyColumn + "`";
+            final String orderBy = " ORDER BY " + key + (keyDescending ? " DESC" : " ASC")
+                    + " LIMIT ? OFFSET ?";
+            mLimitOffsetQuery = "SELECT * FROM ( " + mSourceQuery.getSql() + " )" + orderBy;
+            mKeysetQuery = "SELECT * FROM ( " + mSourceQuery.getSql() + " ) WHERE " + key
+                    + (keyDescending ? " < ?" : " > ?") + orderBy;
+        }
         mObserver = new InvalidationTracker.Observer(tables) {
             @Override
             public void onInvalidated(@NonNull Set<String> tables) {
@@ -153,6 +208,10 @@ public abstract class LimitOffsetDataSource<T> extends androidx.paging.Positiona
     public void loadInitial(@NonNull LoadInitialParams params,
             @NonNull LoadInitialCallback<T> callback) {
         registerObserverIfNecessary();
+        if (mKeyColumn != null && !params.placeholdersEnabled) {
+            loadInitialWithoutCount(params, callback);
+            return;
+        }
         List<T> list = Collections.emptyList();
         int totalCount;
         int firstLoadPosition = 0;
@@ -168,7 +227,7 @@ public abstract class LimitOffsetDataSource<T> extends androidx.paging.Positiona
 
                 sqLiteQuery = getSQLiteQuery(firstLoadPosition, firstLoadSize);
                 cursor = mDb.query(sqLiteQuery);
-                List<T> rows = convertRows(cursor);
+                List<T> rows = convertRows(cursor, firstLoadPosition);
                 mDb.setTransactionSuccessful();
                 list = rows;
             }
@@ -185,6 +244,22 @@ public abstract class LimitOffsetDataSource<T> extends androidx.paging.Positiona
         callback.onResult(list, firstLoadPosition, totalCount);
     }
 
+    // Without placeholders the total count is not needed, and without a count there is no need
+    // for a transaction either: the first page is loaded like any other.
+    @SuppressWarnings("deprecation")
+    private void loadInitialWithoutCount(@NonNull LoadInitialParams params,
+            @NonNull LoadInitialCallback<T> callback) {
+        int firstLoadPosition = Math.max(0,
+                params.requestedStartPosition / params.pageSize * params.pageSize);
+        List<T> list = loadRange(firstLoadPosition, params.requestedLoadSize);
+        if (list.isEmpty() && firstLoadPosition > 0) {
+            // the requested position is past the end of the data, start over from the top
+            firstLoadPosition = 0;
+            list = loadRange(firstLoadPosition, params.requestedLoadSize);
+        }
+        callback.onResult(list, firstLoadPosition);
+    }
+
     @Override
     public void loadRange(@NonNull LoadRangeParams params,
             @NonNull LoadRangeCallback<T> callback) {
@@ -206,7 +281,7 @@ public abstract class LimitOffsetDataSource<T> extends androidx.paging.Positiona
             //noinspection TryFinallyCanBeTryWithResources
             try {
                 cursor = mDb.query(sqLiteQuery);
-                List<T> rows = convertRows(cursor);
+                List<T> rows = convertRows(cursor, startPosition);
                 mDb.setTransactionSuccessful();
                 return rows;
             } finally {
@@ -220,7 +295,7 @@ public abstract class LimitOffsetDataSource<T> extends androidx.paging.Positiona
             Cursor cursor = mDb.query(sqLiteQuery);
             //noinspection TryFinallyCanBeTryWithResources
             try {
-                return convertRows(cursor);
+                return convertRows(cursor, startPosition);
             } finally {
                 cursor.close();
                 sqLiteQuery.release();
@@ -228,12 +303,71 @@ public abstract class LimitOffsetDataSource<T> extends androidx.paging.Positiona
         }
     }
 
+    private List<T> convertRows(@NonNull Cursor cursor, int startPosition) {
+        if (mKeyColumn != null && cursor.moveToLast()) {
+            final Object key = readKey(cursor);
+            if (key != null) {
+                synchronized (mPageKeys) {
+                    mPageKeys.put(startPosition + cursor.getCount(), key);
+                }
+            }
+            cursor.moveToPosition(-1);
+        }
+        return convertRows(cursor);
+    }
+
     private RoomSQLiteQuery getSQLiteQuery(int startPosition, int loadCount) {
-        final RoomSQLiteQuery sqLiteQuery = RoomSQLiteQuery.acquire(mLimitOffsetQuery,
-                mSourceQuery.getArgCount() + 2);
-        sqLiteQuery.copyArgumentsFrom(mSourceQuery);
+        Map.Entry<Integer, Object> pageKey = null;
+        if (mKeysetQuery != null) {
+            synchronized (mPageKeys) {
+                pageKey = mPageKeys.floorEntry(startPosition);
+            }
+        }
+        final RoomSQLiteQuery sqLiteQuery;
+        int offset = startPosition;
+        if (pageKey == null) {
+            sqLiteQuery = RoomSQLiteQuery.acquire(mLimitOffsetQuery,
+                    mSourceQuery.getArgCount() + 2);
+            sqLiteQuery.copyArgumentsFrom(mSourceQuery);
+        } else {
+            sqLiteQuery = RoomSQLiteQuery.acquire(mKeysetQuery,
+                    mSourceQuery.getArgCount() + 3);
+            sqLiteQuery.copyArgumentsFrom(mSourceQuery);
+            bindKey(sqLiteQuery, mSourceQuery.getArgCount() + 1, pageKey.getValue());
+            offset -= pageKey.getKey();
+        }
         sqLiteQuery.bindLong(sqLiteQuery.getArgCount() - 1, loadCount);
-        sqLiteQuery.bindLong(sqLiteQuery.getArgCount(), startPosition);
+        sqLiteQuery.bindLong(sqLiteQuery.getArgCount(), offset);
         return sqLiteQuery;
     }
+
+    @Nullable
+    private Object readKey(@NonNull Cursor cursor) {
+        final int index = cursor.getColumnIndexOrThrow(mKeyColumn);
+        switch (cursor.getType(index)) {
+            case Cursor.FIELD_TYPE_INTEGER:
+                return cursor.getLong(index);
+            case Cursor.FIELD_TYPE_FLOAT:
+                return cursor.getDouble(index);
+            case Cursor.FIELD_TYPE_STRING:
+                return cursor.getString(index);
+            case Cursor.FIELD_TYPE_BLOB:
+                return cursor.getBlob(index);
+            default:
+                // a null key cannot be seeked past, the next page falls back to an offset
+                return null;
+        }
+    }
+
+    private static void bindKey(@NonNull RoomSQLiteQuery query, int index, @NonNull Object key) {
+        if (key instanceof Long) {
+            query.bindLong(index, (Long) key);
+        } else if (key instanceof Double) {
+            query.bindDouble(index, (Double) key);
+        } else if (key instanceof String) {
+            query.bindString(index, (String) key);
+        } else {
+            query.bindBlob(index, (byte[]) key);
+        }
+    }
 }
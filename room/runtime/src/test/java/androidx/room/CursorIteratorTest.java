@@ -0,0 +1,114 @@
+/*
+ * Copyright 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.room;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import android.database.Cursor;
+
+import androidx.annotation.NonNull;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+@RunWith(JUnit4.class)
+public class CursorIteratorTest {
+    private Cursor mCursor;
+    private RoomSQLiteQuery mQuery;
+    private CursorIterator<Integer> mIterator;
+
+    @Before
+    public void setup() {
+        mCursor = mock(Cursor.class);
+        when(mCursor.moveToNext()).thenReturn(true, true, false);
+        when(mCursor.getInt(0)).thenReturn(1, 2);
+        mQuery = mock(RoomSQLiteQuery.class);
+        mIterator = new CursorIterator<Integer>(mCursor, mQuery) {
+            @Override
+            protected Integer convert(@NonNull Cursor cursor) {
+                return cursor.getInt(0);
+            }
+        };
+    }
+
+    @Test
+    public void hasNextDoesNotSkipRows() {
+        assertThat(mIterator.hasNext(), is(true));
+        assertThat(mIterator.hasNext(), is(true));
+        assertThat(mIterator.next(), is(1));
+        assertThat(mIterator.next(), is(2));
+        assertThat(mIterator.hasNext(), is(false));
+        verify(mCursor, times(3)).moveToNext();
+    }
+
+    @Test
+    public void closesOnceExhausted() {
+        mIterator.next();
+        mIterator.next();
+        verify(mCursor, never()).close();
+        assertThat(mIterator.hasNext(), is(false));
+        mIterator.close();
+        verify(mCursor).close();
+        verify(mQuery).release();
+    }
+
+    @Test
+    public void closeStopsIteration() {
+        mIterator.next();
+        mIterator.close();
+        assertThat(mIterator.hasNext(), is(false));
+        verify(mCursor).close();
+        verify(mQuery).release();
+    }
+
+    @Test
+    public void forEach() {
+        final List<Integer> rows = new ArrayList<>();
+        mIterator.forEach(new CursorIterator.RowCallback<Integer>() {
+            @Override
+            public void onRow(Integer row) {
+                rows.add(row);
+            }
+        });
+        assertThat(rows, is(Arrays.asList(1, 2)));
+        verify(mCursor).close();
+    }
+
+    @Test
+    public void queryOwnedByCallerIsNotReleased() {
+        CursorIterator<Integer> iterator = new CursorIterator<Integer>(mCursor, null) {
+            @Override
+            protected Integer convert(@NonNull Cursor cursor) {
+                return cursor.getInt(0);
+            }
+        };
+        iterator.close();
+        verify(mCursor).close();
+    }
+}
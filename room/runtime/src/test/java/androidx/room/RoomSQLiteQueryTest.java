@@ -31,14 +31,13 @@ import org.junit.runner.RunWith;
 import org.junit.runners.JUnit4;
 
 import java.util.ArrayList;
-import java.util.Iterator;
 import java.util.List;
 
 @RunWith(JUnit4.class)
 public class RoomSQLiteQueryTest {
     @Before
     public void clear() {
-        RoomSQLiteQuery.sQueryPool.clear();
+        RoomSQLiteQuery.clearPool();
     }
 
     @Test
@@ -90,17 +89,16 @@ public class RoomSQLiteQueryTest {
     }
 
     @Test
-    public void dontKeepSameSizeTwice() {
-        RoomSQLiteQuery query1 = RoomSQLiteQuery.acquire("abc", 3);
-        RoomSQLiteQuery query2 = RoomSQLiteQuery.acquire("zx", 3);
-        RoomSQLiteQuery query3 = RoomSQLiteQuery.acquire("qw", 0);
-
-        query1.release();
-        query2.release();
-        assertThat(RoomSQLiteQuery.sQueryPool.size(), is(1));
-
-        query3.release();
-        assertThat(RoomSQLiteQuery.sQueryPool.size(), is(2));
+    public void keepSameSizeUpToSlotCount() {
+        List<RoomSQLiteQuery> queries = new ArrayList<>();
+        for (int i = 0; i <= RoomSQLiteQuery.SLOTS_PER_BUCKET; i++) {
+            queries.add(RoomSQLiteQuery.acquire("abc", 3));
+        }
+        for (RoomSQLiteQuery query : queries) {
+            query.release();
+        }
+        assertThat(pooledCount(), is(RoomSQLiteQuery.SLOTS_PER_BUCKET));
+        assertThat(RoomSQLiteQuery.getPoolDiscardCount(), is(1L));
     }
 
     @Test
@@ -118,32 +116,90 @@ public class RoomSQLiteQueryTest {
     }
 
     @Test
-    public void pruneCache() {
-        for (int i = 0; i < RoomSQLiteQuery.POOL_LIMIT; i++) {
-            RoomSQLiteQuery.acquire("dsdsa", i).release();
+    public void roundUpLargeCapacities() {
+        RoomSQLiteQuery query = RoomSQLiteQuery.acquire("abc", 100);
+        assertThat(query.mCapacity, is(128));
+        query.release();
+        assertThat(RoomSQLiteQuery.acquire("dsa", 65), sameInstance(query));
+    }
+
+    @Test
+    public void bucketCapacities() {
+        for (int bucket = 0; bucket < RoomSQLiteQuery.BUCKET_COUNT; bucket++) {
+            int capacity = RoomSQLiteQuery.capacityOf(bucket);
+            assertThat(RoomSQLiteQuery.bucketOf(capacity), is(bucket));
+            if (bucket > 0) {
+                assertThat(RoomSQLiteQuery.bucketOf(RoomSQLiteQuery.capacityOf(bucket - 1) + 1),
+                        is(bucket));
+            }
         }
-        pruneCacheTest();
+        assertThat(RoomSQLiteQuery.capacityOf(RoomSQLiteQuery.BUCKET_COUNT - 1),
+                is(RoomSQLiteQuery.MAX_POOLED_CAPACITY));
     }
 
     @Test
-    public void pruneCacheReverseInsertion() {
-        List<RoomSQLiteQuery> queries = new ArrayList<>();
-        for (int i = RoomSQLiteQuery.POOL_LIMIT - 1; i >= 0; i--) {
-            queries.add(RoomSQLiteQuery.acquire("dsdsa", i));
+    public void dontPoolOversizedQueries() {
+        int argumentCount = RoomSQLiteQuery.MAX_POOLED_CAPACITY + 1;
+        RoomSQLiteQuery query = RoomSQLiteQuery.acquire("abc", argumentCount);
+        assertThat(query.mCapacity, is(argumentCount));
+        query.release();
+        assertThat(pooledCount(), is(0));
+        assertThat(RoomSQLiteQuery.acquire("dsa", argumentCount), not(sameInstance(query)));
+    }
+
+    @Test
+    public void hitAndMissCounts() {
+        RoomSQLiteQuery.acquire("abc", 3).release();
+        RoomSQLiteQuery.acquire("abc", 3).release();
+        RoomSQLiteQuery.acquire("abc", 20).release();
+        assertThat(RoomSQLiteQuery.getPoolHitCount(), is(1L));
+        assertThat(RoomSQLiteQuery.getPoolMissCount(), is(2L));
+        assertThat(RoomSQLiteQuery.getPoolDiscardCount(), is(0L));
+    }
+
+    @Test
+    public void concurrentAcquireAndRelease() throws InterruptedException {
+        final int threadCount = 8;
+        final int iterations = 10000;
+        final List<Throwable> failures = new ArrayList<>();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < threadCount; t++) {
+            final int argumentCount = t % 3;
+            Thread thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        for (int i = 0; i < iterations; i++) {
+                            RoomSQLiteQuery query = RoomSQLiteQuery.acquire("q" + i,
+                                    argumentCount);
+                            assertThat(query.getArgCount(), is(argumentCount));
+                            query.release();
+                        }
+                    } catch (Throwable throwable) {
+                        synchronized (failures) {
+                            failures.add(throwable);
+                        }
+                    }
+                }
+            });
+            threads.add(thread);
+            thread.start();
         }
-        for (RoomSQLiteQuery query : queries) {
-            query.release();
+        for (Thread thread : threads) {
+            thread.join();
         }
-        pruneCacheTest();
+        assertThat(failures.size(), is(0));
+        assertThat(RoomSQLiteQuery.getPoolHitCount() + RoomSQLiteQuery.getPoolMissCount(),
+                is((long) threadCount * iterations));
     }
 
-    private void pruneCacheTest() {
-        assertThat(RoomSQLiteQuery.sQueryPool.size(), is(RoomSQLiteQuery.POOL_LIMIT));
-        RoomSQLiteQuery.acquire("dsadsa", RoomSQLiteQuery.POOL_LIMIT + 1).release();
-        assertThat(RoomSQLiteQuery.sQueryPool.size(), is(RoomSQLiteQuery.DESIRED_POOL_SIZE));
-        Iterator<RoomSQLiteQuery> itr = RoomSQLiteQuery.sQueryPool.values().iterator();
-        for (int i = 0; i < RoomSQLiteQuery.DESIRED_POOL_SIZE; i++) {
-            assertThat(itr.next().mCapacity, is(i));
+    private static int pooledCount() {
+        int count = 0;
+        for (int slot = 0; slot < RoomSQLiteQuery.sQueryPool.length(); slot++) {
+            if (RoomSQLiteQuery.sQueryPool.get(slot) != null) {
+                count++;
+            }
         }
+        return count;
     }
 }
@@ -0,0 +1,89 @@
+/*
+ * Copyright 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.room;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+import androidx.sqlite.db.SupportSQLiteDatabase;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class StatementCacheTrackerTest {
+    private final StatementCacheTracker mTracker = new StatementCacheTracker(2);
+
+    @Test
+    public void sizesConnections() {
+        SupportSQLiteDatabase writer = mock(SupportSQLiteDatabase.class);
+        SupportSQLiteDatabase reader = mock(SupportSQLiteDatabase.class);
+        mTracker.onWriterOpened(writer);
+        mTracker.onReaderOpened(reader);
+        verify(writer).setMaxSqlCacheSize(2);
+        verify(reader).setMaxSqlCacheSize(2);
+    }
+
+    @Test
+    public void repeatedStatementsHit() {
+        mTracker.onWriterStatement("a");
+        mTracker.onWriterStatement("a");
+        mTracker.onWriterStatement("b");
+        mTracker.onWriterStatement("a");
+        assertStats(2, 2, 0);
+    }
+
+    @Test
+    public void leastRecentlyUsedIsEvicted() {
+        mTracker.onWriterStatement("a");
+        mTracker.onWriterStatement("b");
+        mTracker.onWriterStatement("a");
+        mTracker.onWriterStatement("c"); // evicts b
+        mTracker.onWriterStatement("a");
+        mTracker.onWriterStatement("b");
+        assertStats(2, 4, 2);
+    }
+
+    @Test
+    public void connectionsHaveTheirOwnCache() {
+        StatementCacheTracker.ConnectionCache reader =
+                mTracker.onReaderOpened(mock(SupportSQLiteDatabase.class));
+        mTracker.onWriterStatement("a");
+        reader.onStatement("a");
+        reader.onStatement("a");
+        assertStats(1, 2, 0);
+    }
+
+    @Test
+    public void reopeningClearsTheCache() {
+        mTracker.onWriterStatement("a");
+        mTracker.onWriterOpened(mock(SupportSQLiteDatabase.class));
+        mTracker.onWriterStatement("a");
+        assertStats(0, 2, 0);
+    }
+
+    private void assertStats(long hits, long misses, long evictions) {
+        RoomDatabase.PreparedStatementCacheStats stats = mTracker.getStats();
+        assertThat(stats.getCacheSize(), is(2));
+        assertThat(stats.getHitCount(), is(hits));
+        assertThat(stats.getMissCount(), is(misses));
+        assertThat(stats.getEvictionCount(), is(evictions));
+    }
+}
@@ -22,6 +22,10 @@ import org.junit.After
 import org.junit.Test
 import org.junit.runner.RunWith
 import org.junit.runners.JUnit4
+import org.mockito.Mockito.doThrow
+import org.mockito.Mockito.mock
+import org.mockito.Mockito.timeout
+import org.mockito.Mockito.verify
 import java.util.concurrent.CountDownLatch
 import java.util.concurrent.Executors
 import java.util.concurrent.TimeUnit
@@ -68,6 +72,81 @@ class TransactionExecutorTest {
         assertThat(runnableB.finish).isLessThan(runnableC.start)
     }
 
+    @Test
+    fun groupCommitRunsQueuedRunnablesInOneTransaction() {
+        val database = mock(RoomDatabase::class.java)
+        transactionExecutor.enableGroupCommit(database, 0)
+        val started = CountDownLatch(1)
+        val release = CountDownLatch(1)
+        val done = CountDownLatch(4)
+        transactionExecutor.execute {
+            started.countDown()
+            release.await()
+            done.countDown()
+        }
+        started.await()
+        repeat(3) {
+            transactionExecutor.execute { done.countDown() }
+        }
+        release.countDown()
+
+        assertThat(done.await(1, TimeUnit.SECONDS)).isTrue()
+        verify(database, timeout(1000)).endTransaction()
+        verify(database).beginTransaction()
+        verify(database).setTransactionSuccessful()
+    }
+
+    @Test
+    fun groupCommitCallbacksRunOnceCommitted() {
+        val database = mock(RoomDatabase::class.java)
+        transactionExecutor.enableGroupCommit(database, 0)
+        val ended = CountDownLatch(1)
+        val errors = mutableListOf<Throwable?>()
+        transactionExecutor.execute {
+            transactionExecutor.currentGroupCommit!!.addCallback { error ->
+                verify(database).endTransaction()
+                errors.add(error)
+                ended.countDown()
+            }
+        }
+
+        assertThat(ended.await(1, TimeUnit.SECONDS)).isTrue()
+        assertThat(errors).containsExactly(null)
+    }
+
+    @Test
+    fun groupCommitFailureIsReportedToCallbacks() {
+        val database = mock(RoomDatabase::class.java)
+        val failure = IllegalStateException("disk full")
+        doThrow(failure).`when`(database).endTransaction()
+        transactionExecutor.enableGroupCommit(database, 0)
+        val ended = CountDownLatch(1)
+        val errors = mutableListOf<Throwable?>()
+        transactionExecutor.execute {
+            transactionExecutor.currentGroupCommit!!.addCallback { error ->
+                errors.add(error)
+                ended.countDown()
+            }
+        }
+
+        assertThat(ended.await(1, TimeUnit.SECONDS)).isTrue()
+        assertThat(errors).containsExactly(failure)
+    }
+
+    @Test
+    fun groupCommitWindowWaitsForRunnables() {
+        val database = mock(RoomDatabase::class.java)
+        transactionExecutor.enableGroupCommit(database, 500)
+        val done = CountDownLatch(2)
+        transactionExecutor.execute { done.countDown() }
+        Thread.sleep(50)
+        transactionExecutor.execute { done.countDown() }
+
+        assertThat(done.await(1, TimeUnit.SECONDS)).isTrue()
+        verify(database, timeout(1000)).endTransaction()
+        verify(database).beginTransaction()
+    }
+
     private class TimingRunnable(val latch: CountDownLatch) : Runnable {
         var start: Long = 0
         var finish: Long = 0
@@ -0,0 +1,159 @@
+/*
+ * Copyright 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.work.benchmark
+
+import android.content.Context
+import android.util.Log
+import androidx.annotation.OptIn
+import androidx.benchmark.junit4.BenchmarkRule
+import androidx.benchmark.junit4.measureRepeated
+import androidx.test.core.app.ApplicationProvider
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import androidx.test.filters.LargeTest
+import androidx.work.Configuration
+import androidx.work.ExistingWorkPolicy
+import androidx.work.ExperimentalWorkApi
+import androidx.work.OneTimeWorkRequest
+import androidx.work.OneTimeWorkRequestBuilder
+import androidx.work.impl.Processor
+import androidx.work.impl.Scheduler
+import androidx.work.impl.WorkDatabase
+import androidx.work.impl.WorkManagerImpl
+import androidx.work.impl.model.WorkSpec
+import androidx.work.impl.utils.SerialExecutor
+import androidx.work.impl.utils.taskexecutor.TaskExecutor
+import org.junit.After
+import org.junit.Before
+import org.junit.Rule
+import org.junit.Test
+import org.junit.runner.RunWith
+import java.util.concurrent.Executor
+
+/**
+ * Measures the time it takes to enqueue 1k, 10k and 100k requests at once, either as a list of
+ * [OneTimeWorkRequest]s or as unique work with [WorkManagerImpl.enqueueAll]. The enqueue
+ * throughput is the number of requests divided by the time reported for an iteration.
+ */
+@RunWith(AndroidJUnit4::class)
+@LargeTest
+class EnqueueBenchmark {
+
+    @get:Rule
+    val benchmarkRule = BenchmarkRule()
+    private lateinit var database: WorkDatabase
+    private lateinit var workManager: WorkManagerImpl
+
+    @Before
+    fun setUp() {
+        val context = ApplicationProvider.getApplicationContext<Context>()
+        // Runs everything on the calling thread, so that the enqueue is done when it returns.
+        val executor = Executor { it.run() }
+        val serialExecutor = SerialExecutor(executor)
+        val taskExecutor = object : TaskExecutor {
+            override fun postToMainThread(runnable: Runnable) {
+                runnable.run()
+            }
+
+            override fun getMainThreadExecutor(): Executor {
+                return executor
+            }
+
+            override fun executeOnBackgroundThread(runnable: Runnable) {
+                runnable.run()
+            }
+
+            override fun getBackgroundExecutor(): SerialExecutor {
+                return serialExecutor
+            }
+        }
+        val configuration = Configuration.Builder()
+            .setExecutor(executor)
+            .setTaskExecutor(executor)
+            .setMinimumLoggingLevel(Log.ERROR)
+            .build()
+        database = WorkDatabase.create(context, configuration.taskExecutor, true)
+        // Evaluates the eligible work without scheduling it anywhere.
+        val scheduler = object : Scheduler {
+            override fun schedule(vararg workSpecs: WorkSpec) {
+            }
+
+            override fun cancel(workSpecId: String) {
+            }
+
+            override fun hasLimitedSchedulingSlots(): Boolean {
+                return false
+            }
+        }
+        val schedulers = listOf<Scheduler>(scheduler)
+        val processor = Processor(context, configuration, taskExecutor, database, schedulers)
+        workManager = WorkManagerImpl(
+            context, configuration, taskExecutor, database, schedulers, processor
+        )
+    }
+
+    @After
+    fun tearDown() {
+        database.close()
+    }
+
+    @Test
+    fun enqueue1k() = enqueue(1_000)
+
+    @Test
+    fun enqueue10k() = enqueue(10_000)
+
+    @Test
+    fun enqueue100k() = enqueue(100_000)
+
+    @Test
+    fun enqueueAllUnique1k() = enqueueAllUnique(1_000)
+
+    @Test
+    fun enqueueAllUnique10k() = enqueueAllUnique(10_000)
+
+    @Test
+    fun enqueueAllUnique100k() = enqueueAllUnique(100_000)
+
+    private fun enqueue(count: Int) {
+        benchmarkRule.measureRepeated {
+            val requests = runWithTimingDisabled {
+                database.clearAllTables()
+                createRequests(count)
+            }
+            workManager.enqueue(requests).result.get()
+        }
+    }
+
+    @OptIn(ExperimentalWorkApi::class)
+    private fun enqueueAllUnique(count: Int) {
+        benchmarkRule.measureRepeated {
+            val continuations = runWithTimingDisabled {
+                database.clearAllTables()
+                createRequests(count).mapIndexed { i, request ->
+                    workManager.beginUniqueWork("name$i", ExistingWorkPolicy.REPLACE, request)
+                }
+            }
+            workManager.enqueueAll(continuations).result.get()
+        }
+    }
+
+    private fun createRequests(count: Int): List<OneTimeWorkRequest> {
+        return List(count) {
+            OneTimeWorkRequestBuilder<NoOpWorker>().addTag("tag").build()
+        }
+    }
+}
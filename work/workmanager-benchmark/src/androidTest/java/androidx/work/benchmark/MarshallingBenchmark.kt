@@ -34,6 +34,8 @@ import org.junit.Before
 import org.junit.Rule
 import org.junit.Test
 import org.junit.runner.RunWith
+import java.io.ByteArrayOutputStream
+import java.io.ObjectOutputStream
 import java.util.concurrent.TimeUnit
 
 @RunWith(AndroidJUnit4::class)
@@ -48,6 +50,10 @@ class MarshallingBenchmark {
     lateinit var request: WorkRequest
     lateinit var parcelledWorkRequest: ParcelableWorkRequest
 
+    lateinit var data: Data
+    lateinit var serializedData: ByteArray
+    lateinit var javaSerializedData: ByteArray
+
     @Before
     fun setUp() {
         val uri = Uri.parse("test://foo")
@@ -77,6 +83,18 @@ class MarshallingBenchmark {
 
         parcelledConstraints = ParcelableConstraints(constraints)
         parcelledWorkRequest = ParcelableWorkRequest(request)
+
+        data = Data.Builder()
+            .putString("url", "https://www.example.com/uploads/photo.jpg")
+            .putLong("timestamp", System.currentTimeMillis())
+            .putInt("retries", 3)
+            .putBoolean("metered", false)
+            .putDouble("progress", 0.5)
+            .putLongArray("ids", LongArray(64) { it.toLong() })
+            .putStringArray("tags", Array(8) { "tag$it" })
+            .build()
+        serializedData = Data.toByteArrayInternal(data)
+        javaSerializedData = javaSerialize(data)
     }
 
     @Test
@@ -98,4 +116,51 @@ class MarshallingBenchmark {
             )
         }
     }
+
+    @Test
+    fun dataToByteArrayBenchmark() {
+        benchmarkRule.measureRepeated {
+            Data.toByteArrayInternal(data)
+        }
+    }
+
+    @Test
+    fun dataFromByteArrayBenchmark() {
+        benchmarkRule.measureRepeated {
+            Data.fromByteArray(serializedData)
+        }
+    }
+
+    /**
+     * Serializes [data] with Java serialization, as earlier versions did. Compare with
+     * [dataToByteArrayBenchmark]. The serialized data is several times bigger.
+     */
+    @Test
+    fun javaSerializedDataToByteArrayBenchmark() {
+        benchmarkRule.measureRepeated {
+            javaSerialize(data)
+        }
+    }
+
+    /**
+     * Reads data persisted by earlier versions. Compare with [dataFromByteArrayBenchmark].
+     */
+    @Test
+    fun javaSerializedDataFromByteArrayBenchmark() {
+        benchmarkRule.measureRepeated {
+            Data.fromByteArray(javaSerializedData)
+        }
+    }
+
+    private fun javaSerialize(data: Data): ByteArray {
+        val outputStream = ByteArrayOutputStream()
+        ObjectOutputStream(outputStream).use { objectOutputStream ->
+            objectOutputStream.writeInt(data.keyValueMap.size)
+            for ((key, value) in data.keyValueMap) {
+                objectOutputStream.writeUTF(key)
+                objectOutputStream.writeObject(value)
+            }
+        }
+        return outputStream.toByteArray()
+    }
 }
@@ -0,0 +1,145 @@
+/*
+ * Copyright 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.work.benchmark
+
+import android.content.Context
+import android.util.Log
+import androidx.benchmark.junit4.BenchmarkRule
+import androidx.benchmark.junit4.measureRepeated
+import androidx.test.core.app.ApplicationProvider
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import androidx.test.filters.LargeTest
+import androidx.work.Configuration
+import androidx.work.OneTimeWorkRequestBuilder
+import androidx.work.WorkInfo
+import androidx.work.impl.ExecutionListener
+import androidx.work.impl.Processor
+import androidx.work.impl.WorkDatabase
+import androidx.work.impl.utils.SerialExecutor
+import androidx.work.impl.utils.taskexecutor.TaskExecutor
+import org.junit.After
+import org.junit.Before
+import org.junit.Rule
+import org.junit.Test
+import org.junit.runner.RunWith
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.Executor
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+
+/**
+ * Measures how many short workers the [Processor] runs per second when many threads start them at
+ * the same time. Each iteration runs [WORKER_COUNT] workers, so the throughput is [WORKER_COUNT]
+ * divided by the time reported for an iteration.
+ */
+@RunWith(AndroidJUnit4::class)
+@LargeTest
+class ProcessorBenchmark {
+
+    @get:Rule
+    val benchmarkRule = BenchmarkRule()
+    private lateinit var context: Context
+    private lateinit var executor: ExecutorService
+    private lateinit var database: WorkDatabase
+    private lateinit var processor: Processor
+    private lateinit var ids: List<String>
+
+    @Before
+    fun setUp() {
+        context = ApplicationProvider.getApplicationContext()
+        executor = Executors.newFixedThreadPool(THREAD_COUNT)
+        val serialExecutor = SerialExecutor(executor)
+
+        // The completions of the WorkerWrappers are dispatched from the thread pool, so that
+        // the Processor is used from many threads at once.
+        val taskExecutor = object : TaskExecutor {
+            override fun postToMainThread(runnable: Runnable) {
+                executor.execute(runnable)
+            }
+
+            override fun getMainThreadExecutor(): Executor {
+                return executor
+            }
+
+            override fun executeOnBackgroundThread(runnable: Runnable) {
+                serialExecutor.execute(runnable)
+            }
+
+            override fun getBackgroundExecutor(): SerialExecutor {
+                return serialExecutor
+            }
+        }
+
+        val configuration = Configuration.Builder()
+            .setExecutor(executor)
+            .setTaskExecutor(executor)
+            .setMinimumLoggingLevel(Log.ERROR)
+            .build()
+        database = WorkDatabase.create(context, configuration.taskExecutor, true)
+        processor = Processor(context, configuration, taskExecutor, database, emptyList())
+        ids = (0 until WORKER_COUNT).map {
+            val request = OneTimeWorkRequestBuilder<NoOpWorker>().build()
+            database.workSpecDao().insertWorkSpec(request.workSpec)
+            request.stringId
+        }
+    }
+
+    @After
+    fun tearDown() {
+        executor.shutdownNow()
+        database.close()
+    }
+
+    @Test
+    fun startWorkConcurrently() {
+        benchmarkRule.measureRepeated {
+            val latch = runWithTimingDisabled {
+                database.workSpecDao().setState(WorkInfo.State.ENQUEUED, *ids.toTypedArray())
+                val latch = CountDownLatch(ids.size)
+                processor.addExecutionListener(CountDownListener(latch))
+                latch
+            }
+            val chunkSize = ids.size / THREAD_COUNT
+            val starters = ids.chunked(chunkSize).map { chunk ->
+                Thread {
+                    chunk.forEach { processor.startWork(it) }
+                }
+            }
+            starters.forEach { it.start() }
+            starters.forEach { it.join() }
+            check(latch.await(TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                "Workers did not complete in time"
+            }
+        }
+    }
+
+    private inner class CountDownListener(private val latch: CountDownLatch) : ExecutionListener {
+        override fun onExecuted(workSpecId: String, needsReschedule: Boolean) {
+            latch.countDown()
+            if (latch.count == 0L) {
+                processor.removeExecutionListener(this)
+            }
+        }
+    }
+
+    companion object {
+        private const val WORKER_COUNT = 200
+        private const val THREAD_COUNT = 8
+        private const val TIMEOUT_SECONDS = 30L
+    }
+}
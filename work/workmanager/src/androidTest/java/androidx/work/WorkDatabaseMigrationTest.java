@@ -19,6 +19,7 @@ package androidx.work;
 import static android.content.Context.MODE_PRIVATE;
 import static android.database.sqlite.SQLiteDatabase.CONFLICT_FAIL;
 
+import static androidx.work.impl.WorkDatabaseMigrations.MIGRATION_11_12;
 import static androidx.work.impl.WorkDatabaseMigrations.MIGRATION_3_4;
 import static androidx.work.impl.WorkDatabaseMigrations.MIGRATION_4_5;
 import static androidx.work.impl.WorkDatabaseMigrations.MIGRATION_6_7;
@@ -27,6 +28,7 @@ import static androidx.work.impl.WorkDatabaseMigrations.MIGRATION_8_9;
 import static androidx.work.impl.WorkDatabaseMigrations.VERSION_1;
 import static androidx.work.impl.WorkDatabaseMigrations.VERSION_10;
 import static androidx.work.impl.WorkDatabaseMigrations.VERSION_11;
+import static androidx.work.impl.WorkDatabaseMigrations.VERSION_12;
 import static androidx.work.impl.WorkDatabaseMigrations.VERSION_2;
 import static androidx.work.impl.WorkDatabaseMigrations.VERSION_3;
 import static androidx.work.impl.WorkDatabaseMigrations.VERSION_4;
@@ -103,6 +105,10 @@ public class WorkDatabaseMigrationTest {
     private static final String TABLE_WORKPROGRESS = "WorkProgress";
     private static final String TABLE_PREFERENCE = "Preference";
     private static final String INDEX_PERIOD_START_TIME = "index_WorkSpec_period_start_time";
+    private static final String INDEX_STATE_SCHEDULE_REQUESTED_AT_PERIOD_START_TIME =
+            "index_WorkSpec_state_schedule_requested_at_period_start_time";
+    private static final String INDEX_STATE_PERIOD_START_TIME =
+            "index_WorkSpec_state_period_start_time";
 
     private static final String NAME = "name";
     private static final String TRIGGER_CONTENT_UPDATE_DELAY = "trigger_content_update_delay";
@@ -436,6 +442,24 @@ public class WorkDatabaseMigrationTest {
         database.close();
     }
 
+    @Test
+    @MediumTest
+    public void testMigrationVersion11To12() throws IOException {
+        SupportSQLiteDatabase database =
+                mMigrationTestHelper.createDatabase(TEST_DATABASE, VERSION_11);
+        database = mMigrationTestHelper.runMigrationsAndValidate(
+                TEST_DATABASE,
+                VERSION_12,
+                VALIDATE_DROPPED_TABLES,
+                MIGRATION_11_12);
+
+        assertThat(checkIndexExists(database,
+                INDEX_STATE_SCHEDULE_REQUESTED_AT_PERIOD_START_TIME, TABLE_WORKSPEC), is(true));
+        assertThat(checkIndexExists(database, INDEX_STATE_PERIOD_START_TIME, TABLE_WORKSPEC),
+                is(true));
+        database.close();
+    }
+
     @NonNull
     private ContentValues contentValues(String workSpecId) {
         ContentValues contentValues = new ContentValues();
@@ -17,7 +17,10 @@
 package androidx.work;
 
 import static androidx.work.WorkInfo.State.BLOCKED;
+import static androidx.work.WorkInfo.State.CANCELLED;
+import static androidx.work.WorkInfo.State.ENQUEUED;
 import static androidx.work.WorkInfo.State.FAILED;
+import static androidx.work.WorkInfo.State.RUNNING;
 import static androidx.work.WorkInfo.State.SUCCEEDED;
 import static androidx.work.impl.Scheduler.MAX_SCHEDULER_LIMIT;
 
@@ -29,6 +32,7 @@ import static org.hamcrest.Matchers.containsInAnyOrder;
 
 import androidx.test.ext.junit.runners.AndroidJUnit4;
 import androidx.test.filters.SmallTest;
+import androidx.work.impl.model.Dependency;
 import androidx.work.impl.model.WorkSpec;
 import androidx.work.impl.model.WorkSpecDao;
 import androidx.work.worker.TestWorker;
@@ -36,6 +40,7 @@ import androidx.work.worker.TestWorker;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 
+import java.util.Arrays;
 import java.util.List;
 import java.util.concurrent.TimeUnit;
 
@@ -218,4 +223,109 @@ public class WorkSpecDaoTest extends DatabaseTest {
         // Not using contains in any order as the scheduleRequestedAt changes post reset.
         assertThat(eligibleWorkSpecs.get(0).id, is(enqueued.getStringId()));
     }
+
+    @Test
+    @SmallTest
+    public void testSetEnqueuedWorkRunning() {
+        WorkSpecDao workSpecDao = mDatabase.workSpecDao();
+        OneTimeWorkRequest enqueued = new OneTimeWorkRequest.Builder(TestWorker.class).build();
+        OneTimeWorkRequest cancelled = new OneTimeWorkRequest.Builder(TestWorker.class)
+                .setInitialState(CANCELLED)
+                .build();
+        insertWork(enqueued);
+        insertWork(cancelled);
+
+        assertThat(workSpecDao.setEnqueuedWorkRunning(
+                enqueued.getStringId(), cancelled.getStringId()), is(1));
+        WorkSpec running = workSpecDao.getWorkSpec(enqueued.getStringId());
+        assertThat(running.state, is(RUNNING));
+        assertThat(running.runAttemptCount, is(1));
+        assertThat(workSpecDao.getState(cancelled.getStringId()), is(CANCELLED));
+        assertThat(workSpecDao.getWorkSpec(cancelled.getStringId()).runAttemptCount, is(0));
+
+        // Work which is already running is not updated again.
+        assertThat(workSpecDao.setEnqueuedWorkRunning(enqueued.getStringId()), is(0));
+    }
+
+    @Test
+    @SmallTest
+    public void testSetStateOfUnfinishedWork() {
+        WorkSpecDao workSpecDao = mDatabase.workSpecDao();
+        OneTimeWorkRequest enqueued = new OneTimeWorkRequest.Builder(TestWorker.class).build();
+        OneTimeWorkRequest blocked = new OneTimeWorkRequest.Builder(TestWorker.class)
+                .setInitialState(BLOCKED)
+                .build();
+        OneTimeWorkRequest succeeded = new OneTimeWorkRequest.Builder(TestWorker.class)
+                .setInitialState(SUCCEEDED)
+                .build();
+        insertWork(enqueued);
+        insertWork(blocked);
+        insertWork(succeeded);
+
+        int updated = workSpecDao.setStateOfUnfinishedWork(CANCELLED, Arrays.asList(
+                enqueued.getStringId(), blocked.getStringId(), succeeded.getStringId()));
+        assertThat(updated, is(2));
+        assertThat(workSpecDao.getState(enqueued.getStringId()), is(CANCELLED));
+        assertThat(workSpecDao.getState(blocked.getStringId()), is(CANCELLED));
+        assertThat(workSpecDao.getState(succeeded.getStringId()), is(SUCCEEDED));
+    }
+
+    @Test
+    @SmallTest
+    public void testGetUnblockedWorkIds() {
+        WorkSpecDao workSpecDao = mDatabase.workSpecDao();
+        OneTimeWorkRequest succeeded = new OneTimeWorkRequest.Builder(TestWorker.class)
+                .setInitialState(SUCCEEDED)
+                .build();
+        OneTimeWorkRequest running = new OneTimeWorkRequest.Builder(TestWorker.class)
+                .setInitialState(RUNNING)
+                .build();
+        OneTimeWorkRequest unblocked = new OneTimeWorkRequest.Builder(TestWorker.class)
+                .setInitialState(BLOCKED)
+                .build();
+        OneTimeWorkRequest stillBlocked = new OneTimeWorkRequest.Builder(TestWorker.class)
+                .setInitialState(BLOCKED)
+                .build();
+        insertWork(succeeded);
+        insertWork(running);
+        insertWork(unblocked);
+        insertWork(stillBlocked);
+        mDatabase.dependencyDao().insertDependency(
+                new Dependency(unblocked.getStringId(), succeeded.getStringId()));
+        mDatabase.dependencyDao().insertDependency(
+                new Dependency(stillBlocked.getStringId(), succeeded.getStringId()));
+        mDatabase.dependencyDao().insertDependency(
+                new Dependency(stillBlocked.getStringId(), running.getStringId()));
+
+        List<String> dependentIds =
+                mDatabase.dependencyDao().getDependentWorkIds(
+                        Arrays.asList(succeeded.getStringId(), running.getStringId()));
+        assertThat(dependentIds, containsInAnyOrder(
+                unblocked.getStringId(), stillBlocked.getStringId()));
+        List<String> unblockedIds = workSpecDao.getUnblockedWorkIds(dependentIds);
+        assertThat(unblockedIds, containsInAnyOrder(unblocked.getStringId()));
+
+        long periodStartTime = System.currentTimeMillis();
+        assertThat(workSpecDao.setEnqueued(periodStartTime, unblockedIds), is(1));
+        WorkSpec workSpec = workSpecDao.getWorkSpec(unblocked.getStringId());
+        assertThat(workSpec.state, is(ENQUEUED));
+        assertThat(workSpec.periodStartTime, is(periodStartTime));
+    }
+
+    @Test
+    @SmallTest
+    public void testMarkWorkSpecsScheduled() {
+        WorkSpecDao workSpecDao = mDatabase.workSpecDao();
+        OneTimeWorkRequest first = new OneTimeWorkRequest.Builder(TestWorker.class).build();
+        OneTimeWorkRequest second = new OneTimeWorkRequest.Builder(TestWorker.class).build();
+        insertWork(first);
+        insertWork(second);
+
+        long startTime = System.currentTimeMillis();
+        int updated = workSpecDao.markWorkSpecsScheduled(
+                Arrays.asList(first.getStringId(), second.getStringId()), startTime);
+        assertThat(updated, is(2));
+        assertThat(workSpecDao.getEligibleWorkForScheduling(MAX_SCHEDULER_LIMIT).size(), is(0));
+        assertThat(workSpecDao.getScheduledWork().size(), is(2));
+    }
 }
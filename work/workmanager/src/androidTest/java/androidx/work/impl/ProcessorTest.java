@@ -20,15 +20,23 @@ import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.is;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 
+import android.app.Notification;
+import android.content.ComponentName;
 import android.content.Context;
+import android.content.ContextWrapper;
+import android.content.Intent;
 
+import androidx.annotation.NonNull;
 import androidx.test.core.app.ApplicationProvider;
 import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.MediumTest;
 import androidx.test.filters.SmallTest;
 import androidx.work.Configuration;
 import androidx.work.DatabaseTest;
+import androidx.work.ForegroundInfo;
 import androidx.work.OneTimeWorkRequest;
 import androidx.work.impl.utils.taskexecutor.InstantWorkTaskExecutor;
 import androidx.work.worker.InfiniteTestWorker;
@@ -37,7 +45,12 @@ import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @RunWith(AndroidJUnit4.class)
 public class ProcessorTest extends DatabaseTest {
@@ -76,6 +89,125 @@ public class ProcessorTest extends DatabaseTest {
         assertThat(mProcessor.startWork(id), is(false));
     }
 
+    @Test
+    @SmallTest
+    public void testStartWork_fromManyThreads_startsWorkOnce() throws InterruptedException {
+        OneTimeWorkRequest work = new OneTimeWorkRequest.Builder(InfiniteTestWorker.class).build();
+        final String id = work.getStringId();
+        insertWork(work);
+
+        int threadCount = 8;
+        final CountDownLatch startLatch = new CountDownLatch(1);
+        final AtomicInteger startedCount = new AtomicInteger();
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < threadCount; i++) {
+            Thread thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        startLatch.await();
+                    } catch (InterruptedException ignored) {
+                        return;
+                    }
+                    if (mProcessor.startWork(id)) {
+                        startedCount.incrementAndGet();
+                    }
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        startLatch.countDown();
+        for (Thread thread : threads) {
+            thread.join(TimeUnit.SECONDS.toMillis(5));
+        }
+        assertThat(startedCount.get(), is(1));
+        assertThat(mProcessor.isEnqueued(id), is(true));
+    }
+
+    @Test
+    @MediumTest
+    public void testStopAndCancelWork_whileMovingToForeground_stopsWork()
+            throws InterruptedException {
+        // Does not start the foreground service for real.
+        Context context = new ContextWrapper(ApplicationProvider.getApplicationContext()) {
+            @Override
+            public ComponentName startService(Intent service) {
+                return null;
+            }
+
+            @Override
+            public ComponentName startForegroundService(Intent service) {
+                return null;
+            }
+        };
+        final Processor processor = new Processor(
+                context,
+                new Configuration.Builder().build(),
+                new InstantWorkTaskExecutor(),
+                mDatabase,
+                Collections.singletonList(mMockScheduler));
+        final ForegroundInfo foregroundInfo = new ForegroundInfo(1, mock(Notification.class));
+
+        for (int i = 0; i < 50; i++) {
+            OneTimeWorkRequest work =
+                    new OneTimeWorkRequest.Builder(InfiniteTestWorker.class).build();
+            final String id = work.getStringId();
+            insertWork(work);
+            assertThat(processor.startWork(id), is(true));
+
+            final CountDownLatch startLatch = new CountDownLatch(1);
+            Thread mover = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        startLatch.await();
+                    } catch (InterruptedException ignored) {
+                        return;
+                    }
+                    processor.startForeground(id, foregroundInfo);
+                }
+            });
+            Thread canceller = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        startLatch.await();
+                    } catch (InterruptedException ignored) {
+                        return;
+                    }
+                    processor.stopAndCancelWork(id);
+                }
+            });
+            mover.start();
+            canceller.start();
+            startLatch.countDown();
+            mover.join(TimeUnit.SECONDS.toMillis(5));
+            canceller.join(TimeUnit.SECONDS.toMillis(5));
+
+            assertThat(processor.isCancelled(id), is(true));
+            assertThat(processor.isEnqueued(id), is(false));
+        }
+    }
+
+    @Test
+    @SmallTest
+    public void testOnExecuted_listenerRemovingItself() {
+        final ExecutionListener otherListener = mock(ExecutionListener.class);
+        ExecutionListener listener = new ExecutionListener() {
+            @Override
+            public void onExecuted(@NonNull String workSpecId, boolean needsReschedule) {
+                mProcessor.removeExecutionListener(this);
+            }
+        };
+        mProcessor.addExecutionListener(listener);
+        mProcessor.addExecutionListener(otherListener);
+
+        mProcessor.onExecuted("dummy", false);
+        mProcessor.onExecuted("dummy", false);
+        verify(otherListener, times(2)).onExecuted("dummy", false);
+    }
+
     @Test
     @SmallTest
     public void testHasWork() {
@@ -64,13 +64,12 @@ import android.provider.MediaStore;
 import android.util.Log;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.OptIn;
 import androidx.arch.core.executor.ArchTaskExecutor;
 import androidx.arch.core.executor.TaskExecutor;
 import androidx.lifecycle.LiveData;
 import androidx.lifecycle.Observer;
 import androidx.lifecycle.testing.TestLifecycleOwner;
-import androidx.sqlite.db.SupportSQLiteDatabase;
-import androidx.sqlite.db.SupportSQLiteOpenHelper;
 import androidx.test.core.app.ApplicationProvider;
 import androidx.test.ext.junit.runners.AndroidJUnit4;
 import androidx.test.filters.LargeTest;
@@ -84,8 +83,10 @@ import androidx.work.Constraints;
 import androidx.work.ContentUriTriggers;
 import androidx.work.Data;
 import androidx.work.ExistingPeriodicWorkPolicy;
+import androidx.work.ExperimentalWorkApi;
 import androidx.work.OneTimeWorkRequest;
 import androidx.work.PeriodicWorkRequest;
+import androidx.work.RetentionPolicy;
 import androidx.work.WorkContinuation;
 import androidx.work.WorkInfo;
 import androidx.work.WorkRequest;
@@ -101,6 +102,7 @@ import androidx.work.impl.model.WorkTagDao;
 import androidx.work.impl.utils.CancelWorkRunnable;
 import androidx.work.impl.utils.ForceStopRunnable;
 import androidx.work.impl.utils.PreferenceUtils;
+import androidx.work.impl.utils.PruneWorkRunnable;
 import androidx.work.impl.utils.taskexecutor.InstantWorkTaskExecutor;
 import androidx.work.impl.workers.ConstraintTrackingWorker;
 import androidx.work.worker.InfiniteTestWorker;
@@ -290,6 +292,78 @@ public class WorkManagerImplTest {
         assertThat(prerequisites, containsInAnyOrder(work2.getStringId()));
     }
 
+    @Test
+    @MediumTest
+    @OptIn(markerClass = ExperimentalWorkApi.class)
+    public void testEnqueueAll_insertsAllContinuations()
+            throws ExecutionException, InterruptedException {
+        OneTimeWorkRequest work1 = new OneTimeWorkRequest.Builder(TestWorker.class)
+                .addTag("tag")
+                .build();
+        OneTimeWorkRequest work2 = new OneTimeWorkRequest.Builder(TestWorker.class).build();
+        OneTimeWorkRequest work3 = new OneTimeWorkRequest.Builder(TestWorker.class).build();
+
+        mWorkManagerImpl.enqueueAll(Arrays.asList(
+                mWorkManagerImpl.beginWith(work1).then(work2),
+                mWorkManagerImpl.beginUniqueWork("name", KEEP, work3)))
+                .getResult()
+                .get();
+
+        WorkSpecDao workSpecDao = mDatabase.workSpecDao();
+        assertThat(workSpecDao.getState(work1.getStringId()), is(ENQUEUED));
+        assertThat(workSpecDao.getState(work2.getStringId()), is(BLOCKED));
+        assertThat(workSpecDao.getState(work3.getStringId()), is(ENQUEUED));
+        assertThat(mDatabase.dependencyDao().getPrerequisites(work2.getStringId()),
+                contains(work1.getStringId()));
+        assertThat(mDatabase.workTagDao().getTagsForWorkSpecId(work1.getStringId()),
+                containsInAnyOrder("tag", TestWorker.class.getName()));
+        assertThat(mDatabase.workNameDao().getWorkSpecIdsWithName("name"),
+                contains(work3.getStringId()));
+    }
+
+    @Test
+    @MediumTest
+    @OptIn(markerClass = ExperimentalWorkApi.class)
+    public void testEnqueueAll_skipsSupersededUniqueWork()
+            throws ExecutionException, InterruptedException {
+        OneTimeWorkRequest work1 = new OneTimeWorkRequest.Builder(TestWorker.class).build();
+        OneTimeWorkRequest work2 = new OneTimeWorkRequest.Builder(TestWorker.class).build();
+        OneTimeWorkRequest work3 = new OneTimeWorkRequest.Builder(TestWorker.class).build();
+
+        mWorkManagerImpl.enqueueAll(Arrays.asList(
+                mWorkManagerImpl.beginUniqueWork("name", REPLACE, work1),
+                mWorkManagerImpl.beginUniqueWork("name", REPLACE, work2),
+                mWorkManagerImpl.beginUniqueWork("name", KEEP, work3)))
+                .getResult()
+                .get();
+
+        WorkSpecDao workSpecDao = mDatabase.workSpecDao();
+        assertThat(workSpecDao.getWorkSpec(work1.getStringId()), is(nullValue()));
+        assertThat(workSpecDao.getState(work2.getStringId()), is(ENQUEUED));
+        assertThat(workSpecDao.getWorkSpec(work3.getStringId()), is(nullValue()));
+    }
+
+    @Test
+    @MediumTest
+    @OptIn(markerClass = ExperimentalWorkApi.class)
+    public void testEnqueueAll_appendsUniqueWorkInOrder()
+            throws ExecutionException, InterruptedException {
+        OneTimeWorkRequest work1 = new OneTimeWorkRequest.Builder(TestWorker.class).build();
+        OneTimeWorkRequest work2 = new OneTimeWorkRequest.Builder(TestWorker.class).build();
+
+        mWorkManagerImpl.enqueueAll(Arrays.asList(
+                mWorkManagerImpl.beginUniqueWork("name", APPEND, work1),
+                mWorkManagerImpl.beginUniqueWork("name", APPEND, work2)))
+                .getResult()
+                .get();
+
+        WorkSpecDao workSpecDao = mDatabase.workSpecDao();
+        assertThat(workSpecDao.getState(work1.getStringId()), is(ENQUEUED));
+        assertThat(workSpecDao.getState(work2.getStringId()), is(BLOCKED));
+        assertThat(mDatabase.dependencyDao().getPrerequisites(work2.getStringId()),
+                contains(work1.getStringId()));
+    }
+
     @Test
     @MediumTest
     public void testEnqueue_insertWithCompletedDependencies_isNotStatusBlocked()
@@ -1610,10 +1684,10 @@ public class WorkManagerImplTest {
 
     @Test
     @MediumTest
-    public void testGenerateCleanupCallback_deletesOldFinishedWork() {
+    public void testPruneWorkApplyingRetentionPolicy_deletesOldFinishedWork() {
         OneTimeWorkRequest work1 = new OneTimeWorkRequest.Builder(TestWorker.class)
                 .setInitialState(SUCCEEDED)
-                .setPeriodStartTime(WorkDatabase.getPruneDate() - 1L, TimeUnit.MILLISECONDS)
+                .setPeriodStartTime(getPruneDate() - 1L, TimeUnit.MILLISECONDS)
                 .build();
         OneTimeWorkRequest work2 = new OneTimeWorkRequest.Builder(TestWorker.class)
                 .setPeriodStartTime(Long.MAX_VALUE, TimeUnit.MILLISECONDS)
@@ -1622,9 +1696,7 @@ public class WorkManagerImplTest {
         insertWorkSpecAndTags(work1);
         insertWorkSpecAndTags(work2);
 
-        SupportSQLiteOpenHelper openHelper = mDatabase.getOpenHelper();
-        SupportSQLiteDatabase db = openHelper.getWritableDatabase();
-        WorkDatabase.generateCleanupCallback().onOpen(db);
+        new PruneWorkRunnable(mWorkManagerImpl, true).run();
 
         WorkSpecDao workSpecDao = mDatabase.workSpecDao();
         assertThat(workSpecDao.getWorkSpec(work1.getStringId()), is(nullValue()));
@@ -1633,18 +1705,18 @@ public class WorkManagerImplTest {
 
     @Test
     @MediumTest
-    public void testGenerateCleanupCallback_doesNotDeleteOldFinishedWorkWithActiveDependents() {
+    public void testPruneWorkApplyingRetentionPolicy_keepsWorkWithActiveDependents() {
         OneTimeWorkRequest work0 = new OneTimeWorkRequest.Builder(TestWorker.class)
                 .setInitialState(SUCCEEDED)
-                .setPeriodStartTime(WorkDatabase.getPruneDate() - 1L, TimeUnit.MILLISECONDS)
+                .setPeriodStartTime(getPruneDate() - 1L, TimeUnit.MILLISECONDS)
                 .build();
         OneTimeWorkRequest work1 = new OneTimeWorkRequest.Builder(TestWorker.class)
                 .setInitialState(SUCCEEDED)
-                .setPeriodStartTime(WorkDatabase.getPruneDate() - 1L, TimeUnit.MILLISECONDS)
+                .setPeriodStartTime(getPruneDate() - 1L, TimeUnit.MILLISECONDS)
                 .build();
         OneTimeWorkRequest work2 = new OneTimeWorkRequest.Builder(TestWorker.class)
                 .setInitialState(ENQUEUED)
-                .setPeriodStartTime(WorkDatabase.getPruneDate() - 1L, TimeUnit.MILLISECONDS)
+                .setPeriodStartTime(getPruneDate() - 1L, TimeUnit.MILLISECONDS)
                 .build();
 
         insertWorkSpecAndTags(work0);
@@ -1655,9 +1727,7 @@ public class WorkManagerImplTest {
         insertDependency(work1, work0);
         insertDependency(work2, work1);
 
-        SupportSQLiteOpenHelper openHelper = mDatabase.getOpenHelper();
-        SupportSQLiteDatabase db = openHelper.getWritableDatabase();
-        WorkDatabase.generateCleanupCallback().onOpen(db);
+        new PruneWorkRunnable(mWorkManagerImpl, true).run();
 
         WorkSpecDao workSpecDao = mDatabase.workSpecDao();
         assertThat(workSpecDao.getWorkSpec(work0.getStringId()), is(nullValue()));
@@ -1665,6 +1735,11 @@ public class WorkManagerImplTest {
         assertThat(workSpecDao.getWorkSpec(work2.getStringId()), is(not(nullValue())));
     }
 
+    @OptIn(markerClass = ExperimentalWorkApi.class)
+    private static long getPruneDate() {
+        return System.currentTimeMillis() - RetentionPolicy.DEFAULT.getMaxAgeMillis();
+    }
+
     @Test
     @LargeTest
     public void testEnableDisableRescheduleReceiver()
@@ -0,0 +1,115 @@
+/*
+ * Copyright 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.work.impl.utils;
+
+import static androidx.work.WorkInfo.State.BLOCKED;
+import static androidx.work.WorkInfo.State.CANCELLED;
+import static androidx.work.WorkInfo.State.ENQUEUED;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import androidx.room.RoomDatabase;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.MediumTest;
+import androidx.test.filters.SmallTest;
+import androidx.work.DatabaseTest;
+import androidx.work.OneTimeWorkRequest;
+import androidx.work.impl.model.Dependency;
+import androidx.work.impl.model.WorkSpecDao;
+import androidx.work.worker.TestWorker;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@RunWith(AndroidJUnit4.class)
+public class WorkSpecBatchUtilsTest extends DatabaseTest {
+
+    @Test
+    @SmallTest
+    public void testBatches_reservesParametersForOtherArguments() {
+        List<String> ids = createIds(RoomDatabase.MAX_BIND_PARAMETER_CNT);
+
+        List<List<String>> batches = WorkSpecBatchUtils.batches(ids, 1);
+
+        assertThat(batches.size(), is(2));
+        assertThat(batches.get(0).size(), is(RoomDatabase.MAX_BIND_PARAMETER_CNT - 1));
+        assertThat(batches.get(1).size(), is(1));
+    }
+
+    @Test
+    @SmallTest
+    public void testBatches_keepsIdsWhichFitInASingleBatch() {
+        List<String> ids = createIds(RoomDatabase.MAX_BIND_PARAMETER_CNT - 1);
+
+        List<List<String>> batches = WorkSpecBatchUtils.batches(ids, 1);
+
+        assertThat(batches.size(), is(1));
+        assertThat(batches.get(0), is(ids));
+    }
+
+    @Test
+    @MediumTest
+    public void testSetStateOfWorkAndDependents_withMaxBindParameterCountDependents() {
+        OneTimeWorkRequest prerequisite = new OneTimeWorkRequest.Builder(TestWorker.class)
+                .setInitialState(ENQUEUED)
+                .build();
+        insertWork(prerequisite);
+        List<String> dependentIds = new ArrayList<>();
+        mDatabase.beginTransaction();
+        try {
+            for (int i = 0; i < RoomDatabase.MAX_BIND_PARAMETER_CNT; i++) {
+                OneTimeWorkRequest dependent = new OneTimeWorkRequest.Builder(TestWorker.class)
+                        .setInitialState(BLOCKED)
+                        .build();
+                insertWork(dependent);
+                mDatabase.dependencyDao().insertDependency(
+                        new Dependency(dependent.getStringId(), prerequisite.getStringId()));
+                dependentIds.add(dependent.getStringId());
+            }
+            mDatabase.setTransactionSuccessful();
+        } finally {
+            mDatabase.endTransaction();
+        }
+
+        mDatabase.beginTransaction();
+        try {
+            WorkSpecBatchUtils.setStateOfWorkAndDependents(
+                    mDatabase, CANCELLED, prerequisite.getStringId());
+            mDatabase.setTransactionSuccessful();
+        } finally {
+            mDatabase.endTransaction();
+        }
+
+        WorkSpecDao workSpecDao = mDatabase.workSpecDao();
+        assertThat(workSpecDao.getState(prerequisite.getStringId()), is(CANCELLED));
+        for (String id : dependentIds) {
+            assertThat(workSpecDao.getState(id), is(CANCELLED));
+        }
+    }
+
+    private static List<String> createIds(int count) {
+        List<String> ids = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            ids.add("id" + i);
+        }
+        return ids;
+    }
+}
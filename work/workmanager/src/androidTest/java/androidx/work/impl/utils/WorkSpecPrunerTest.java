@@ -0,0 +1,197 @@
+/*
+ * Copyright 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.work.impl.utils;
+
+import static androidx.work.WorkInfo.State.ENQUEUED;
+import static androidx.work.WorkInfo.State.FAILED;
+import static androidx.work.WorkInfo.State.SUCCEEDED;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import androidx.annotation.OptIn;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.SmallTest;
+import androidx.work.DatabaseTest;
+import androidx.work.ExperimentalWorkApi;
+import androidx.work.OneTimeWorkRequest;
+import androidx.work.RetentionPolicy;
+import androidx.work.WorkInfo;
+import androidx.work.impl.model.WorkSpecDao;
+import androidx.work.worker.TestWorker;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.concurrent.TimeUnit;
+
+@OptIn(markerClass = ExperimentalWorkApi.class)
+@SmallTest
+@RunWith(AndroidJUnit4.class)
+public class WorkSpecPrunerTest extends DatabaseTest {
+
+    private static final String TAG = "tag";
+
+    private WorkSpecDao mWorkSpecDao;
+    private long mNow;
+
+    @Before
+    public void setUp() {
+        mWorkSpecDao = mDatabase.workSpecDao();
+        mNow = System.currentTimeMillis();
+    }
+
+    @Test
+    public void testPrune_deletesFinishedWorkOlderThanMaxAge() {
+        OneTimeWorkRequest old = insertWork(SUCCEEDED, TimeUnit.HOURS.toMillis(2), null);
+        OneTimeWorkRequest recent = insertWork(FAILED, TimeUnit.MINUTES.toMillis(30), null);
+        OneTimeWorkRequest unfinished = insertWork(ENQUEUED, TimeUnit.HOURS.toMillis(2), null);
+        RetentionPolicy policy = new RetentionPolicy.Builder()
+                .setMaxAge(1, TimeUnit.HOURS)
+                .build();
+
+        WorkSpecPruner.Pass pass = new WorkSpecPruner(mDatabase, policy).prune();
+
+        assertThat(pass.getDeletedByAge(), is(1));
+        assertThat(pass.getDeletedCount(), is(1));
+        assertThat(pass.isComplete(), is(true));
+        assertThat(mWorkSpecDao.getWorkSpec(old.getStringId()), is(nullValue()));
+        assertThat(mWorkSpecDao.getWorkSpec(recent.getStringId()), is(notNullValue()));
+        assertThat(mWorkSpecDao.getWorkSpec(unfinished.getStringId()), is(notNullValue()));
+    }
+
+    @Test
+    public void testPrune_keepsFinishedWorkWithinMinimumRetentionDuration() {
+        OneTimeWorkRequest work = new OneTimeWorkRequest.Builder(TestWorker.class)
+                .setInitialState(SUCCEEDED)
+                .setPeriodStartTime(mNow - TimeUnit.HOURS.toMillis(2), TimeUnit.MILLISECONDS)
+                .keepResultsForAtLeast(1, TimeUnit.DAYS)
+                .build();
+        insertWork(work);
+        RetentionPolicy policy = new RetentionPolicy.Builder()
+                .setMaxAge(1, TimeUnit.HOURS)
+                .setMaxFinishedWorkCount(0)
+                .build();
+
+        WorkSpecPruner.Pass pass = new WorkSpecPruner(mDatabase, policy).prune();
+
+        assertThat(pass.getDeletedCount(), is(0));
+        assertThat(mWorkSpecDao.getWorkSpec(work.getStringId()), is(notNullValue()));
+    }
+
+    @Test
+    public void testPrune_deletesOldestFinishedWorkExceedingTagQuota() {
+        OneTimeWorkRequest oldest = insertWork(SUCCEEDED, 3000L, TAG);
+        OneTimeWorkRequest older = insertWork(SUCCEEDED, 2000L, TAG);
+        OneTimeWorkRequest newest = insertWork(SUCCEEDED, 1000L, TAG);
+        OneTimeWorkRequest untagged = insertWork(SUCCEEDED, 4000L, null);
+        RetentionPolicy policy = new RetentionPolicy.Builder()
+                .setMaxFinishedWorkCount(TAG, 1)
+                .build();
+
+        WorkSpecPruner.Pass pass = new WorkSpecPruner(mDatabase, policy).prune();
+
+        assertThat(pass.getDeletedByTagQuota(), is(2));
+        assertThat(pass.getDeletedCount(), is(2));
+        assertThat(mWorkSpecDao.getWorkSpec(oldest.getStringId()), is(nullValue()));
+        assertThat(mWorkSpecDao.getWorkSpec(older.getStringId()), is(nullValue()));
+        assertThat(mWorkSpecDao.getWorkSpec(newest.getStringId()), is(notNullValue()));
+        assertThat(mWorkSpecDao.getWorkSpec(untagged.getStringId()), is(notNullValue()));
+    }
+
+    @Test
+    public void testPrune_deletesOldestFinishedWorkExceedingCountQuota() {
+        OneTimeWorkRequest oldest = insertWork(SUCCEEDED, 3000L, null);
+        OneTimeWorkRequest newest = insertWork(FAILED, 1000L, TAG);
+        OneTimeWorkRequest unfinished = insertWork(ENQUEUED, 4000L, null);
+        RetentionPolicy policy = new RetentionPolicy.Builder()
+                .setMaxFinishedWorkCount(1)
+                .build();
+
+        WorkSpecPruner.Pass pass = new WorkSpecPruner(mDatabase, policy).prune();
+
+        assertThat(pass.getDeletedByCountQuota(), is(1));
+        assertThat(pass.getDeletedCount(), is(1));
+        assertThat(mWorkSpecDao.getWorkSpec(oldest.getStringId()), is(nullValue()));
+        assertThat(mWorkSpecDao.getWorkSpec(newest.getStringId()), is(notNullValue()));
+        assertThat(mWorkSpecDao.getWorkSpec(unfinished.getStringId()), is(notNullValue()));
+    }
+
+    @Test
+    public void testPrune_stopsOnceTimeSliceIsUsedUp() {
+        OneTimeWorkRequest work0 = insertWork(SUCCEEDED, TimeUnit.HOURS.toMillis(3), null);
+        OneTimeWorkRequest work1 = insertWork(SUCCEEDED, TimeUnit.HOURS.toMillis(2), null);
+        RetentionPolicy policy = new RetentionPolicy.Builder()
+                .setMaxAge(1, TimeUnit.HOURS)
+                .build();
+        WorkSpecPruner pruner = new WorkSpecPruner(mDatabase, policy, 1, 0L);
+
+        WorkSpecPruner.Pass first = pruner.prune();
+        assertThat(first.getDeletedCount(), is(1));
+        assertThat(first.isComplete(), is(false));
+        assertThat(mWorkSpecDao.getWorkSpec(work0.getStringId()), is(nullValue()));
+        assertThat(mWorkSpecDao.getWorkSpec(work1.getStringId()), is(notNullValue()));
+
+        WorkSpecPruner.Pass second = pruner.prune();
+        assertThat(second.getDeletedCount(), is(1));
+        assertThat(mWorkSpecDao.getWorkSpec(work1.getStringId()), is(nullValue()));
+
+        WorkSpecPruner.Pass third = pruner.prune();
+        assertThat(third.getDeletedCount(), is(0));
+        assertThat(third.isComplete(), is(true));
+    }
+
+    @Test
+    public void testPruneIgnoringRetentionPolicy_deletesFinishedWorkInBatches() {
+        OneTimeWorkRequest work0 = new OneTimeWorkRequest.Builder(TestWorker.class)
+                .setInitialState(SUCCEEDED)
+                .keepResultsForAtLeast(1, TimeUnit.DAYS)
+                .build();
+        insertWork(work0);
+        OneTimeWorkRequest work1 = insertWork(FAILED, 0L, null);
+        OneTimeWorkRequest work2 = insertWork(SUCCEEDED, 0L, null);
+        OneTimeWorkRequest unfinished = insertWork(ENQUEUED, 0L, null);
+        WorkSpecPruner pruner = new WorkSpecPruner(mDatabase, RetentionPolicy.DEFAULT, 2, 1000L);
+
+        WorkSpecPruner.Pass pass = pruner.pruneIgnoringRetentionPolicy();
+
+        assertThat(pass.getDeletedIgnoringRetentionPolicy(), is(3));
+        assertThat(pass.getDeletedByAge(), is(0));
+        assertThat(pass.getDeletedCount(), is(3));
+        assertThat(pass.isComplete(), is(true));
+        assertThat(mWorkSpecDao.getWorkSpec(work0.getStringId()), is(nullValue()));
+        assertThat(mWorkSpecDao.getWorkSpec(work1.getStringId()), is(nullValue()));
+        assertThat(mWorkSpecDao.getWorkSpec(work2.getStringId()), is(nullValue()));
+        assertThat(mWorkSpecDao.getWorkSpec(unfinished.getStringId()), is(notNullValue()));
+    }
+
+    private OneTimeWorkRequest insertWork(WorkInfo.State state, long age, String tag) {
+        OneTimeWorkRequest.Builder builder = new OneTimeWorkRequest.Builder(TestWorker.class)
+                .setInitialState(state)
+                .setPeriodStartTime(mNow - age, TimeUnit.MILLISECONDS);
+        if (tag != null) {
+            builder.addTag(tag);
+        }
+        OneTimeWorkRequest work = builder.build();
+        insertWork(work);
+        insertTags(work);
+        return work;
+    }
+}
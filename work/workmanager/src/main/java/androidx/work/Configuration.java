@@ -26,6 +26,7 @@ import android.util.Log;
 import androidx.annotation.IntRange;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
+import androidx.annotation.OptIn;
 import androidx.annotation.RestrictTo;
 import androidx.work.impl.DefaultRunnableScheduler;
 import androidx.work.impl.Scheduler;
@@ -66,6 +67,8 @@ public final class Configuration {
     @SuppressWarnings("WeakerAccess")
     final @Nullable InitializationExceptionHandler mExceptionHandler;
     @SuppressWarnings("WeakerAccess")
+    final @NonNull RetentionPolicy mRetentionPolicy;
+    @SuppressWarnings("WeakerAccess")
     final @Nullable String mDefaultProcessName;
     @SuppressWarnings("WeakerAccess")
     final int mLoggingLevel;
@@ -119,6 +122,7 @@ public final class Configuration {
         mMaxSchedulerLimit = builder.mMaxSchedulerLimit;
         mExceptionHandler = builder.mExceptionHandler;
         mDefaultProcessName = builder.mDefaultProcessName;
+        mRetentionPolicy = builder.mRetentionPolicy;
     }
 
     /**
@@ -216,6 +220,15 @@ public final class Configuration {
         return mDefaultProcessName;
     }
 
+    /**
+     * @return The {@link RetentionPolicy} used to prune finished work.
+     */
+    @ExperimentalWorkApi
+    @NonNull
+    public RetentionPolicy getRetentionPolicy() {
+        return mRetentionPolicy;
+    }
+
     /**
      * Gets the maximum number of system requests that can be made by {@link WorkManager} when using
      * {@link android.app.job.JobScheduler} or {@link android.app.AlarmManager}.
@@ -273,6 +286,7 @@ public final class Configuration {
         RunnableScheduler mRunnableScheduler;
         @Nullable InitializationExceptionHandler mExceptionHandler;
         @Nullable String mDefaultProcessName;
+        @NonNull RetentionPolicy mRetentionPolicy;
 
         int mLoggingLevel;
         int mMinJobSchedulerId;
@@ -282,11 +296,13 @@ public final class Configuration {
         /**
          * Creates a new {@link Configuration.Builder}.
          */
+        @OptIn(markerClass = ExperimentalWorkApi.class)
         public Builder() {
             mLoggingLevel = Log.INFO;
             mMinJobSchedulerId = IdGenerator.INITIAL_ID;
             mMaxJobSchedulerId = Integer.MAX_VALUE;
             mMaxSchedulerLimit = MIN_SCHEDULER_LIMIT;
+            mRetentionPolicy = RetentionPolicy.DEFAULT;
         }
 
         /**
@@ -311,6 +327,7 @@ public final class Configuration {
             mRunnableScheduler = configuration.mRunnableScheduler;
             mExceptionHandler = configuration.mExceptionHandler;
             mDefaultProcessName = configuration.mDefaultProcessName;
+            mRetentionPolicy = configuration.mRetentionPolicy;
         }
 
         /**
@@ -483,6 +500,20 @@ public final class Configuration {
             return this;
         }
 
+        /**
+         * Specifies the {@link RetentionPolicy} used to prune finished work. The default value is
+         * {@link RetentionPolicy#DEFAULT}.
+         *
+         * @param retentionPolicy The {@link RetentionPolicy}
+         * @return This {@link Builder} instance
+         */
+        @ExperimentalWorkApi
+        @NonNull
+        public Builder setRetentionPolicy(@NonNull RetentionPolicy retentionPolicy) {
+            mRetentionPolicy = retentionPolicy;
+            return this;
+        }
+
         /**
          * Builds a {@link Configuration} object.
          *
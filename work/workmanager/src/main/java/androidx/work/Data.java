@@ -26,10 +26,8 @@ import androidx.annotation.VisibleForTesting;
 import androidx.room.TypeConverter;
 
 import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
@@ -374,41 +372,7 @@ public final class Data {
     @TypeConverter
     @NonNull
     public static byte[] toByteArrayInternal(@NonNull Data data) {
-        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-        ObjectOutputStream objectOutputStream = null;
-        try {
-            objectOutputStream = new ObjectOutputStream(outputStream);
-            objectOutputStream.writeInt(data.size());
-            for (Map.Entry<String, Object> entry : data.mValues.entrySet()) {
-                objectOutputStream.writeUTF(entry.getKey());
-                objectOutputStream.writeObject(entry.getValue());
-            }
-        } catch (IOException e) {
-            Log.e(TAG, "Error in Data#toByteArray: ", e);
-            return outputStream.toByteArray();
-        } finally {
-            if (objectOutputStream != null) {
-                try {
-                    // NOTE: this writes something to the output stream for bookkeeping purposes.
-                    // Don't get the byteArray before we do this!
-                    objectOutputStream.close();
-                } catch (IOException e) {
-                    Log.e(TAG, "Error in Data#toByteArray: ", e);
-                }
-            }
-            try {
-                outputStream.close();
-            } catch (IOException e) {
-                Log.e(TAG, "Error in Data#toByteArray: ", e);
-            }
-        }
-
-        if (outputStream.size() > MAX_DATA_BYTES) {
-            throw new IllegalStateException(
-                    "Data cannot occupy more than " + MAX_DATA_BYTES
-                            + " bytes when serialized");
-        }
-        return outputStream.toByteArray();
+        return DataCodec.encode(data.mValues, MAX_DATA_BYTES);
     }
 
     /**
@@ -427,6 +391,21 @@ public final class Data {
         }
 
         Map<String, Object> map = new HashMap<>();
+        if (DataCodec.isEncoded(bytes)) {
+            try {
+                DataCodec.decode(bytes, map);
+            } catch (IOException e) {
+                Log.e(TAG, "Error in Data#fromByteArray: ", e);
+            }
+        } else {
+            // Data persisted by earlier versions, with Java serialization.
+            readSerializedValues(bytes, map);
+        }
+        return new Data(map);
+    }
+
+    private static void readSerializedValues(@NonNull byte[] bytes,
+            @NonNull Map<String, Object> map) {
         ByteArrayInputStream inputStream = new ByteArrayInputStream(bytes);
         ObjectInputStream objectInputStream = null;
         try {
@@ -450,7 +429,6 @@ public final class Data {
                 Log.e(TAG, "Error in Data#fromByteArray: ", e);
             }
         }
-        return new Data(map);
     }
 
     @Override
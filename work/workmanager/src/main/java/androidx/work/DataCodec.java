@@ -0,0 +1,505 @@
+/*
+ * Copyright 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.work;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Converts the values of {@link Data} to and from their persisted binary form.
+ * <p>
+ * The bytes start with a magic number and a format version, followed by the number of entries.
+ * Each entry is its key, a one byte type tag and its value. Lengths, counts and integral values
+ * are variable-length integers, so that small numbers take a single byte, strings use the
+ * modified UTF-8 encoding of {@link java.io.DataOutput#writeUTF(String)} without its 64KB limit,
+ * and arrays are written element by element, without any per-object header.
+ * <p>
+ * Earlier versions persisted {@link Data} with Java serialization. Those bytes start with a
+ * different magic number, see {@link #isEncoded(byte[])}, and are read by {@link Data} itself.
+ */
+final class DataCodec {
+    // Java serialization starts with 0xACED.
+    private static final byte MAGIC_0 = (byte) 0xDA;
+    private static final byte MAGIC_1 = (byte) 0x7A;
+    private static final byte VERSION = 1;
+
+    private static final int TYPE_NULL = 0;
+    private static final int TYPE_BOOLEAN = 1;
+    private static final int TYPE_BYTE = 2;
+    private static final int TYPE_INT = 3;
+    private static final int TYPE_LONG = 4;
+    private static final int TYPE_FLOAT = 5;
+    private static final int TYPE_DOUBLE = 6;
+    private static final int TYPE_STRING = 7;
+    private static final int TYPE_BOOLEAN_ARRAY = 8;
+    private static final int TYPE_BYTE_ARRAY = 9;
+    private static final int TYPE_INT_ARRAY = 10;
+    private static final int TYPE_LONG_ARRAY = 11;
+    private static final int TYPE_FLOAT_ARRAY = 12;
+    private static final int TYPE_DOUBLE_ARRAY = 13;
+    private static final int TYPE_STRING_ARRAY = 14;
+    // Set on the tag of an array with null elements, each element is then preceded by a byte
+    // which is 0 if it is null.
+    private static final int FLAG_NULL_ELEMENTS = 0x80;
+
+    private DataCodec() {
+    }
+
+    /**
+     * @return {@code true} if the given bytes were written by {@link #encode(Map, int)}.
+     */
+    static boolean isEncoded(@NonNull byte[] bytes) {
+        return bytes.length >= 3 && bytes[0] == MAGIC_0 && bytes[1] == MAGIC_1;
+    }
+
+    /**
+     * Encodes the given values, which must be of the types supported by {@link Data}.
+     *
+     * @param values   The values to encode
+     * @param maxBytes The maximum size of the encoded values
+     * @return The encoded values
+     * @throws IllegalStateException if the encoded values would be bigger than {@code maxBytes}
+     */
+    @NonNull
+    static byte[] encode(@NonNull Map<String, Object> values, int maxBytes) {
+        Writer writer = new Writer(maxBytes);
+        writer.writeByte(MAGIC_0);
+        writer.writeByte(MAGIC_1);
+        writer.writeByte(VERSION);
+        writer.writeVarInt(values.size());
+        for (Map.Entry<String, Object> entry : values.entrySet()) {
+            writer.writeString(entry.getKey());
+            writeValue(writer, entry.getKey(), entry.getValue());
+        }
+        return writer.toByteArray();
+    }
+
+    /**
+     * Decodes the values of bytes written by {@link #encode(Map, int)} into the given map. If the
+     * bytes are malformed, the values read before the error are kept in the map.
+     *
+     * @throws IOException if the bytes are truncated or malformed
+     */
+    static void decode(@NonNull byte[] bytes, @NonNull Map<String, Object> values)
+            throws IOException {
+        Reader reader = new Reader(bytes);
+        if (reader.readByte() != MAGIC_0 || reader.readByte() != MAGIC_1) {
+            throw new IOException("Not encoded Data");
+        }
+        int version = reader.readByte();
+        if (version != VERSION) {
+            throw new IOException("Unsupported Data format version " + version);
+        }
+        for (int i = reader.readVarInt(); i > 0; i--) {
+            String key = reader.readString();
+            values.put(key, readValue(reader));
+        }
+    }
+
+    private static void writeValue(Writer writer, String key, @Nullable Object value) {
+        if (value == null) {
+            writer.writeByte(TYPE_NULL);
+        } else if (value instanceof Boolean) {
+            writer.writeByte(TYPE_BOOLEAN);
+            writer.writeByte((Boolean) value ? 1 : 0);
+        } else if (value instanceof Byte) {
+            writer.writeByte(TYPE_BYTE);
+            writer.writeByte((Byte) value);
+        } else if (value instanceof Integer) {
+            writer.writeByte(TYPE_INT);
+            writer.writeSignedVarInt((Integer) value);
+        } else if (value instanceof Long) {
+            writer.writeByte(TYPE_LONG);
+            writer.writeSignedVarLong((Long) value);
+        } else if (value instanceof Float) {
+            writer.writeByte(TYPE_FLOAT);
+            writer.writeFixedInt(Float.floatToRawIntBits((Float) value));
+        } else if (value instanceof Double) {
+            writer.writeByte(TYPE_DOUBLE);
+            writer.writeFixedLong(Double.doubleToRawLongBits((Double) value));
+        } else if (value instanceof String) {
+            writer.writeByte(TYPE_STRING);
+            writer.writeString((String) value);
+        } else if (value instanceof Object[]) {
+            writeArray(writer, key, (Object[]) value);
+        } else {
+            throw new IllegalArgumentException(
+                    String.format("Key %s has invalid type %s", key, value.getClass()));
+        }
+    }
+
+    private static void writeArray(Writer writer, String key, Object[] array) {
+        final int type;
+        if (array instanceof Boolean[]) {
+            type = TYPE_BOOLEAN_ARRAY;
+        } else if (array instanceof Byte[]) {
+            type = TYPE_BYTE_ARRAY;
+        } else if (array instanceof Integer[]) {
+            type = TYPE_INT_ARRAY;
+        } else if (array instanceof Long[]) {
+            type = TYPE_LONG_ARRAY;
+        } else if (array instanceof Float[]) {
+            type = TYPE_FLOAT_ARRAY;
+        } else if (array instanceof Double[]) {
+            type = TYPE_DOUBLE_ARRAY;
+        } else if (array instanceof String[]) {
+            type = TYPE_STRING_ARRAY;
+        } else {
+            throw new IllegalArgumentException(
+                    String.format("Key %s has invalid type %s", key, array.getClass()));
+        }
+        boolean hasNullElements = false;
+        for (Object element : array) {
+            if (element == null) {
+                hasNullElements = true;
+                break;
+            }
+        }
+        writer.writeByte(hasNullElements ? type | FLAG_NULL_ELEMENTS : type);
+        writer.writeVarInt(array.length);
+        for (Object element : array) {
+            if (hasNullElements) {
+                writer.writeByte(element == null ? 0 : 1);
+                if (element == null) {
+                    continue;
+                }
+            }
+            switch (type) {
+                case TYPE_BOOLEAN_ARRAY:
+                    writer.writeByte((Boolean) element ? 1 : 0);
+                    break;
+                case TYPE_BYTE_ARRAY:
+                    writer.writeByte((Byte) element);
+                    break;
+                case TYPE_INT_ARRAY:
+                    writer.writeSignedVarInt((Integer) element);
+                    break;
+                case TYPE_LONG_ARRAY:
+                    writer.writeSignedVarLong((Long) element);
+                    break;
+                case TYPE_FLOAT_ARRAY:
+                    writer.writeFixedInt(Float.floatToRawIntBits((Float) element));
+                    break;
+                case TYPE_DOUBLE_ARRAY:
+                    writer.writeFixedLong(Double.doubleToRawLongBits((Double) element));
+                    break;
+                default:
+                    writer.writeString((String) element);
+                    break;
+            }
+        }
+    }
+
+    @Nullable
+    private static Object readValue(Reader reader) throws IOException {
+        int tag = reader.readByte() & 0xFF;
+        switch (tag) {
+            case TYPE_NULL:
+                return null;
+            case TYPE_BOOLEAN:
+                return reader.readByte() != 0;
+            case TYPE_BYTE:
+                return reader.readByte();
+            case TYPE_INT:
+                return reader.readSignedVarInt();
+            case TYPE_LONG:
+                return reader.readSignedVarLong();
+            case TYPE_FLOAT:
+                return Float.intBitsToFloat(reader.readFixedInt());
+            case TYPE_DOUBLE:
+                return Double.longBitsToDouble(reader.readFixedLong());
+            case TYPE_STRING:
+                return reader.readString();
+            default:
+                return readArray(reader, tag);
+        }
+    }
+
+    private static Object[] readArray(Reader reader, int tag) throws IOException {
+        final boolean hasNullElements = (tag & FLAG_NULL_ELEMENTS) != 0;
+        final int type = tag & ~FLAG_NULL_ELEMENTS;
+        final int length = reader.readVarInt();
+        // Every element takes at least one byte.
+        reader.require(length);
+        final Object[] array;
+        switch (type) {
+            case TYPE_BOOLEAN_ARRAY:
+                array = new Boolean[length];
+                break;
+            case TYPE_BYTE_ARRAY:
+                array = new Byte[length];
+                break;
+            case TYPE_INT_ARRAY:
+                array = new Integer[length];
+                break;
+            case TYPE_LONG_ARRAY:
+                array = new Long[length];
+                break;
+            case TYPE_FLOAT_ARRAY:
+                array = new Float[length];
+                break;
+            case TYPE_DOUBLE_ARRAY:
+                array = new Double[length];
+                break;
+            case TYPE_STRING_ARRAY:
+                array = new String[length];
+                break;
+            default:
+                throw new IOException("Unknown Data type " + tag);
+        }
+        for (int i = 0; i < length; i++) {
+            if (hasNullElements && reader.readByte() == 0) {
+                continue;
+            }
+            switch (type) {
+                case TYPE_BOOLEAN_ARRAY:
+                    array[i] = reader.readByte() != 0;
+                    break;
+                case TYPE_BYTE_ARRAY:
+                    array[i] = reader.readByte();
+                    break;
+                case TYPE_INT_ARRAY:
+                    array[i] = reader.readSignedVarInt();
+                    break;
+                case TYPE_LONG_ARRAY:
+                    array[i] = reader.readSignedVarLong();
+                    break;
+                case TYPE_FLOAT_ARRAY:
+                    array[i] = Float.intBitsToFloat(reader.readFixedInt());
+                    break;
+                case TYPE_DOUBLE_ARRAY:
+                    array[i] = Double.longBitsToDouble(reader.readFixedLong());
+                    break;
+                default:
+                    array[i] = reader.readString();
+                    break;
+            }
+        }
+        return array;
+    }
+
+    /**
+     * Writes into a growing byte array, which cannot grow past a maximum size.
+     */
+    private static final class Writer {
+        private final int mMaxBytes;
+        private byte[] mBuffer;
+        private int mSize;
+
+        Writer(int maxBytes) {
+            mMaxBytes = maxBytes;
+            mBuffer = new byte[Math.min(maxBytes, 64)];
+        }
+
+        void writeByte(int value) {
+            ensureCapacity(1);
+            mBuffer[mSize++] = (byte) value;
+        }
+
+        void writeVarInt(int value) {
+            ensureCapacity(5);
+            while ((value & ~0x7F) != 0) {
+                mBuffer[mSize++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            mBuffer[mSize++] = (byte) value;
+        }
+
+        void writeSignedVarInt(int value) {
+            // Zigzag encoding, so that small negative numbers are small too.
+            writeVarInt((value << 1) ^ (value >> 31));
+        }
+
+        void writeSignedVarLong(long value) {
+            long zigzag = (value << 1) ^ (value >> 63);
+            ensureCapacity(10);
+            while ((zigzag & ~0x7FL) != 0) {
+                mBuffer[mSize++] = (byte) ((zigzag & 0x7F) | 0x80);
+                zigzag >>>= 7;
+            }
+            mBuffer[mSize++] = (byte) zigzag;
+        }
+
+        void writeFixedInt(int value) {
+            ensureCapacity(4);
+            mBuffer[mSize++] = (byte) (value >>> 24);
+            mBuffer[mSize++] = (byte) (value >>> 16);
+            mBuffer[mSize++] = (byte) (value >>> 8);
+            mBuffer[mSize++] = (byte) value;
+        }
+
+        void writeFixedLong(long value) {
+            writeFixedInt((int) (value >>> 32));
+            writeFixedInt((int) value);
+        }
+
+        void writeString(String value) {
+            final int length = value.length();
+            int utfLength = length;
+            for (int i = 0; i < length; i++) {
+                char c = value.charAt(i);
+                if (c > 0x07FF) {
+                    utfLength += 2;
+                } else if (c > 0x007F || c == 0) {
+                    utfLength++;
+                }
+            }
+            writeVarInt(utfLength);
+            ensureCapacity(utfLength);
+            final byte[] buffer = mBuffer;
+            int position = mSize;
+            for (int i = 0; i < length; i++) {
+                char c = value.charAt(i);
+                if (c != 0 && c <= 0x007F) {
+                    buffer[position++] = (byte) c;
+                } else if (c > 0x07FF) {
+                    buffer[position++] = (byte) (0xE0 | ((c >> 12) & 0x0F));
+                    buffer[position++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                    buffer[position++] = (byte) (0x80 | (c & 0x3F));
+                } else {
+                    buffer[position++] = (byte) (0xC0 | ((c >> 6) & 0x1F));
+                    buffer[position++] = (byte) (0x80 | (c & 0x3F));
+                }
+            }
+            mSize = position;
+        }
+
+        byte[] toByteArray() {
+            if (mSize > mMaxBytes) {
+                throw tooBig();
+            }
+            return Arrays.copyOf(mBuffer, mSize);
+        }
+
+        private void ensureCapacity(int count) {
+            final int required = mSize + count;
+            if (required <= mBuffer.length) {
+                return;
+            }
+            // Stop before growing the buffer for a payload which cannot fit. Variable-length
+            // integers reserve their maximum size, which is within the slack.
+            if (required > mMaxBytes + 10) {
+                throw tooBig();
+            }
+            mBuffer = Arrays.copyOf(mBuffer, Math.max(required, mBuffer.length * 2));
+        }
+
+        private IllegalStateException tooBig() {
+            return new IllegalStateException(
+                    "Data cannot occupy more than " + mMaxBytes + " bytes when serialized");
+        }
+    }
+
+    /**
+     * Reads from a byte array, throwing {@link EOFException} if it ends before the expected value.
+     */
+    private static final class Reader {
+        private final byte[] mBytes;
+        private int mPosition;
+
+        Reader(byte[] bytes) {
+            mBytes = bytes;
+        }
+
+        void require(int count) throws EOFException {
+            if (count < 0 || count > mBytes.length - mPosition) {
+                throw new EOFException();
+            }
+        }
+
+        byte readByte() throws EOFException {
+            require(1);
+            return mBytes[mPosition++];
+        }
+
+        int readVarInt() throws IOException {
+            int result = 0;
+            for (int shift = 0; shift < 32; shift += 7) {
+                byte b = readByte();
+                result |= (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return result;
+                }
+            }
+            throw new IOException("Malformed variable-length integer");
+        }
+
+        int readSignedVarInt() throws IOException {
+            int zigzag = readVarInt();
+            return (zigzag >>> 1) ^ -(zigzag & 1);
+        }
+
+        long readSignedVarLong() throws IOException {
+            long zigzag = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                byte b = readByte();
+                zigzag |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return (zigzag >>> 1) ^ -(zigzag & 1);
+                }
+            }
+            throw new IOException("Malformed variable-length integer");
+        }
+
+        int readFixedInt() throws EOFException {
+            require(4);
+            final byte[] bytes = mBytes;
+            final int position = mPosition;
+            mPosition += 4;
+            return ((bytes[position] & 0xFF) << 24)
+                    | ((bytes[position + 1] & 0xFF) << 16)
+                    | ((bytes[position + 2] & 0xFF) << 8)
+                    | (bytes[position + 3] & 0xFF);
+        }
+
+        long readFixedLong() throws EOFException {
+            return ((long) readFixedInt() << 32) | (readFixedInt() & 0xFFFFFFFFL);
+        }
+
+        String readString() throws IOException {
+            final int utfLength = readVarInt();
+            require(utfLength);
+            final byte[] bytes = mBytes;
+            final int end = mPosition + utfLength;
+            final char[] chars = new char[utfLength];
+            int position = mPosition;
+            int count = 0;
+            while (position < end) {
+                int b = bytes[position++] & 0xFF;
+                if (b < 0x80) {
+                    chars[count++] = (char) b;
+                } else if ((b & 0xE0) == 0xC0 && position < end) {
+                    chars[count++] = (char) (((b & 0x1F) << 6) | (bytes[position++] & 0x3F));
+                } else if ((b & 0xF0) == 0xE0 && position + 1 < end) {
+                    chars[count++] = (char) (((b & 0x0F) << 12)
+                            | ((bytes[position] & 0x3F) << 6)
+                            | (bytes[position + 1] & 0x3F));
+                    position += 2;
+                } else {
+                    throw new IOException("Malformed string");
+                }
+            }
+            mPosition = end;
+            return new String(chars, 0, count);
+        }
+    }
+}
@@ -0,0 +1,182 @@
+/*
+ * Copyright 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.work;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.RequiresApi;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Specifies how long {@link WorkManager} keeps finished work (see
+ * {@link WorkInfo.State#isFinished()}) in its database.
+ * <p>
+ * Finished work is pruned in the background, a few rows at a time, once WorkManager is
+ * initialized. Work is never pruned while it has unfinished dependents, nor before the duration
+ * specified with {@link WorkRequest.Builder#keepResultsForAtLeast(long, TimeUnit)} has elapsed.
+ * <p>
+ * When the results of a work are pruned, it becomes impossible to query for its {@link WorkInfo}.
+ *
+ * @see Configuration.Builder#setRetentionPolicy(RetentionPolicy)
+ */
+@ExperimentalWorkApi
+public final class RetentionPolicy {
+
+    /**
+     * The default {@link RetentionPolicy}: finished work is kept for a day after the duration
+     * specified with {@link WorkRequest.Builder#keepResultsForAtLeast(long, TimeUnit)}, and the
+     * amount of finished work is not limited.
+     */
+    @NonNull
+    public static final RetentionPolicy DEFAULT = new RetentionPolicy.Builder().build();
+
+    /**
+     * Indicates that the amount of finished work is not limited.
+     */
+    public static final int UNLIMITED = Integer.MAX_VALUE;
+
+    private final long mMaxAgeMillis;
+    private final int mMaxFinishedWorkCount;
+    private final Map<String, Integer> mMaxFinishedWorkCountsByTag;
+
+    RetentionPolicy(@NonNull Builder builder) {
+        mMaxAgeMillis = builder.mMaxAgeMillis;
+        mMaxFinishedWorkCount = builder.mMaxFinishedWorkCount;
+        mMaxFinishedWorkCountsByTag =
+                Collections.unmodifiableMap(new HashMap<>(builder.mMaxFinishedWorkCountsByTag));
+    }
+
+    /**
+     * @return The duration, in milliseconds, for which finished work is kept after the duration
+     * specified with {@link WorkRequest.Builder#keepResultsForAtLeast(long, TimeUnit)}
+     */
+    public long getMaxAgeMillis() {
+        return mMaxAgeMillis;
+    }
+
+    /**
+     * @return The maximum amount of finished work kept, or {@link #UNLIMITED}
+     */
+    public int getMaxFinishedWorkCount() {
+        return mMaxFinishedWorkCount;
+    }
+
+    /**
+     * @return The maximum amount of finished work kept for each tag which has a limit
+     */
+    @NonNull
+    public Map<String, Integer> getMaxFinishedWorkCountsByTag() {
+        return mMaxFinishedWorkCountsByTag;
+    }
+
+    /**
+     * A Builder for {@link RetentionPolicy}s.
+     */
+    @ExperimentalWorkApi
+    public static final class Builder {
+
+        long mMaxAgeMillis = TimeUnit.DAYS.toMillis(1);
+        int mMaxFinishedWorkCount = UNLIMITED;
+        final Map<String, Integer> mMaxFinishedWorkCountsByTag = new HashMap<>();
+
+        /**
+         * Creates a new {@link RetentionPolicy.Builder}.
+         */
+        public Builder() {
+        }
+
+        /**
+         * Specifies how long finished work is kept once the duration specified with
+         * {@link WorkRequest.Builder#keepResultsForAtLeast(long, TimeUnit)} has elapsed. The age
+         * of work is measured from the start of its period, which for
+         * {@link OneTimeWorkRequest}s is the time they were enqueued, or unblocked by their
+         * prerequisites. The default value is one day.
+         *
+         * @param duration The duration (in {@code timeUnit} units)
+         * @param timeUnit The unit of time for {@code duration}
+         * @return This {@link Builder} instance
+         */
+        public @NonNull Builder setMaxAge(long duration, @NonNull TimeUnit timeUnit) {
+            if (duration < 0) {
+                throw new IllegalArgumentException("The maximum age cannot be negative");
+            }
+            mMaxAgeMillis = timeUnit.toMillis(duration);
+            return this;
+        }
+
+        /**
+         * Specifies how long finished work is kept once the duration specified with
+         * {@link WorkRequest.Builder#keepResultsForAtLeast(Duration)} has elapsed. The age of
+         * work is measured from the start of its period, which for {@link OneTimeWorkRequest}s is
+         * the time they were enqueued, or unblocked by their prerequisites. The default value is
+         * one day.
+         *
+         * @param duration The duration
+         * @return This {@link Builder} instance
+         */
+        @RequiresApi(26)
+        public @NonNull Builder setMaxAge(@NonNull Duration duration) {
+            return setMaxAge(duration.toMillis(), TimeUnit.MILLISECONDS);
+        }
+
+        /**
+         * Specifies the maximum amount of finished work kept. When it is exceeded, the oldest
+         * finished work which can be pruned is pruned first. By default, the amount of finished
+         * work is not limited.
+         *
+         * @param count The maximum amount of finished work, or {@link #UNLIMITED}
+         * @return This {@link Builder} instance
+         */
+        public @NonNull Builder setMaxFinishedWorkCount(int count) {
+            if (count < 0) {
+                throw new IllegalArgumentException("The maximum count cannot be negative");
+            }
+            mMaxFinishedWorkCount = count;
+            return this;
+        }
+
+        /**
+         * Specifies the maximum amount of finished work with the given tag which is kept. When it
+         * is exceeded, the oldest finished work with this tag which can be pruned is pruned first.
+         *
+         * @param tag   The tag
+         * @param count The maximum amount of finished work with {@code tag}, or
+         *              {@link #UNLIMITED}
+         * @return This {@link Builder} instance
+         */
+        public @NonNull Builder setMaxFinishedWorkCount(@NonNull String tag, int count) {
+            if (count < 0) {
+                throw new IllegalArgumentException("The maximum count cannot be negative");
+            }
+            mMaxFinishedWorkCountsByTag.put(tag, count);
+            return this;
+        }
+
+        /**
+         * Builds a {@link RetentionPolicy} object.
+         *
+         * @return A {@link RetentionPolicy} object with this {@link Builder}'s parameters.
+         */
+        public @NonNull RetentionPolicy build() {
+            return new RetentionPolicy(this);
+        }
+    }
+}
@@ -23,10 +23,12 @@ import android.content.Context;
 import androidx.annotation.NonNull;
 import androidx.annotation.RestrictTo;
 import androidx.lifecycle.LiveData;
+import androidx.work.impl.OperationImpl;
 import androidx.work.impl.WorkManagerImpl;
 
 import com.google.common.util.concurrent.ListenableFuture;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.UUID;
@@ -230,6 +232,32 @@ public abstract class WorkManager {
     @NonNull
     public abstract Operation enqueue(@NonNull List<? extends WorkRequest> requests);
 
+    /**
+     * Enqueues several {@link WorkContinuation}s for background processing, with the same outcome
+     * as calling {@link WorkContinuation#enqueue()} on each of them, in order.
+     * <p>
+     * The {@link WorkManager} returned by {@link #getInstance(Context)} does this more efficiently
+     * than enqueuing them one by one: all the work is added to the database in a single
+     * transaction, and scheduled once. Unique work which a later continuation would replace, or
+     * which an earlier continuation would keep, is not added at all.
+     *
+     * @param continuations One or more {@link WorkContinuation}s created by this WorkManager
+     * @return An {@link Operation} that can be used to determine when the enqueue has completed
+     */
+    @ExperimentalWorkApi
+    @NonNull
+    public Operation enqueueAll(@NonNull List<? extends WorkContinuation> continuations) {
+        if (continuations.isEmpty()) {
+            throw new IllegalArgumentException(
+                    "enqueueAll needs at least one WorkContinuation.");
+        }
+        List<Operation> operations = new ArrayList<>(continuations.size());
+        for (WorkContinuation continuation : continuations) {
+            operations.add(continuation.enqueue());
+        }
+        return OperationImpl.allOf(operations);
+    }
+
     /**
      * Begins a chain with one or more {@link OneTimeWorkRequest}s, which can be enqueued together
      * in the future using {@link WorkContinuation#enqueue()}.
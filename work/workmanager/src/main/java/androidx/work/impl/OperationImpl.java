@@ -21,10 +21,15 @@ import androidx.annotation.RestrictTo;
 import androidx.lifecycle.LiveData;
 import androidx.lifecycle.MutableLiveData;
 import androidx.work.Operation;
+import androidx.work.impl.utils.SynchronousExecutor;
 import androidx.work.impl.utils.futures.SettableFuture;
 
 import com.google.common.util.concurrent.ListenableFuture;
 
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
 /**
  * A concrete implementation of a {@link Operation}.
  *
@@ -69,4 +74,42 @@ public class OperationImpl implements Operation {
             mOperationFuture.setException(failed.getThrowable());
         }
     }
+
+    /**
+     * Creates an {@link Operation} which succeeds once all the given {@link Operation}s have
+     * succeeded, and fails as soon as one of them fails.
+     *
+     * @param operations The {@link Operation}s to wait for
+     * @return The combined {@link Operation}
+     */
+    @NonNull
+    public static Operation allOf(@NonNull List<Operation> operations) {
+        final OperationImpl combined = new OperationImpl();
+        final AtomicInteger remaining = new AtomicInteger(operations.size());
+        for (Operation operation : operations) {
+            final ListenableFuture<State.SUCCESS> result = operation.getResult();
+            result.addListener(new Runnable() {
+                @Override
+                public void run() {
+                    Throwable failure;
+                    try {
+                        result.get();
+                        if (remaining.decrementAndGet() == 0) {
+                            combined.setState(Operation.SUCCESS);
+                        }
+                        return;
+                    } catch (ExecutionException exception) {
+                        failure = exception.getCause();
+                    } catch (InterruptedException exception) {
+                        failure = exception;
+                    }
+                    // Only the first failure is reported.
+                    if (remaining.getAndSet(0) > 0) {
+                        combined.setState(new State.FAILURE(failure));
+                    }
+                }
+            }, new SynchronousExecutor());
+        }
+        return combined;
+    }
 }
@@ -33,7 +33,9 @@ import androidx.work.impl.background.systemjob.SystemJobScheduler;
 import androidx.work.impl.background.systemjob.SystemJobService;
 import androidx.work.impl.model.WorkSpec;
 import androidx.work.impl.model.WorkSpecDao;
+import androidx.work.impl.utils.WorkSpecBatchUtils;
 
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -85,8 +87,12 @@ public class Schedulers {
                 // Mark all the WorkSpecs as scheduled.
                 // Calls to Scheduler#schedule() could potentially result in more schedules
                 // on a separate thread. Therefore, this needs to be done first.
+                List<String> ids = new ArrayList<>(eligibleWorkSpecsForLimitedSlots.size());
                 for (WorkSpec workSpec : eligibleWorkSpecsForLimitedSlots) {
-                    workSpecDao.markWorkSpecScheduled(workSpec.id, now);
+                    ids.add(workSpec.id);
+                }
+                for (List<String> batch : WorkSpecBatchUtils.batches(ids, 1)) {
+                    workSpecDao.markWorkSpecsScheduled(batch, now);
                 }
             }
             workDatabase.setTransactionSuccessful();
@@ -26,6 +26,7 @@ import android.content.BroadcastReceiver;
 import android.content.Context;
 import android.content.Intent;
 import android.os.Build;
+import android.text.TextUtils;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
@@ -35,6 +36,7 @@ import androidx.lifecycle.LiveData;
 import androidx.work.Configuration;
 import androidx.work.ExistingPeriodicWorkPolicy;
 import androidx.work.ExistingWorkPolicy;
+import androidx.work.ExperimentalWorkApi;
 import androidx.work.Logger;
 import androidx.work.OneTimeWorkRequest;
 import androidx.work.Operation;
@@ -52,6 +54,7 @@ import androidx.work.impl.model.RawWorkInfoDao;
 import androidx.work.impl.model.WorkSpec;
 import androidx.work.impl.model.WorkSpecDao;
 import androidx.work.impl.utils.CancelWorkRunnable;
+import androidx.work.impl.utils.EnqueueRunnable;
 import androidx.work.impl.utils.ForceStopRunnable;
 import androidx.work.impl.utils.LiveDataUtils;
 import androidx.work.impl.utils.PreferenceUtils;
@@ -67,6 +70,7 @@ import androidx.work.multiprocess.RemoteWorkManager;
 
 import com.google.common.util.concurrent.ListenableFuture;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
@@ -378,6 +382,30 @@ public class WorkManagerImpl extends WorkManager {
         return new WorkContinuationImpl(this, workRequests).enqueue();
     }
 
+    @Override
+    @ExperimentalWorkApi
+    @NonNull
+    public Operation enqueueAll(@NonNull List<? extends WorkContinuation> continuations) {
+        if (continuations.isEmpty()) {
+            throw new IllegalArgumentException(
+                    "enqueueAll needs at least one WorkContinuation.");
+        }
+        List<WorkContinuationImpl> workContinuations = new ArrayList<>(continuations.size());
+        for (WorkContinuation continuation : continuations) {
+            WorkContinuationImpl workContinuation = (WorkContinuationImpl) continuation;
+            // Only enqueue if not already enqueued.
+            if (!workContinuation.isEnqueued()) {
+                workContinuations.add(workContinuation);
+            } else {
+                Logger.get().warning(TAG, String.format("Already enqueued work ids (%s)",
+                        TextUtils.join(", ", workContinuation.getIds())));
+            }
+        }
+        EnqueueRunnable runnable = new EnqueueRunnable(this, workContinuations);
+        mWorkTaskExecutor.executeOnBackgroundThread(runnable);
+        return runnable.getOperation();
+    }
+
     @Override
     public @NonNull WorkContinuation beginWith(@NonNull List<OneTimeWorkRequest> work) {
         if (work.isEmpty()) {
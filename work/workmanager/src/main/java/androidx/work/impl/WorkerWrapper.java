@@ -16,8 +16,6 @@
 
 package androidx.work.impl;
 
-import static androidx.work.WorkInfo.State.BLOCKED;
-import static androidx.work.WorkInfo.State.CANCELLED;
 import static androidx.work.WorkInfo.State.ENQUEUED;
 import static androidx.work.WorkInfo.State.FAILED;
 import static androidx.work.WorkInfo.State.RUNNING;
@@ -50,13 +48,13 @@ import androidx.work.impl.model.WorkTagDao;
 import androidx.work.impl.utils.PackageManagerHelper;
 import androidx.work.impl.utils.WorkForegroundUpdater;
 import androidx.work.impl.utils.WorkProgressUpdater;
+import androidx.work.impl.utils.WorkSpecBatchUtils;
 import androidx.work.impl.utils.futures.SettableFuture;
 import androidx.work.impl.utils.taskexecutor.TaskExecutor;
 
 import com.google.common.util.concurrent.ListenableFuture;
 
 import java.util.ArrayList;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.UUID;
 import java.util.concurrent.CancellationException;
@@ -484,27 +482,15 @@ public class WorkerWrapper implements Runnable {
     }
 
     private boolean trySetRunning() {
-        boolean setToRunning = false;
-        mWorkDatabase.beginTransaction();
-        try {
-            WorkInfo.State currentState = mWorkSpecDao.getState(mWorkSpecId);
-            if (currentState == ENQUEUED) {
-                mWorkSpecDao.setState(RUNNING, mWorkSpecId);
-                mWorkSpecDao.incrementWorkSpecRunAttemptCount(mWorkSpecId);
-                setToRunning = true;
-            }
-            mWorkDatabase.setTransactionSuccessful();
-        } finally {
-            mWorkDatabase.endTransaction();
-        }
-        return setToRunning;
+        // Checks the state and increments the run attempt count in a single statement.
+        return mWorkSpecDao.setEnqueuedWorkRunning(mWorkSpecId) > 0;
     }
 
     @VisibleForTesting
     void setFailedAndResolve() {
         mWorkDatabase.beginTransaction();
         try {
-            iterativelyFailWorkAndDependents(mWorkSpecId);
+            WorkSpecBatchUtils.setStateOfWorkAndDependents(mWorkDatabase, FAILED, mWorkSpecId);
             ListenableWorker.Result.Failure failure = (ListenableWorker.Result.Failure) mResult;
             // Update Data as necessary.
             Data output = failure.getOutputData();
@@ -516,20 +502,6 @@ public class WorkerWrapper implements Runnable {
         }
     }
 
-    private void iterativelyFailWorkAndDependents(String workSpecId) {
-        @SuppressWarnings("JdkObsolete") // TODO(b/141962522): Suppressed during upgrade to AGP 3.6.
-        LinkedList<String> idsToProcess = new LinkedList<>();
-        idsToProcess.add(workSpecId);
-        while (!idsToProcess.isEmpty()) {
-            String id = idsToProcess.remove();
-            // Don't fail already cancelled work.
-            if (mWorkSpecDao.getState(id) != CANCELLED) {
-                mWorkSpecDao.setState(FAILED, id);
-            }
-            idsToProcess.addAll(mDependencyDao.getDependentWorkIds(id));
-        }
-    }
-
     private void rescheduleAndResolve() {
         mWorkDatabase.beginTransaction();
         try {
@@ -573,14 +545,16 @@ public class WorkerWrapper implements Runnable {
             // Unblock Dependencies and set Period Start Time
             long currentTimeMillis = System.currentTimeMillis();
             List<String> dependentWorkIds = mDependencyDao.getDependentWorkIds(mWorkSpecId);
-            for (String dependentWorkId : dependentWorkIds) {
-                if (mWorkSpecDao.getState(dependentWorkId) == BLOCKED
-                        && mDependencyDao.hasCompletedAllPrerequisites(dependentWorkId)) {
+            for (List<String> batch : WorkSpecBatchUtils.batches(dependentWorkIds, 1)) {
+                List<String> unblockedWorkIds = mWorkSpecDao.getUnblockedWorkIds(batch);
+                if (unblockedWorkIds.isEmpty()) {
+                    continue;
+                }
+                for (String unblockedWorkId : unblockedWorkIds) {
                     Logger.get().info(TAG,
-                            String.format("Setting status to enqueued for %s", dependentWorkId));
-                    mWorkSpecDao.setState(ENQUEUED, dependentWorkId);
-                    mWorkSpecDao.setPeriodStartTime(dependentWorkId, currentTimeMillis);
+                            String.format("Setting status to enqueued for %s", unblockedWorkId));
                 }
+                mWorkSpecDao.setEnqueued(currentTimeMillis, unblockedWorkIds);
             }
 
             mWorkDatabase.setTransactionSuccessful();
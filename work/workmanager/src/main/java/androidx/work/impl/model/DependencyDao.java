@@ -37,6 +37,14 @@ public interface DependencyDao {
     @Insert(onConflict = IGNORE)
     void insertDependency(Dependency dependency);
 
+    /**
+     * Attempts to insert {@link Dependency}s into the database, reusing the same statement.
+     *
+     * @param dependencies The {@link Dependency}s to insert
+     */
+    @Insert(onConflict = IGNORE)
+    void insertDependencies(List<Dependency> dependencies);
+
     /**
      * Determines if a {@link WorkSpec} has completed all prerequisites.
      *
@@ -66,6 +74,16 @@ public interface DependencyDao {
     @Query("SELECT work_spec_id FROM dependency WHERE prerequisite_id=:id")
     List<String> getDependentWorkIds(String id);
 
+    /**
+     * Gets all {@link WorkSpec} id's dependent on any of the given ones.
+     *
+     * @param ids The identifiers of the prerequisites
+     * @return A list of all {@link WorkSpec} id's dependent on any of {@code ids}, without
+     * duplicates
+     */
+    @Query("SELECT DISTINCT work_spec_id FROM dependency WHERE prerequisite_id IN (:ids)")
+    List<String> getDependentWorkIds(List<String> ids);
+
     /**
      * Determines if a {@link WorkSpec} has any dependents.
      *
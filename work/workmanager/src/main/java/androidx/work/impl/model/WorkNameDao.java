@@ -39,6 +39,14 @@ public interface WorkNameDao {
     @Insert(onConflict = IGNORE)
     void insert(WorkName workName);
 
+    /**
+     * Inserts {@link WorkName}s into the table, reusing the same statement.
+     *
+     * @param workNames The {@link WorkName}s to insert
+     */
+    @Insert(onConflict = IGNORE)
+    void insert(List<WorkName> workNames);
+
     /**
      * Retrieves all {@link WorkSpec} ids in the given named graph.
      *
@@ -18,6 +18,7 @@ package androidx.work.impl.model;
 
 import static androidx.room.OnConflictStrategy.IGNORE;
 import static androidx.work.impl.model.WorkTypeConverters.StateIds.COMPLETED_STATES;
+import static androidx.work.impl.model.WorkTypeConverters.StateIds.UNFINISHED_STATES;
 
 import android.annotation.SuppressLint;
 
@@ -38,6 +39,12 @@ import java.util.List;
 @Dao
 @SuppressLint("UnknownNullness")
 public interface WorkSpecDao {
+    // Whether the WorkSpec selected from the workspec table has no unfinished dependents.
+    String HAS_NO_UNFINISHED_DEPENDENTS = "NOT EXISTS (SELECT 1 FROM dependency"
+            + " INNER JOIN workspec AS dependent ON dependent.id=dependency.work_spec_id"
+            + " WHERE dependency.prerequisite_id=workspec.id"
+            + " AND dependent.state IN " + UNFINISHED_STATES + ")";
+
     /**
      * Attempts to insert a {@link WorkSpec} into the database.
      *
@@ -46,6 +53,14 @@ public interface WorkSpecDao {
     @Insert(onConflict = IGNORE)
     void insertWorkSpec(WorkSpec workSpec);
 
+    /**
+     * Attempts to insert {@link WorkSpec}s into the database, reusing the same statement.
+     *
+     * @param workSpecs The WorkSpecs to insert.
+     */
+    @Insert(onConflict = IGNORE)
+    void insertWorkSpecs(List<WorkSpec> workSpecs);
+
     /**
      * Deletes {@link WorkSpec}s from the database.
      *
@@ -102,6 +117,40 @@ public interface WorkSpecDao {
     @Query("UPDATE workspec SET state=:state WHERE id IN (:ids)")
     int setState(WorkInfo.State state, String... ids);
 
+    /**
+     * Updates the state of the unfinished {@link WorkSpec}s among the given ones.
+     *
+     * @param state The new state
+     * @param ids The IDs for the {@link WorkSpec}s to update
+     * @return The number of rows that were updated
+     */
+    @Query("UPDATE workspec SET state=:state WHERE id IN (:ids) AND state IN " + UNFINISHED_STATES)
+    int setStateOfUnfinishedWork(WorkInfo.State state, List<String> ids);
+
+    /**
+     * Sets the state of the enqueued {@link WorkSpec}s among the given ones to
+     * {@link WorkInfo.State#RUNNING}, and increments their run attempt count.
+     *
+     * @param ids The IDs for the {@link WorkSpec}s to update
+     * @return The number of rows that were updated
+     */
+    @Query("UPDATE workspec SET state=" + WorkTypeConverters.StateIds.RUNNING
+            + ", run_attempt_count=run_attempt_count+1"
+            + " WHERE id IN (:ids) AND state=" + WorkTypeConverters.StateIds.ENQUEUED)
+    int setEnqueuedWorkRunning(String... ids);
+
+    /**
+     * Sets the state of {@link WorkSpec}s to {@link WorkInfo.State#ENQUEUED} and updates their
+     * period start time.
+     *
+     * @param periodStartTime The time when the period started
+     * @param ids The IDs for the {@link WorkSpec}s to update
+     * @return The number of rows that were updated
+     */
+    @Query("UPDATE workspec SET state=" + WorkTypeConverters.StateIds.ENQUEUED
+            + ", period_start_time=:periodStartTime WHERE id IN (:ids)")
+    int setEnqueued(long periodStartTime, List<String> ids);
+
     /**
      * Updates the output of a {@link WorkSpec}.
      *
@@ -280,6 +329,16 @@ public interface WorkSpecDao {
     @Query("UPDATE workspec SET schedule_requested_at=:startTime WHERE id=:id")
     int markWorkSpecScheduled(@NonNull String id, long startTime);
 
+    /**
+     * Marks {@link WorkSpec}s as scheduled.
+     *
+     * @param ids       The identifiers for the {@link WorkSpec}s
+     * @param startTime The time at which the {@link WorkSpec}s were scheduled.
+     * @return The number of rows that were updated
+     */
+    @Query("UPDATE workspec SET schedule_requested_at=:startTime WHERE id IN (:ids)")
+    int markWorkSpecsScheduled(@NonNull List<String> ids, long startTime);
+
     /**
      * @return The time at which the {@link WorkSpec} was scheduled.
      */
@@ -305,8 +364,8 @@ public interface WorkSpecDao {
             + " ORDER BY period_start_time"
             + " LIMIT "
                 + "(SELECT MAX(:schedulerLimit" + "-COUNT(*), 0) FROM workspec WHERE"
-                    + " schedule_requested_at<>" + WorkSpec.SCHEDULE_NOT_REQUESTED_YET
-                    + " AND state NOT IN " + COMPLETED_STATES
+                    + " state IN " + UNFINISHED_STATES
+                    + " AND schedule_requested_at<>" + WorkSpec.SCHEDULE_NOT_REQUESTED_YET
                 + ")"
     )
     List<WorkSpec> getEligibleWorkForScheduling(int schedulerLimit);
@@ -343,6 +402,22 @@ public interface WorkSpecDao {
     )
     List<WorkSpec> getRunningWork();
 
+    /**
+     * Selects the {@link WorkSpec}s among the given ones which are blocked, but whose
+     * prerequisites have all succeeded.
+     *
+     * @param ids The identifiers of the {@link WorkSpec}s
+     * @return The identifiers of the {@link WorkSpec}s which can be unblocked
+     */
+    @Query("SELECT id FROM workspec WHERE id IN (:ids)"
+            + " AND state=" + WorkTypeConverters.StateIds.BLOCKED
+            + " AND NOT EXISTS (SELECT 1 FROM dependency"
+            + "    INNER JOIN workspec AS prerequisite"
+            + "    ON prerequisite.id=dependency.prerequisite_id"
+            + "    WHERE dependency.work_spec_id=workspec.id"
+            + "    AND prerequisite.state<>" + WorkTypeConverters.StateIds.SUCCEEDED + ")")
+    List<String> getUnblockedWorkIds(List<String> ids);
+
     /**
      * @return The List of {@link WorkSpec} which completed recently.
      */
@@ -353,6 +428,76 @@ public interface WorkSpecDao {
     )
     List<WorkSpec> getRecentlyCompletedWork(long startingAt);
 
+    /**
+     * Deletes {@link WorkSpec}s from the database.
+     *
+     * @param ids The WorkSpec ids to delete.
+     * @return The number of rows that were deleted
+     */
+    @Query("DELETE FROM workspec WHERE id IN (:ids)")
+    int delete(List<String> ids);
+
+    /**
+     * @return The number of finished {@link WorkSpec}s
+     */
+    @Query("SELECT COUNT(*) FROM workspec WHERE state IN " + COMPLETED_STATES)
+    int getFinishedWorkCount();
+
+    /**
+     * @param tag The tag for the {@link WorkSpec}s
+     * @return The number of finished {@link WorkSpec}s with the given tag
+     */
+    @Query("SELECT COUNT(*) FROM workspec WHERE state IN " + COMPLETED_STATES
+            + " AND id IN (SELECT work_spec_id FROM worktag WHERE tag=:tag)")
+    int getFinishedWorkCountForTag(@NonNull String tag);
+
+    /**
+     * Retrieves finished work which has zero unfinished dependents, regardless of its minimum
+     * retention duration.
+     *
+     * @param limit The maximum number of ids to retrieve
+     * @return A list of work ids
+     */
+    @Query("SELECT id FROM workspec WHERE state IN " + COMPLETED_STATES
+            + " AND " + HAS_NO_UNFINISHED_DEPENDENTS
+            + " LIMIT :limit")
+    List<String> getFinishedWorkWithZeroDependentsIgnoringKeepForAtLeast(int limit);
+
+    /**
+     * Retrieves finished work which has zero unfinished dependents, and whose minimum retention
+     * duration ended before the given time.
+     *
+     * @param retainedUntil The time before which the minimum retention duration must have ended
+     * @param limit         The maximum number of ids to retrieve
+     * @return A list of work ids, oldest first
+     */
+    @Query("SELECT id FROM workspec WHERE state IN " + COMPLETED_STATES
+            + " AND (period_start_time + minimum_retention_duration) < :retainedUntil"
+            + " AND " + HAS_NO_UNFINISHED_DEPENDENTS
+            + " ORDER BY period_start_time"
+            + " LIMIT :limit")
+    List<String> getPrunableFinishedWork(long retainedUntil, int limit);
+
+    /**
+     * Retrieves finished work with the given tag which has zero unfinished dependents, and whose
+     * minimum retention duration ended before the given time.
+     *
+     * @param tag           The tag for the {@link WorkSpec}s
+     * @param retainedUntil The time before which the minimum retention duration must have ended
+     * @param limit         The maximum number of ids to retrieve
+     * @return A list of work ids, oldest first
+     */
+    @Query("SELECT id FROM workspec WHERE state IN " + COMPLETED_STATES
+            + " AND id IN (SELECT work_spec_id FROM worktag WHERE tag=:tag)"
+            + " AND (period_start_time + minimum_retention_duration) < :retainedUntil"
+            + " AND " + HAS_NO_UNFINISHED_DEPENDENTS
+            + " ORDER BY period_start_time"
+            + " LIMIT :limit")
+    List<String> getPrunableFinishedWorkWithTag(
+            @NonNull String tag,
+            long retainedUntil,
+            int limit);
+
     /**
      * Immediately prunes eligible work from the database meeting the following criteria:
      * - Is finished (succeeded, failed, or cancelled)
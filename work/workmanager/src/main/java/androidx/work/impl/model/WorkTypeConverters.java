@@ -58,6 +58,10 @@ public class WorkTypeConverters {
         int CANCELLED = 5;
 
         String COMPLETED_STATES = "(" + SUCCEEDED + ", " + FAILED + ", " + CANCELLED + ")";
+
+        // The complement of COMPLETED_STATES. Unlike NOT IN, an IN list can use an index on the
+        // state column.
+        String UNFINISHED_STATES = "(" + ENQUEUED + ", " + RUNNING + ", " + BLOCKED + ")";
     }
 
     /**
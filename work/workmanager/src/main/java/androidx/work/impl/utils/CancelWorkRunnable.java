@@ -17,24 +17,19 @@
 package androidx.work.impl.utils;
 
 import static androidx.work.WorkInfo.State.CANCELLED;
-import static androidx.work.WorkInfo.State.FAILED;
-import static androidx.work.WorkInfo.State.SUCCEEDED;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.RestrictTo;
 import androidx.annotation.WorkerThread;
 import androidx.work.Operation;
-import androidx.work.WorkInfo;
 import androidx.work.impl.OperationImpl;
 import androidx.work.impl.Processor;
 import androidx.work.impl.Scheduler;
 import androidx.work.impl.Schedulers;
 import androidx.work.impl.WorkDatabase;
 import androidx.work.impl.WorkManagerImpl;
-import androidx.work.impl.model.DependencyDao;
 import androidx.work.impl.model.WorkSpecDao;
 
-import java.util.LinkedList;
 import java.util.List;
 import java.util.UUID;
 
@@ -68,7 +63,8 @@ public abstract class CancelWorkRunnable implements Runnable {
     abstract void runInternal();
 
     void cancel(WorkManagerImpl workManagerImpl, String workSpecId) {
-        iterativelyCancelWorkAndDependents(workManagerImpl.getWorkDatabase(), workSpecId);
+        WorkSpecBatchUtils.setStateOfWorkAndDependents(
+                workManagerImpl.getWorkDatabase(), CANCELLED, workSpecId);
 
         Processor processor = workManagerImpl.getProcessor();
         processor.stopAndCancelWork(workSpecId);
@@ -85,24 +81,6 @@ public abstract class CancelWorkRunnable implements Runnable {
                 workManagerImpl.getSchedulers());
     }
 
-    private void iterativelyCancelWorkAndDependents(WorkDatabase workDatabase, String workSpecId) {
-        WorkSpecDao workSpecDao = workDatabase.workSpecDao();
-        DependencyDao dependencyDao = workDatabase.dependencyDao();
-
-        @SuppressWarnings("JdkObsolete") // TODO(b/141962522): Suppressed during upgrade to AGP 3.6.
-        LinkedList<String> idsToProcess = new LinkedList<>();
-        idsToProcess.add(workSpecId);
-        while (!idsToProcess.isEmpty()) {
-            String id = idsToProcess.remove();
-            // Don't fail already cancelled work.
-            WorkInfo.State state = workSpecDao.getState(id);
-            if (state != SUCCEEDED && state != FAILED) {
-                workSpecDao.setState(CANCELLED, id);
-            }
-            idsToProcess.addAll(dependencyDao.getDependentWorkIds(id));
-        }
-    }
-
     /**
      * Creates a {@link CancelWorkRunnable} that cancels work for a specific id.
      *
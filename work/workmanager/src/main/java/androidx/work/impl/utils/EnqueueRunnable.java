@@ -19,6 +19,7 @@ package androidx.work.impl.utils;
 import static androidx.work.ExistingWorkPolicy.APPEND;
 import static androidx.work.ExistingWorkPolicy.APPEND_OR_REPLACE;
 import static androidx.work.ExistingWorkPolicy.KEEP;
+import static androidx.work.ExistingWorkPolicy.REPLACE;
 import static androidx.work.WorkInfo.State.BLOCKED;
 import static androidx.work.WorkInfo.State.CANCELLED;
 import static androidx.work.WorkInfo.State.ENQUEUED;
@@ -58,11 +59,17 @@ import androidx.work.impl.workers.ConstraintTrackingWorker;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 
 /**
- * Manages the enqueuing of a {@link WorkContinuationImpl}.
+ * Manages the enqueuing of one or more {@link WorkContinuationImpl}s.
+ * <p>
+ * All the continuations are enqueued in a single transaction, followed by a single pass of the
+ * {@link Scheduler}s. The rows of the {@link WorkSpec}s, their dependencies, tags and names are
+ * inserted in batches, and unique work that would be superseded by later continuations of the
+ * same batch is not inserted at all.
  *
  * @hide
  */
@@ -71,26 +78,39 @@ public class EnqueueRunnable implements Runnable {
 
     private static final String TAG = Logger.tagWithPrefix("EnqueueRunnable");
 
-    private final WorkContinuationImpl mWorkContinuation;
+    private final WorkManagerImpl mWorkManagerImpl;
+    private final List<WorkContinuationImpl> mWorkContinuations;
     private final OperationImpl mOperation;
 
     public EnqueueRunnable(@NonNull WorkContinuationImpl workContinuation) {
-        mWorkContinuation = workContinuation;
+        this(workContinuation.getWorkManagerImpl(), Collections.singletonList(workContinuation));
+    }
+
+    /**
+     * Creates an {@link EnqueueRunnable} which enqueues several {@link WorkContinuationImpl}s, in
+     * order, as if each of them was enqueued separately.
+     */
+    public EnqueueRunnable(
+            @NonNull WorkManagerImpl workManagerImpl,
+            @NonNull List<WorkContinuationImpl> workContinuations) {
+        mWorkManagerImpl = workManagerImpl;
+        mWorkContinuations = workContinuations;
         mOperation = new OperationImpl();
     }
 
     @Override
     public void run() {
         try {
-            if (mWorkContinuation.hasCycles()) {
-                throw new IllegalStateException(
-                        String.format("WorkContinuation has cycles (%s)", mWorkContinuation));
+            for (WorkContinuationImpl workContinuation : mWorkContinuations) {
+                if (workContinuation.hasCycles()) {
+                    throw new IllegalStateException(
+                            String.format("WorkContinuation has cycles (%s)", workContinuation));
+                }
             }
             boolean needsScheduling = addToDatabase();
             if (needsScheduling) {
                 // Enable RescheduleReceiver, only when there are Worker's that need scheduling.
-                final Context context =
-                        mWorkContinuation.getWorkManagerImpl().getApplicationContext();
+                final Context context = mWorkManagerImpl.getApplicationContext();
                 PackageManagerHelper.setComponentEnabled(context, RescheduleReceiver.class, true);
                 scheduleWorkInBackground();
             }
@@ -114,11 +134,22 @@ public class EnqueueRunnable implements Runnable {
      */
     @VisibleForTesting
     public boolean addToDatabase() {
-        WorkManagerImpl workManagerImpl = mWorkContinuation.getWorkManagerImpl();
-        WorkDatabase workDatabase = workManagerImpl.getWorkDatabase();
+        WorkDatabase workDatabase = mWorkManagerImpl.getWorkDatabase();
         workDatabase.beginTransaction();
         try {
-            boolean needsScheduling = processContinuation(mWorkContinuation);
+            PendingRows pendingRows = new PendingRows(workDatabase);
+            boolean needsScheduling = false;
+            for (WorkContinuationImpl workContinuation :
+                    withoutSupersededUniqueWork(mWorkContinuations)) {
+                // A continuation may have been enqueued as the parent of a previous one.
+                if (workContinuation.isEnqueued()) {
+                    Logger.get().warning(TAG, String.format("Already enqueued work ids (%s).",
+                            TextUtils.join(", ", workContinuation.getIds())));
+                    continue;
+                }
+                needsScheduling |= processContinuation(workContinuation, pendingRows);
+            }
+            pendingRows.flush();
             workDatabase.setTransactionSuccessful();
             return needsScheduling;
         } finally {
@@ -131,14 +162,104 @@ public class EnqueueRunnable implements Runnable {
      */
     @VisibleForTesting
     public void scheduleWorkInBackground() {
-        WorkManagerImpl workManager = mWorkContinuation.getWorkManagerImpl();
         Schedulers.schedule(
-                workManager.getConfiguration(),
-                workManager.getWorkDatabase(),
-                workManager.getSchedulers());
+                mWorkManagerImpl.getConfiguration(),
+                mWorkManagerImpl.getWorkDatabase(),
+                mWorkManagerImpl.getSchedulers());
+    }
+
+    /**
+     * Drops the unique work which would be superseded by other continuations of the same batch if
+     * they were enqueued one after the other: everything before the last continuation with
+     * {@link ExistingWorkPolicy#REPLACE}, and every continuation with
+     * {@link ExistingWorkPolicy#KEEP} following one with {@link ExistingWorkPolicy#KEEP} or
+     * {@link ExistingWorkPolicy#REPLACE}. Only the beginnings of chains which no other
+     * continuation of the batch depends on are dropped. Dropped continuations are marked as
+     * enqueued.
+     */
+    private static List<WorkContinuationImpl> withoutSupersededUniqueWork(
+            @NonNull List<WorkContinuationImpl> workContinuations) {
+        if (workContinuations.size() < 2) {
+            return workContinuations;
+        }
+        Set<WorkContinuationImpl> parents = new HashSet<>();
+        for (WorkContinuationImpl workContinuation : workContinuations) {
+            addParents(workContinuation, parents);
+        }
+
+        boolean[] dropped = new boolean[workContinuations.size()];
+        // The last continuation with REPLACE supersedes the previous ones with the same name.
+        Set<String> replacedNames = new HashSet<>();
+        for (int i = workContinuations.size() - 1; i >= 0; i--) {
+            WorkContinuationImpl workContinuation = workContinuations.get(i);
+            if (!isUniqueChainStart(workContinuation, parents)) {
+                continue;
+            }
+            String name = workContinuation.getName();
+            if (replacedNames.contains(name)) {
+                dropped[i] = true;
+            } else if (workContinuation.getExistingWorkPolicy() == REPLACE) {
+                replacedNames.add(name);
+            }
+        }
+        // A continuation with KEEP is superseded by a previous one with KEEP or REPLACE.
+        Set<String> keptNames = new HashSet<>();
+        for (int i = 0; i < workContinuations.size(); i++) {
+            WorkContinuationImpl workContinuation = workContinuations.get(i);
+            if (dropped[i] || !isUniqueChainStart(workContinuation, parents)) {
+                continue;
+            }
+            String name = workContinuation.getName();
+            ExistingWorkPolicy existingWorkPolicy = workContinuation.getExistingWorkPolicy();
+            if (existingWorkPolicy == KEEP && keptNames.contains(name)) {
+                dropped[i] = true;
+            } else if (existingWorkPolicy == KEEP || existingWorkPolicy == REPLACE) {
+                keptNames.add(name);
+            }
+        }
+
+        List<WorkContinuationImpl> remaining = new ArrayList<>(workContinuations.size());
+        for (int i = 0; i < workContinuations.size(); i++) {
+            WorkContinuationImpl workContinuation = workContinuations.get(i);
+            if (dropped[i]) {
+                Logger.get().debug(TAG, String.format(
+                        "Not enqueuing work ids (%s), superseded by unique work %s",
+                        TextUtils.join(", ", workContinuation.getIds()),
+                        workContinuation.getName()));
+                workContinuation.markEnqueued();
+            } else {
+                remaining.add(workContinuation);
+            }
+        }
+        return remaining;
     }
 
-    private static boolean processContinuation(@NonNull WorkContinuationImpl workContinuation) {
+    private static void addParents(
+            @NonNull WorkContinuationImpl workContinuation,
+            @NonNull Set<WorkContinuationImpl> parents) {
+        List<WorkContinuationImpl> continuationParents = workContinuation.getParents();
+        if (continuationParents != null) {
+            for (WorkContinuationImpl parent : continuationParents) {
+                if (parents.add(parent)) {
+                    addParents(parent, parents);
+                }
+            }
+        }
+    }
+
+    private static boolean isUniqueChainStart(
+            @NonNull WorkContinuationImpl workContinuation,
+            @NonNull Set<WorkContinuationImpl> parents) {
+        List<WorkContinuationImpl> continuationParents = workContinuation.getParents();
+        return !TextUtils.isEmpty(workContinuation.getName())
+                && (continuationParents == null || continuationParents.isEmpty())
+                && !workContinuation.isEnqueued()
+                && !parents.contains(workContinuation);
+    }
+
+    private static boolean processContinuation(
+            @NonNull WorkContinuationImpl workContinuation,
+            @NonNull PendingRows pendingRows) {
         boolean needsScheduling = false;
         List<WorkContinuationImpl> parents = workContinuation.getParents();
         if (parents != null) {
@@ -146,22 +267,25 @@ public class EnqueueRunnable implements Runnable {
                 // When chaining off a completed continuation we need to pay
                 // attention to parents that may have been marked as enqueued before.
                 if (!parent.isEnqueued()) {
-                    needsScheduling |= processContinuation(parent);
+                    needsScheduling |= processContinuation(parent, pendingRows);
                 } else {
                     Logger.get().warning(TAG, String.format("Already enqueued work ids (%s).",
                             TextUtils.join(", ", parent.getIds())));
                 }
             }
         }
-        needsScheduling |= enqueueContinuation(workContinuation);
+        needsScheduling |= enqueueContinuation(workContinuation, pendingRows);
         return needsScheduling;
     }
 
-    private static boolean enqueueContinuation(@NonNull WorkContinuationImpl workContinuation) {
+    private static boolean enqueueContinuation(
+            @NonNull WorkContinuationImpl workContinuation,
+            @NonNull PendingRows pendingRows) {
         Set<String> prerequisiteIds = WorkContinuationImpl.prerequisitesFor(workContinuation);
 
         boolean needsScheduling = enqueueWorkWithPrerequisites(
                 workContinuation.getWorkManagerImpl(),
+                pendingRows,
                 workContinuation.getWork(),
                 prerequisiteIds.toArray(new String[0]),
                 workContinuation.getName(),
@@ -178,6 +302,7 @@ public class EnqueueRunnable implements Runnable {
      */
     private static boolean enqueueWorkWithPrerequisites(
             WorkManagerImpl workManagerImpl,
+            @NonNull PendingRows pendingRows,
             @NonNull List<? extends WorkRequest> workList,
             String[] prerequisiteIds,
             String name,
@@ -198,6 +323,7 @@ public class EnqueueRunnable implements Runnable {
             // anything.  Prerequisites may not exist if we are using unique tags, because the
             // chain of work could have been wiped out already.
             for (String id : prerequisiteIds) {
+                pendingRows.flushIfPending(id);
                 WorkSpec prerequisiteWorkSpec = workDatabase.workSpecDao().getWorkSpec(id);
                 if (prerequisiteWorkSpec == null) {
                     Logger.get().error(TAG,
@@ -221,6 +347,7 @@ public class EnqueueRunnable implements Runnable {
         // chains.
         boolean shouldApplyExistingWorkPolicy = isNamed && !hasPrerequisite;
         if (shouldApplyExistingWorkPolicy) {
+            pendingRows.flushBeforeResolvingName(name);
             // Get everything with the unique tag.
             List<WorkSpec.IdAndState> existingWorkSpecIdAndStates =
                     workDatabase.workSpecDao().getWorkSpecIdAndStatesForName(name);
@@ -243,6 +370,7 @@ public class EnqueueRunnable implements Runnable {
                     }
                     if (existingWorkPolicy == APPEND_OR_REPLACE) {
                         if (hasCancelledPrerequisites || hasFailedPrerequisites) {
+                            pendingRows.flush();
                             // Delete all WorkSpecs with this name
                             WorkSpecDao workSpecDao = workDatabase.workSpecDao();
                             List<WorkSpec.IdAndState> idAndStates =
@@ -269,6 +397,9 @@ public class EnqueueRunnable implements Runnable {
                         }
                     }
 
+                    // Cancelling also affects the dependents of these workers.
+                    pendingRows.flush();
+
                     // Cancel all of these workers.
                     // Don't allow rescheduling in CancelWorkRunnable because it will happen inside
                     // the current transaction.  We want it to happen separately to avoid race
@@ -331,21 +462,20 @@ public class EnqueueRunnable implements Runnable {
                 needsScheduling = true;
             }
 
-            workDatabase.workSpecDao().insertWorkSpec(workSpec);
+            pendingRows.addWorkSpec(workSpec);
 
             if (hasPrerequisite) {
                 for (String prerequisiteId : prerequisiteIds) {
-                    Dependency dep = new Dependency(work.getStringId(), prerequisiteId);
-                    workDatabase.dependencyDao().insertDependency(dep);
+                    pendingRows.addDependency(new Dependency(work.getStringId(), prerequisiteId));
                 }
             }
 
             for (String tag : work.getTags()) {
-                workDatabase.workTagDao().insert(new WorkTag(tag, work.getStringId()));
+                pendingRows.addTag(new WorkTag(tag, work.getStringId()));
             }
 
             if (isNamed) {
-                workDatabase.workNameDao().insert(new WorkName(name, work.getStringId()));
+                pendingRows.addName(new WorkName(name, work.getStringId()));
             }
         }
         return needsScheduling;
@@ -396,4 +526,82 @@ public class EnqueueRunnable implements Runnable {
             return false;
         }
     }
+
+    /**
+     * The rows to insert for the enqueued work, which are inserted in batches. They must be
+     * flushed before reading or modifying the rows they could affect.
+     */
+    private static final class PendingRows {
+        private final WorkDatabase mWorkDatabase;
+        private final List<WorkSpec> mWorkSpecs = new ArrayList<>();
+        private final List<Dependency> mDependencies = new ArrayList<>();
+        private final List<WorkTag> mTags = new ArrayList<>();
+        private final List<WorkName> mNames = new ArrayList<>();
+        private final Set<String> mIds = new HashSet<>();
+        private final Set<String> mUniqueNames = new HashSet<>();
+
+        PendingRows(@NonNull WorkDatabase workDatabase) {
+            mWorkDatabase = workDatabase;
+        }
+
+        void addWorkSpec(@NonNull WorkSpec workSpec) {
+            mWorkSpecs.add(workSpec);
+            mIds.add(workSpec.id);
+        }
+
+        void addDependency(@NonNull Dependency dependency) {
+            mDependencies.add(dependency);
+        }
+
+        void addTag(@NonNull WorkTag tag) {
+            mTags.add(tag);
+        }
+
+        void addName(@NonNull WorkName name) {
+            mNames.add(name);
+            mUniqueNames.add(name.name);
+        }
+
+        /**
+         * Flushes the rows if the {@link WorkSpec} with the given id is pending.
+         */
+        void flushIfPending(@NonNull String id) {
+            if (mIds.contains(id)) {
+                flush();
+            }
+        }
+
+        /**
+         * Flushes the rows if they could change the work with the given name, or which of it has
+         * dependents.
+         */
+        void flushBeforeResolvingName(@NonNull String name) {
+            if (mUniqueNames.contains(name) || !mDependencies.isEmpty()) {
+                flush();
+            }
+        }
+
+        void flush() {
+            if (mWorkSpecs.isEmpty()) {
+                return;
+            }
+            // WorkSpecs first, the other rows reference them.
+            mWorkDatabase.workSpecDao().insertWorkSpecs(mWorkSpecs);
+            if (!mDependencies.isEmpty()) {
+                mWorkDatabase.dependencyDao().insertDependencies(mDependencies);
+            }
+            if (!mTags.isEmpty()) {
+                mWorkDatabase.workTagDao().insert(mTags);
+            }
+            if (!mNames.isEmpty()) {
+                mWorkDatabase.workNameDao().insert(mNames);
+            }
+            mWorkSpecs.clear();
+            mDependencies.clear();
+            mTags.clear();
+            mNames.clear();
+            mIds.clear();
+            mUniqueNames.clear();
+        }
+    }
 }
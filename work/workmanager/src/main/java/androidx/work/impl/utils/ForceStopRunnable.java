@@ -188,6 +188,9 @@ public class ForceStopRunnable implements Runnable {
                     mWorkManager.getSchedulers());
         }
         mWorkManager.onForceStopRunnableCompleted();
+        // Prune the finished work which the retention policy does not keep. Further passes, if
+        // needed, are scheduled by the runnable itself.
+        new PruneWorkRunnable(mWorkManager, true).run();
     }
 
     /**
@@ -16,29 +16,54 @@
 
 package androidx.work.impl.utils;
 
+import androidx.annotation.OptIn;
 import androidx.annotation.RestrictTo;
+import androidx.work.ExperimentalWorkApi;
 import androidx.work.Operation;
+import androidx.work.RetentionPolicy;
 import androidx.work.impl.OperationImpl;
-import androidx.work.impl.WorkDatabase;
 import androidx.work.impl.WorkManagerImpl;
-import androidx.work.impl.model.WorkSpecDao;
 
 /**
  * A Runnable that prunes work in the background.  Pruned work meets the following criteria:
  * - Is finished (succeeded, failed, or cancelled)
  * - Has zero unfinished dependents
+ * - Is not kept by the {@link RetentionPolicy}, unless the runnable ignores it
+ * <p>
+ * Work is pruned by a {@link WorkSpecPruner}, in small transactions. Once a pass of the pruner
+ * runs out of time, the runnable is posted again to the background executor so that other tasks
+ * can run in between. When it applies the {@link RetentionPolicy}, the runnable waits
+ * {@link #PASS_DELAY_MILLIS} before running the next pass.
  *
  * @hide
  */
+@OptIn(markerClass = ExperimentalWorkApi.class)
 @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
 public class PruneWorkRunnable implements Runnable {
 
-    private final WorkManagerImpl mWorkManagerImpl;
+    // The delay between the passes applying the retention policy.
+    static final long PASS_DELAY_MILLIS = 1000L;
+
+    final WorkManagerImpl mWorkManagerImpl;
     private final OperationImpl mOperation;
+    private final boolean mApplyRetentionPolicy;
 
+    /**
+     * Creates a {@link PruneWorkRunnable} which prunes all finished work, regardless of the
+     * {@link RetentionPolicy} and of the minimum retention duration of the work.
+     */
     public PruneWorkRunnable(WorkManagerImpl workManagerImpl) {
+        this(workManagerImpl, false);
+    }
+
+    /**
+     * @param applyRetentionPolicy {@code true} to only prune the work which the
+     *                             {@link RetentionPolicy} does not keep
+     */
+    public PruneWorkRunnable(WorkManagerImpl workManagerImpl, boolean applyRetentionPolicy) {
         mWorkManagerImpl = workManagerImpl;
         mOperation = new OperationImpl();
+        mApplyRetentionPolicy = applyRetentionPolicy;
     }
 
     /**
@@ -52,12 +77,35 @@ public class PruneWorkRunnable implements Runnable {
     @Override
     public void run() {
         try {
-            WorkDatabase workDatabase = mWorkManagerImpl.getWorkDatabase();
-            WorkSpecDao workSpecDao = workDatabase.workSpecDao();
-            workSpecDao.pruneFinishedWorkWithZeroDependentsIgnoringKeepForAtLeast();
+            WorkSpecPruner pruner = new WorkSpecPruner(
+                    mWorkManagerImpl.getWorkDatabase(),
+                    mWorkManagerImpl.getConfiguration().getRetentionPolicy());
+            WorkSpecPruner.Pass pass = mApplyRetentionPolicy
+                    ? pruner.prune()
+                    : pruner.pruneIgnoringRetentionPolicy();
+            if (!pass.isComplete()) {
+                scheduleNextPass();
+                return;
+            }
             mOperation.setState(Operation.SUCCESS);
         } catch (Throwable exception) {
             mOperation.setState(new Operation.State.FAILURE(exception));
         }
     }
+
+    private void scheduleNextPass() {
+        if (!mApplyRetentionPolicy) {
+            mWorkManagerImpl.getWorkTaskExecutor().executeOnBackgroundThread(this);
+            return;
+        }
+        mWorkManagerImpl.getConfiguration().getRunnableScheduler().scheduleWithDelay(
+                PASS_DELAY_MILLIS,
+                new Runnable() {
+                    @Override
+                    public void run() {
+                        mWorkManagerImpl.getWorkTaskExecutor()
+                                .executeOnBackgroundThread(PruneWorkRunnable.this);
+                    }
+                });
+    }
 }
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.work.impl.utils;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.RestrictTo;
+import androidx.room.RoomDatabase;
+import androidx.work.WorkInfo;
+import androidx.work.impl.WorkDatabase;
+import androidx.work.impl.model.DependencyDao;
+import androidx.work.impl.model.WorkSpecDao;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Updates {@link androidx.work.impl.model.WorkSpec}s in batches, rather than one id at a time.
+ *
+ * @hide
+ */
+@RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
+public final class WorkSpecBatchUtils {
+
+    private WorkSpecBatchUtils() {
+    }
+
+    /**
+     * Sets the state of a {@link androidx.work.impl.model.WorkSpec}, and of all the
+     * {@link androidx.work.impl.model.WorkSpec}s which depend on it directly or not, unless they
+     * are already finished. Each level of the dependency graph is updated with a single statement
+     * per batch. This should be called in a transaction.
+     *
+     * @param workDatabase The {@link WorkDatabase}
+     * @param state        The new state
+     * @param workSpecId   The identifier of the {@link androidx.work.impl.model.WorkSpec}
+     */
+    public static void setStateOfWorkAndDependents(
+            @NonNull WorkDatabase workDatabase,
+            @NonNull WorkInfo.State state,
+            @NonNull String workSpecId) {
+        WorkSpecDao workSpecDao = workDatabase.workSpecDao();
+        DependencyDao dependencyDao = workDatabase.dependencyDao();
+        List<String> ids = Collections.singletonList(workSpecId);
+        while (!ids.isEmpty()) {
+            // Work with several prerequisites is only visited once per level.
+            Set<String> dependentIds = new LinkedHashSet<>();
+            for (List<String> batch : batches(ids, 1)) {
+                workSpecDao.setStateOfUnfinishedWork(state, batch);
+                dependentIds.addAll(dependencyDao.getDependentWorkIds(batch));
+            }
+            ids = new ArrayList<>(dependentIds);
+        }
+    }
+
+    /**
+     * Splits identifiers in lists which are small enough to be bound to a single query, along
+     * with the other arguments of that query.
+     *
+     * @param ids                The identifiers
+     * @param otherArgumentCount The number of arguments the query binds besides the identifiers
+     * @return The batches of identifiers
+     */
+    @NonNull
+    public static List<List<String>> batches(@NonNull List<String> ids, int otherArgumentCount) {
+        int batchSize = RoomDatabase.MAX_BIND_PARAMETER_CNT - otherArgumentCount;
+        if (ids.size() <= batchSize) {
+            return Collections.singletonList(ids);
+        }
+        List<List<String>> batches = new ArrayList<>();
+        for (int start = 0; start < ids.size(); start += batchSize) {
+            batches.add(ids.subList(start, Math.min(start + batchSize, ids.size())));
+        }
+        return batches;
+    }
+}
@@ -0,0 +1,268 @@
+/*
+ * Copyright 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.work.impl.utils;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.OptIn;
+import androidx.annotation.RestrictTo;
+import androidx.annotation.VisibleForTesting;
+import androidx.annotation.WorkerThread;
+import androidx.work.ExperimentalWorkApi;
+import androidx.work.Logger;
+import androidx.work.RetentionPolicy;
+import androidx.work.impl.WorkDatabase;
+import androidx.work.impl.model.WorkSpecDao;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Prunes finished work in small transactions, so that pruning a large database does not block
+ * other writes for long.
+ * <p>
+ * Each call to {@link #prune()} or {@link #pruneIgnoringRetentionPolicy()} is a pass, which
+ * deletes batches of {@link androidx.work.impl.model.WorkSpec}s, each in its own transaction, until
+ * nothing is left to prune or the time slice of the pass is used up. In the latter case, another
+ * pass should be run later. Deleting a {@link androidx.work.impl.model.WorkSpec} also deletes its
+ * tags, names, progress and dependencies.
+ *
+ * @hide
+ */
+@OptIn(markerClass = ExperimentalWorkApi.class)
+@RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
+public class WorkSpecPruner {
+
+    private static final String TAG = Logger.tagWithPrefix("WorkSpecPruner");
+
+    // The number of WorkSpecs deleted in each transaction.
+    static final int BATCH_SIZE = 100;
+    // The duration after which a pass stops starting new transactions.
+    static final long TIME_SLICE_MILLIS = 100;
+
+    private final WorkDatabase mWorkDatabase;
+    private final WorkSpecDao mWorkSpecDao;
+    private final RetentionPolicy mRetentionPolicy;
+    private final int mBatchSize;
+    private final long mTimeSliceNanos;
+
+    public WorkSpecPruner(
+            @NonNull WorkDatabase workDatabase,
+            @NonNull RetentionPolicy retentionPolicy) {
+        this(workDatabase, retentionPolicy, BATCH_SIZE, TIME_SLICE_MILLIS);
+    }
+
+    @VisibleForTesting
+    public WorkSpecPruner(
+            @NonNull WorkDatabase workDatabase,
+            @NonNull RetentionPolicy retentionPolicy,
+            int batchSize,
+            long timeSliceMillis) {
+        mWorkDatabase = workDatabase;
+        mWorkSpecDao = workDatabase.workSpecDao();
+        mRetentionPolicy = retentionPolicy;
+        mBatchSize = batchSize;
+        mTimeSliceNanos = TimeUnit.MILLISECONDS.toNanos(timeSliceMillis);
+    }
+
+    /**
+     * Runs a pass which prunes the finished work which the {@link RetentionPolicy} does not keep:
+     * work older than its maximum age first, then the oldest work with each tag which exceeds its
+     * quota, then the oldest work if the total quota is exceeded.
+     *
+     * @return The {@link Pass} that was run
+     */
+    @WorkerThread
+    @NonNull
+    public Pass prune() {
+        long deadline = System.nanoTime() + mTimeSliceNanos;
+        long now = System.currentTimeMillis();
+        Pass pass = new Pass();
+
+        // Work older than the maximum age.
+        long retainedUntil = now - mRetentionPolicy.getMaxAgeMillis();
+        while (!pass.mTimedOut) {
+            int deleted = deleteBatch(null, retainedUntil, mBatchSize);
+            pass.mDeletedByAge += deleted;
+            if (deleted < mBatchSize) {
+                break;
+            }
+            pass.mTimedOut = System.nanoTime() >= deadline;
+        }
+
+        // Work exceeding the quotas of its tags. The quotas do not apply to work which is still
+        // within its minimum retention duration, but it counts towards them.
+        for (Map.Entry<String, Integer> entry :
+                mRetentionPolicy.getMaxFinishedWorkCountsByTag().entrySet()) {
+            if (pass.mTimedOut) {
+                break;
+            }
+            String tag = entry.getKey();
+            int excess = mWorkSpecDao.getFinishedWorkCountForTag(tag) - entry.getValue();
+            while (excess > 0 && !pass.mTimedOut) {
+                int limit = Math.min(excess, mBatchSize);
+                int deleted = deleteBatch(tag, now, limit);
+                pass.mDeletedByTagQuota += deleted;
+                if (deleted < limit) {
+                    break;
+                }
+                excess -= deleted;
+                pass.mTimedOut = System.nanoTime() >= deadline;
+            }
+        }
+
+        // Work exceeding the total quota.
+        int maxCount = mRetentionPolicy.getMaxFinishedWorkCount();
+        if (!pass.mTimedOut && maxCount != RetentionPolicy.UNLIMITED) {
+            int excess = mWorkSpecDao.getFinishedWorkCount() - maxCount;
+            while (excess > 0 && !pass.mTimedOut) {
+                int limit = Math.min(excess, mBatchSize);
+                int deleted = deleteBatch(null, now, limit);
+                pass.mDeletedByCountQuota += deleted;
+                if (deleted < limit) {
+                    break;
+                }
+                excess -= deleted;
+                pass.mTimedOut = System.nanoTime() >= deadline;
+            }
+        }
+
+        log(pass);
+        return pass;
+    }
+
+    /**
+     * Runs a pass which prunes all the finished work with zero unfinished dependents, regardless
+     * of the {@link RetentionPolicy} and of the minimum retention duration of the work.
+     *
+     * @return The {@link Pass} that was run
+     */
+    @WorkerThread
+    @NonNull
+    public Pass pruneIgnoringRetentionPolicy() {
+        long deadline = System.nanoTime() + mTimeSliceNanos;
+        Pass pass = new Pass();
+        while (!pass.mTimedOut) {
+            int deleted;
+            mWorkDatabase.beginTransaction();
+            try {
+                List<String> ids =
+                        mWorkSpecDao.getFinishedWorkWithZeroDependentsIgnoringKeepForAtLeast(
+                                mBatchSize);
+                deleted = ids.isEmpty() ? 0 : mWorkSpecDao.delete(ids);
+                mWorkDatabase.setTransactionSuccessful();
+            } finally {
+                mWorkDatabase.endTransaction();
+            }
+            pass.mDeletedIgnoringRetentionPolicy += deleted;
+            if (deleted < mBatchSize) {
+                break;
+            }
+            pass.mTimedOut = System.nanoTime() >= deadline;
+        }
+        Logger.get().debug(TAG, String.format(
+                "Pruned %s WorkSpecs ignoring the retention policy%s",
+                pass.getDeletedCount(),
+                pass.isComplete() ? "" : ", more remain"));
+        return pass;
+    }
+
+    private int deleteBatch(String tag, long retainedUntil, int limit) {
+        mWorkDatabase.beginTransaction();
+        try {
+            List<String> ids = tag == null
+                    ? mWorkSpecDao.getPrunableFinishedWork(retainedUntil, limit)
+                    : mWorkSpecDao.getPrunableFinishedWorkWithTag(tag, retainedUntil, limit);
+            int deleted = ids.isEmpty() ? 0 : mWorkSpecDao.delete(ids);
+            mWorkDatabase.setTransactionSuccessful();
+            return deleted;
+        } finally {
+            mWorkDatabase.endTransaction();
+        }
+    }
+
+    private static void log(Pass pass) {
+        Logger.get().debug(TAG, String.format(
+                "Pruned %s WorkSpecs (%s by age, %s by tag quota, %s by count quota)%s",
+                pass.getDeletedCount(),
+                pass.getDeletedByAge(),
+                pass.getDeletedByTagQuota(),
+                pass.getDeletedByCountQuota(),
+                pass.isComplete() ? "" : ", more remain"));
+    }
+
+    /**
+     * The outcome of a pruning pass.
+     */
+    public static final class Pass {
+        int mDeletedByAge;
+        int mDeletedByTagQuota;
+        int mDeletedByCountQuota;
+        int mDeletedIgnoringRetentionPolicy;
+        boolean mTimedOut;
+
+        Pass() {
+        }
+
+        /**
+         * @return The number of {@link androidx.work.impl.model.WorkSpec}s deleted because they
+         * were older than the maximum age
+         */
+        public int getDeletedByAge() {
+            return mDeletedByAge;
+        }
+
+        /**
+         * @return The number of {@link androidx.work.impl.model.WorkSpec}s deleted because they
+         * exceeded the quota of one of their tags
+         */
+        public int getDeletedByTagQuota() {
+            return mDeletedByTagQuota;
+        }
+
+        /**
+         * @return The number of {@link androidx.work.impl.model.WorkSpec}s deleted because they
+         * exceeded the total quota
+         */
+        public int getDeletedByCountQuota() {
+            return mDeletedByCountQuota;
+        }
+
+        /**
+         * @return The number of {@link androidx.work.impl.model.WorkSpec}s deleted by
+         * {@link WorkSpecPruner#pruneIgnoringRetentionPolicy()}
+         */
+        public int getDeletedIgnoringRetentionPolicy() {
+            return mDeletedIgnoringRetentionPolicy;
+        }
+
+        /**
+         * @return The total number of {@link androidx.work.impl.model.WorkSpec}s deleted
+         */
+        public int getDeletedCount() {
+            return mDeletedByAge + mDeletedByTagQuota + mDeletedByCountQuota
+                    + mDeletedIgnoringRetentionPolicy;
+        }
+
+        /**
+         * @return {@code false} if the pass ran out of time before everything was pruned
+         */
+        public boolean isComplete() {
+            return !mTimedOut;
+        }
+    }
+}
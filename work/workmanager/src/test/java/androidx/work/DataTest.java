@@ -27,6 +27,10 @@ import androidx.annotation.NonNull;
 
 import org.junit.Test;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -89,6 +93,64 @@ public class DataTest {
         assertThat(restoredData.getIntArray(KEY2), is(equalTo(expectedValue2)));
     }
 
+    @Test
+    public void testSerializeAllTypes() {
+        Data data = new Data.Builder()
+                .putAll(createData())
+                .putBoolean("boolean", true)
+                .putLong("long", Long.MIN_VALUE)
+                .putInt("negative int", -1)
+                .putDouble("double", Double.NaN)
+                .putString("unicode", "\u00e9\u0000\ud83d\ude00\ud800")
+                .putBooleanArray("boolean array", new boolean[]{true, false})
+                .putIntArray("int array", new int[]{Integer.MIN_VALUE, 0, Integer.MAX_VALUE})
+                .putFloatArray("float array", new float[]{-0f, Float.MAX_VALUE})
+                .putDoubleArray("double array", new double[]{})
+                .putStringArray("string array", new String[]{"a", null, ""})
+                .put("boxed array", new Integer[]{1, null, 3})
+                .build();
+
+        Data restoredData = Data.fromByteArray(data.toByteArray());
+
+        assertThat(restoredData, is(data));
+        assertThat(restoredData.getString("unicode"), is("\u00e9\u0000\ud83d\ude00\ud800"));
+    }
+
+    @Test
+    public void testDeserializeJavaSerialization() throws IOException {
+        Data data = new Data.Builder()
+                .putAll(createData())
+                .putStringArray("string array", new String[]{"a", null, ""})
+                .build();
+
+        Data restoredData = Data.fromByteArray(serializeWithObjectOutputStream(data));
+
+        assertThat(restoredData, is(data));
+    }
+
+    @Test
+    public void testSerializedSizeIsSmallerThanJavaSerialization() throws IOException {
+        Data data = createData();
+        assertThat(data.toByteArray().length * 4 < serializeWithObjectOutputStream(data).length,
+                is(true));
+    }
+
+    @Test
+    public void testDecodeTruncated() {
+        Data data = new Data.Builder().putString(KEY1, "value1").putInt(KEY2, 2).build();
+        byte[] byteArray = data.toByteArray();
+        Map<String, Object> values = new HashMap<>();
+        boolean caughtIOException = false;
+        try {
+            DataCodec.decode(Arrays.copyOf(byteArray, byteArray.length - 1), values);
+        } catch (IOException e) {
+            caughtIOException = true;
+        }
+        assertThat(caughtIOException, is(true));
+        // The values before the truncated one are kept.
+        assertThat(values.size(), is(1));
+    }
+
     @Test
     public void testSerializePastMaxSize() {
         int[] payload = new int[Data.MAX_DATA_BYTES + 1];
@@ -230,6 +292,21 @@ public class DataTest {
         assertThat(caughtIllegalArgumentException, is(true));
     }
 
+    /**
+     * Serializes data as earlier versions of WorkManager did.
+     */
+    private static byte[] serializeWithObjectOutputStream(Data data) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        ObjectOutputStream objectOutputStream = new ObjectOutputStream(outputStream);
+        objectOutputStream.writeInt(data.size());
+        for (Map.Entry<String, Object> entry : data.getKeyValueMap().entrySet()) {
+            objectOutputStream.writeUTF(entry.getKey());
+            objectOutputStream.writeObject(entry.getValue());
+        }
+        objectOutputStream.close();
+        return outputStream.toByteArray();
+    }
+
     @NonNull
     private Data createData() {
         Map<String, Object> map = new HashMap<>();